@@ -0,0 +1,131 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the searches crossing the antimeridian, on the uniform dataset moved to 175 to -175 degrees
+ * of longitude, i.e. around Fiji: radius searches whose circle crosses the antimeridian against the same
+ * searches away from it, and bounding boxes crossing the antimeridian against searching their two parts
+ * one after the other and merging the results.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AntimeridianBenchmark {
+
+	private static final double BOX_SIZE = 0.02;
+
+	@Param({ "100000", "1000000" })
+	private int size;
+
+	@Param({ "2", "50" })
+	private double radius;
+
+	private KDTree<Long, Object> kdTree;
+
+	private Point[] crossingPoints;
+
+	private Point[] points;
+
+	private BoundingBox[] crossingBoxes;
+
+	private BoundingBox[][] boxParts;
+
+	private int query;
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, Distribution.UNIFORM);
+		List<KDTreeObject<Long, Object>> objects = new ArrayList<>();
+		for (KDTreeObject<Long, Object> object : dataset.objects(InsertOrder.SHUFFLED)) {
+			objects.add(new KDTreeObject.Builder<Long, Object>()
+					.id(object.getId())
+					.latitude(object.getPoint().getLatitude())
+					.longitude(wrap(object.getPoint().getLongitude() + 125))
+					.build());
+		}
+		this.kdTree = KDTree.bulkLoad(objects);
+
+		Random random = new Random(42);
+		Point[] queryPoints = dataset.queryPoints();
+		this.crossingPoints = new Point[Dataset.QUERIES];
+		this.points = new Point[Dataset.QUERIES];
+		this.crossingBoxes = new BoundingBox[Dataset.QUERIES];
+		this.boxParts = new BoundingBox[Dataset.QUERIES][];
+		for (int i = 0; i < Dataset.QUERIES; i++) {
+			double latitude = queryPoints[i].getLatitude();
+			// Within a hundredth of a degree of the antimeridian, on either side, or a degree and more away from it
+			double offset = random.nextDouble() * 0.01;
+			this.crossingPoints[i] = point(latitude, i % 2 == 0 ? 180 - offset : -180 + offset);
+			this.points[i] = point(latitude, i % 2 == 0 ? 177 + offset : -177 - offset);
+			this.crossingBoxes[i] = new BoundingBox.Builder()
+					.lowerPoint(point(latitude, 180 - BOX_SIZE / 2 - offset))
+					.upperPoint(point(latitude + BOX_SIZE, -180 + BOX_SIZE / 2 - offset))
+					.build();
+			this.boxParts[i] = this.crossingBoxes[i].splitAtAntimeridian();
+		}
+	}
+
+	private static double wrap(double longitude) {
+		return longitude > 180 ? longitude - 360 : longitude;
+	}
+
+	private static Point point(double latitude, double longitude) {
+		return new Point.Builder()
+				.latitude(latitude)
+				.longitude(longitude)
+				.build();
+	}
+
+	private int nextQuery() {
+		this.query = (this.query + 1) & (Dataset.QUERIES - 1);
+		return this.query;
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findNearestNeighborAcrossAntimeridian() {
+		return this.kdTree.findNearestNeighbor(this.crossingPoints[nextQuery()], this.radius);
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findNearestNeighborAwayFromAntimeridian() {
+		return this.kdTree.findNearestNeighbor(this.points[nextQuery()], this.radius);
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findInRangeAcrossAntimeridian() {
+		return this.kdTree.findInRange(this.crossingBoxes[nextQuery()]);
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findInRangeAsTwoQueries() {
+		BoundingBox[] parts = this.boxParts[nextQuery()];
+		List<KDTreeObject<Long, Object>> result = this.kdTree.findInRange(parts[0]);
+		result.addAll(this.kdTree.findInRange(parts[1]));
+		return result;
+	}
+}
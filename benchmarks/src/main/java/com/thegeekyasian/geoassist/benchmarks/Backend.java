@@ -0,0 +1,120 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.List;
+
+import com.thegeekyasian.geoassist.grid.GridIndex;
+import com.thegeekyasian.geoassist.kdtree.ConcurrentKDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.ShardedKDTree;
+import com.thegeekyasian.geoassist.kdtree.SnapshotKDTree;
+import com.thegeekyasian.geoassist.kdtree.SpatialIndex;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * The spatial index backend being benchmarked.
+ *
+ * @author The Geeky Asian
+ */
+public enum Backend {
+
+	/**
+	 * A KDTree, kept balanced as objects are inserted and moved.
+	 */
+	KDTREE {
+		@Override
+		SpatialIndex<Long, Object> create(List<KDTreeObject<Long, Object>> objects) {
+			return balancedKDTree(objects);
+		}
+
+		@Override
+		void moveTo(SpatialIndex<Long, Object> index, Long id, Point point) {
+			((KDTree<Long, Object>) index).moveTo(id, point);
+		}
+	},
+
+	/**
+	 * A balanced KDTree, wrapped in a ConcurrentKDTree.
+	 */
+	CONCURRENT {
+		@Override
+		SpatialIndex<Long, Object> create(List<KDTreeObject<Long, Object>> objects) {
+			return new ConcurrentKDTree<>(balancedKDTree(objects));
+		}
+
+		@Override
+		void moveTo(SpatialIndex<Long, Object> index, Long id, Point point) {
+			((ConcurrentKDTree<Long, Object>) index).moveTo(id, point);
+		}
+	},
+
+	/**
+	 * A balanced KDTree, wrapped in a SnapshotKDTree, which moves objects by deleting and inserting them.
+	 */
+	SNAPSHOT {
+		@Override
+		SpatialIndex<Long, Object> create(List<KDTreeObject<Long, Object>> objects) {
+			return new SnapshotKDTree.Builder<Long, Object>()
+					.kdTree(KDTree.bulkLoad(objects))
+					.build();
+		}
+
+		@Override
+		void moveTo(SpatialIndex<Long, Object> index, Long id, Point point) {
+			index.delete(id);
+			index.insert(new KDTreeObject.Builder<Long, Object>()
+					.id(id)
+					.latitude(point.getLatitude())
+					.longitude(point.getLongitude())
+					.build());
+		}
+	},
+
+	/**
+	 * A ShardedKDTree, with a shard per tile of 1 degree, each kept balanced.
+	 */
+	SHARDED {
+		@Override
+		SpatialIndex<Long, Object> create(List<KDTreeObject<Long, Object>> objects) {
+			return new ShardedKDTree.Builder<Long, Object>()
+					.tileSize(1)
+					.balanceFactor(0.7)
+					.objects(objects)
+					.build();
+		}
+
+		@Override
+		void moveTo(SpatialIndex<Long, Object> index, Long id, Point point) {
+			((ShardedKDTree<Long, Object>) index).moveTo(id, point);
+		}
+	},
+
+	/**
+	 * A GridIndex, with cells of 0.02 degrees, about the distance of the queries.
+	 */
+	GRID {
+		@Override
+		SpatialIndex<Long, Object> create(List<KDTreeObject<Long, Object>> objects) {
+			return new GridIndex.Builder<Long, Object>()
+					.cellSize(0.02)
+					.objects(objects)
+					.build();
+		}
+
+		@Override
+		void moveTo(SpatialIndex<Long, Object> index, Long id, Point point) {
+			((GridIndex<Long, Object>) index).moveTo(id, point);
+		}
+	};
+
+	abstract SpatialIndex<Long, Object> create(List<KDTreeObject<Long, Object>> objects);
+
+	abstract void moveTo(SpatialIndex<Long, Object> index, Long id, Point point);
+
+	private static KDTree<Long, Object> balancedKDTree(List<KDTreeObject<Long, Object>> objects) {
+		return new KDTree.Builder<Long, Object>()
+				.balanceFactor(0.7)
+				.objects(objects)
+				.build();
+	}
+}
@@ -0,0 +1,79 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link KDTree#balance()} on a tree built from shuffled insertions,
+ * and the bulk load of the same dataset, either sequentially or in parallel
+ * (for subtrees larger than {@code parallelBuildThreshold}).
+ * The tree is rebuilt before every iteration, so that each call balances
+ * the tree as it looks after plain insertions.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BalanceBenchmark {
+
+	@Param({ "1", "10", "100", "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	@Param({ "0", "8192" })
+	private int parallelBuildThreshold;
+
+	private List<KDTreeObject<Long, Object>> objects;
+
+	private KDTree<Long, Object> kdTree;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		this.objects = Dataset.generate(this.size, this.distribution).objects(InsertOrder.SHUFFLED);
+	}
+
+	@Setup(Level.Iteration)
+	public void insert() {
+		this.kdTree = new KDTree.Builder<Long, Object>()
+				.parallelBuildThreshold(this.parallelBuildThreshold)
+				.build();
+		for (KDTreeObject<Long, Object> object : this.objects) {
+			this.kdTree.insert(object);
+		}
+	}
+
+	@Benchmark
+	public KDTree<Long, Object> balance() {
+		this.kdTree.balance();
+		return this.kdTree;
+	}
+
+	@Benchmark
+	public KDTree<Long, Object> bulkLoad() {
+		return new KDTree.Builder<Long, Object>()
+				.parallelBuildThreshold(this.parallelBuildThreshold)
+				.objects(this.objects)
+				.build();
+	}
+}
@@ -0,0 +1,93 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeNearestNeighbor;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures a batch of {@link Dataset#QUERIES} queries, e.g. the riders of a dispatch tick,
+ * searched one by one against {@code findNearestBatch} and {@code findInRangeBatch},
+ * on the calling thread and on the common {@link ForkJoinPool}.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchQueryBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	private KDTree<Long, Object> kdTree;
+
+	private Point[] points;
+
+	private BoundingBox[] boxes;
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, this.distribution);
+		this.kdTree = KDTree.bulkLoad(dataset.objects(InsertOrder.SHUFFLED));
+		this.points = dataset.queryPoints();
+		this.boxes = dataset.queryBoxes();
+	}
+
+	@Benchmark
+	public void findNearest(Blackhole blackhole) {
+		for (Point point : this.points) {
+			blackhole.consume(this.kdTree.findNearest(point, Dataset.QUERY_DISTANCE));
+		}
+	}
+
+	@Benchmark
+	public List<KDTreeNearestNeighbor<Long, Object>> findNearestBatch() {
+		return this.kdTree.findNearestBatch(this.points, Dataset.QUERY_DISTANCE);
+	}
+
+	@Benchmark
+	public List<KDTreeNearestNeighbor<Long, Object>> findNearestBatchParallel() {
+		return this.kdTree.findNearestBatch(this.points, Dataset.QUERY_DISTANCE, ForkJoinPool.commonPool());
+	}
+
+	@Benchmark
+	public void findInRange(Blackhole blackhole) {
+		for (BoundingBox box : this.boxes) {
+			blackhole.consume(this.kdTree.findInRange(box));
+		}
+	}
+
+	@Benchmark
+	public List<List<KDTreeObject<Long, Object>>> findInRangeBatch() {
+		return this.kdTree.findInRangeBatch(this.boxes);
+	}
+
+	@Benchmark
+	public List<List<KDTreeObject<Long, Object>>> findInRangeBatchParallel() {
+		return this.kdTree.findInRangeBatch(this.boxes, ForkJoinPool.commonPool());
+	}
+}
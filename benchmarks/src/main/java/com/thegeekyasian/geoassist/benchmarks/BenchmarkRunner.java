@@ -0,0 +1,44 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Accepts all the regular JMH command line options,
+ * plus {@code --gc} which attaches the JMH GC profiler, so that the allocation rate
+ * per operation (gc.alloc.rate.norm) is reported next to the latency of every benchmark.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar QueryBenchmark -p size=1000000 --gc
+ * </pre>
+ *
+ * @author The Geeky Asian
+ */
+public final class BenchmarkRunner {
+
+	private static final String GC_FLAG = "--gc";
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String... args) throws RunnerException, CommandLineOptionException {
+		List<String> arguments = new ArrayList<>(Arrays.asList(args));
+		boolean gc = arguments.remove(GC_FLAG);
+
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.parent(new CommandLineOptions(arguments.toArray(new String[0])));
+		if (gc) {
+			options.addProfiler(GCProfiler.class);
+		}
+		new Runner(options.build()).run();
+	}
+}
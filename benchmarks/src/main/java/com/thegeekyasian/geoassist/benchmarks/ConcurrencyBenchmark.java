@@ -0,0 +1,173 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.ConcurrentKDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeNearestNeighbor;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.ShardedKDTree;
+import com.thegeekyasian.geoassist.kdtree.SnapshotKDTree;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of concurrent searches while a writer keeps
+ * deleting and re-inserting objects (7 reader threads, 1 writer thread).
+ * {@code GLOBAL_LOCK} wraps a plain {@link KDTree} in a single monitor,
+ * {@code CONCURRENT} uses the {@link ConcurrentKDTree}, {@code SNAPSHOT} the {@link SnapshotKDTree},
+ * which rebuilds its tree in the background every 1024 writes, and {@code SHARDED} the {@link ShardedKDTree},
+ * with a shard per tile of 1 degree, so that the writer only holds back the readers of its shard.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConcurrencyBenchmark {
+
+	@Param({ "100000", "1000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED" })
+	private Distribution distribution;
+
+	@Param({ "GLOBAL_LOCK", "CONCURRENT", "SNAPSHOT", "SHARDED" })
+	private Locking locking;
+
+	private KDTree<Long, Object> kdTree;
+
+	private ConcurrentKDTree<Long, Object> concurrentKDTree;
+
+	private SnapshotKDTree<Long, Object> snapshotKDTree;
+
+	private ShardedKDTree<Long, Object> shardedKDTree;
+
+	private Point[] points;
+
+	private Long[] ids;
+
+	public enum Locking {
+		GLOBAL_LOCK, CONCURRENT, SNAPSHOT, SHARDED
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int index;
+
+		int next() {
+			this.index = (this.index + 1) & (Dataset.QUERIES - 1);
+			return this.index;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, this.distribution);
+		this.kdTree = KDTree.bulkLoad(dataset.objects(InsertOrder.SHUFFLED));
+		this.concurrentKDTree = new ConcurrentKDTree<>(this.kdTree);
+		this.snapshotKDTree = new SnapshotKDTree.Builder<Long, Object>()
+				.kdTree(KDTree.bulkLoad(dataset.objects(InsertOrder.SHUFFLED)))
+				.build();
+		this.shardedKDTree = new ShardedKDTree.Builder<Long, Object>()
+				.tileSize(1)
+				.objects(dataset.objects(InsertOrder.SHUFFLED))
+				.build();
+		this.points = dataset.queryPoints();
+		this.ids = dataset.randomIds(Dataset.QUERIES);
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(7)
+	public List<KDTreeObject<Long, Object>> findNearestNeighbor(Cursor cursor) {
+		Point point = this.points[cursor.next()];
+		if (this.locking == Locking.CONCURRENT) {
+			return this.concurrentKDTree.findNearestNeighbor(point, Dataset.QUERY_DISTANCE);
+		}
+		if (this.locking == Locking.SNAPSHOT) {
+			return this.snapshotKDTree.findNearestNeighbor(point, Dataset.QUERY_DISTANCE);
+		}
+		if (this.locking == Locking.SHARDED) {
+			return this.shardedKDTree.findNearestNeighbor(point, Dataset.QUERY_DISTANCE);
+		}
+		synchronized (this.kdTree) {
+			return this.kdTree.findNearestNeighbor(point, Dataset.QUERY_DISTANCE);
+		}
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(1)
+	public boolean deleteAndInsert(Cursor cursor) {
+		Long id = this.ids[cursor.next()];
+		if (this.locking == Locking.CONCURRENT) {
+			KDTreeObject<Long, Object> object = this.concurrentKDTree.getById(id);
+			if (object == null || !this.concurrentKDTree.delete(id)) {
+				return false;
+			}
+			this.concurrentKDTree.insert(object);
+			return true;
+		}
+		if (this.locking == Locking.SNAPSHOT) {
+			KDTreeObject<Long, Object> object = this.snapshotKDTree.getById(id);
+			if (object == null || !this.snapshotKDTree.delete(id)) {
+				return false;
+			}
+			this.snapshotKDTree.insert(object);
+			return true;
+		}
+		if (this.locking == Locking.SHARDED) {
+			KDTreeObject<Long, Object> object = this.shardedKDTree.getById(id);
+			if (object == null || !this.shardedKDTree.delete(id)) {
+				return false;
+			}
+			this.shardedKDTree.insert(object);
+			return true;
+		}
+		synchronized (this.kdTree) {
+			KDTreeObject<Long, Object> object = this.kdTree.getById(id);
+			if (object == null || !this.kdTree.delete(id)) {
+				return false;
+			}
+			this.kdTree.insert(object);
+			return true;
+		}
+	}
+
+	@Benchmark
+	@Group("readOnly")
+	@GroupThreads(8)
+	public KDTreeNearestNeighbor<Long, Object> findNearest(Cursor cursor) {
+		Point point = this.points[cursor.next()];
+		if (this.locking == Locking.CONCURRENT) {
+			return this.concurrentKDTree.findNearest(point, Dataset.QUERY_DISTANCE);
+		}
+		if (this.locking == Locking.SNAPSHOT) {
+			return this.snapshotKDTree.findNearest(point, Dataset.QUERY_DISTANCE);
+		}
+		if (this.locking == Locking.SHARDED) {
+			return this.shardedKDTree.findNearest(point, Dataset.QUERY_DISTANCE);
+		}
+		synchronized (this.kdTree) {
+			return this.kdTree.findNearest(point, Dataset.QUERY_DISTANCE);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * A repeatable set of points (and the queries around them)
+ * generated for a given size and {@link Distribution}.
+ *
+ * @author The Geeky Asian
+ */
+public final class Dataset {
+
+	/**
+	 * Number of pre-generated queries, a power of two so that
+	 * benchmarks can cycle through them with a cheap mask.
+	 */
+	public static final int QUERIES = 1024;
+
+	/**
+	 * Radius used for the radius and nearest queries, in kilometers.
+	 */
+	public static final double QUERY_DISTANCE = 2;
+
+	private static final long SEED = 0x5EED_2023L;
+
+	private static final double BOX_HALF_SIZE = 0.01;
+
+	private final double[] latitudes;
+
+	private final double[] longitudes;
+
+	private Dataset(double[] latitudes, double[] longitudes) {
+		this.latitudes = latitudes;
+		this.longitudes = longitudes;
+	}
+
+	/**
+	 * Generates a dataset of the provided size and distribution.
+	 *
+	 * @param size number of points to generate.
+	 * @param distribution spatial distribution of the points.
+	 * @return the generated dataset.
+	 */
+	public static Dataset generate(int size, Distribution distribution) {
+		double[] latitudes = new double[size];
+		double[] longitudes = new double[size];
+		distribution.fill(latitudes, longitudes, new Random(SEED));
+		return new Dataset(latitudes, longitudes);
+	}
+
+	/**
+	 * Returns the number of points in the dataset.
+	 *
+	 * @return the size of the dataset.
+	 */
+	public int size() {
+		return this.latitudes.length;
+	}
+
+	/**
+	 * Creates the objects to insert, identified by their index in the dataset.
+	 *
+	 * @param order the order in which the objects should be returned.
+	 * @return the KDTreeObjects of the dataset in the requested order.
+	 */
+	public List<KDTreeObject<Long, Object>> objects(InsertOrder order) {
+		List<KDTreeObject<Long, Object>> objects = new ArrayList<>(size());
+		for (int i = 0; i < size(); i++) {
+			objects.add(new KDTreeObject.Builder<Long, Object>()
+					.id((long) i)
+					.latitude(this.latitudes[i])
+					.longitude(this.longitudes[i])
+					.build());
+		}
+		if (order == InsertOrder.ORDERED) {
+			objects.sort(Comparator
+					.<KDTreeObject<Long, Object>>comparingDouble(o -> o.getPoint().getLatitude())
+					.thenComparingDouble(o -> o.getPoint().getLongitude()));
+		}
+		else {
+			Collections.shuffle(objects, new Random(SEED));
+		}
+		return objects;
+	}
+
+	/**
+	 * Creates query points next to existing points of the dataset,
+	 * so that queries follow the same distribution as the data.
+	 *
+	 * @return an array of {@link #QUERIES} query points.
+	 */
+	public Point[] queryPoints() {
+		Random random = new Random(SEED + 1);
+		Point[] points = new Point[QUERIES];
+		for (int i = 0; i < points.length; i++) {
+			int index = random.nextInt(size());
+			points[i] = new Point.Builder()
+					.latitude(clamp(this.latitudes[index] + random.nextGaussian() * 0.001, 90))
+					.longitude(clamp(this.longitudes[index] + random.nextGaussian() * 0.001, 180))
+					.build();
+		}
+		return points;
+	}
+
+	/**
+	 * Creates small (roughly two by two kilometers) bounding boxes around the query points.
+	 *
+	 * @return an array of {@link #QUERIES} bounding boxes.
+	 */
+	public BoundingBox[] queryBoxes() {
+		return Arrays.stream(queryPoints())
+				.map(point -> new BoundingBox.Builder()
+						.lowerPoint(new Point.Builder()
+								.latitude(clamp(point.getLatitude() - BOX_HALF_SIZE, 90))
+								.longitude(clamp(point.getLongitude() - BOX_HALF_SIZE, 180))
+								.build())
+						.upperPoint(new Point.Builder()
+								.latitude(clamp(point.getLatitude() + BOX_HALF_SIZE, 90))
+								.longitude(clamp(point.getLongitude() + BOX_HALF_SIZE, 180))
+								.build())
+						.build())
+				.toArray(BoundingBox[]::new);
+	}
+
+	/**
+	 * Picks random IDs of the dataset for lookups and deletions.
+	 *
+	 * @param count number of IDs to pick.
+	 * @return the picked IDs.
+	 */
+	public Long[] randomIds(int count) {
+		Random random = new Random(SEED + 2);
+		Long[] ids = new Long[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = (long) random.nextInt(size());
+		}
+		return ids;
+	}
+
+	private static double clamp(double value, double limit) {
+		return Math.max(-limit, Math.min(limit, value));
+	}
+}
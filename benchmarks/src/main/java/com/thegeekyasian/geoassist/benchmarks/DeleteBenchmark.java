@@ -0,0 +1,73 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures deletion churn: every operation deletes a random object
+ * and inserts it back, so the size of the tree stays constant
+ * across invocations (e.g. drivers going offline and coming back), without ({@code balanceFactor} 0)
+ * and with incremental rebalancing.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeleteBenchmark {
+
+	@Param({ "10", "100", "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	@Param({ "0", "0.7" })
+	private double balanceFactor;
+
+	private KDTree<Long, Object> kdTree;
+
+	private Long[] ids;
+
+	private int index;
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, this.distribution);
+		this.kdTree = new KDTree.Builder<Long, Object>()
+				.balanceFactor(this.balanceFactor)
+				.build();
+		for (KDTreeObject<Long, Object> object : dataset.objects(InsertOrder.SHUFFLED)) {
+			this.kdTree.insert(object);
+		}
+		this.kdTree.balance();
+		this.ids = dataset.randomIds(Dataset.QUERIES);
+	}
+
+	@Benchmark
+	public boolean deleteAndInsert() {
+		this.index = (this.index + 1) & (Dataset.QUERIES - 1);
+		KDTreeObject<Long, Object> object = this.kdTree.getById(this.ids[this.index]);
+		if (object == null || !this.kdTree.delete(object.getId())) {
+			return false;
+		}
+		this.kdTree.insert(object);
+		return true;
+	}
+}
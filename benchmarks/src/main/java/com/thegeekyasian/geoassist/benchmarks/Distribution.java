@@ -0,0 +1,75 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Spatial distributions used to generate the benchmark datasets.
+ * Each distribution fills the provided latitude/longitude arrays
+ * using the provided (seeded) random generator, so that runs are repeatable.
+ *
+ * @author The Geeky Asian
+ */
+public enum Distribution {
+
+	/**
+	 * Points spread evenly over a country-sized region.
+	 */
+	UNIFORM {
+		@Override
+		void fill(double[] latitudes, double[] longitudes, Random random) {
+			for (int i = 0; i < latitudes.length; i++) {
+				latitudes[i] = 20 + random.nextDouble() * 10;
+				longitudes[i] = 50 + random.nextDouble() * 10;
+			}
+		}
+	},
+
+	/**
+	 * Points concentrated around a fixed set of city hot-spots,
+	 * with a gaussian spread of roughly five kilometers around each city centre.
+	 */
+	CLUSTERED {
+		@Override
+		void fill(double[] latitudes, double[] longitudes, Random random) {
+			double[][] cities = new double[CITIES][2];
+			for (double[] city : cities) {
+				city[0] = 20 + random.nextDouble() * 10;
+				city[1] = 50 + random.nextDouble() * 10;
+			}
+			for (int i = 0; i < latitudes.length; i++) {
+				// Bigger cities get more points, mimicking a long-tail of POI density
+				double[] city = cities[(int) (Math.abs(random.nextGaussian()) * CITIES / 3) % CITIES];
+				latitudes[i] = clamp(city[0] + random.nextGaussian() * 0.05, 90);
+				longitudes[i] = clamp(city[1] + random.nextGaussian() * 0.05, 180);
+			}
+		}
+	},
+
+	/**
+	 * A single GPS trace sorted by time, drifting north-east.
+	 * Both coordinates are monotonic, which is the worst case for
+	 * a tree that is built from ordered insertions.
+	 */
+	GPS_TRACE {
+		@Override
+		void fill(double[] latitudes, double[] longitudes, Random random) {
+			double latitude = -80;
+			double longitude = -170;
+			double step = Math.min(1e-4, 160.0 / Math.max(1, latitudes.length));
+			for (int i = 0; i < latitudes.length; i++) {
+				latitude += random.nextDouble() * step;
+				longitude += random.nextDouble() * step * 2;
+				latitudes[i] = latitude;
+				longitudes[i] = longitude;
+			}
+		}
+	};
+
+	private static final int CITIES = 32;
+
+	abstract void fill(double[] latitudes, double[] longitudes, Random random);
+
+	private static double clamp(double value, double limit) {
+		return Math.max(-limit, Math.min(limit, value));
+	}
+}
@@ -0,0 +1,89 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeNearestNeighbor;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the query latency of a KDTree built from monotonic insertions (a GPS trace, in time order),
+ * without ({@code balanceFactor} 0) and with the incremental rebalancing of the tree.
+ * Without it, the tree is a single chain and the latency grows linearly with the size;
+ * with it, the latency should stay flat as the tree grows. The cost of the rebuilds on the insertions
+ * is measured by {@link InsertBenchmark}.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IncrementalBalanceBenchmark {
+
+	private static final int K = 10;
+
+	// Inserting a trace without rebalancing builds a chain in O(N^2), so the sizes are kept moderate
+	@Param({ "1000", "10000", "100000" })
+	private int size;
+
+	@Param({ "0", "0.7" })
+	private double balanceFactor;
+
+	private KDTree<Long, Object> kdTree;
+
+	private Point[] points;
+
+	private BoundingBox[] boxes;
+
+	private int index;
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, Distribution.GPS_TRACE);
+		this.kdTree = new KDTree.Builder<Long, Object>()
+				.balanceFactor(this.balanceFactor)
+				.build();
+		for (KDTreeObject<Long, Object> object : dataset.objects(InsertOrder.ORDERED)) {
+			this.kdTree.insert(object);
+		}
+		this.points = dataset.queryPoints();
+		this.boxes = dataset.queryBoxes();
+	}
+
+	@Benchmark
+	public KDTreeNearestNeighbor<Long, Object> findNearest() {
+		return this.kdTree.findNearest(this.points[next()], Dataset.QUERY_DISTANCE);
+	}
+
+	@Benchmark
+	public List<KDTreeNearestNeighbor<Long, Object>> findKNearest() {
+		return this.kdTree.findKNearest(this.points[next()], K, Dataset.QUERY_DISTANCE);
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findInRange() {
+		return this.kdTree.findInRange(this.boxes[next()]);
+	}
+
+	private int next() {
+		this.index = (this.index + 1) & (Dataset.QUERIES - 1);
+		return this.index;
+	}
+}
@@ -0,0 +1,70 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to build a KDTree by inserting every object of a dataset,
+ * either in sorted or in shuffled order, without ({@code balanceFactor} 0) and with incremental rebalancing,
+ * and the time to bulk load the same dataset.
+ * One operation is the insertion of the whole dataset.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InsertBenchmark {
+
+	@Param({ "1", "10", "100", "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	@Param({ "ORDERED", "SHUFFLED" })
+	private InsertOrder order;
+
+	@Param({ "0", "0.7" })
+	private double balanceFactor;
+
+	private List<KDTreeObject<Long, Object>> objects;
+
+	@Setup
+	public void setup() {
+		this.objects = Dataset.generate(this.size, this.distribution).objects(this.order);
+	}
+
+	@Benchmark
+	public KDTree<Long, Object> insert() {
+		KDTree<Long, Object> kdTree = new KDTree.Builder<Long, Object>()
+				.balanceFactor(this.balanceFactor)
+				.build();
+		for (KDTreeObject<Long, Object> object : this.objects) {
+			kdTree.insert(object);
+		}
+		return kdTree;
+	}
+
+	@Benchmark
+	public KDTree<Long, Object> bulkLoad() {
+		return KDTree.bulkLoad(this.objects);
+	}
+}
@@ -0,0 +1,19 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+/**
+ * The order in which a dataset is fed to the index being benchmarked.
+ *
+ * @author The Geeky Asian
+ */
+public enum InsertOrder {
+
+	/**
+	 * Sorted by latitude and then longitude, the worst case for an unbalanced KD-Tree.
+	 */
+	ORDERED,
+
+	/**
+	 * Randomly shuffled with a fixed seed.
+	 */
+	SHUFFLED
+}
@@ -0,0 +1,90 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.kdtree.KdNode;
+import org.locationtech.jts.index.kdtree.KdTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The JTS {@link KdTree} counterpart of {@link InsertBenchmark} and
+ * {@link QueryBenchmark#findInRange()}, used as the baseline in BENCHMARKS.md.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JtsKdTreeBenchmark {
+
+	@Param({ "1", "10", "100", "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	@Param({ "ORDERED", "SHUFFLED" })
+	private InsertOrder order;
+
+	private Coordinate[] coordinates;
+
+	private KdTree kdTree;
+
+	private Envelope[] envelopes;
+
+	private int index;
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, this.distribution);
+		List<KDTreeObject<Long, Object>> objects = dataset.objects(this.order);
+		this.coordinates = new Coordinate[objects.size()];
+		for (int i = 0; i < this.coordinates.length; i++) {
+			this.coordinates[i] = new Coordinate(objects.get(i).getPoint().getLongitude(),
+					objects.get(i).getPoint().getLatitude());
+		}
+		this.kdTree = insert();
+
+		BoundingBox[] boxes = dataset.queryBoxes();
+		this.envelopes = new Envelope[boxes.length];
+		for (int i = 0; i < boxes.length; i++) {
+			this.envelopes[i] = new Envelope(boxes[i].getLowerPoint().getLongitude(),
+					boxes[i].getUpperPoint().getLongitude(),
+					boxes[i].getLowerPoint().getLatitude(),
+					boxes[i].getUpperPoint().getLatitude());
+		}
+	}
+
+	@Benchmark
+	public KdTree insert() {
+		KdTree tree = new KdTree();
+		for (int i = 0; i < this.coordinates.length; i++) {
+			tree.insert(this.coordinates[i], i);
+		}
+		return tree;
+	}
+
+	@Benchmark
+	public List<KdNode> findInRange() {
+		this.index = (this.index + 1) & (Dataset.QUERIES - 1);
+		return this.kdTree.query(this.envelopes[this.index]);
+	}
+}
@@ -0,0 +1,155 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.ArrayKDTree;
+import com.thegeekyasian.geoassist.kdtree.BucketKDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeNearestNeighbor;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.MappedKDTree;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the query latency of the node-based {@link KDTree} ({@code NODES})
+ * with the array-backed {@link ArrayKDTree} ({@code ARRAYS}), the leaf-bucketed {@link BucketKDTree}
+ * ({@code BUCKETS}, with leaves of {@code bucketSize} points) and the memory-mapped {@link MappedKDTree}
+ * ({@code MAPPED}, from a temporary index file), all balanced and holding the whole dataset.
+ * Only the tree of the selected layout is kept, so the heap usage of each layout can be compared
+ * with {@code -prof gc} or a heap dump.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LayoutBenchmark {
+
+	private static final int K = 10;
+
+	@Param({ "10000", "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	@Param({ "NODES", "ARRAYS", "BUCKETS", "MAPPED" })
+	private Layout layout;
+
+	@Param({ "16" })
+	private int bucketSize;
+
+	private KDTree<Long, Object> kdTree;
+
+	private ArrayKDTree<Long, Object> arrayKDTree;
+
+	private BucketKDTree<Long, Object> bucketKDTree;
+
+	private MappedKDTree mappedKDTree;
+
+	private Point[] points;
+
+	private BoundingBox[] boxes;
+
+	private int index;
+
+	public enum Layout {
+		NODES, ARRAYS, BUCKETS, MAPPED
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		Dataset dataset = Dataset.generate(this.size, this.distribution);
+		List<KDTreeObject<Long, Object>> objects = dataset.objects(InsertOrder.SHUFFLED);
+		switch (this.layout) {
+			case NODES:
+				this.kdTree = KDTree.bulkLoad(objects);
+				break;
+			case ARRAYS:
+				this.arrayKDTree = ArrayKDTree.bulkLoad(objects);
+				break;
+			case BUCKETS:
+				this.bucketKDTree = new BucketKDTree.Builder<Long, Object>()
+						.bucketSize(this.bucketSize)
+						.objects(objects)
+						.build();
+				break;
+			default:
+				Path path = Files.createTempFile("geoassist", ".kdt");
+				path.toFile().deleteOnExit();
+				MappedKDTree.write(path, objects);
+				this.mappedKDTree = MappedKDTree.open(path);
+		}
+		this.points = dataset.queryPoints();
+		this.boxes = dataset.queryBoxes();
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findNearestNeighbor() {
+		Point point = this.points[next()];
+		switch (this.layout) {
+			case NODES:
+				return this.kdTree.findNearestNeighbor(point, Dataset.QUERY_DISTANCE);
+			case ARRAYS:
+				return this.arrayKDTree.findNearestNeighbor(point, Dataset.QUERY_DISTANCE);
+			case BUCKETS:
+				return this.bucketKDTree.findNearestNeighbor(point, Dataset.QUERY_DISTANCE);
+			default:
+				return this.mappedKDTree.findNearestNeighbor(point, Dataset.QUERY_DISTANCE);
+		}
+	}
+
+	@Benchmark
+	public List<KDTreeNearestNeighbor<Long, Object>> findKNearest() {
+		Point point = this.points[next()];
+		switch (this.layout) {
+			case NODES:
+				return this.kdTree.findKNearest(point, K, Dataset.QUERY_DISTANCE);
+			case ARRAYS:
+				return this.arrayKDTree.findKNearest(point, K, Dataset.QUERY_DISTANCE);
+			case BUCKETS:
+				return this.bucketKDTree.findKNearest(point, K, Dataset.QUERY_DISTANCE);
+			default:
+				return this.mappedKDTree.findKNearest(point, K, Dataset.QUERY_DISTANCE);
+		}
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findInRange() {
+		BoundingBox boundingBox = this.boxes[next()];
+		switch (this.layout) {
+			case NODES:
+				return this.kdTree.findInRange(boundingBox);
+			case ARRAYS:
+				return this.arrayKDTree.findInRange(boundingBox);
+			case BUCKETS:
+				return this.bucketKDTree.findInRange(boundingBox);
+			default:
+				return this.mappedKDTree.findInRange(boundingBox);
+		}
+	}
+
+	private int next() {
+		this.index = (this.index + 1) & (Dataset.QUERIES - 1);
+		return this.index;
+	}
+}
@@ -0,0 +1,126 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures position updates of vehicles reporting small moves (up to {@code step} degrees, 0.0002 being about 20 m):
+ * {@code moveTo} of a random vehicle against the same move as a {@code delete} and {@code insert},
+ * and {@code moveAll} of a tick of 1% of the vehicles. Every vehicle moves back and forth,
+ * so the dataset stays the same across invocations.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MoveBenchmark {
+
+	@Param({ "10", "100", "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	@Param({ "0.0002", "0.01" })
+	private double step;
+
+	private KDTree<Long, Object> kdTree;
+
+	private Long[] ids;
+
+	private double[] moves;
+
+	private Map<Long, Point> tick;
+
+	private int index;
+
+	private double sign = 1;
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, this.distribution);
+		this.kdTree = new KDTree.Builder<Long, Object>()
+				.balanceFactor(0.7)
+				.objects(dataset.objects(InsertOrder.SHUFFLED))
+				.build();
+		this.ids = dataset.randomIds(Dataset.QUERIES);
+		Random random = new Random(42);
+		this.moves = new double[2 * Dataset.QUERIES];
+		for (int i = 0; i < this.moves.length; i++) {
+			this.moves[i] = (random.nextDouble() - 0.5) * this.step;
+		}
+		this.tick = new HashMap<>();
+		for (Long id : dataset.randomIds(Math.max(1, this.size / 100))) {
+			this.tick.put(id, null);
+		}
+	}
+
+	private Point nextPoint() {
+		this.index = (this.index + 1) & (Dataset.QUERIES - 1);
+		if (this.index == 0) {
+			// Move every vehicle back on the next pass
+			this.sign = -this.sign;
+		}
+		Point point = this.kdTree.getById(this.ids[this.index]).getPoint();
+		return new Point.Builder()
+				.latitude(point.getLatitude() + this.sign * this.moves[2 * this.index])
+				.longitude(point.getLongitude() + this.sign * this.moves[2 * this.index + 1])
+				.build();
+	}
+
+	@Benchmark
+	public Point moveTo() {
+		Point point = nextPoint();
+		this.kdTree.moveTo(this.ids[this.index], point);
+		return point;
+	}
+
+	@Benchmark
+	public boolean deleteAndInsert() {
+		Point point = nextPoint();
+		KDTreeObject<Long, Object> object = this.kdTree.getById(this.ids[this.index]);
+		if (!this.kdTree.delete(object.getId())) {
+			return false;
+		}
+		object.setPoint(point);
+		this.kdTree.insert(object);
+		return true;
+	}
+
+	@Benchmark
+	public int moveAll() {
+		this.sign = -this.sign;
+		int move = 0;
+		for (Map.Entry<Long, Point> entry : this.tick.entrySet()) {
+			Point point = this.kdTree.getById(entry.getKey()).getPoint();
+			entry.setValue(new Point.Builder()
+					.latitude(point.getLatitude() + this.sign * this.moves[move])
+					.longitude(point.getLongitude() + this.sign * this.moves[move + 1])
+					.build());
+			move = (move + 2) & (this.moves.length - 1);
+		}
+		this.kdTree.moveAll(this.tick);
+		return this.tick.size();
+	}
+}
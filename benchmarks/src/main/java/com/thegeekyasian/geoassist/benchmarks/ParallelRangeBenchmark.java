@@ -0,0 +1,94 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a search returning a large part of the dataset, with a bounding box covering
+ * the middle half of the extent of the data along both dimensions (e.g. an export job):
+ * {@code findInRange} on the calling thread against {@code findInRangeParallel} on the common
+ * {@link ForkJoinPool}, and a parallel stream over {@code spliterator}.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelRangeBenchmark {
+
+	@Param({ "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	private KDTree<Long, Object> kdTree;
+
+	private BoundingBox box;
+
+	@Setup
+	public void setup() {
+		List<KDTreeObject<Long, Object>> objects =
+			Dataset.generate(this.size, this.distribution).objects(InsertOrder.SHUFFLED);
+		this.kdTree = KDTree.bulkLoad(objects);
+
+		double minLatitude = Double.POSITIVE_INFINITY;
+		double maxLatitude = Double.NEGATIVE_INFINITY;
+		double minLongitude = Double.POSITIVE_INFINITY;
+		double maxLongitude = Double.NEGATIVE_INFINITY;
+		for (KDTreeObject<Long, Object> object : objects) {
+			minLatitude = Math.min(minLatitude, object.getPoint().getLatitude());
+			maxLatitude = Math.max(maxLatitude, object.getPoint().getLatitude());
+			minLongitude = Math.min(minLongitude, object.getPoint().getLongitude());
+			maxLongitude = Math.max(maxLongitude, object.getPoint().getLongitude());
+		}
+		double latitudeQuarter = (maxLatitude - minLatitude) / 4;
+		double longitudeQuarter = (maxLongitude - minLongitude) / 4;
+		this.box = new BoundingBox.Builder()
+				.lowerPoint(new Point.Builder()
+						.latitude(minLatitude + latitudeQuarter)
+						.longitude(minLongitude + longitudeQuarter)
+						.build())
+				.upperPoint(new Point.Builder()
+						.latitude(maxLatitude - latitudeQuarter)
+						.longitude(maxLongitude - longitudeQuarter)
+						.build())
+				.build();
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findInRange() {
+		return this.kdTree.findInRange(this.box);
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findInRangeParallel() {
+		return this.kdTree.findInRangeParallel(this.box, ForkJoinPool.commonPool());
+	}
+
+	@Benchmark
+	public long spliteratorParallelStream() {
+		return StreamSupport.stream(this.kdTree.spliterator(this.box), true).count();
+	}
+}
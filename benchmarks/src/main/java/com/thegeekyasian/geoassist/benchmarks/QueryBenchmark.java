@@ -0,0 +1,125 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeNearestNeighbor;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.KDTreeVisitor;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of a single query against a KDTree holding the whole dataset.
+ * Each invocation picks the next one of {@link Dataset#QUERIES} pre-generated queries,
+ * which follow the distribution of the data.
+ * The {@code IntoBuffer} variants pass the results to a visitor filling a reused buffer,
+ * and should not allocate anything (see {@code gc.alloc.rate.norm} with {@code --gc}).
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QueryBenchmark {
+
+	private static final int K = 10;
+
+	@Param({ "1", "10", "100", "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	@Param({ "true", "false" })
+	private boolean balanced;
+
+	private KDTree<Long, Object> kdTree;
+
+	private Point[] points;
+
+	private BoundingBox[] boxes;
+
+	private Long[] ids;
+
+	private int index;
+
+	private final List<KDTreeObject<Long, Object>> buffer = new ArrayList<>();
+
+	private final KDTreeVisitor<Long, Object> visitor = this.buffer::add;
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, this.distribution);
+		this.kdTree = new KDTree<>();
+		for (KDTreeObject<Long, Object> object : dataset.objects(InsertOrder.SHUFFLED)) {
+			this.kdTree.insert(object);
+		}
+		if (this.balanced) {
+			this.kdTree.balance();
+		}
+		this.points = dataset.queryPoints();
+		this.boxes = dataset.queryBoxes();
+		this.ids = dataset.randomIds(Dataset.QUERIES);
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findNearestNeighbor() {
+		return this.kdTree.findNearestNeighbor(this.points[next()], Dataset.QUERY_DISTANCE);
+	}
+
+	@Benchmark
+	public int findNearestNeighborIntoBuffer() {
+		this.buffer.clear();
+		this.kdTree.findNearestNeighbor(this.points[next()], Dataset.QUERY_DISTANCE, this.visitor);
+		return this.buffer.size();
+	}
+
+	@Benchmark
+	public KDTreeNearestNeighbor<Long, Object> findNearest() {
+		return this.kdTree.findNearest(this.points[next()], Dataset.QUERY_DISTANCE);
+	}
+
+	@Benchmark
+	public List<KDTreeNearestNeighbor<Long, Object>> findKNearest() {
+		return this.kdTree.findKNearest(this.points[next()], K, Dataset.QUERY_DISTANCE);
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findInRange() {
+		return this.kdTree.findInRange(this.boxes[next()]);
+	}
+
+	@Benchmark
+	public int findInRangeIntoBuffer() {
+		this.buffer.clear();
+		this.kdTree.findInRange(this.boxes[next()], this.visitor);
+		return this.buffer.size();
+	}
+
+	@Benchmark
+	public KDTreeObject<Long, Object> getById() {
+		return this.kdTree.getById(this.ids[next()]);
+	}
+
+	private int next() {
+		this.index = (this.index + 1) & (Dataset.QUERIES - 1);
+		return this.index;
+	}
+}
@@ -0,0 +1,123 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import com.thegeekyasian.geoassist.rtree.RTree;
+import com.thegeekyasian.geoassist.rtree.RTreeNearestNeighbor;
+import com.thegeekyasian.geoassist.rtree.RTreeObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures searches of zones, i.e. rectangles of up to {@code zoneSize} degrees at the points of the dataset,
+ * in an STR-packed {@link RTree} against a linear scan of the zones: the zones containing a point,
+ * the zones intersecting a bounding box, and the nearest zone within {@link Dataset#QUERY_DISTANCE} km.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RTreeBenchmark {
+
+	@Param({ "1000", "10000", "200000", "1000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	@Param({ "0.01", "0.1" })
+	private double zoneSize;
+
+	private RTree<Long, Object> rTree;
+
+	private List<RTreeObject<Long, Object>> zones;
+
+	private Point[] points;
+
+	private BoundingBox[] boxes;
+
+	private int query;
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, this.distribution);
+		Random random = new Random(42);
+		this.zones = new ArrayList<>();
+		for (KDTreeObject<Long, Object> object : dataset.objects(InsertOrder.SHUFFLED)) {
+			Point point = object.getPoint();
+			this.zones.add(new RTreeObject.Builder<Long, Object>()
+					.id(object.getId())
+					.boundingBox(new BoundingBox.Builder()
+							.lowerPoint(point)
+							.upperPoint(new Point.Builder()
+									.latitude(Math.min(90, point.getLatitude() + random.nextDouble() * this.zoneSize))
+									.longitude(Math.min(180, point.getLongitude() + random.nextDouble() * this.zoneSize))
+									.build())
+							.build())
+					.build());
+		}
+		this.rTree = RTree.bulkLoad(this.zones);
+		this.points = dataset.queryPoints();
+		this.boxes = dataset.queryBoxes();
+	}
+
+	private int nextQuery() {
+		this.query = (this.query + 1) & (Dataset.QUERIES - 1);
+		return this.query;
+	}
+
+	@Benchmark
+	public List<RTreeObject<Long, Object>> findContaining() {
+		return this.rTree.findContaining(this.points[nextQuery()]);
+	}
+
+	@Benchmark
+	public List<RTreeObject<Long, Object>> linearScanContaining() {
+		Point point = this.points[nextQuery()];
+		List<RTreeObject<Long, Object>> result = new ArrayList<>();
+		for (RTreeObject<Long, Object> zone : this.zones) {
+			BoundingBox boundingBox = zone.getBoundingBox();
+			if (point.getLatitude() >= boundingBox.getLowerPoint().getLatitude()
+				&& point.getLatitude() <= boundingBox.getUpperPoint().getLatitude()
+				&& point.getLongitude() >= boundingBox.getLowerPoint().getLongitude()
+				&& point.getLongitude() <= boundingBox.getUpperPoint().getLongitude()) {
+				result.add(zone);
+			}
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<RTreeObject<Long, Object>> findIntersecting() {
+		return this.rTree.findIntersecting(this.boxes[nextQuery()]);
+	}
+
+	@Benchmark
+	public RTreeNearestNeighbor<Long, Object> findNearest() {
+		return this.rTree.findNearest(this.points[nextQuery()], Dataset.QUERY_DISTANCE);
+	}
+
+	@Benchmark
+	public RTree<Long, Object> bulkLoad() {
+		return RTree.bulkLoad(this.zones);
+	}
+}
@@ -0,0 +1,116 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.DistanceMetric;
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeNearestNeighbor;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.KDTreeVisitor;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how the radius and nearest searches scale with the radius, on a balanced tree,
+ * for each {@link DistanceMetric}.
+ * The number of visited nodes, and so the latency, should follow the area of the radius
+ * rather than the size of the tree. {@code visitNearestNeighbors} counts the objects found with a visitor,
+ * in the {@code results} and {@code searches} secondary results: a latency growing faster than
+ * the results per search across the radii and sizes means the searches are poorly pruned.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RadiusBenchmark {
+
+	@Param({ "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED" })
+	private Distribution distribution;
+
+	@Param({ "0.5", "2", "10", "50" })
+	private double radius;
+
+	@Param({ "HAVERSINE", "EQUIRECTANGULAR" })
+	private DistanceMetric metric;
+
+	private KDTree<Long, Object> kdTree;
+
+	private Point[] points;
+
+	private int index;
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, this.distribution);
+		this.kdTree = new KDTree.Builder<Long, Object>()
+				.distanceMetric(this.metric)
+				.objects(dataset.objects(InsertOrder.SHUFFLED))
+				.build();
+		this.points = dataset.queryPoints();
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findNearestNeighbor() {
+		return this.kdTree.findNearestNeighbor(this.points[next()], this.radius);
+	}
+
+	@Benchmark
+	public KDTreeNearestNeighbor<Long, Object> findNearest() {
+		return this.kdTree.findNearest(this.points[next()], this.radius);
+	}
+
+	@Benchmark
+	public boolean visitNearestNeighbors(ResultCounter counter) {
+		counter.searches++;
+		return this.kdTree.findNearestNeighbor(this.points[next()], this.radius, counter.visitor);
+	}
+
+	private int next() {
+		this.index = (this.index + 1) & (Dataset.QUERIES - 1);
+		return this.index;
+	}
+
+	/**
+	 * Counts the searches and the objects they found, which JMH sums over the measurement iterations:
+	 * the results per search are their ratio.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class ResultCounter {
+
+		public long searches;
+
+		public long results;
+
+		private final KDTreeVisitor<Long, Object> visitor = kdTreeObject -> {
+			this.results++;
+			return true;
+		};
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.searches = 0;
+			this.results = 0;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.KDTreeSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a warm restart: loading a balanced tree back from its binary snapshot
+ * ({@link KDTree#readFrom}), against building it again from the objects ({@link KDTree#bulkLoad}),
+ * along with writing the snapshot ({@link KDTree#writeTo}). The snapshot is written to memory,
+ * so the results exclude the disk.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({ "10000", "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	private List<KDTreeObject<Long, Object>> objects;
+
+	private KDTree<Long, Object> kdTree;
+
+	private byte[] snapshot;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		this.objects = Dataset.generate(this.size, this.distribution).objects(InsertOrder.SHUFFLED);
+		this.kdTree = KDTree.bulkLoad(this.objects);
+		this.snapshot = write().toByteArray();
+	}
+
+	@Benchmark
+	public ByteArrayOutputStream write() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(this.size * 32);
+		this.kdTree.writeTo(out, KDTreeSerializer.longs(), KDTreeSerializer.none());
+		return out;
+	}
+
+	@Benchmark
+	public KDTree<Long, Object> read() throws IOException {
+		return KDTree.readFrom(new ByteArrayInputStream(this.snapshot),
+				KDTreeSerializer.longs(), KDTreeSerializer.none());
+	}
+
+	@Benchmark
+	public KDTree<Long, Object> bulkLoad() {
+		return KDTree.bulkLoad(this.objects);
+	}
+}
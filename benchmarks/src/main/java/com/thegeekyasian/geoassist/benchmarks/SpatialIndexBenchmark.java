@@ -0,0 +1,121 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.thegeekyasian.geoassist.kdtree.KDTreeNearestNeighbor;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.SpatialIndex;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the spatial index backends on the same datasets: building the index,
+ * {@code findNearestNeighbor} and {@code findNearest} within {@link Dataset#QUERY_DISTANCE} km, {@code findInRange},
+ * and {@code moveTo} of a random object by up to 0.0002 degrees (about 20 m), back and forth.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SpatialIndexBenchmark {
+
+	private static final double STEP = 0.0002;
+
+	@Param({ "10", "100", "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	@Param({ "KDTREE", "CONCURRENT", "SNAPSHOT", "SHARDED", "GRID" })
+	private Backend backend;
+
+	private List<KDTreeObject<Long, Object>> objects;
+
+	private SpatialIndex<Long, Object> index;
+
+	private Point[] points;
+
+	private BoundingBox[] boxes;
+
+	private Long[] ids;
+
+	private double[] moves;
+
+	private int query;
+
+	private double sign = 1;
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, this.distribution);
+		this.objects = dataset.objects(InsertOrder.SHUFFLED);
+		this.index = this.backend.create(dataset.objects(InsertOrder.SHUFFLED));
+		this.points = dataset.queryPoints();
+		this.boxes = dataset.queryBoxes();
+		this.ids = dataset.randomIds(Dataset.QUERIES);
+		Random random = new Random(42);
+		this.moves = new double[2 * Dataset.QUERIES];
+		for (int i = 0; i < this.moves.length; i++) {
+			this.moves[i] = (random.nextDouble() - 0.5) * STEP;
+		}
+	}
+
+	private int nextQuery() {
+		this.query = (this.query + 1) & (Dataset.QUERIES - 1);
+		return this.query;
+	}
+
+	@Benchmark
+	public SpatialIndex<Long, Object> build() {
+		return this.backend.create(this.objects);
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findNearestNeighbor() {
+		return this.index.findNearestNeighbor(this.points[nextQuery()], Dataset.QUERY_DISTANCE);
+	}
+
+	@Benchmark
+	public KDTreeNearestNeighbor<Long, Object> findNearest() {
+		return this.index.findNearest(this.points[nextQuery()], Dataset.QUERY_DISTANCE);
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findInRange() {
+		return this.index.findInRange(this.boxes[nextQuery()]);
+	}
+
+	@Benchmark
+	public Point moveTo() {
+		int move = nextQuery();
+		if (move == 0) {
+			// Move every object back on the next pass
+			this.sign = -this.sign;
+		}
+		Point point = this.index.getById(this.ids[move]).getPoint();
+		Point moved = new Point.Builder()
+				.latitude(point.getLatitude() + this.sign * this.moves[2 * move])
+				.longitude(point.getLongitude() + this.sign * this.moves[2 * move + 1])
+				.build();
+		this.backend.moveTo(this.index, this.ids[move], moved);
+		return moved;
+	}
+}
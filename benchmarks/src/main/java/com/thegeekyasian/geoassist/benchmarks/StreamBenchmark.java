@@ -0,0 +1,97 @@
+package com.thegeekyasian.geoassist.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the first page ({@code pageSize} objects) of a "what's nearby" search within
+ * {@code distance} kilometers of a point, and within a bounding box: the full {@code findNearestNeighbor}
+ * and {@code findInRange} lists cut to a page, against the lazy {@code streamNearestNeighbor}
+ * and {@code streamInRange} streams cut with {@code limit}.
+ *
+ * @author The Geeky Asian
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StreamBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "UNIFORM", "CLUSTERED", "GPS_TRACE" })
+	private Distribution distribution;
+
+	@Param({ "2", "25" })
+	private double distance;
+
+	@Param({ "20" })
+	private int pageSize;
+
+	private KDTree<Long, Object> kdTree;
+
+	private Point[] points;
+
+	private BoundingBox[] boxes;
+
+	private int index;
+
+	@Setup
+	public void setup() {
+		Dataset dataset = Dataset.generate(this.size, this.distribution);
+		this.kdTree = KDTree.bulkLoad(dataset.objects(InsertOrder.SHUFFLED));
+		this.points = dataset.queryPoints();
+		this.boxes = dataset.queryBoxes();
+	}
+
+	private int next() {
+		this.index = (this.index + 1) & (Dataset.QUERIES - 1);
+		return this.index;
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findNearestNeighborPage() {
+		List<KDTreeObject<Long, Object>> objects = this.kdTree.findNearestNeighbor(this.points[next()], this.distance);
+		return objects.subList(0, Math.min(this.pageSize, objects.size()));
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> streamNearestNeighborPage() {
+		return this.kdTree.streamNearestNeighbor(this.points[next()], this.distance)
+				.limit(this.pageSize)
+				.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> findInRangePage() {
+		List<KDTreeObject<Long, Object>> objects = this.kdTree.findInRange(this.boxes[next()]);
+		return objects.subList(0, Math.min(this.pageSize, objects.size()));
+	}
+
+	@Benchmark
+	public List<KDTreeObject<Long, Object>> streamInRangePage() {
+		return this.kdTree.streamInRange(this.boxes[next()])
+				.limit(this.pageSize)
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,63 @@
+package com.thegeekyasian.geoassist.grid;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ *     A cell of the GridIndex, holding the entries whose coordinates fall within it in an unordered array.
+ *     An entry is removed by moving the last entry of the array in its place, so both adding
+ *     and removing an entry take constant time.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @param <O> the type of the custom object of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ */
+final class GridCell<T, O> {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private final long key;
+
+	private GridEntry<T, O>[] entries;
+
+	private int size;
+
+	@SuppressWarnings("unchecked")
+	GridCell(long key) {
+		this.key = key;
+		this.entries = new GridEntry[INITIAL_CAPACITY];
+	}
+
+	long getKey() {
+		return this.key;
+	}
+
+	int getSize() {
+		return this.size;
+	}
+
+	GridEntry<T, O> get(int index) {
+		return this.entries[index];
+	}
+
+	void add(GridEntry<T, O> entry) {
+		if (this.size == this.entries.length) {
+			this.entries = Arrays.copyOf(this.entries, this.size * 2);
+		}
+		this.entries[this.size] = entry;
+		entry.setPosition(this, this.size);
+		this.size++;
+	}
+
+	void remove(GridEntry<T, O> entry) {
+		int index = entry.getIndex();
+		GridEntry<T, O> last = this.entries[--this.size];
+		this.entries[index] = last;
+		last.setPosition(this, index);
+		this.entries[this.size] = null;
+		entry.setPosition(null, -1);
+	}
+}
@@ -0,0 +1,64 @@
+package com.thegeekyasian.geoassist.grid;
+
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+
+/**
+ * <p>
+ *     An object of the GridIndex, along with its coordinates and its position in its cell,
+ *     so that it can be removed from its cell, or moved to another one, in constant time.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObject.
+ *
+ * @param <O> the type of the custom object of the KDTreeObject.
+ *
+ * @author The Geeky Asian
+ */
+final class GridEntry<T, O> {
+
+	private final KDTreeObject<T, O> kdTreeObject;
+
+	private double latitude;
+
+	private double longitude;
+
+	private GridCell<T, O> cell;
+
+	private int index;
+
+	GridEntry(KDTreeObject<T, O> kdTreeObject) {
+		this.kdTreeObject = kdTreeObject;
+		this.latitude = kdTreeObject.getPoint().getLatitude();
+		this.longitude = kdTreeObject.getPoint().getLongitude();
+	}
+
+	KDTreeObject<T, O> getKdTreeObject() {
+		return this.kdTreeObject;
+	}
+
+	double getLatitude() {
+		return this.latitude;
+	}
+
+	double getLongitude() {
+		return this.longitude;
+	}
+
+	void setCoordinates(double latitude, double longitude) {
+		this.latitude = latitude;
+		this.longitude = longitude;
+	}
+
+	GridCell<T, O> getCell() {
+		return this.cell;
+	}
+
+	int getIndex() {
+		return this.index;
+	}
+
+	void setPosition(GridCell<T, O> cell, int index) {
+		this.cell = cell;
+		this.index = index;
+	}
+}
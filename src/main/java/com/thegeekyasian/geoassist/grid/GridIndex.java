@@ -0,0 +1,461 @@
+package com.thegeekyasian.geoassist.grid;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.DistanceMetric;
+import com.thegeekyasian.geoassist.kdtree.DistanceQuery;
+import com.thegeekyasian.geoassist.kdtree.KDTreeNearestNeighbor;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.KDTreeVisitor;
+import com.thegeekyasian.geoassist.kdtree.SpatialIndex;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * <p>
+ *     A spatial index that hashes the objects into a uniform grid of cells of
+ *     {@link Builder#cellSize(double)} degrees of latitude and longitude, with the same API as the KDTree.
+ * </p>
+ *
+ * <p>
+ *     Inserting, deleting and moving an object only touch its cell, in constant time, whatever the number
+ *     of objects and the order they come in. A search only scans the cells overlapping the bounding box,
+ *     or the window of latitudes and longitudes that the distance spans around the point.
+ *     This suits dense areas searched with small fixed radii, e.g. vehicles in a city,
+ *     with a cell size close to the radius of the searches: much smaller cells make the searches
+ *     scan many cells, and much larger ones make them scan many objects out of range.
+ *     Only the cells holding objects are stored, so the grid can cover the whole earth.
+ * </p>
+ *
+ * <p>
+ *     The coordinates of the objects are read once, when they are inserted: use {@link #moveTo(Object, Point)}
+ *     to move an object, instead of modifying its point. The GridIndex is not thread-safe.
+ * </p>
+ *
+ * @param <T>
+ *     describes the identifier of the K-d Tree Object,
+ *     that is being inserted in the index. For example ID or UUID of the Object.
+ *
+ * @param <O>
+ *     describes the object that is inserted in the index.
+ *     For example Vendor, Restaurant, Franchise, etc.
+ *
+ * @author The Geeky Asian
+ */
+public class GridIndex<T, O> implements SpatialIndex<T, O> {
+
+	private final double cellSize;
+
+	private final int rows;
+
+	private final int columns;
+
+	private final DistanceMetric distanceMetric;
+
+	private final Map<Long, GridCell<T, O>> cells = new HashMap<>();
+
+	private final Map<T, GridEntry<T, O>> entries = new HashMap<>();
+
+	private int size;
+
+	/**
+	 * Creates a new, empty instance of GridIndex, with cells of 0.01 degrees (about a kilometer).
+	 */
+	public GridIndex() {
+		this(new Builder<>());
+	}
+
+	private GridIndex(Builder<T, O> builder) {
+		this.cellSize = builder.cellSize;
+		this.rows = (int) Math.ceil(180 / this.cellSize);
+		this.columns = (int) Math.ceil(360 / this.cellSize);
+		this.distanceMetric = builder.distanceMetric;
+		if (builder.objects != null) {
+			builder.objects.forEach(this::insert);
+		}
+	}
+
+	private int row(double latitude) {
+		return Math.max(0, Math.min(this.rows - 1, (int) Math.floor((latitude + 90) / this.cellSize)));
+	}
+
+	private int column(double longitude) {
+		return Math.max(0, Math.min(this.columns - 1, (int) Math.floor((longitude + 180) / this.cellSize)));
+	}
+
+	private long key(int row, int column) {
+		return (long) row * this.columns + column;
+	}
+
+	private long key(double latitude, double longitude) {
+		return key(row(latitude), column(longitude));
+	}
+
+	@Override
+	public void insert(KDTreeObject<T, O> kdTreeObject) {
+		T id = kdTreeObject.getId();
+		if (id != null && this.entries.containsKey(id)) {
+			throw new GeoAssistException("Duplicate object provided.");
+		}
+		GridEntry<T, O> entry = new GridEntry<>(kdTreeObject);
+		add(entry);
+		if (id != null) {
+			this.entries.put(id, entry);
+		}
+		this.size++;
+	}
+
+	private void add(GridEntry<T, O> entry) {
+		this.cells.computeIfAbsent(key(entry.getLatitude(), entry.getLongitude()), GridCell::new).add(entry);
+	}
+
+	private void remove(GridEntry<T, O> entry) {
+		GridCell<T, O> cell = entry.getCell();
+		cell.remove(entry);
+		if (cell.getSize() == 0) {
+			this.cells.remove(cell.getKey());
+		}
+	}
+
+	@Override
+	public KDTreeObject<T, O> getById(T id) {
+		GridEntry<T, O> entry = id == null ? null : this.entries.get(id);
+		return entry == null ? null : entry.getKdTreeObject();
+	}
+
+	@Override
+	public void update(T id, O data) {
+		KDTreeObject<T, O> kdTreeObject = getById(id);
+		if (kdTreeObject == null) {
+			throw new GeoAssistException("No object found for provided ID");
+		}
+		kdTreeObject.setData(data);
+	}
+
+	/**
+	 * Moves the object with the provided ID to the provided point, e.g. a vehicle reporting its position.
+	 * The object is moved to the cell of the point in constant time, if it is not in that cell already.
+	 *
+	 * @param id ID of the object that is desired to be moved.
+	 *
+	 * @param point the new location (latitude/longitude) coordinates of the object.
+	 *
+	 * @throws GeoAssistException is thrown an object with provided ID is not found.
+	 */
+	public void moveTo(T id, Point point) {
+		GridEntry<T, O> entry = id == null ? null : this.entries.get(id);
+		if (entry == null) {
+			throw new GeoAssistException("No object found for provided ID");
+		}
+		entry.getKdTreeObject().setPoint(new Point.Builder()
+				.latitude(point.getLatitude())
+				.longitude(point.getLongitude())
+				.build());
+		boolean isSameCell = entry.getCell().getKey() == key(point.getLatitude(), point.getLongitude());
+		if (!isSameCell) {
+			remove(entry);
+		}
+		entry.setCoordinates(point.getLatitude(), point.getLongitude());
+		if (!isSameCell) {
+			add(entry);
+		}
+	}
+
+	@Override
+	public boolean delete(T id) {
+		GridEntry<T, O> entry = id == null ? null : this.entries.remove(id);
+		if (entry == null) {
+			return false;
+		}
+		remove(entry);
+		this.size--;
+		return true;
+	}
+
+	@Override
+	public int getSize() {
+		return this.size;
+	}
+
+	@Override
+	public List<KDTreeObject<T, O>> findNearestNeighbor(Point point, double distance) {
+		List<KDTreeObject<T, O>> closestPoints = new ArrayList<>();
+		findNearestNeighbor(point, distance, closestPoints::add);
+		return closestPoints;
+	}
+
+	@Override
+	public boolean findNearestNeighbor(Point point, double distance, KDTreeVisitor<T, O> visitor) {
+		DistanceQuery query = new DistanceQuery(point, distance, this.distanceMetric);
+		if (distance < 0) {
+			return true;
+		}
+		int[] window = window(query);
+
+		return visitCells(window[0], window[1], window[2], window[3], cell -> {
+			for (int i = 0; i < cell.getSize(); i++) {
+				GridEntry<T, O> entry = cell.get(i);
+				if (query.isWithinWindow(entry.getLatitude(), entry.getLongitude())
+					&& query.reducedDistanceTo(entry.getLatitude(), entry.getLongitude()) <= query.getReducedDistance()
+					&& !visitor.visit(entry.getKdTreeObject())) {
+					return false;
+				}
+			}
+			return true;
+		});
+	}
+
+	@Override
+	public KDTreeNearestNeighbor<T, O> findNearest(Point point, double distance) {
+		KDTreeNearestNeighbor<T, O> nearestNeighbor = new KDTreeNearestNeighbor<>();
+		DistanceQuery query = new DistanceQuery(point, distance, this.distanceMetric);
+		if (distance < 0) {
+			return nearestNeighbor;
+		}
+		int row = row(point.getLatitude());
+		int column = column(point.getLongitude());
+		double reducedDistance = query.getReducedDistance();
+		int[] window = window(query);
+
+		// Search rings of cells around the cell of the point, narrowing the window to the nearest neighbor
+		// found so far, until the rings are out of the window or looking them up costs more than
+		// scanning the stored cells
+		// The rings wrap around the antimeridian along with the window
+		int lookups = 0;
+		for (int ring = 0; ring <= row - window[0] || ring <= window[1] - row
+			|| ring <= Math.floorMod(column - window[2], this.columns)
+			|| ring <= Math.floorMod(window[3] - column, this.columns); ring++) {
+			lookups += Math.max(1, 8 * ring);
+			if (lookups > this.cells.size()) {
+				for (GridCell<T, O> cell : this.cells.values()) {
+					long cellRow = cell.getKey() / this.columns;
+					int cellColumn = (int) (cell.getKey() % this.columns);
+					if (cellRow >= window[0] && cellRow <= window[1]
+						&& isWithinColumns(cellColumn, window[2], window[3])) {
+						reducedDistance = findNearest(cell, query, reducedDistance, nearestNeighbor);
+					}
+				}
+				break;
+			}
+
+			double ringDistance = reducedDistance;
+			for (int r = Math.max(window[0], row - ring); r <= Math.min(window[1], row + ring); r++) {
+				boolean isEdge = r == row - ring || r == row + ring;
+				int step = isEdge || ring == 0 ? 1 : 2 * ring;
+				for (int c = column - ring; c <= column + ring; c += step) {
+					int wrappedColumn = Math.floorMod(c, this.columns);
+					GridCell<T, O> cell = isWithinColumns(wrappedColumn, window[2], window[3])
+						? this.cells.get(key(r, wrappedColumn)) : null;
+					if (cell != null) {
+						reducedDistance = findNearest(cell, query, reducedDistance, nearestNeighbor);
+					}
+				}
+			}
+			if (reducedDistance < ringDistance) {
+				// The window of a shorter distance around the same point is within the previous one
+				window = window(new DistanceQuery(point, query.toDistance(reducedDistance), this.distanceMetric));
+			}
+		}
+
+		if (nearestNeighbor.getKdTreeObject() != null) {
+			nearestNeighbor.setDistance(query.toDistance(reducedDistance));
+		}
+		return nearestNeighbor;
+	}
+
+	private double findNearest(GridCell<T, O> cell, DistanceQuery query, double reducedDistance,
+		KDTreeNearestNeighbor<T, O> nearestNeighbor) {
+		for (int i = 0; i < cell.getSize(); i++) {
+			GridEntry<T, O> entry = cell.get(i);
+			if (query.isWithinWindow(entry.getLatitude(), entry.getLongitude())) {
+				double entryDistance = query.reducedDistanceTo(entry.getLatitude(), entry.getLongitude());
+				if (entryDistance <= reducedDistance) {
+					reducedDistance = entryDistance;
+					nearestNeighbor.setKdTreeObject(entry.getKdTreeObject());
+				}
+			}
+		}
+		return reducedDistance;
+	}
+
+	/**
+	 * Returns the rows and columns of the cells within the window of latitudes and longitudes of the query.
+	 *
+	 * @param query the reference point and maximum distance.
+	 * @return the first and last rows, and the first and last columns.
+	 */
+	private int[] window(DistanceQuery query) {
+		return window(query.getWindow());
+	}
+
+	/**
+	 * Returns the rows and columns of the cells within the provided bounding box.
+	 * The first column follows the last one when the bounding box crosses the antimeridian.
+	 *
+	 * @param boundingBox the bounding box.
+	 * @return the first and last rows, and the first and last columns.
+	 */
+	private int[] window(BoundingBox boundingBox) {
+		int fromColumn = column(boundingBox.getLowerPoint().getLongitude());
+		int toColumn = column(boundingBox.getUpperPoint().getLongitude());
+		if (boundingBox.crossesAntimeridian() && fromColumn <= toColumn) {
+			// Both ends in the same column, so the bounding box reaches every column
+			fromColumn = 0;
+			toColumn = this.columns - 1;
+		}
+		return new int[] {
+			row(boundingBox.getLowerPoint().getLatitude()),
+			row(boundingBox.getUpperPoint().getLatitude()),
+			fromColumn,
+			toColumn
+		};
+	}
+
+	private static boolean isWithinColumns(int column, int fromColumn, int toColumn) {
+		// The columns wrap around the antimeridian when the first one follows the last one
+		return fromColumn <= toColumn
+			? column >= fromColumn && column <= toColumn
+			: column >= fromColumn || column <= toColumn;
+	}
+
+	@Override
+	public List<KDTreeObject<T, O>> findInRange(BoundingBox boundingBox) {
+		List<KDTreeObject<T, O>> result = new ArrayList<>();
+		findInRange(boundingBox, result::add);
+		return result;
+	}
+
+	@Override
+	public boolean findInRange(BoundingBox boundingBox, KDTreeVisitor<T, O> visitor) {
+		int[] window = window(boundingBox);
+		return visitCells(window[0], window[1], window[2], window[3], cell -> {
+			for (int i = 0; i < cell.getSize(); i++) {
+				GridEntry<T, O> entry = cell.get(i);
+				if (boundingBox.contains(entry.getLatitude(), entry.getLongitude())
+					&& !visitor.visit(entry.getKdTreeObject())) {
+					return false;
+				}
+			}
+			return true;
+		});
+	}
+
+	private boolean visitCells(int fromRow, int toRow, int fromColumn, int toColumn, CellVisitor<T, O> visitor) {
+		if (fromRow > toRow) {
+			return true;
+		}
+
+		// Scan the stored cells instead of looking up every cell of the range, when they are fewer
+		int columnCount = Math.floorMod(toColumn - fromColumn, this.columns) + 1;
+		long cellCount = (long) (toRow - fromRow + 1) * columnCount;
+		if (cellCount > this.cells.size()) {
+			for (GridCell<T, O> cell : this.cells.values()) {
+				long row = cell.getKey() / this.columns;
+				int column = (int) (cell.getKey() % this.columns);
+				if (row >= fromRow && row <= toRow && isWithinColumns(column, fromColumn, toColumn)
+					&& !visitor.visit(cell)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		for (int row = fromRow; row <= toRow; row++) {
+			for (int i = 0; i < columnCount; i++) {
+				GridCell<T, O> cell = this.cells.get(key(row, (fromColumn + i) % this.columns));
+				if (cell != null && !visitor.visit(cell)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Visits a cell of a search.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @author The Geeky Asian
+	 */
+	@FunctionalInterface
+	private interface CellVisitor<T, O> {
+
+		boolean visit(GridCell<T, O> cell);
+	}
+
+	/**
+	 * Builder to create a configured GridIndex.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 *
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 *
+	 * @author The Geeky Asian
+	 */
+	public static class Builder<T, O> {
+		private double cellSize = 0.01;
+
+		private DistanceMetric distanceMetric = DistanceMetric.HAVERSINE;
+
+		private Collection<KDTreeObject<T, O>> objects;
+
+		/**
+		 * Sets the size of the cells, in degrees of latitude and longitude.
+		 * A size close to the radius of the searches suits most workloads,
+		 * e.g. 0.01 degrees (about a kilometer) for searches within a kilometer or two.
+		 *
+		 * @param cellSize the size of the cells, in degrees.
+		 * @return the builder.
+		 */
+		public Builder<T, O> cellSize(double cellSize) {
+			this.cellSize = cellSize;
+			return this;
+		}
+
+		/**
+		 * Sets the metric used to compute distances in the nearest neighbor searches.
+		 *
+		 * @param distanceMetric the distance metric.
+		 * @return the builder.
+		 */
+		public Builder<T, O> distanceMetric(DistanceMetric distanceMetric) {
+			this.distanceMetric = distanceMetric;
+			return this;
+		}
+
+		/**
+		 * Sets the objects to be inserted in the index.
+		 *
+		 * @param objects KDTreeObjects to be inserted in the index.
+		 * @return the builder.
+		 */
+		public Builder<T, O> objects(Collection<KDTreeObject<T, O>> objects) {
+			this.objects = objects;
+			return this;
+		}
+
+		/**
+		 * Creates the GridIndex.
+		 *
+		 * @return a new GridIndex, holding the provided objects, if any.
+		 *
+		 * @throws GeoAssistException is thrown when the cell size is not positive or larger than 180 degrees,
+		 * the distance metric is null or a duplicate ID is provided.
+		 */
+		public GridIndex<T, O> build() {
+			if (!(this.cellSize > 0 && this.cellSize <= 180)) {
+				throw new GeoAssistException("cellSize must be greater than 0 and at most 180");
+			}
+			if (this.distanceMetric == null) {
+				throw new GeoAssistException("distanceMetric can not be null");
+			}
+			return new GridIndex<>(this);
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+
+/**
+ * <p>
+ *     The storage of an implicit KD-Tree held on the heap, as a structure of arrays:
+ *     the latitudes and longitudes in primitive arrays, and the IDs and custom objects in side arrays,
+ *     laid out as a balanced tree when the tree is built. The IDs are looked up through a {@link KDTreeIdTable}.
+ * </p>
+ *
+ * <p>
+ *     Trees with buckets also store the split values of their internal nodes, numbered as in a binary heap,
+ *     as the points at the median indexes are moved again when the halves are laid out.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @param <O> the type of the custom object of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ * @see ArrayKDTree
+ * @see BucketKDTree
+ */
+abstract class ArrayBackedKDTree<T, O> extends ImplicitKDTree<T, O> {
+
+	private final double[] latitudes;
+
+	private final double[] longitudes;
+
+	private final T[] ids;
+
+	private final O[] data;
+
+	private final KDTreeIdTable<T> idTable;
+
+	// The split values of the internal nodes, the children of node i being at 2i + 1 and 2i + 2,
+	// or null when every node holds the point at its median index
+	private final double[] splits;
+
+	@SuppressWarnings("unchecked")
+	ArrayBackedKDTree(DistanceMetric distanceMetric, int bucketSize, Collection<KDTreeObject<T, O>> objects) {
+		super(distanceMetric, bucketSize);
+		Collection<KDTreeObject<T, O>> input = objects == null ? Collections.emptyList() : objects;
+		this.latitudes = new double[input.size()];
+		this.longitudes = new double[input.size()];
+		this.ids = (T[]) new Object[input.size()];
+		this.data = (O[]) new Object[input.size()];
+
+		int index = 0;
+		for (KDTreeObject<T, O> object : input) {
+			this.latitudes[index] = object.getPoint().getLatitude();
+			this.longitudes[index] = object.getPoint().getLongitude();
+			this.ids[index] = object.getId();
+			this.data[index] = object.getData();
+			index++;
+		}
+
+		if (bucketSize == 0) {
+			this.splits = null;
+		}
+		else {
+			// The larger half of a range has ceil(size / 2) points, so its depth bounds the depth of the tree
+			int depth = 0;
+			for (int size = getSize(); size > bucketSize; size = (size + 1) >>> 1) {
+				depth++;
+			}
+			this.splits = new double[(1 << depth) - 1];
+		}
+		layout(new KDTreePartitioner(this.latitudes, this.longitudes) {
+			@Override
+			void swapElements(int i, int j) {
+				swap(ArrayBackedKDTree.this.ids, i, j);
+				swap(ArrayBackedKDTree.this.data, i, j);
+			}
+		}, 0, 0, getSize(), true);
+
+		// Indexed once the objects are laid out, at their final indexes
+		this.idTable = new KDTreeIdTable<>(this.ids);
+	}
+
+	private void layout(KDTreePartitioner partitioner, int node, int from, int to, boolean isLatitude) {
+		// The depth of a balanced tree is logarithmic, so the recursion is shallow
+		if (isLeaf(from, to)) {
+			return;
+		}
+		int medianIndex = partitioner.placeMedian(from, to, isLatitude);
+		if (this.splits != null) {
+			this.splits[node] = isLatitude ? this.latitudes[medianIndex] : this.longitudes[medianIndex];
+		}
+		layout(partitioner, 2 * node + 1, from, medianIndex, !isLatitude);
+		layout(partitioner, 2 * node + 2, rightFrom(medianIndex), to, !isLatitude);
+	}
+
+	private static void swap(Object[] array, int i, int j) {
+		Object value = array[i];
+		array[i] = array[j];
+		array[j] = value;
+	}
+
+	@Override
+	double latitude(int index) {
+		return this.latitudes[index];
+	}
+
+	@Override
+	double longitude(int index) {
+		return this.longitudes[index];
+	}
+
+	@Override
+	KDTreeObject<T, O> object(int index) {
+		return new KDTreeObject.Builder<T, O>()
+				.id(this.ids[index])
+				.data(this.data[index])
+				.latitude(this.latitudes[index])
+				.longitude(this.longitudes[index])
+				.build();
+	}
+
+	@Override
+	double split(int node, int medianIndex, boolean isLatitude) {
+		return this.splits == null ? super.split(node, medianIndex, isLatitude) : this.splits[node];
+	}
+
+	@Override
+	public int getSize() {
+		return this.latitudes.length;
+	}
+
+	/**
+	 * Find the KDTreeObject for the provided ID.
+	 *
+	 * @param id ID of the KDTreeObject that you are looking.
+	 *
+	 * @return The method returns the KDTreeObject for the provided ID.
+	 * If not found, the method returns `null` otherwise.
+	 * */
+	public KDTreeObject<T, O> getById(T id) {
+		int index = this.idTable.indexOf(id);
+		return index < 0 ? null : object(index);
+	}
+
+	/**
+	 * Updates the custom data by replacing it with the provided data.
+	 *
+	 * @param id ID of the custom object that is desired to be updated.
+	 *
+	 * @param data Custom data to be updated for the provided ID.
+	 *
+	 * @throws GeoAssistException is thrown an object with provided ID is not found.
+	 * */
+	public void update(T id, O data) {
+		int index = this.idTable.indexOf(id);
+		if (index < 0) {
+			throw new GeoAssistException("No object found for provided ID");
+		}
+		this.data[index] = data;
+	}
+}
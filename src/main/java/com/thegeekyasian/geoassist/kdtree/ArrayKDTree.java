@@ -0,0 +1,112 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.Collection;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+
+/**
+ * <p>
+ *     A compact, immutable two-dimensional KD-Tree, with the same search API as the {@link KDTree}.
+ * </p>
+ *
+ * <p>
+ *     Instead of a node, an object and a point per entry, the tree is stored as a structure of arrays:
+ *     the latitudes and longitudes in primitive arrays, and the IDs and custom objects in side arrays.
+ *     The entries are laid out as an implicit balanced tree: the root of every subtree sits at the middle of
+ *     its range of the arrays, with its left subtree before it and its right subtree after it,
+ *     so no child references are needed at all. Searches compare the coordinates straight from the arrays,
+ *     and the subtrees close to the leaves are contiguous in memory, which suits range scans.
+ * </p>
+ *
+ * <p>
+ *     The KDTreeObjects passed to the searches are created from the arrays,
+ *     so modifying them has no effect on the tree. Only the custom objects can be updated;
+ *     build a new tree to insert or delete objects.
+ * </p>
+ *
+ * @param <T>
+ *     describes the identifier of the K-d Tree Object,
+ *     that is being inserted in the tree. For example ID or UUID of the Object.
+ *
+ * @param <O>
+ *     describes the object that is inserted in the tree.
+ *     For example Vendor, Restaurant, Franchise, etc.
+ *
+ * @author The Geeky Asian
+ */
+public final class ArrayKDTree<T, O> extends ArrayBackedKDTree<T, O> {
+
+	private ArrayKDTree(Builder<T, O> builder) {
+		super(builder.distanceMetric, 0, builder.objects);
+	}
+
+	/**
+	 * Creates a new ArrayKDTree out of the provided objects.
+	 *
+	 * @param objects KDTreeObjects to be loaded in the tree.
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @return a balanced ArrayKDTree holding all the provided objects.
+	 *
+	 * @throws GeoAssistException is thrown when a duplicate ID is provided.
+	 * @see KDTree#bulkLoad(Collection)
+	 */
+	public static <T, O> ArrayKDTree<T, O> bulkLoad(Collection<KDTreeObject<T, O>> objects) {
+		return new Builder<T, O>()
+				.objects(objects)
+				.build();
+	}
+
+	/**
+	 * Builder to create a configured ArrayKDTree.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 *
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 *
+	 * @author The Geeky Asian
+	 */
+	public static class Builder<T, O> {
+		private DistanceMetric distanceMetric = DistanceMetric.HAVERSINE;
+
+		private Collection<KDTreeObject<T, O>> objects;
+
+		/**
+		 * Sets the metric used to compute distances in the nearest neighbor searches.
+		 *
+		 * @param distanceMetric the distance metric.
+		 * @return the builder.
+		 * @see KDTree.Builder#distanceMetric(DistanceMetric)
+		 */
+		public Builder<T, O> distanceMetric(DistanceMetric distanceMetric) {
+			this.distanceMetric = distanceMetric;
+			return this;
+		}
+
+		/**
+		 * Sets the objects of the tree.
+		 *
+		 * @param objects KDTreeObjects to be loaded in the tree.
+		 * @return the builder.
+		 */
+		public Builder<T, O> objects(Collection<KDTreeObject<T, O>> objects) {
+			this.objects = objects;
+			return this;
+		}
+
+		/**
+		 * Creates the ArrayKDTree.
+		 *
+		 * @return a new ArrayKDTree, empty if no objects were provided.
+		 *
+		 * @throws GeoAssistException is thrown when the distance metric is null
+		 * or a duplicate ID is provided.
+		 */
+		public ArrayKDTree<T, O> build() {
+			if (this.distanceMetric == null) {
+				throw new GeoAssistException("distanceMetric can not be null");
+			}
+			return new ArrayKDTree<>(this);
+		}
+	}
+}
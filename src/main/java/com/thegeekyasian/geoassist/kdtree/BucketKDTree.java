@@ -0,0 +1,137 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.Collection;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+
+/**
+ * <p>
+ *     A compact, immutable two-dimensional KD-Tree whose leaves hold buckets of points,
+ *     with the same search API as the {@link KDTree}.
+ * </p>
+ *
+ * <p>
+ *     Like the {@link ArrayKDTree}, the points are stored as a structure of arrays. Instead of
+ *     splitting down to a single point, ranges of up to {@link Builder#bucketSize(int) bucketSize} points
+ *     are kept as leaves, and only the internal nodes above them are stored, as their split values alone.
+ *     The tree is therefore about log2(bucketSize) levels shallower, sparing a branch and a likely
+ *     cache miss per level, and a search scans the points of the leaves it reaches in a tight loop
+ *     over contiguous arrays, which the JIT compiler can unroll and the CPU can prefetch.
+ * </p>
+ *
+ * <p>
+ *     The KDTreeObjects passed to the searches are created from the arrays,
+ *     so modifying them has no effect on the tree. Only the custom objects can be updated;
+ *     build a new tree to insert or delete objects.
+ * </p>
+ *
+ * @param <T>
+ *     describes the identifier of the K-d Tree Object,
+ *     that is being inserted in the tree. For example ID or UUID of the Object.
+ *
+ * @param <O>
+ *     describes the object that is inserted in the tree.
+ *     For example Vendor, Restaurant, Franchise, etc.
+ *
+ * @author The Geeky Asian
+ */
+public final class BucketKDTree<T, O> extends ArrayBackedKDTree<T, O> {
+
+	private BucketKDTree(Builder<T, O> builder) {
+		super(builder.distanceMetric, builder.bucketSize, builder.objects);
+	}
+
+	/**
+	 * Creates a new BucketKDTree out of the provided objects, with the default bucket size.
+	 *
+	 * @param objects KDTreeObjects to be loaded in the tree.
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @return a balanced BucketKDTree holding all the provided objects.
+	 *
+	 * @throws GeoAssistException is thrown when a duplicate ID is provided.
+	 * @see KDTree#bulkLoad(Collection)
+	 */
+	public static <T, O> BucketKDTree<T, O> bulkLoad(Collection<KDTreeObject<T, O>> objects) {
+		return new Builder<T, O>()
+				.objects(objects)
+				.build();
+	}
+
+	/**
+	 * Builder to create a configured BucketKDTree.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 *
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 *
+	 * @author The Geeky Asian
+	 */
+	public static class Builder<T, O> {
+		private DistanceMetric distanceMetric = DistanceMetric.HAVERSINE;
+
+		private int bucketSize = 16;
+
+		private Collection<KDTreeObject<T, O>> objects;
+
+		/**
+		 * Sets the metric used to compute distances in the nearest neighbor searches.
+		 *
+		 * @param distanceMetric the distance metric.
+		 * @return the builder.
+		 * @see KDTree.Builder#distanceMetric(DistanceMetric)
+		 */
+		public Builder<T, O> distanceMetric(DistanceMetric distanceMetric) {
+			this.distanceMetric = distanceMetric;
+			return this;
+		}
+
+		/**
+		 * <p>
+		 *     Sets the maximum number of points held by a leaf. Defaults to 16.
+		 * </p>
+		 *
+		 * <p>
+		 *     Larger buckets make the tree shallower and the scans longer: they pay off for range searches
+		 *     returning many points, while smaller buckets suit very selective searches.
+		 *     A bucket size of 1 gives the same tree as an {@link ArrayKDTree}, with its splits stored apart.
+		 * </p>
+		 *
+		 * @param bucketSize the maximum number of points of a leaf, greater than 0.
+		 * @return the builder.
+		 */
+		public Builder<T, O> bucketSize(int bucketSize) {
+			this.bucketSize = bucketSize;
+			return this;
+		}
+
+		/**
+		 * Sets the objects of the tree.
+		 *
+		 * @param objects KDTreeObjects to be loaded in the tree.
+		 * @return the builder.
+		 */
+		public Builder<T, O> objects(Collection<KDTreeObject<T, O>> objects) {
+			this.objects = objects;
+			return this;
+		}
+
+		/**
+		 * Creates the BucketKDTree.
+		 *
+		 * @return a new BucketKDTree, empty if no objects were provided.
+		 *
+		 * @throws GeoAssistException is thrown when the distance metric is null,
+		 * the bucket size is lower than 1 or a duplicate ID is provided.
+		 */
+		public BucketKDTree<T, O> build() {
+			if (this.distanceMetric == null) {
+				throw new GeoAssistException("distanceMetric can not be null");
+			}
+			if (this.bucketSize < 1) {
+				throw new GeoAssistException("bucketSize must be greater than 0");
+			}
+			return new BucketKDTree<>(this);
+		}
+	}
+}
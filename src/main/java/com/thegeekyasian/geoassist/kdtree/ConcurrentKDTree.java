@@ -0,0 +1,456 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * <p>
+ *     A thread-safe KDTree, which can be searched by many threads while another thread modifies it.
+ * </p>
+ *
+ * <p>
+ *     Searches returning a result run optimistically, without taking any lock, against a {@link StampedLock}.
+ *     Their result is only returned if no insertion or deletion happened in the meantime,
+ *     otherwise they run again under the read lock, which is shared by all readers.
+ *     Searches passing their results to a visitor always take the read lock,
+ *     as the results are handed out as they are found.
+ *     Lookups by ID and the size of the tree do not take any lock at all,
+ *     as they are served by concurrent structures.
+ * </p>
+ *
+ * <p>
+ *     {@link #balance()} does not rebalance the tree in place: it builds a new, balanced copy of the tree
+ *     while searches keep running against the current one, then swaps it in. Writers are held back
+ *     during the rebuild, so that no write is lost, but searches are only held back for the swap.
+ *     Rebalancing in place would briefly link nodes in cycles, which an optimistic search would never leave,
+ *     while insertions and deletions only ever link nodes below their new parent.
+ * </p>
+ *
+ * <p>
+ *     For the same reason, the rebuilds made by the backing tree itself, for its
+ *     {@link KDTree.Builder#balanceFactor(double) balance factor} or a large {@link #moveAll(Map)},
+ *     link copies of the nodes and only then swap the rebuilt subtree in, leaving the current nodes untouched.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @param <O> the type of the custom object of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ */
+public class ConcurrentKDTree<T, O> implements SpatialIndex<T, O> {
+
+	private final StampedLock lock = new StampedLock();
+
+	private final ReentrantLock writerLock = new ReentrantLock();
+
+	private volatile KDTree<T, O> kdTree;
+
+	/**
+	 * Creates a new, empty instance of ConcurrentKDTree.
+	 */
+	public ConcurrentKDTree() {
+		this(new KDTree<>());
+	}
+
+	/**
+	 * Creates a new instance of ConcurrentKDTree backed by the provided tree,
+	 * e.g. configured and bulk loaded with a {@link KDTree.Builder}, with or without a balance factor.
+	 * The provided tree must not be used directly afterwards, as its rebuilds are switched to copying its nodes.
+	 *
+	 * @param kdTree the tree to make thread-safe.
+	 *
+	 * @throws GeoAssistException is thrown when the provided tree is null.
+	 */
+	public ConcurrentKDTree(KDTree<T, O> kdTree) {
+		if (kdTree == null) {
+			throw new GeoAssistException("kdTree can not be null");
+		}
+		kdTree.copyNodesOnRebuild();
+		this.kdTree = kdTree;
+	}
+
+	/**
+	 * Inserts the provided KDTreeObject on the tree.
+	 *
+	 * @param kdTreeObject KDTreeObject holds the custom object,
+	 * identifier along with the Point (latitude/longitude coordinates) of the object.
+	 *
+	 * @throws GeoAssistException is thrown when a duplicate ID is provided.
+	 * @see KDTree#insert(KDTreeObject)
+	 */
+	@Override
+	public void insert(KDTreeObject<T, O> kdTreeObject) {
+		write(kdTree -> {
+			kdTree.insert(kdTreeObject);
+			return null;
+		});
+	}
+
+	/**
+	 * Deletes the object with the provided custom ID.
+	 *
+	 * @param id ID of the custom object that is desired to be deleted.
+	 *
+	 * @return Returns a boolean flag, `true` if the object is successfully deleted
+	 * and `false` otherwise.
+	 * @see KDTree#delete(Object)
+	 */
+	@Override
+	public boolean delete(T id) {
+		return write(kdTree -> kdTree.delete(id));
+	}
+
+	/**
+	 * Updates the custom data by replacing it in the KDTreeObject with the provided data.
+	 *
+	 * @param id ID of the custom object that is desired to be updated.
+	 *
+	 * @param data Custom data to be updated in the KDTreeObject of provided ID.
+	 *
+	 * @throws GeoAssistException is thrown an object with provided ID is not found.
+	 * @see KDTree#update(Object, Object)
+	 */
+	@Override
+	public void update(T id, O data) {
+		write(kdTree -> {
+			kdTree.update(id, data);
+			return null;
+		});
+	}
+
+	/**
+	 * Moves the object with the provided ID to the provided point.
+	 *
+	 * @param id ID of the object that is desired to be moved.
+	 *
+	 * @param point the new location (latitude/longitude) coordinates of the object.
+	 *
+	 * @throws GeoAssistException is thrown an object with provided ID is not found.
+	 * @see KDTree#moveTo(Object, Point)
+	 */
+	public void moveTo(T id, Point point) {
+		write(kdTree -> {
+			kdTree.moveTo(id, point);
+			return null;
+		});
+	}
+
+	/**
+	 * Moves the objects with the provided IDs to their provided points, under a single write lock.
+	 *
+	 * @param points the new location (latitude/longitude) coordinates, by ID of the objects to move.
+	 *
+	 * @throws GeoAssistException is thrown an object with one of the provided IDs is not found.
+	 * @see KDTree#moveAll(Map)
+	 */
+	public void moveAll(Map<T, Point> points) {
+		write(kdTree -> {
+			kdTree.moveAll(points);
+			return null;
+		});
+	}
+
+	/**
+	 * Find the KDTreeObject for the provided ID, without taking any lock.
+	 *
+	 * @param id ID of the KDTreeObject that you are looking.
+	 *
+	 * @return The method returns the KDTreeObject for the provided ID.
+	 * If not found, the method returns `null` otherwise.
+	 * @see KDTree#getById(Object)
+	 */
+	@Override
+	public KDTreeObject<T, O> getById(T id) {
+		return this.kdTree.getById(id);
+	}
+
+	/**
+	 * Returns the size i.e. number of objects present in the tree at a provided moment,
+	 * without taking any lock.
+	 *
+	 * @return an integer value of size is returned.
+	 * @see KDTree#getSize()
+	 */
+	@Override
+	public int getSize() {
+		return this.kdTree.getSize();
+	}
+
+	/**
+	 * Finds the nearest neighbor to a given point
+	 * with the provided distance in the k-d tree.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return Returns the list of KDTreeObjects
+	 * that are nearby the provided point for the provided distance.
+	 * @see KDTree#findNearestNeighbor(Point, double)
+	 */
+	@Override
+	public List<KDTreeObject<T, O>> findNearestNeighbor(Point point, double distance) {
+		return optimisticRead(kdTree -> kdTree.findNearestNeighbor(point, distance));
+	}
+
+	/**
+	 * Finds the nearest neighbors to a given point with the provided distance in the k-d tree,
+	 * and passes them to the provided visitor as they are found. The read lock is held
+	 * while the visitor runs, so the visitor must not modify the tree.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @param visitor Visitor of the nearest neighbors, which can stop the search by returning false.
+	 *
+	 * @return true if all the nearest neighbors were visited, false if the visitor stopped the search.
+	 * @see KDTree#findNearestNeighbor(Point, double, KDTreeVisitor)
+	 */
+	@Override
+	public boolean findNearestNeighbor(Point point, double distance, KDTreeVisitor<T, O> visitor) {
+		return read(kdTree -> kdTree.findNearestNeighbor(point, distance, visitor));
+	}
+
+	/**
+	 * Finds a single nearest-most neighbor to a given point
+	 * with the provided distance in the k-d tree.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return the nearest neighbor to the given point within the specified distance.
+	 * @see KDTree#findNearest(Point, double)
+	 */
+	@Override
+	public KDTreeNearestNeighbor<T, O> findNearest(Point point, double distance) {
+		return optimisticRead(kdTree -> kdTree.findNearest(point, distance));
+	}
+
+	/**
+	 * Finds the nearest neighbors to a given point with the provided distance in the k-d tree,
+	 * searching the subtrees concurrently on the provided pool, under the read lock.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @param pool the pool to search the tree on.
+	 *
+	 * @return the KDTreeObjects that are nearby the provided point for the provided distance, in no particular order.
+	 * @see KDTree#findNearestNeighborParallel(Point, double, ForkJoinPool)
+	 */
+	public List<KDTreeObject<T, O>> findNearestNeighborParallel(Point point, double distance, ForkJoinPool pool) {
+		return read(kdTree -> kdTree.findNearestNeighborParallel(point, distance, pool));
+	}
+
+	/**
+	 * Finds the nearest-most neighbor of each of the provided points with the provided distance
+	 * in the k-d tree, under the read lock, as a whole batch would be costly to search again.
+	 *
+	 * @param points Location (latitude/longitude) coordinates
+	 * of the reference points to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @param pool the pool to search the points on, or null to search them on the calling thread.
+	 *
+	 * @return the nearest neighbor of each point, in the order of the points.
+	 * @see KDTree#findNearestBatch(Point[], double, ForkJoinPool)
+	 */
+	public List<KDTreeNearestNeighbor<T, O>> findNearestBatch(Point[] points, double distance, ForkJoinPool pool) {
+		return read(kdTree -> kdTree.findNearestBatch(points, distance, pool));
+	}
+
+	/**
+	 * Finds the k nearest neighbors to a given point
+	 * within the provided distance in the k-d tree.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param k Maximum number of nearest neighbors to return.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return the k (or fewer) nearest neighbors within the distance,
+	 * along with their distance, ordered from the nearest to the farthest.
+	 *
+	 * @throws GeoAssistException is thrown when k is lower than 1.
+	 * @see KDTree#findKNearest(Point, int, double)
+	 */
+	public List<KDTreeNearestNeighbor<T, O>> findKNearest(Point point, int k, double distance) {
+		return optimisticRead(kdTree -> kdTree.findKNearest(point, k, distance));
+	}
+
+	/**
+	 * Searches the k-d tree for all nodes whose
+	 * coordinates fall within the given bounding box.
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @return a list of KDTreeObject whose coordinates fall within the bounding box
+	 * @see KDTree#findInRange(BoundingBox)
+	 */
+	@Override
+	public List<KDTreeObject<T, O>> findInRange(BoundingBox boundingBox) {
+		return optimisticRead(kdTree -> kdTree.findInRange(boundingBox));
+	}
+
+	/**
+	 * Searches the k-d tree for all nodes whose coordinates fall within the given bounding box,
+	 * searching the subtrees concurrently on the provided pool, under the read lock.
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @param pool the pool to search the tree on
+	 * @return a list of KDTreeObject whose coordinates fall within the bounding box, in no particular order
+	 * @see KDTree#findInRangeParallel(BoundingBox, ForkJoinPool)
+	 */
+	public List<KDTreeObject<T, O>> findInRangeParallel(BoundingBox boundingBox, ForkJoinPool pool) {
+		return read(kdTree -> kdTree.findInRangeParallel(boundingBox, pool));
+	}
+
+	/**
+	 * Searches the k-d tree for all nodes whose coordinates fall within each of the provided bounding boxes,
+	 * under the read lock, as a whole batch would be costly to search again.
+	 *
+	 * @param boundingBoxes the bounding boxes that define the ranges to search within
+	 * @param pool the pool to search the bounding boxes on, or null to search them on the calling thread
+	 * @return a list of the KDTreeObjects within each bounding box, in the order of the bounding boxes
+	 * @see KDTree#findInRangeBatch(BoundingBox[], ForkJoinPool)
+	 */
+	public List<List<KDTreeObject<T, O>>> findInRangeBatch(BoundingBox[] boundingBoxes, ForkJoinPool pool) {
+		return read(kdTree -> kdTree.findInRangeBatch(boundingBoxes, pool));
+	}
+
+	/**
+	 * Searches the k-d tree for all nodes whose coordinates fall within the given bounding box,
+	 * and passes their objects to the provided visitor as they are found. The read lock is held
+	 * while the visitor runs, so the visitor must not modify the tree.
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @param visitor visitor of the KDTreeObjects within the bounding box,
+	 * which can stop the search by returning false
+	 * @return true if all the objects within the bounding box were visited,
+	 * false if the visitor stopped the search
+	 * @see KDTree#findInRange(BoundingBox, KDTreeVisitor)
+	 */
+	@Override
+	public boolean findInRange(BoundingBox boundingBox, KDTreeVisitor<T, O> visitor) {
+		return read(kdTree -> kdTree.findInRange(boundingBox, visitor));
+	}
+
+	/**
+	 * Writes the tree to the provided stream in the compact binary format of the KDTree,
+	 * while writers are held back, so that the written tree is consistent.
+	 *
+	 * @param out the stream to write the tree to, which is flushed but not closed.
+	 * @param idSerializer the serializer of the IDs of the objects.
+	 * @param dataSerializer the serializer of the custom objects.
+	 * @throws IOException is thrown when the tree can not be written.
+	 * @see KDTree#writeTo(OutputStream, KDTreeSerializer, KDTreeSerializer)
+	 */
+	public void writeTo(OutputStream out, KDTreeSerializer<T> idSerializer,
+		KDTreeSerializer<O> dataSerializer) throws IOException {
+		long stamp = this.lock.readLock();
+		try {
+			this.kdTree.writeTo(out, idSerializer, dataSerializer);
+		}
+		finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Returns whether the KDTree is balanced.
+	 *
+	 * @return true if the tree is balanced, false otherwise.
+	 * @see KDTree#isBalanced()
+	 */
+	public boolean isBalanced() {
+		return read(KDTree::isBalanced);
+	}
+
+	/**
+	 * Replaces the tree with a balanced copy of it. The copy is built while searches
+	 * keep running against the current tree, which are then only held back to swap the trees.
+	 *
+	 * @see KDTree#balance()
+	 */
+	public void balance() {
+		this.writerLock.lock();
+		try {
+			// No other writer can modify the tree while it is being copied
+			KDTree<T, O> balancedTree = this.kdTree.rebuild();
+			long stamp = this.lock.writeLock();
+			try {
+				this.kdTree = balancedTree;
+			}
+			finally {
+				this.lock.unlockWrite(stamp);
+			}
+		}
+		finally {
+			this.writerLock.unlock();
+		}
+	}
+
+	private <R> R optimisticRead(Function<KDTree<T, O>, R> operation) {
+		long stamp = this.lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				R result = operation.apply(this.kdTree);
+				if (this.lock.validate(stamp)) {
+					return result;
+				}
+			}
+			catch (RuntimeException ex) {
+				// The tree was modified while being searched, so the search might have
+				// followed a node that was not fully linked yet. Run it again under the read lock,
+				// which also throws the exception again if it was not caused by the modification.
+			}
+		}
+		return read(operation);
+	}
+
+	private <R> R read(Function<KDTree<T, O>, R> operation) {
+		long stamp = this.lock.readLock();
+		try {
+			return operation.apply(this.kdTree);
+		}
+		finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	private <R> R write(Function<KDTree<T, O>, R> operation) {
+		this.writerLock.lock();
+		try {
+			long stamp = this.lock.writeLock();
+			try {
+				return operation.apply(this.kdTree);
+			}
+			finally {
+				this.lock.unlockWrite(stamp);
+			}
+		}
+		finally {
+			this.writerLock.unlock();
+		}
+	}
+}
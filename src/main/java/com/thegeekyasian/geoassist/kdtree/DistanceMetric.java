@@ -0,0 +1,126 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * <p>
+ *     The DistanceMetric defines how the KDTree computes the distance (in kilometers)
+ *     between the reference point of a search and the objects of the tree.
+ * </p>
+ *
+ * <p>
+ *     While searching, points are compared on a reduced distance, which grows with the distance
+ *     but skips the most expensive steps of its computation (e.g. the square root and arc tangent
+ *     of the haversine formula). Only the distances returned to the caller are converted
+ *     to kilometers. The cosine of the latitude of the objects is computed once, when they are inserted,
+ *     and the cosine of the latitude of the reference point once per search.
+ * </p>
+ *
+ * @author The Geeky Asian
+ * @see KDTree.Builder#distanceMetric(DistanceMetric)
+ */
+public enum DistanceMetric {
+
+	/**
+	 * The great-circle distance, computed with the haversine formula. This is the default metric.
+	 */
+	HAVERSINE {
+		@Override
+		double reducedDistance(double latitude1, double longitude1, double cosLatitude1,
+			double latitude2, double longitude2, double cosLatitude2) {
+			double dLat = Math.toRadians(latitude2 - latitude1);
+			double dLon = Math.toRadians(longitude2 - longitude1);
+			double sinLat = Math.sin(dLat / 2);
+			double sinLon = Math.sin(dLon / 2);
+			return sinLat * sinLat + sinLon * sinLon * cosLatitude1 * cosLatitude2;
+		}
+
+		@Override
+		double toReducedDistance(double distance) {
+			if (distance < 0) {
+				return -1;
+			}
+			double sin = Math.sin(Math.min(distance / EARTH_RADIUS, Math.PI) / 2);
+			return sin * sin;
+		}
+
+		@Override
+		double toDistance(double reducedDistance) {
+			double c = 2 * Math.atan2(Math.sqrt(reducedDistance), Math.sqrt(1 - reducedDistance));
+			return EARTH_RADIUS * c;
+		}
+	},
+
+	/**
+	 * <p>
+	 *     The equirectangular approximation, which projects the points on a plane
+	 *     scaled by the cosine of their latitude, and requires no trigonometric function at all.
+	 * </p>
+	 *
+	 * <p>
+	 *     Its error is negligible for radii of a few kilometers,
+	 *     but grows with the distance and towards the poles.
+	 * </p>
+	 */
+	EQUIRECTANGULAR {
+		@Override
+		double reducedDistance(double latitude1, double longitude1, double cosLatitude1,
+			double latitude2, double longitude2, double cosLatitude2) {
+			double dLat = Math.toRadians(latitude2 - latitude1);
+			double dLon = Math.toRadians(longitude2 - longitude1);
+
+			// Take the short way around the antimeridian
+			if (dLon > Math.PI) {
+				dLon -= 2 * Math.PI;
+			}
+			else if (dLon < -Math.PI) {
+				dLon += 2 * Math.PI;
+			}
+			double x = dLon * (cosLatitude1 + cosLatitude2) / 2;
+			return x * x + dLat * dLat;
+		}
+
+		@Override
+		double toReducedDistance(double distance) {
+			if (distance < 0) {
+				return -1;
+			}
+			double angle = distance / EARTH_RADIUS;
+			return angle * angle;
+		}
+
+		@Override
+		double toDistance(double reducedDistance) {
+			return EARTH_RADIUS * Math.sqrt(reducedDistance);
+		}
+	};
+
+	static final double EARTH_RADIUS = 6371; // radius of Earth in kilometers
+
+	/**
+	 * Computes the distance between two points.
+	 *
+	 * @param point1 the first point.
+	 * @param point2 the second point.
+	 * @return the distance between the points, in kilometers.
+	 */
+	public double distance(Point point1, Point point2) {
+		return toDistance(reducedDistance(point1, cosLatitude(point1), point2, cosLatitude(point2)));
+	}
+
+	double reducedDistance(Point point1, double cosLatitude1, Point point2, double cosLatitude2) {
+		return reducedDistance(point1.getLatitude(), point1.getLongitude(), cosLatitude1,
+			point2.getLatitude(), point2.getLongitude(), cosLatitude2);
+	}
+
+	abstract double reducedDistance(double latitude1, double longitude1, double cosLatitude1,
+		double latitude2, double longitude2, double cosLatitude2);
+
+	abstract double toReducedDistance(double distance);
+
+	abstract double toDistance(double reducedDistance);
+
+	static double cosLatitude(Point point) {
+		return Math.cos(Math.toRadians(point.getLatitude()));
+	}
+}
@@ -0,0 +1,286 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * <p>
+ *     The DistanceQuery holds everything about the reference point and maximum distance of a search
+ *     that can be computed once, instead of once per visited node: the cosine of its latitude,
+ *     the maximum distance reduced by the {@link DistanceMetric}, and the largest latitude
+ *     and longitude differences (in degrees) that the maximum distance can span around the point.
+ * </p>
+ *
+ * <p>
+ *     It is public for the other spatial indexes of the library to share the same distance computations.
+ * </p>
+ *
+ * @author The Geeky Asian
+ */
+public final class DistanceQuery {
+
+	private final Point point;
+
+	private final double cosLatitude;
+
+	private final double distance;
+
+	private final double reducedDistance;
+
+	private final DistanceMetric distanceMetric;
+
+	private final double latitudeWindow;
+
+	private final double longitudeWindow;
+
+	private final boolean crossesAntimeridian;
+
+	/**
+	 * Creates a query of the objects within the provided distance of the provided point.
+	 *
+	 * @param point the reference point.
+	 * @param distance the maximum distance, in kilometers.
+	 * @param distanceMetric the metric used to compute distances.
+	 */
+	public DistanceQuery(Point point, double distance, DistanceMetric distanceMetric) {
+		this.point = point;
+		this.cosLatitude = DistanceMetric.cosLatitude(point);
+		this.distance = distance;
+		this.distanceMetric = distanceMetric;
+		this.reducedDistance = distanceMetric.toReducedDistance(distance);
+		this.latitudeWindow = Math.toDegrees(distance / DistanceMetric.EARTH_RADIUS);
+		this.longitudeWindow = longitudeWindow();
+		this.crossesAntimeridian = !Double.isInfinite(this.longitudeWindow)
+			&& Math.abs(point.getLongitude()) + this.longitudeWindow > 180;
+	}
+
+	private double longitudeWindow() {
+		// Widest longitude difference of the circle of the provided radius around the point,
+		// which spans every longitude once it reaches a pole
+		double angle = this.distance / DistanceMetric.EARTH_RADIUS;
+		double lat = Math.toRadians(Math.abs(this.point.getLatitude()));
+		if (angle >= Math.PI / 2 - lat) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return Math.toDegrees(Math.asin(Math.sin(angle) / Math.cos(lat)));
+	}
+
+	/**
+	 * Returns the reference point.
+	 *
+	 * @return the reference point.
+	 */
+	public Point getPoint() {
+		return this.point;
+	}
+
+	/**
+	 * Returns the maximum distance.
+	 *
+	 * @return the maximum distance, in kilometers.
+	 */
+	public double getDistance() {
+		return this.distance;
+	}
+
+	/**
+	 * Returns the maximum distance reduced by the distance metric,
+	 * to be compared with the results of {@link #reducedDistanceTo(double, double)}.
+	 *
+	 * @return the reduced maximum distance.
+	 */
+	public double getReducedDistance() {
+		return this.reducedDistance;
+	}
+
+	/**
+	 * Returns the largest latitude difference that the maximum distance spans around the point.
+	 *
+	 * @return the latitude window, in degrees.
+	 */
+	public double getLatitudeWindow() {
+		return this.latitudeWindow;
+	}
+
+	/**
+	 * Returns the largest longitude difference that the maximum distance spans around the point,
+	 * which is infinite when the circle reaches a pole.
+	 *
+	 * @return the longitude window, in degrees.
+	 */
+	public double getLongitudeWindow() {
+		return this.longitudeWindow;
+	}
+
+	/**
+	 * Checks whether the circle of the maximum distance around the point crosses the antimeridian,
+	 * without reaching a pole.
+	 *
+	 * @return true if the circle crosses the antimeridian.
+	 */
+	public boolean crossesAntimeridian() {
+		return this.crossesAntimeridian;
+	}
+
+	/**
+	 * <p>
+	 *     Returns the bounding box of the latitudes and longitudes that the maximum distance spans around the point,
+	 *     clamped to the poles. It spans every longitude when the circle reaches a pole, and crosses
+	 *     the antimeridian along with the circle, e.g. from 178 to -178 degrees of longitude around Fiji.
+	 * </p>
+	 *
+	 * <p>
+	 *     A search can split a window crossing the antimeridian with {@link BoundingBox#splitAtAntimeridian()},
+	 *     and prune each part by longitude, instead of searching every longitude.
+	 * </p>
+	 *
+	 * @return the window of the query.
+	 */
+	public BoundingBox getWindow() {
+		double lowerLongitude = -180;
+		double upperLongitude = 180;
+		if (!Double.isInfinite(this.longitudeWindow)) {
+			// Wrap the longitudes beyond the antimeridian around it
+			lowerLongitude = this.point.getLongitude() - this.longitudeWindow;
+			if (lowerLongitude < -180) {
+				lowerLongitude += 360;
+			}
+			upperLongitude = this.point.getLongitude() + this.longitudeWindow;
+			if (upperLongitude > 180) {
+				upperLongitude -= 360;
+			}
+		}
+		return new BoundingBox.Builder()
+			.lowerPoint(new Point.Builder()
+				.latitude(Math.max(-90, this.point.getLatitude() - this.latitudeWindow))
+				.longitude(lowerLongitude)
+				.build())
+			.upperPoint(new Point.Builder()
+				.latitude(Math.min(90, this.point.getLatitude() + this.latitudeWindow))
+				.longitude(upperLongitude)
+				.build())
+			.build();
+	}
+
+	double coordinate(boolean isLatitude) {
+		return isLatitude ? this.point.getLatitude() : this.point.getLongitude();
+	}
+
+	double reducedDistanceTo(KDTreeNode<?, ?> node) {
+		return this.distanceMetric.reducedDistance(node.getKdTreeObject().getPoint(),
+			node.getCosLatitude(), this.point, this.cosLatitude);
+	}
+
+	/**
+	 * Computes the reduced distance between the reference point and the provided point.
+	 *
+	 * @param other the other point.
+	 * @return the reduced distance.
+	 */
+	public double reducedDistanceTo(Point other) {
+		return reducedDistanceTo(other.getLatitude(), other.getLongitude());
+	}
+
+	/**
+	 * Computes the reduced distance between the reference point and the provided coordinates.
+	 *
+	 * @param latitude the latitude of the other point.
+	 * @param longitude the longitude of the other point.
+	 * @return the reduced distance.
+	 */
+	public double reducedDistanceTo(double latitude, double longitude) {
+		return this.distanceMetric.reducedDistance(latitude, longitude, Math.cos(Math.toRadians(latitude)),
+			this.point.getLatitude(), this.point.getLongitude(), this.cosLatitude);
+	}
+
+	/**
+	 * Converts a reduced distance to a distance.
+	 *
+	 * @param reducedDistance the reduced distance.
+	 * @return the distance, in kilometers.
+	 */
+	public double toDistance(double reducedDistance) {
+		return this.distanceMetric.toDistance(reducedDistance);
+	}
+
+	boolean isWithinWindow(double delta, boolean isLatitude) {
+		if (isLatitude) {
+			return Math.abs(delta) <= this.latitudeWindow;
+		}
+		// Both sides of every meridian hold a part of a circle crossing the antimeridian,
+		// which is searched by the parts of its window instead to be pruned by longitude
+		return this.crossesAntimeridian || Math.abs(delta) <= this.longitudeWindow;
+	}
+
+	/**
+	 * Checks cheaply whether the provided point may be within the maximum distance,
+	 * before computing the distance to it.
+	 *
+	 * @param other the other point.
+	 * @return false if the point is farther than the maximum distance, true if it may be within it.
+	 */
+	public boolean isWithinWindow(Point other) {
+		return isWithinWindow(other.getLatitude(), other.getLongitude());
+	}
+
+	/**
+	 * Checks cheaply whether the provided coordinates may be within the maximum distance,
+	 * before computing the distance to them.
+	 *
+	 * @param latitude the latitude of the other point.
+	 * @param longitude the longitude of the other point.
+	 * @return false if the point is farther than the maximum distance, true if it may be within it.
+	 */
+	public boolean isWithinWindow(double latitude, double longitude) {
+		// Cheap check of both coordinates, before computing the distance to the point,
+		// with the longitudes wrapping around the antimeridian
+		double dLon = Math.abs(longitude - this.point.getLongitude());
+		return isWithinWindow(latitude - this.point.getLatitude(), true)
+			&& Math.min(dLon, 360 - dLon) <= this.longitudeWindow;
+	}
+
+	/**
+	 * Computes a lower bound of the distance between the point
+	 * and any point on the other side of the split of the provided node.
+	 *
+	 * @param node the node splitting the space.
+	 * @param isLatitude whether the node splits the space along the latitude.
+	 * @return the lower bound distance, in kilometers.
+	 */
+	double splitDistance(KDTreeNode<?, ?> node, boolean isLatitude) {
+		return splitDistance(node.value(isLatitude), isLatitude);
+	}
+
+	/**
+	 * Computes a lower bound of the distance between the point
+	 * and any point on the other side of the provided split.
+	 *
+	 * @param value the latitude or longitude of the split.
+	 * @param isLatitude whether the value is a latitude.
+	 * @return the lower bound distance, in kilometers.
+	 */
+	double splitDistance(double value, boolean isLatitude) {
+		if (isLatitude) {
+			// Every point on the other side of a parallel is at least the latitude difference away
+			return DistanceMetric.EARTH_RADIUS
+				* Math.toRadians(Math.abs(value - this.point.getLatitude()));
+		}
+
+		// The other side of a meridian is reached by crossing either that meridian
+		// or the antimeridian, whichever is closer
+		double lat = Math.toRadians(Math.abs(this.point.getLatitude()));
+		double dLon = Math.abs(value - this.point.getLongitude());
+		double dAntimeridian = 180 - Math.abs(this.point.getLongitude());
+		return DistanceMetric.EARTH_RADIUS
+			* meridianAngle(lat, Math.toRadians(Math.min(dLon, dAntimeridian)));
+	}
+
+	private static double meridianAngle(double lat, double dLon) {
+		// The shortest way to a meridian is the perpendicular to it,
+		// or past the closest pole when the meridian is more than 90 degrees away
+		if (dLon >= Math.PI / 2) {
+			return Math.PI / 2 - lat;
+		}
+		return Math.asin(Math.cos(lat) * Math.sin(dLon));
+	}
+}
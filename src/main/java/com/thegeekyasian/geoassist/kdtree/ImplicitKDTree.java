@@ -0,0 +1,335 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * <p>
+ *     The searches of a balanced KD-Tree laid out implicitly, as laid out by {@link KDTreePartitioner#layout}:
+ *     the root of every subtree sits at the middle of its range of indexes, with its left subtree
+ *     before it and its right subtree after it, so no child references are needed at all.
+ * </p>
+ *
+ * <p>
+ *     Trees with buckets keep ranges of up to a bucket size of points as leaves instead, scanned as a whole.
+ *     Their internal nodes hold no point but the value they split at, the median starting their right half.
+ *     The nodes are numbered as in a binary heap, the children of node i being 2i + 1 and 2i + 2,
+ *     for the implementation to store their split values.
+ * </p>
+ *
+ * <p>
+ *     The coordinates and objects are read by index from the storage of the implementation.
+ *     As the tree is balanced, its depth is logarithmic and the searches are recursive.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @param <O> the type of the custom object of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ * @see ArrayKDTree
+ * @see BucketKDTree
+ */
+abstract class ImplicitKDTree<T, O> {
+
+	private final DistanceMetric distanceMetric;
+
+	// The maximum number of points of a leaf, or 0 when every node holds the point at its median index
+	private final int bucketSize;
+
+	ImplicitKDTree(DistanceMetric distanceMetric) {
+		this(distanceMetric, 0);
+	}
+
+	ImplicitKDTree(DistanceMetric distanceMetric, int bucketSize) {
+		this.distanceMetric = distanceMetric;
+		this.bucketSize = bucketSize;
+	}
+
+	/**
+	 * Returns the size i.e. number of objects present in the tree.
+	 *
+	 * @return an integer value of size is returned.
+	 * */
+	public abstract int getSize();
+
+	abstract double latitude(int index);
+
+	abstract double longitude(int index);
+
+	abstract KDTreeObject<T, O> object(int index);
+
+	/**
+	 * Returns the value an internal node splits its range at, along its dimension.
+	 *
+	 * @param node the number of the node.
+	 * @param medianIndex the middle index of the range of the node.
+	 * @param isLatitude whether the node splits the latitudes or the longitudes.
+	 * @return the coordinate of the point at the median index, unless the tree has buckets.
+	 */
+	double split(int node, int medianIndex, boolean isLatitude) {
+		return isLatitude ? latitude(medianIndex) : longitude(medianIndex);
+	}
+
+	boolean isLeaf(int from, int to) {
+		return to - from <= this.bucketSize;
+	}
+
+	int rightFrom(int medianIndex) {
+		// The point at the median index of a tree without buckets belongs to its node, not to the right half
+		return this.bucketSize == 0 ? medianIndex + 1 : medianIndex;
+	}
+
+	/**
+	 * Finds the nearest neighbor to a given point
+	 * with the provided distance in the k-d tree.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return Returns the list of KDTreeObjects
+	 * that are nearby the provided point for the provided distance.
+	 * @see KDTree#findNearestNeighbor(Point, double)
+	 * */
+	public List<KDTreeObject<T, O>> findNearestNeighbor(Point point, double distance) {
+		List<KDTreeObject<T, O>> closestPoints = new ArrayList<>();
+		findNearestNeighbor(point, distance, closestPoints::add);
+		return closestPoints;
+	}
+
+	/**
+	 * Finds the nearest neighbors to a given point with the provided distance in the k-d tree,
+	 * and passes them to the provided visitor as they are found, instead of collecting them in a new list.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @param visitor Visitor of the nearest neighbors, which can stop the search by returning false.
+	 *
+	 * @return true if all the nearest neighbors were visited, false if the visitor stopped the search.
+	 * @see KDTree#findNearestNeighbor(Point, double, KDTreeVisitor)
+	 * */
+	public boolean findNearestNeighbor(Point point, double distance, KDTreeVisitor<T, O> visitor) {
+		DistanceQuery query = new DistanceQuery(point, distance, this.distanceMetric);
+		if (query.crossesAntimeridian()) {
+			// Search the window of the query, to be pruned by longitude on each side of the antimeridian
+			return findInRange(query.getWindow(), object ->
+				query.reducedDistanceTo(object.getPoint()) > query.getReducedDistance() || visitor.visit(object));
+		}
+		return findNearestNeighbor(query, 0, 0, getSize(), true, visitor);
+	}
+
+	private boolean findNearestNeighbor(DistanceQuery query, int node, int from, int to, boolean isLatitude,
+		KDTreeVisitor<T, O> visitor) {
+		if (isLeaf(from, to)) {
+			return visitNearestNeighbors(query, from, to, visitor);
+		}
+		int medianIndex = (from + to) >>> 1;
+		if (this.bucketSize == 0 && !visitNearestNeighbors(query, medianIndex, medianIndex + 1, visitor)) {
+			return false;
+		}
+
+		// Search the side of the split holding the point, and the other side
+		// if the split is within the window the distance spans along the current dimension
+		int rightFrom = rightFrom(medianIndex);
+		double delta = query.coordinate(isLatitude) - split(node, medianIndex, isLatitude);
+		boolean isWithinWindow = query.isWithinWindow(delta, isLatitude);
+		if (delta < 0) {
+			return findNearestNeighbor(query, 2 * node + 1, from, medianIndex, !isLatitude, visitor)
+				&& (!isWithinWindow
+				|| findNearestNeighbor(query, 2 * node + 2, rightFrom, to, !isLatitude, visitor));
+		}
+		return findNearestNeighbor(query, 2 * node + 2, rightFrom, to, !isLatitude, visitor)
+			&& (!isWithinWindow
+			|| findNearestNeighbor(query, 2 * node + 1, from, medianIndex, !isLatitude, visitor));
+	}
+
+	private boolean visitNearestNeighbors(DistanceQuery query, int from, int to, KDTreeVisitor<T, O> visitor) {
+		for (int i = from; i < to; i++) {
+			double latitude = latitude(i);
+			double longitude = longitude(i);
+			// Only compute the distance of the points within the windows the distance spans around the point
+			if (query.isWithinWindow(latitude, longitude)
+				&& query.reducedDistanceTo(latitude, longitude) <= query.getReducedDistance()
+				&& !visitor.visit(object(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Finds a single nearest-most neighbor to a given point
+	 * with the provided distance in the k-d tree.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return the nearest neighbor to the given point within the specified distance.
+	 * @see KDTree#findNearest(Point, double)
+	 * */
+	public KDTreeNearestNeighbor<T, O> findNearest(Point point, double distance) {
+		List<KDTreeNearestNeighbor<T, O>> nearestNeighbors = findKNearest(point, 1, distance);
+		return nearestNeighbors.isEmpty() ? new KDTreeNearestNeighbor<>() : nearestNeighbors.get(0);
+	}
+
+	/**
+	 * Finds the k nearest neighbors to a given point
+	 * within the provided distance in the k-d tree.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param k Maximum number of nearest neighbors to return.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return the k (or fewer) nearest neighbors within the distance,
+	 * along with their distance, ordered from the nearest to the farthest.
+	 *
+	 * @throws GeoAssistException is thrown when k is lower than 1.
+	 * @see KDTree#findKNearest(Point, int, double)
+	 * */
+	public List<KDTreeNearestNeighbor<T, O>> findKNearest(Point point, int k, double distance) {
+		if (k < 1) {
+			throw new GeoAssistException("k must be greater than 0");
+		}
+		DistanceQuery query = new DistanceQuery(point, distance, this.distanceMetric);
+		KDTreeNearestIndexes nearestIndexes = new KDTreeNearestIndexes(Math.min(k, Math.max(1, getSize())), query);
+		findKNearest(query, nearestIndexes, 0, 0, getSize(), true, 0);
+		return nearestIndexes.toNearestNeighbors(this::object);
+	}
+
+	private void findKNearest(DistanceQuery query, KDTreeNearestIndexes nearestIndexes, int node, int from, int to,
+		boolean isLatitude, double splitDistance) {
+		// Only search the subtree if its split is closer than the farthest neighbor that can be kept
+		if (splitDistance > nearestIndexes.getBound()) {
+			return;
+		}
+		if (isLeaf(from, to)) {
+			offerNearestNeighbors(query, nearestIndexes, from, to);
+			return;
+		}
+		int medianIndex = (from + to) >>> 1;
+		if (this.bucketSize == 0) {
+			offerNearestNeighbors(query, nearestIndexes, medianIndex, medianIndex + 1);
+		}
+
+		// Search the side of the split holding the point first, as it is most likely to shrink the bound
+		int rightFrom = rightFrom(medianIndex);
+		double split = split(node, medianIndex, isLatitude);
+		double farSplitDistance = query.splitDistance(split, isLatitude);
+		if (query.coordinate(isLatitude) < split) {
+			findKNearest(query, nearestIndexes, 2 * node + 1, from, medianIndex, !isLatitude, splitDistance);
+			findKNearest(query, nearestIndexes, 2 * node + 2, rightFrom, to, !isLatitude, farSplitDistance);
+		}
+		else {
+			findKNearest(query, nearestIndexes, 2 * node + 2, rightFrom, to, !isLatitude, splitDistance);
+			findKNearest(query, nearestIndexes, 2 * node + 1, from, medianIndex, !isLatitude, farSplitDistance);
+		}
+	}
+
+	private void offerNearestNeighbors(DistanceQuery query, KDTreeNearestIndexes nearestIndexes, int from, int to) {
+		for (int i = from; i < to; i++) {
+			double latitude = latitude(i);
+			double longitude = longitude(i);
+			if (query.isWithinWindow(latitude, longitude)) {
+				nearestIndexes.offer(i, query.reducedDistanceTo(latitude, longitude));
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 *     Searches the k-d tree for all nodes whose
+	 *     coordinates fall within the given bounding box.
+	 * </p>
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @return a list of KDTreeObject whose coordinates fall within the bounding box
+	 * @see KDTree#findInRange(BoundingBox)
+	 */
+	public List<KDTreeObject<T, O>> findInRange(BoundingBox boundingBox) {
+		List<KDTreeObject<T, O>> result = new ArrayList<>();
+		findInRange(boundingBox, result::add);
+		return result;
+	}
+
+	/**
+	 * <p>
+	 *     Searches the k-d tree for all nodes whose coordinates fall within the given bounding box,
+	 *     and passes their objects to the provided visitor as they are found,
+	 *     instead of collecting them in a new list.
+	 * </p>
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @param visitor visitor of the KDTreeObjects within the bounding box,
+	 * which can stop the search by returning false
+	 * @return true if all the objects within the bounding box were visited,
+	 * false if the visitor stopped the search
+	 * @see KDTree#findInRange(BoundingBox, KDTreeVisitor)
+	 */
+	public boolean findInRange(BoundingBox boundingBox, KDTreeVisitor<T, O> visitor) {
+		Point lowerPoint = boundingBox.getLowerPoint();
+		Point upperPoint = boundingBox.getUpperPoint();
+		return findInRange(lowerPoint.getLatitude(), lowerPoint.getLongitude(),
+			upperPoint.getLatitude(), upperPoint.getLongitude(), 0, 0, getSize(), true, visitor);
+	}
+
+	private boolean findInRange(double lowerLatitude, double lowerLongitude, double upperLatitude,
+		double upperLongitude, int node, int from, int to, boolean isLatitude, KDTreeVisitor<T, O> visitor) {
+		if (isLeaf(from, to)) {
+			return visitInRange(lowerLatitude, lowerLongitude, upperLatitude, upperLongitude, from, to, visitor);
+		}
+		int medianIndex = (from + to) >>> 1;
+		if (this.bucketSize == 0 && !visitInRange(lowerLatitude, lowerLongitude, upperLatitude, upperLongitude,
+			medianIndex, medianIndex + 1, visitor)) {
+			return false;
+		}
+
+		// The left half holds the values up to the split, the right half the values from the split
+		int rightFrom = rightFrom(medianIndex);
+		double split = split(node, medianIndex, isLatitude);
+		if (!isLatitude && lowerLongitude > upperLongitude) {
+			// Both halves hold a part of a bounding box crossing the antimeridian,
+			// which narrows to its other part in the half that one part does not reach
+			return findInRange(lowerLatitude, split >= lowerLongitude ? lowerLongitude : -180, upperLatitude,
+				upperLongitude, 2 * node + 1, from, medianIndex, true, visitor)
+				&& findInRange(lowerLatitude, lowerLongitude, upperLatitude,
+				split <= upperLongitude ? upperLongitude : 180, 2 * node + 2, rightFrom, to, true, visitor);
+		}
+		return ((isLatitude ? lowerLatitude : lowerLongitude) > split
+			|| findInRange(lowerLatitude, lowerLongitude, upperLatitude, upperLongitude,
+			2 * node + 1, from, medianIndex, !isLatitude, visitor))
+			&& ((isLatitude ? upperLatitude : upperLongitude) < split
+			|| findInRange(lowerLatitude, lowerLongitude, upperLatitude, upperLongitude,
+			2 * node + 2, rightFrom, to, !isLatitude, visitor));
+	}
+
+	private boolean visitInRange(double lowerLatitude, double lowerLongitude, double upperLatitude,
+		double upperLongitude, int from, int to, KDTreeVisitor<T, O> visitor) {
+		boolean crossesAntimeridian = lowerLongitude > upperLongitude;
+		for (int i = from; i < to; i++) {
+			double latitude = latitude(i);
+			double longitude = longitude(i);
+			if (latitude >= lowerLatitude && latitude <= upperLatitude
+				&& (crossesAntimeridian
+				? longitude >= lowerLongitude || longitude <= upperLongitude
+				: longitude >= lowerLongitude && longitude <= upperLongitude)
+				&& !visitor.visit(object(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
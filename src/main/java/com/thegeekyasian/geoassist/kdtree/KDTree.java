@@ -1,12 +1,38 @@
 package com.thegeekyasian.geoassist.kdtree;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.thegeekyasian.geoassist.core.GeoAssistException;
 import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
@@ -27,6 +53,17 @@ import com.thegeekyasian.geoassist.kdtree.geometry.Point;
  * This can greatly impact the efficiency of queries.
  * </p>
  *
+ * <p>
+ * To keep the tree balanced as objects are inserted and deleted, configure a
+ * {@link Builder#balanceFactor(double) balance factor}: the subtrees that grow too unbalanced
+ * are then rebuilt on the fly, instead of calling {@link #balance()}.
+ * </p>
+ *
+ * <p>
+ * A KDTree can be searched by many threads at once, but must not be modified while it is being searched.
+ * Use a {@link ConcurrentKDTree} to search and modify a tree concurrently.
+ * </p>
+ *
  * @param <T>
  *     describes the identifier of the K-d Tree Object,
  *     that is being inserted in the tree. For example ID or UUID of the Object.
@@ -37,22 +74,96 @@ import com.thegeekyasian.geoassist.kdtree.geometry.Point;
  *
  * @author The Geeky Asian
  */
-public class KDTree<T, O> implements Serializable {
+public class KDTree<T, O> implements SpatialIndex<T, O>, Serializable {
 
 	private static final long serialVersionUID = 5020274653621814765L;
 
+	private static final int FORMAT_MAGIC = 0x4741_4B54; // "GAKT"
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int HAS_LEFT = 1;
+
+	private static final int HAS_RIGHT = 2;
+
+	private static final int HAS_ID = 4;
+
+	private static final int HAS_DATA = 8;
+
 	private KDTreeNode<T, O> root;
 
 	private final Map<T, KDTreeNode<T, O>> map = new ConcurrentHashMap<>();
 
 	private final AtomicInteger size = new AtomicInteger(0);
 
+	private final int parallelBuildThreshold;
+
+	private final DistanceMetric distanceMetric;
+
+	private final double balanceFactor;
+
+	// The largest size of the tree since it was last rebuilt as a whole
+	private int maxSize;
+
+	// Whether the rebuilds link copies of the nodes instead of relinking them, see copyNodesOnRebuild()
+	private boolean isCopyingNodesOnRebuild;
 
 	/**
 	 * Creates a new instance of KDTree.
 	 * */
 	public KDTree() {
 		this.root = null;
+		this.parallelBuildThreshold = 0;
+		this.distanceMetric = DistanceMetric.HAVERSINE;
+		this.balanceFactor = 0;
+	}
+
+	private KDTree(Builder<T, O> builder) {
+		this.parallelBuildThreshold = builder.parallelBuildThreshold;
+		this.distanceMetric = builder.distanceMetric;
+		this.balanceFactor = builder.balanceFactor;
+		if (builder.objects != null) {
+			load(builder.objects);
+		}
+	}
+
+	/**
+	 * <p>
+	 *     Creates a new, balanced KDTree out of the provided objects.
+	 *     This is the preferred way to build a tree out of a large data set,
+	 *     as opposed to inserting the objects one by one and calling {@link #balance()}.
+	 * </p>
+	 *
+	 * <p>
+	 *     The tree is built in a single pass by placing the median of every level
+	 *     with an in-place selection, which has a time complexity of O(N log N).
+	 * </p>
+	 *
+	 * @param objects KDTreeObjects to be loaded in the tree.
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @return a balanced KDTree holding all the provided objects.
+	 *
+	 * @throws GeoAssistException is thrown when a duplicate ID is provided.
+	 * */
+	public static <T, O> KDTree<T, O> bulkLoad(Collection<KDTreeObject<T, O>> objects) {
+		return new Builder<T, O>()
+				.objects(objects)
+				.build();
+	}
+
+	private void load(Collection<KDTreeObject<T, O>> objects) {
+		List<KDTreeNode<T, O>> nodes = new ArrayList<>(objects.size());
+		for (KDTreeObject<T, O> object : objects) {
+			KDTreeNode<T, O> node = new KDTreeNode<>(object, null);
+			if (object.getId() != null && this.map.putIfAbsent(object.getId(), node) != null) {
+				throw new GeoAssistException("Duplicate object provided.");
+			}
+			nodes.add(node);
+		}
+		this.size.set(nodes.size());
+		this.maxSize = nodes.size();
+		this.root = new KDTreeBalancer<>(nodes, this.parallelBuildThreshold).build();
 	}
 
 
@@ -65,6 +176,7 @@ public class KDTree<T, O> implements Serializable {
 	 *
 	 * @throws GeoAssistException is thrown when a duplicate ID is provided.
 	 * */
+	@Override
 	public void insert(KDTreeObject<T, O> kdTreeObject) {
 		insertObject(kdTreeObject);
 	}
@@ -75,57 +187,115 @@ public class KDTree<T, O> implements Serializable {
 			throw new GeoAssistException("Duplicate object provided.");
 		}
 
+		KDTreeNode<T, O> node = new KDTreeNode<>(object, null);
+		updateState(node);
 		if (this.root == null) {
-			this.root = new KDTreeNode<>(object, null);
-			updateState(this.root);
+			this.root = node;
+			this.maxSize = Math.max(this.maxSize, 1);
 			return;
 		}
 
-		KDTreeNode<T, O> current = this.root;
-		KDTreeNode<T, O> parent = this.root;
-		Point point = object.getPoint();
-		double[] coordinates = { point.getLatitude(), point.getLongitude() };
-		boolean isLatitude = true;
-		boolean isLessThanCurrentValue = true;
+		insertBelow(node, this.root, true, 0);
+	}
+
+	/**
+	 * Inserts a node in the subtree of the provided ancestor, whose cell must hold the point of the node.
+	 * The node is counted in the size of the subtrees of the ancestor and below,
+	 * and must already be counted in the size of the subtrees above it.
+	 *
+	 * @param node the node to insert.
+	 * @param ancestor the root of the subtree to insert the node in.
+	 * @param isLatitude whether the ancestor splits the space along the latitude.
+	 * @param ancestorDepth the depth of the ancestor, the root being at depth 0.
+	 */
+	private void insertBelow(KDTreeNode<T, O> node, KDTreeNode<T, O> ancestor, boolean isLatitude,
+		int ancestorDepth) {
+		Point point = node.getKdTreeObject().getPoint();
+		KDTreeNode<T, O> parent = ancestor;
+		int depth = ancestorDepth + 1;
+		while (true) {
+			// Count the new node in the size of every subtree it is inserted in
+			parent.setSubtreeSize(parent.getSubtreeSize() + 1);
+
+			// Move to the left or right subtree based on the coordinate along the current dimension,
+			// equal values going to the right subtree
+			double coordinate = isLatitude ? point.getLatitude() : point.getLongitude();
+			KDTreeNode<T, O> child = coordinate < parent.value(isLatitude) ? parent.getLeft() : parent.getRight();
+			if (child == null) {
+				break;
+			}
+			parent = child;
+			isLatitude = !isLatitude;
+			depth++;
+		}
 
-		while (current != null) {
-			// Store the current node as the parent for the next iteration
-			parent = current;
+		node.setParent(parent);
+		double coordinate = isLatitude ? point.getLatitude() : point.getLongitude();
+		if (coordinate < parent.value(isLatitude)) {
+			parent.setLeft(node);
+		}
+		else {
+			parent.setRight(node);
+		}
 
-			// Determine whether to move to the left or right subtree based on the comparison of the current dimension's coordinate value
-			isLessThanCurrentValue =
-				Double.compare(coordinates[isLatitude ? 0 : 1], current.value(isLatitude)) < 0;
-			current = isLessThanCurrentValue ? current.getLeft() : current.getRight();
+		this.maxSize = Math.max(this.maxSize, this.root.getSubtreeSize());
+		if (isTooDeep(depth)) {
+			rebuildScapegoat(node, depth);
+		}
+	}
 
-			// If the next node in the tree has the same coordinate value along the current dimension, move to the next dimension and repeat the process
-			if (current != null
-				&& Double.compare(coordinates[isLatitude ? 0 : 1], current.value(isLatitude))
-				== 0) {
-				isLatitude = !isLatitude;
-				isLessThanCurrentValue =
-					Double.compare(coordinates[isLatitude ? 0 : 1], current.value(isLatitude)) < 0;
-				current = isLessThanCurrentValue ? current.getLeft() : current.getRight();
-
-				// If the next node in the tree has the same coordinate value along the alternate dimension, it already exists in the tree and should be returned
-				if (current != null
-					&& Double.compare(coordinates[isLatitude ? 0 : 1], current.value(isLatitude))
-					== 0) {
-					return;
-				}
-			}
+	private boolean isTooDeep(int depth) {
+		// A tree whose subtrees are all balanced by the factor is at most log(size) / log(1 / factor) deep
+		return this.balanceFactor > 0
+			&& depth > Math.log(this.root.getSubtreeSize()) / -Math.log(this.balanceFactor);
+	}
 
-			// Move to the alternate dimension and continue the iteration
-			isLatitude = !isLatitude;
+	/**
+	 * <p>
+	 *     Rebuilds the subtree of the scapegoat of a node inserted too deep in the tree:
+	 *     the closest ancestor of the node that is unbalanced by the balance factor,
+	 *     i.e. that has a subtree holding more than the balance factor of its nodes.
+	 *     Such an ancestor always exists, as the tree would not be too deep otherwise.
+	 * </p>
+	 *
+	 * <p>
+	 *     Rebuilding the subtree takes O(S log S) for a subtree of size S, which amortizes
+	 *     to O(log^2 N) per insertion, as the subtree has to grow unbalanced again before it is rebuilt.
+	 * </p>
+	 *
+	 * @param node the node inserted too deep.
+	 * @param depth the depth of the node, the root being at depth 0.
+	 */
+	private void rebuildScapegoat(KDTreeNode<T, O> node, int depth) {
+		KDTreeNode<T, O> child = node;
+		KDTreeNode<T, O> scapegoat = node.getParent();
+		int scapegoatDepth = depth - 1;
+		while (scapegoat.getParent() != null
+			&& child.getSubtreeSize() <= this.balanceFactor * scapegoat.getSubtreeSize()) {
+			child = scapegoat;
+			scapegoat = scapegoat.getParent();
+			scapegoatDepth--;
 		}
+		rebuildSubtree(scapegoat, scapegoatDepth % 2 == 0);
+	}
 
-		KDTreeNode<T, O> node = new KDTreeNode<>(object, parent);
-		updateState(node);
+	private void rebuildSubtree(KDTreeNode<T, O> subtree, boolean isLatitude) {
+		KDTreeNode<T, O> parent = subtree.getParent();
+		List<KDTreeNode<T, O>> nodes = new ArrayList<>(subtree.getSubtreeSize());
+		flattenTree(subtree, nodes);
+		KDTreeNode<T, O> rebuiltSubtree = new KDTreeBalancer<>(nodesToRebuild(nodes), this.parallelBuildThreshold)
+			.build(parent, isLatitude);
 
-		if (isLessThanCurrentValue) {
-			parent.setLeft(node);
-			return;
+		if (parent == null) {
+			this.root = rebuiltSubtree;
+			this.maxSize = rebuiltSubtree.getSubtreeSize();
+		}
+		else if (parent.getLeft() == subtree) {
+			parent.setLeft(rebuiltSubtree);
+		}
+		else {
+			parent.setRight(rebuiltSubtree);
 		}
-		parent.setRight(node);
 	}
 
 	private void updateState(KDTreeNode<T, O> node) {
@@ -154,79 +324,142 @@ public class KDTree<T, O> implements Serializable {
 	 * @return Returns the list of KDTreeObjects
 	 * that are nearby the provided point for the provided distance.
 	 * */
+	@Override
 	public List<KDTreeObject<T, O>> findNearestNeighbor(Point point, double distance) {
 		// Initialize a list to store the closest points
 		List<KDTreeObject<T, O>> closestPoints = new ArrayList<>();
-		// Call the recursive helper method with the root node, point, distance, and closestPoints list
-		findNearestNeighbor(this.root, point, distance, closestPoints, 0);
+		// Collect every object found by the search in the list
+		findNearestNeighbor(point, distance, closestPoints::add);
 		// Return the list of the closest points
 		return closestPoints;
 	}
 
-	private void findNearestNeighbor(KDTreeNode<T, O> node, Point point, double distance,
-		List<KDTreeObject<T, O>> closestPoints, int depth) {
-		if (node == null) {
-			return;
-		}
-
-		double currentDistance = getHaversineDistance(node.getKdTreeObject().getPoint(), point);
-
-		if (currentDistance <= distance) {
-			closestPoints.add(node.getKdTreeObject());
+	/**
+	 * Finds the nearest neighbors to a given point with the provided distance in the k-d tree,
+	 * and passes them to the provided visitor as they are found, instead of collecting them in a new list.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @param visitor Visitor of the nearest neighbors, which can stop the search by returning false.
+	 *
+	 * @return true if all the nearest neighbors were visited, false if the visitor stopped the search.
+	 * */
+	@Override
+	public boolean findNearestNeighbor(Point point, double distance, KDTreeVisitor<T, O> visitor) {
+		DistanceQuery query = new DistanceQuery(point, distance, this.distanceMetric);
+		if (query.crossesAntimeridian()) {
+			// Search both parts of the window in a single traversal, each pruned by longitude
+			return search(query.getWindow().splitAtAntimeridian(), (index, object) ->
+				query.reducedDistanceTo(object.getPoint()) > query.getReducedDistance() || visitor.visit(object));
 		}
+		KDTreeStack stack = KDTreeStack.acquire();
+		try {
+			push(stack, this.root, true, 0);
+			while (!stack.isEmpty()) {
+				KDTreeNode<T, O> node = stack.pop();
+				boolean isLatitude = stack.isLatitude();
+
+				// Compare the reduced distances, as the distance itself is not needed
+				if (query.reducedDistanceTo(node) <= query.getReducedDistance()
+					&& !visitor.visit(node.getKdTreeObject())) {
+					return false;
+				}
 
-		// Determine which dimension to compare based on the depth of the current node in the K-d tree
-		int dim = depth % 2;
-
-		// If the `dim`-th coordinate of the input point is less than the `dim`-th coordinate of the current node's point,
-		// continue searching in the left subtree and check if the absolute difference between the `dim`-th coordinates
-		// is less than or equal to the maximum distance
-		if (dim == 0) {
-			if (point.getLatitude() < node.getKdTreeObject().getPoint().getLatitude()) {
-				findNearestNeighbor(node.getLeft(), point, distance, closestPoints, depth + 1);
+				// Continue searching in the subtree on the side of the point along the current dimension,
+				// which is pushed last to be searched first
+				double delta = query.coordinate(isLatitude) - node.value(isLatitude);
+				KDTreeNode<T, O> near = delta < 0 ? node.getLeft() : node.getRight();
+				KDTreeNode<T, O> far = delta < 0 ? node.getRight() : node.getLeft();
 
-				// check if the difference in latitudes is less than or equal to the provided distance
-				// if so, also search the right subtree
-				if (node.getRight() != null &&
-					Math.abs(node.getKdTreeObject().getPoint().getLatitude() - point.getLatitude())
-						<= distance) {
-					findNearestNeighbor(node.getRight(), point, distance, closestPoints, depth + 1);
-				}
-			}
-			else {
-				// If the `dim`-th coordinate of the input point is greater than or equal to the `dim`-th coordinate of the current node's point,
-				// continue searching in the right subtree and check if the absolute difference between the `dim`-th coordinates
-				// is less than or equal to the maximum distance
-				findNearestNeighbor(node.getRight(), point, distance, closestPoints, depth + 1);
-
-				// check if the difference in latitudes is less than or equal to the provided distance
-				// if so, also search the left subtree
-				if (node.getLeft() != null &&
-					Math.abs(node.getKdTreeObject().getPoint().getLatitude() - point.getLatitude())
-						<= distance) {
-					findNearestNeighbor(node.getLeft(), point, distance, closestPoints, depth + 1);
+				// check if the difference along the current dimension is within the window
+				// the distance spans along that dimension, if so, also search the other subtree
+				if (query.isWithinWindow(delta, isLatitude)) {
+					push(stack, far, !isLatitude, 0);
 				}
+				push(stack, near, !isLatitude, 0);
 			}
+			return true;
 		}
-		else {
-			// using the same logic as above but for longitude i.e. the second dimension.
-			if (point.getLongitude() < node.getKdTreeObject().getPoint().getLongitude()) {
-				findNearestNeighbor(node.getLeft(), point, distance, closestPoints, depth + 1);
-				if (node.getRight() != null && Math.abs(
-					node.getKdTreeObject().getPoint().getLongitude() - point.getLongitude())
-					<= distance) {
-					findNearestNeighbor(node.getRight(), point, distance, closestPoints, depth + 1);
-				}
-			}
-			else {
-				findNearestNeighbor(node.getRight(), point, distance, closestPoints, depth + 1);
-				if (node.getLeft() != null && Math.abs(
-					node.getKdTreeObject().getPoint().getLongitude() - point.getLongitude())
-					<= distance) {
-					findNearestNeighbor(node.getLeft(), point, distance, closestPoints, depth + 1);
-				}
-			}
+		finally {
+			stack.release();
+		}
+	}
+
+	/**
+	 * <p>
+	 *     Finds the nearest neighbors to a given point with the provided distance in the k-d tree,
+	 *     searching the subtrees concurrently on the provided pool, for distances spanning a large part of the tree.
+	 * </p>
+	 *
+	 * <p>
+	 *     The upper levels of the tree are split into tasks, each collecting the nearest neighbors of its subtrees
+	 *     in a buffer of its own, so the nearest neighbors are returned in no particular order.
+	 *     The tree must not be modified during the search.
+	 * </p>
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @param pool the pool to search the tree on.
+	 *
+	 * @return Returns the list of KDTreeObjects
+	 * that are nearby the provided point for the provided distance.
+	 * @see #spliterator(Point, double)
+	 * */
+	public List<KDTreeObject<T, O>> findNearestNeighborParallel(Point point, double distance, ForkJoinPool pool) {
+		return KDTreeSearchTask.collect(spliterator(point, distance), pool);
+	}
+
+	/**
+	 * Returns a Spliterator over the nearest neighbors to a given point with the provided distance
+	 * in the k-d tree, e.g. for a parallel stream. The neighbors are found as the Spliterator is traversed,
+	 * and the tree must not be modified meanwhile.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return a Spliterator over the KDTreeObjects that are nearby the provided point for the provided distance.
+	 * */
+	public Spliterator<KDTreeObject<T, O>> spliterator(Point point, double distance) {
+		DistanceQuery query = new DistanceQuery(point, distance, this.distanceMetric);
+		if (query.crossesAntimeridian()) {
+			// Search both parts of the window in a single traversal, as findNearestNeighbor does
+			return KDTreeSpliterator.within(this.root, query.getWindow().splitAtAntimeridian(), query);
 		}
+		return KDTreeSpliterator.within(this.root, query);
+	}
+
+	/**
+	 * <p>
+	 *     Returns a lazy stream of the nearest neighbors to a given point with the provided distance in the k-d tree.
+	 *     The neighbors are found as the stream is consumed, so a short-circuiting operation such as
+	 *     {@code limit} or {@code findFirst} stops the search once it has enough of them,
+	 *     e.g. for the first page of a "what's nearby" list. The stream is backed by an explicit stack
+	 *     of the subtrees left to search, so it can be consumed as an {@code iterator()} too.
+	 * </p>
+	 *
+	 * <p>
+	 *     The neighbors come in the same order as {@link #findNearestNeighbor(Point, double)},
+	 *     even when the radius crosses the antimeridian, and the tree must not be modified
+	 *     until the stream is consumed.
+	 * </p>
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return a stream of the KDTreeObjects that are nearby the provided point for the provided distance.
+	 * */
+	public Stream<KDTreeObject<T, O>> streamNearestNeighbor(Point point, double distance) {
+		return StreamSupport.stream(spliterator(point, distance), false);
 	}
 
 	/**
@@ -240,84 +473,235 @@ public class KDTree<T, O> implements Serializable {
 	 *
 	 * @return @return the nearest neighbor to the given point within the specified distance.
 	 * */
+	@Override
 	public KDTreeNearestNeighbor<T, O> findNearest(Point point, double distance) {
 		// Initialize the object to store the nearest neighbor and its distance.
 		KDTreeNearestNeighbor<T, O> nearestNeighbor = new KDTreeNearestNeighbor<>();
-		// Call the recursive helper method with the root node, point, distance, and closestPoints list
-		findNearest(this.root, point, distance, 0, nearestNeighbor);
-		// Return the list of the closest points
+		findNearest(new DistanceQuery(point, distance, this.distanceMetric), nearestNeighbor);
+		// Return the nearest neighbor
 		return nearestNeighbor;
 	}
 
-	private void findNearest(KDTreeNode<T, O> node, Point point, double distance, int depth,
-		KDTreeNearestNeighbor<T, O> nearestNeighbor) {
-		if (node == null) {
-			return;
-		}
+	private void findNearest(DistanceQuery query, KDTreeNearestNeighbor<T, O> nearestNeighbor) {
+		KDTreeStack stack = KDTreeStack.acquire();
+		try {
+			push(stack, this.root, true, 0);
+			while (!stack.isEmpty()) {
+				KDTreeNode<T, O> node = stack.pop();
+				boolean isLatitude = stack.isLatitude();
+				double splitDistance = stack.bound();
+
+				// The subtree can only hold a nearer neighbor if its split is closer than
+				// the nearest neighbor found so far, or than the maximum distance if there is none yet
+				double bound = nearestNeighbor.getDistance() == null
+					? query.getDistance() : nearestNeighbor.getDistance();
+				if (splitDistance > bound) {
+					continue;
+				}
 
-		double currentDistance = getHaversineDistance(node.getKdTreeObject().getPoint(), point);
+				double reducedDistance = query.reducedDistanceTo(node);
+
+				// If the current node's point is within the maximum distance and closer than the nearest neighbor found so far,
+				// set the current node as the nearest neighbor, or is the first node to be visited i.e. distance is null.
+				if (reducedDistance <= query.getReducedDistance()) {
+					double currentDistance = query.toDistance(reducedDistance);
+					if (nearestNeighbor.getDistance() == null
+						|| currentDistance <= nearestNeighbor.getDistance()) {
+						nearestNeighbor.setKdTreeObject(node.getKdTreeObject());
+						nearestNeighbor.setDistance(currentDistance);
+					}
+				}
 
-		// If the current node's point is within the maximum distance and closer than the nearest neighbor found so far,
-		// set the current node as the nearest neighbor, or is the first node to be visited i.e. distance is null.
-		if (currentDistance <= distance &&
-			(nearestNeighbor.getDistance() == null
-				|| currentDistance <= nearestNeighbor.getDistance())) {
-			nearestNeighbor.setKdTreeObject(node.getKdTreeObject());
-			nearestNeighbor.setDistance(currentDistance);
+				// Search the subtree on the side of the point along the current dimension first,
+				// and the other one with the distance to the split as its bound
+				boolean isLeft = query.coordinate(isLatitude) < node.value(isLatitude);
+				KDTreeNode<T, O> near = isLeft ? node.getLeft() : node.getRight();
+				KDTreeNode<T, O> far = isLeft ? node.getRight() : node.getLeft();
+				if (far != null) {
+					push(stack, far, !isLatitude, query.splitDistance(node, isLatitude));
+				}
+				push(stack, near, !isLatitude, splitDistance);
+			}
 		}
+		finally {
+			stack.release();
+		}
+	}
 
-		// Determine which dimension to compare based on the depth of the current node in the K-d tree
-		int dim = depth % 2;
-
-		// If the `dim`-th coordinate of the input point is less than the `dim`-th coordinate of the current node's point,
-		// continue searching in the left subtree and check if the absolute difference between the `dim`-th coordinates
-		// is less than or equal to the maximum distance
-		if (dim == 0) {
-			if (point.getLatitude() < node.getKdTreeObject().getPoint().getLatitude()) {
-				findNearest(node.getLeft(), point, distance, depth + 1, nearestNeighbor);
+	/**
+	 * Finds the nearest-most neighbor of each of the provided points
+	 * with the provided distance in the k-d tree, on the calling thread.
+	 *
+	 * @param points Location (latitude/longitude) coordinates
+	 * of the reference points to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return the nearest neighbor of each point, in the order of the points.
+	 * @see #findNearestBatch(Point[], double, ForkJoinPool)
+	 * */
+	public List<KDTreeNearestNeighbor<T, O>> findNearestBatch(Point[] points, double distance) {
+		return findNearestBatch(points, distance, null);
+	}
 
-				// check if the difference in latitudes is less than or equal to the provided distance
-				// if so, also search the right subtree
-				if (node.getRight() != null &&
-					Math.abs(node.getKdTreeObject().getPoint().getLatitude() - point.getLatitude())
-						<= distance) {
-					findNearest(node.getRight(), point, distance, depth + 1, nearestNeighbor);
-				}
-			}
-			else {
-				// If the `dim`-th coordinate of the input point is greater than or equal to the `dim`-th coordinate of the current node's point,
-				// continue searching in the right subtree and check if the absolute difference between the `dim`-th coordinates
-				// is less than or equal to the maximum distance
-				findNearest(node.getRight(), point, distance, depth + 1, nearestNeighbor);
-
-				// check if the difference in latitudes is less than or equal to the provided distance
-				// if so, also search the left subtree
-				if (node.getLeft() != null &&
-					Math.abs(node.getKdTreeObject().getPoint().getLatitude() - point.getLatitude())
-						<= distance) {
-					findNearest(node.getLeft(), point, distance, depth + 1, nearestNeighbor);
+	/**
+	 * <p>
+	 *     Finds the nearest-most neighbor of each of the provided points
+	 *     with the provided distance in the k-d tree, e.g. for all the riders of a dispatch tick.
+	 * </p>
+	 *
+	 * <p>
+	 *     The points are searched in Morton order, so that consecutive searches walk mostly the same
+	 *     paths of the tree. Each search also starts from the nearest neighbor of the previous point,
+	 *     which is usually close to the nearest neighbor of the current one, so that it prunes
+	 *     the tree from the start. The points are searched in groups, concurrently when a pool is provided.
+	 * </p>
+	 *
+	 * @param points Location (latitude/longitude) coordinates
+	 * of the reference points to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @param pool the pool to search the points on, or null to search them on the calling thread.
+	 *
+	 * @return the nearest neighbor of each point, in the order of the points.
+	 * */
+	public List<KDTreeNearestNeighbor<T, O>> findNearestBatch(Point[] points, double distance, ForkJoinPool pool) {
+		double[] latitudes = new double[points.length];
+		double[] longitudes = new double[points.length];
+		for (int i = 0; i < points.length; i++) {
+			latitudes[i] = points[i].getLatitude();
+			longitudes[i] = points[i].getLongitude();
+		}
+		int[] order = KDTreeQueryBatch.mortonOrder(latitudes, longitudes);
+
+		@SuppressWarnings("unchecked")
+		KDTreeNearestNeighbor<T, O>[] nearestNeighbors = new KDTreeNearestNeighbor[points.length];
+		KDTreeQueryBatch.forEachGroup(order.length, pool, (from, to) -> {
+			KDTreeObject<T, O> previous = null;
+			for (int i = from; i < to; i++) {
+				DistanceQuery query = new DistanceQuery(points[order[i]], distance, this.distanceMetric);
+				KDTreeNearestNeighbor<T, O> nearestNeighbor = new KDTreeNearestNeighbor<>();
+				if (previous != null) {
+					// The previous nearest neighbor bounds the distance to the nearest one
+					double reducedDistance = query.reducedDistanceTo(previous.getPoint());
+					if (reducedDistance <= query.getReducedDistance()) {
+						nearestNeighbor.setKdTreeObject(previous);
+						nearestNeighbor.setDistance(query.toDistance(reducedDistance));
+					}
 				}
+				findNearest(query, nearestNeighbor);
+				nearestNeighbors[order[i]] = nearestNeighbor;
+				previous = nearestNeighbor.getKdTreeObject();
 			}
+		});
+		return Arrays.asList(nearestNeighbors);
+	}
+
+	/**
+	 * <p>
+	 *     Finds the k nearest neighbors to a given point
+	 *     within the provided distance in the k-d tree.
+	 * </p>
+	 *
+	 * <p>
+	 *     The neighbors found so far are kept in a bounded max-heap. Once k neighbors are found,
+	 *     the search only descends into the subtrees that may hold a point closer
+	 *     than the farthest of them, so the search space shrinks as the heap fills.
+	 * </p>
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param k Maximum number of nearest neighbors to return.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return the k (or fewer) nearest neighbors within the distance,
+	 * along with their distance, ordered from the nearest to the farthest.
+	 *
+	 * @throws GeoAssistException is thrown when k is lower than 1.
+	 * */
+	public List<KDTreeNearestNeighbor<T, O>> findKNearest(Point point, int k, double distance) {
+		return findKNearest(point, k, distance, null);
+	}
+
+	/**
+	 * Finds the k nearest neighbors to a given point within the provided distance in the k-d tree,
+	 * among the objects accepted by the provided filter.
+	 *
+	 * @param point the reference point.
+	 * @param k maximum number of nearest neighbors to return.
+	 * @param distance maximum distance to find the nearest neighbors in.
+	 * @param filter the objects that may be returned, or null for all of them.
+	 * @return the k (or fewer) nearest neighbors, ordered from the nearest to the farthest.
+	 */
+	List<KDTreeNearestNeighbor<T, O>> findKNearest(Point point, int k, double distance,
+		Predicate<KDTreeObject<T, O>> filter) {
+		if (k < 1) {
+			throw new GeoAssistException("k must be greater than 0");
 		}
-		else {
-			// using the same logic as above but for longitude i.e. the second dimension.
-			if (point.getLongitude() < node.getKdTreeObject().getPoint().getLongitude()) {
-				findNearest(node.getLeft(), point, distance, depth + 1, nearestNeighbor);
-				if (node.getRight() != null && Math.abs(
-					node.getKdTreeObject().getPoint().getLongitude() - point.getLongitude())
-					<= distance) {
-					findNearest(node.getRight(), point, distance, depth + 1, nearestNeighbor);
+
+		Comparator<KDTreeNearestNeighbor<T, O>> byDistance =
+			Comparator.comparingDouble(KDTreeNearestNeighbor::getDistance);
+
+		// The farthest of the nearest neighbors found so far is at the head of the queue
+		PriorityQueue<KDTreeNearestNeighbor<T, O>> nearestNeighbors =
+			new PriorityQueue<>(byDistance.reversed());
+		findKNearest(new DistanceQuery(point, distance, this.distanceMetric), k, nearestNeighbors, filter);
+
+		List<KDTreeNearestNeighbor<T, O>> result = new ArrayList<>(nearestNeighbors);
+		result.sort(byDistance);
+		return result;
+	}
+
+	private void findKNearest(DistanceQuery query, int k,
+		PriorityQueue<KDTreeNearestNeighbor<T, O>> nearestNeighbors, Predicate<KDTreeObject<T, O>> filter) {
+		KDTreeStack stack = KDTreeStack.acquire();
+		try {
+			push(stack, this.root, true, 0);
+			while (!stack.isEmpty()) {
+				KDTreeNode<T, O> node = stack.pop();
+				boolean isLatitude = stack.isLatitude();
+				double splitDistance = stack.bound();
+
+				// Only search the subtree if its split is closer than the farthest neighbor that can be kept
+				double bound = nearestNeighbors.size() < k
+					? query.getDistance() : nearestNeighbors.peek().getDistance();
+				if (splitDistance > bound) {
+					continue;
 				}
-			}
-			else {
-				findNearest(node.getRight(), point, distance, depth + 1, nearestNeighbor);
-				if (node.getLeft() != null && Math.abs(
-					node.getKdTreeObject().getPoint().getLongitude() - point.getLongitude())
-					<= distance) {
-					findNearest(node.getLeft(), point, distance, depth + 1, nearestNeighbor);
+
+				double reducedDistance = query.reducedDistanceTo(node);
+
+				// Add the current node if there is still room, or if it is closer than the farthest neighbor,
+				// in which case the farthest neighbor is evicted and its holder is reused.
+				if (reducedDistance <= query.getReducedDistance()
+					&& (filter == null || filter.test(node.getKdTreeObject()))) {
+					double currentDistance = query.toDistance(reducedDistance);
+					if (nearestNeighbors.size() < k
+						|| currentDistance < nearestNeighbors.peek().getDistance()) {
+						KDTreeNearestNeighbor<T, O> nearestNeighbor = nearestNeighbors.size() < k
+							? new KDTreeNearestNeighbor<>() : nearestNeighbors.poll();
+						nearestNeighbor.setKdTreeObject(node.getKdTreeObject());
+						nearestNeighbor.setDistance(currentDistance);
+						nearestNeighbors.add(nearestNeighbor);
+					}
+				}
+
+				// Search the side of the split holding the point first, as it is most likely to shrink the bound
+				boolean isLeft = query.coordinate(isLatitude) < node.value(isLatitude);
+				KDTreeNode<T, O> near = isLeft ? node.getLeft() : node.getRight();
+				KDTreeNode<T, O> far = isLeft ? node.getRight() : node.getLeft();
+				if (far != null) {
+					push(stack, far, !isLatitude, query.splitDistance(node, isLatitude));
 				}
+				push(stack, near, !isLatitude, splitDistance);
 			}
 		}
+		finally {
+			stack.release();
+		}
 	}
 
 	/**
@@ -329,73 +713,311 @@ public class KDTree<T, O> implements Serializable {
 	 * @param boundingBox the bounding box that defines the range to search within
 	 * @return a list of KDTreeObject whose coordinates fall within the bounding box
 	 */
+	@Override
 	public List<KDTreeObject<T, O>> findInRange(BoundingBox boundingBox) {
 		List<KDTreeObject<T, O>> result = new ArrayList<>();
-		search(this.root, boundingBox, true, result);
+		findInRange(boundingBox, result::add);
 		return result;
 	}
 
-	private void search(KDTreeNode<T, O> node, BoundingBox boundingBox, boolean isLatitude,
-		List<KDTreeObject<T, O>> result) {
-		if (node == null) {
-			return;
-		}
-		KDTreeObject<T, O> kdTreeObject = node.getKdTreeObject();
-		double latitude = kdTreeObject.getPoint().getLatitude();
-		double longitude = kdTreeObject.getPoint().getLongitude();
-		Point lowerPoint = boundingBox.getLowerPoint();
-		Point upperPoint = boundingBox.getUpperPoint();
-		if (latitude >= lowerPoint.getLatitude() && latitude <= upperPoint.getLatitude()
-			&& longitude >= lowerPoint.getLongitude() && longitude <= upperPoint.getLongitude()) {
-			result.add(kdTreeObject);
+	/**
+	 * <p>
+	 *     Searches the k-d tree for all nodes whose coordinates fall within the given bounding box,
+	 *     and passes their objects to the provided visitor as they are found,
+	 *     instead of collecting them in a new list.
+	 * </p>
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @param visitor visitor of the KDTreeObjects within the bounding box,
+	 * which can stop the search by returning false
+	 * @return true if all the objects within the bounding box were visited,
+	 * false if the visitor stopped the search
+	 */
+	@Override
+	public boolean findInRange(BoundingBox boundingBox, KDTreeVisitor<T, O> visitor) {
+		if (boundingBox.crossesAntimeridian()) {
+			// Search both parts of the bounding box in a single traversal, each pruned by longitude
+			return search(boundingBox.splitAtAntimeridian(), (index, object) -> visitor.visit(object));
 		}
-		if (isLatitude) {
-			if (latitude >= lowerPoint.getLatitude() && latitude <= upperPoint.getLatitude()) {
-				search(node.getLeft(), boundingBox, false, result);
-				search(node.getRight(), boundingBox, false, result);
-			}
-			else if (latitude < lowerPoint.getLatitude()) {
-				search(node.getRight(), boundingBox, false, result);
-			}
-			else {
-				search(node.getLeft(), boundingBox, false, result);
-			}
+		KDTreeStack stack = KDTreeStack.acquire();
+		try {
+			return search(stack, boundingBox, visitor);
 		}
-		else {
-			if (longitude >= lowerPoint.getLongitude() && longitude <= upperPoint.getLongitude()) {
-				search(node.getLeft(), boundingBox, true, result);
-				search(node.getRight(), boundingBox, true, result);
-			}
-			else if (longitude < lowerPoint.getLongitude()) {
-				search(node.getRight(), boundingBox, true, result);
-			}
-			else {
-				search(node.getLeft(), boundingBox, true, result);
-			}
+		finally {
+			stack.release();
 		}
 	}
 
 	/**
-	 * Returns the size i.e. number of objects present in the tree at a provided moment
+	 * <p>
+	 *     Returns a lazy stream of the objects of the k-d tree whose coordinates fall within the given bounding box.
+	 *     The objects are found as the stream is consumed, so a short-circuiting operation such as
+	 *     {@code limit} or {@code anyMatch} stops the search once it has enough of them.
+	 *     The stream is backed by an explicit stack of the subtrees left to search,
+	 *     so it can be consumed as an {@code iterator()} too.
+	 * </p>
 	 *
-	 * @return an integer value of size is returned.
-	 * */
-	public int getSize() {
-		return this.size.get();
+	 * <p>
+	 *     The objects come in the same order as {@link #findInRange(BoundingBox)},
+	 *     even when the bounding box crosses the antimeridian, and the tree must not be modified
+	 *     until the stream is consumed.
+	 * </p>
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @return a stream of the KDTreeObjects whose coordinates fall within the bounding box
+	 */
+	public Stream<KDTreeObject<T, O>> streamInRange(BoundingBox boundingBox) {
+		return StreamSupport.stream(spliterator(boundingBox), false);
 	}
 
 	/**
-	 * Find the KDTreeObject for the provided ID.
+	 * <p>
+	 *     Searches the k-d tree for all nodes whose coordinates fall within the given bounding box,
+	 *     searching the subtrees concurrently on the provided pool, e.g. for a country-sized bounding box.
+	 * </p>
 	 *
-	 * @param id ID of the KDTreeObject that you are looking.
+	 * <p>
+	 *     The upper levels of the tree are split into tasks, each collecting the objects of its subtrees
+	 *     in a buffer of its own, so the objects are returned in no particular order.
+	 *     The tree must not be modified during the search.
+	 * </p>
 	 *
-	 * @return The method returns the KDTreeObject for the provided ID.
-	 * If not found, the method returns `null` otherwise.
-	 * */
-	public KDTreeObject<T, O> getById(T id) {
-		return Optional.ofNullable(id)
-			.flatMap(i -> Optional.ofNullable(this.map.get(id))
-				.map(KDTreeNode::getKdTreeObject))
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @param pool the pool to search the tree on
+	 * @return a list of KDTreeObject whose coordinates fall within the bounding box
+	 * @see #spliterator(BoundingBox)
+	 */
+	public List<KDTreeObject<T, O>> findInRangeParallel(BoundingBox boundingBox, ForkJoinPool pool) {
+		return KDTreeSearchTask.collect(spliterator(boundingBox), pool);
+	}
+
+	/**
+	 * <p>
+	 *     Returns a Spliterator over the objects of the k-d tree whose coordinates fall within the given bounding box,
+	 *     e.g. for a parallel stream:
+	 * </p>
+	 *
+	 * <pre>{@code
+	 * StreamSupport.stream(kdTree.spliterator(boundingBox), true).forEach(exporter::write);
+	 * }</pre>
+	 *
+	 * <p>
+	 *     The objects are found as the Spliterator is traversed, and the tree must not be modified meanwhile.
+	 * </p>
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @return a Spliterator over the KDTreeObjects whose coordinates fall within the bounding box
+	 */
+	public Spliterator<KDTreeObject<T, O>> spliterator(BoundingBox boundingBox) {
+		if (boundingBox.crossesAntimeridian()) {
+			// Search both parts of the bounding box in a single traversal, as findInRange does
+			return KDTreeSpliterator.within(this.root, boundingBox.splitAtAntimeridian(), null);
+		}
+		return KDTreeSpliterator.within(this.root, boundingBox);
+	}
+
+	/**
+	 * Searches the k-d tree for all nodes whose coordinates fall within each of the provided bounding boxes,
+	 * on the calling thread.
+	 *
+	 * @param boundingBoxes the bounding boxes that define the ranges to search within
+	 * @return a list of the KDTreeObjects within each bounding box, in the order of the bounding boxes
+	 * @see #findInRangeBatch(BoundingBox[], ForkJoinPool)
+	 */
+	public List<List<KDTreeObject<T, O>>> findInRangeBatch(BoundingBox[] boundingBoxes) {
+		return findInRangeBatch(boundingBoxes, null);
+	}
+
+	/**
+	 * <p>
+	 *     Searches the k-d tree for all nodes whose coordinates fall within each of the provided bounding boxes.
+	 * </p>
+	 *
+	 * <p>
+	 *     The bounding boxes are sorted in Morton order of their centers, and searched in groups of
+	 *     neighboring boxes that traverse the tree together: every node is visited once for the whole group,
+	 *     and checked against the boxes of the group whose range reaches it. The groups are searched
+	 *     concurrently when a pool is provided.
+	 * </p>
+	 *
+	 * @param boundingBoxes the bounding boxes that define the ranges to search within
+	 * @param pool the pool to search the bounding boxes on, or null to search them on the calling thread
+	 * @return a list of the KDTreeObjects within each bounding box, in the order of the bounding boxes
+	 */
+	public List<List<KDTreeObject<T, O>>> findInRangeBatch(BoundingBox[] boundingBoxes, ForkJoinPool pool) {
+		// The bounding boxes crossing the antimeridian are searched as two parts,
+		// which collect their objects in the results of their bounding box
+		List<BoundingBox> parts = new ArrayList<>(boundingBoxes.length);
+		List<Integer> owners = new ArrayList<>(boundingBoxes.length);
+		for (int i = 0; i < boundingBoxes.length; i++) {
+			for (BoundingBox part : boundingBoxes[i].splitAtAntimeridian()) {
+				parts.add(part);
+				owners.add(i);
+			}
+		}
+
+		double[] latitudes = new double[parts.size()];
+		double[] longitudes = new double[parts.size()];
+		for (int i = 0; i < parts.size(); i++) {
+			latitudes[i] = (parts.get(i).getLowerPoint().getLatitude()
+				+ parts.get(i).getUpperPoint().getLatitude()) / 2;
+			longitudes[i] = (parts.get(i).getLowerPoint().getLongitude()
+				+ parts.get(i).getUpperPoint().getLongitude()) / 2;
+		}
+		int[] order = KDTreeQueryBatch.mortonOrder(latitudes, longitudes);
+
+		@SuppressWarnings("unchecked")
+		List<KDTreeObject<T, O>>[] results = new List[boundingBoxes.length];
+		for (int i = 0; i < results.length; i++) {
+			results[i] = new ArrayList<>();
+		}
+		KDTreeQueryBatch.forEachGroup(order.length, pool, (from, to) -> {
+			BoundingBox[] group = new BoundingBox[to - from];
+			for (int i = from; i < to; i++) {
+				group[i - from] = parts.get(order[i]);
+			}
+			search(group, (index, object) -> {
+				List<KDTreeObject<T, O>> result = results[owners.get(order[from + index])];
+				// The two parts of a bounding box may be searched concurrently, in different groups
+				synchronized (result) {
+					return result.add(object);
+				}
+			});
+		});
+		return Arrays.asList(results);
+	}
+
+	private boolean search(BoundingBox[] boundingBoxes, GroupVisitor<T, O> visitor) {
+		// Every node on the stack comes with the mask of the boxes whose range reaches it,
+		// kept at the same position in an array of their own
+		long[] masks = new long[KDTreeQueryBatch.GROUP_SIZE];
+		KDTreeStack stack = KDTreeStack.acquire();
+		try {
+			if (this.root == null) {
+				return true;
+			}
+			stack.push(this.root, true, 0);
+			masks[0] = boundingBoxes.length == Long.SIZE ? -1L : (1L << boundingBoxes.length) - 1;
+			int size = 1;
+			while (!stack.isEmpty()) {
+				KDTreeNode<T, O> node = stack.pop();
+				boolean isLatitude = stack.isLatitude();
+				long mask = masks[--size];
+				double latitude = node.value(true);
+				double longitude = node.value(false);
+				long leftMask = 0;
+				long rightMask = 0;
+				for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+					int index = Long.numberOfTrailingZeros(remaining);
+					Point lowerPoint = boundingBoxes[index].getLowerPoint();
+					Point upperPoint = boundingBoxes[index].getUpperPoint();
+					boolean isWithinLatitudes = latitude >= lowerPoint.getLatitude()
+						&& latitude <= upperPoint.getLatitude();
+					boolean isWithinLongitudes = longitude >= lowerPoint.getLongitude()
+						&& longitude <= upperPoint.getLongitude();
+					if (isWithinLatitudes && isWithinLongitudes && !visitor.visit(index, node.getKdTreeObject())) {
+						return false;
+					}
+
+					// Same pruning as the search of a single box, per box of the group
+					long bit = 1L << index;
+					double value = isLatitude ? latitude : longitude;
+					if (isLatitude ? isWithinLatitudes : isWithinLongitudes) {
+						leftMask |= bit;
+						rightMask |= bit;
+					}
+					else if (value < (isLatitude ? lowerPoint.getLatitude() : lowerPoint.getLongitude())) {
+						rightMask |= bit;
+					}
+					else {
+						leftMask |= bit;
+					}
+				}
+
+				// Push the right subtree first, for the left one to be searched first
+				if (size + 2 > masks.length) {
+					masks = Arrays.copyOf(masks, masks.length * 2);
+				}
+				if (rightMask != 0 && node.getRight() != null) {
+					stack.push(node.getRight(), !isLatitude, 0);
+					masks[size++] = rightMask;
+				}
+				if (leftMask != 0 && node.getLeft() != null) {
+					stack.push(node.getLeft(), !isLatitude, 0);
+					masks[size++] = leftMask;
+				}
+			}
+			return true;
+		}
+		finally {
+			stack.release();
+		}
+	}
+
+	private boolean search(KDTreeStack stack, BoundingBox boundingBox, KDTreeVisitor<T, O> visitor) {
+		Point lowerPoint = boundingBox.getLowerPoint();
+		Point upperPoint = boundingBox.getUpperPoint();
+		push(stack, this.root, true, 0);
+		while (!stack.isEmpty()) {
+			KDTreeNode<T, O> node = stack.pop();
+			boolean isLatitude = stack.isLatitude();
+			KDTreeObject<T, O> kdTreeObject = node.getKdTreeObject();
+			double latitude = kdTreeObject.getPoint().getLatitude();
+			double longitude = kdTreeObject.getPoint().getLongitude();
+			boolean isWithinLatitudes = latitude >= lowerPoint.getLatitude()
+				&& latitude <= upperPoint.getLatitude();
+			boolean isWithinLongitudes = longitude >= lowerPoint.getLongitude()
+				&& longitude <= upperPoint.getLongitude();
+			if (isWithinLatitudes && isWithinLongitudes && !visitor.visit(kdTreeObject)) {
+				return false;
+			}
+
+			// Push the right subtree first, for the left one to be searched first
+			double value = isLatitude ? latitude : longitude;
+			if (isLatitude ? isWithinLatitudes : isWithinLongitudes) {
+				push(stack, node.getRight(), !isLatitude, 0);
+				push(stack, node.getLeft(), !isLatitude, 0);
+			}
+			else if (value < (isLatitude ? lowerPoint.getLatitude() : lowerPoint.getLongitude())) {
+				push(stack, node.getRight(), !isLatitude, 0);
+			}
+			else {
+				push(stack, node.getLeft(), !isLatitude, 0);
+			}
+		}
+		return true;
+	}
+
+	private static void push(KDTreeStack stack, KDTreeNode<?, ?> node, boolean isLatitude,
+		double bound) {
+		if (node != null) {
+			stack.push(node, isLatitude, bound);
+		}
+	}
+
+	/**
+	 * Returns the size i.e. number of objects present in the tree at a provided moment
+	 *
+	 * @return an integer value of size is returned.
+	 * */
+	@Override
+	public int getSize() {
+		return this.size.get();
+	}
+
+	/**
+	 * Find the KDTreeObject for the provided ID.
+	 *
+	 * @param id ID of the KDTreeObject that you are looking.
+	 *
+	 * @return The method returns the KDTreeObject for the provided ID.
+	 * If not found, the method returns `null` otherwise.
+	 * */
+	@Override
+	public KDTreeObject<T, O> getById(T id) {
+		return Optional.ofNullable(id)
+			.flatMap(i -> Optional.ofNullable(this.map.get(id))
+				.map(KDTreeNode::getKdTreeObject))
 			.orElse(null);
 	}
 
@@ -408,6 +1030,7 @@ public class KDTree<T, O> implements Serializable {
 	 *
 	 * @throws GeoAssistException is thrown an object with provided ID is not found.
 	 * */
+	@Override
 	public void update(T id, O data) {
 		Optional.ofNullable(this.map.get(id))
 			.map(node -> {
@@ -417,55 +1040,262 @@ public class KDTree<T, O> implements Serializable {
 	}
 
 	/**
-	 * Deletes the object with the provided custom ID.
+	 * <p>
+	 *     Moves the object with the provided ID to the provided point, e.g. a vehicle reporting its position.
+	 * </p>
+	 *
+	 * <p>
+	 *     The point of the object is replaced in place, without touching the tree, as long as
+	 *     the new point stays within the cell of its node: the region bounded by the splits of its ancestors,
+	 *     with the split of the node itself staying between its left and right subtrees.
+	 *     Small moves usually stay within the cell, especially for nodes close to the leaves.
+	 *     Otherwise the node is deleted, and inserted again below its lowest ancestor whose cell
+	 *     holds the new point, instead of below the root.
+	 * </p>
+	 *
+	 * @param id ID of the object that is desired to be moved.
+	 *
+	 * @param point the new location (latitude/longitude) coordinates of the object.
+	 *
+	 * @throws GeoAssistException is thrown an object with provided ID is not found.
+	 * @see #moveAll(Map)
+	 * */
+	public void moveTo(T id, Point point) {
+		KDTreeNode<T, O> node = id == null ? null : this.map.get(id);
+		if (node == null) {
+			throw new GeoAssistException("No object found for provided ID");
+		}
+		move(node, point);
+	}
+
+	/**
+	 * <p>
+	 *     Moves the objects with the provided IDs to their provided points, e.g. a whole tick of
+	 *     vehicle positions. No object is moved if any of the IDs is not found.
+	 * </p>
+	 *
+	 * <p>
+	 *     The objects are moved one by one as with {@link #moveTo(Object, Point)}, unless they are
+	 *     at least half of the tree: the points are then all replaced in place, and the tree
+	 *     is rebuilt once in O(N log N), which is cheaper than relocating that many nodes.
+	 * </p>
+	 *
+	 * @param points the new location (latitude/longitude) coordinates, by ID of the objects to move.
+	 *
+	 * @throws GeoAssistException is thrown an object with one of the provided IDs is not found.
+	 * */
+	public void moveAll(Map<T, Point> points) {
+		List<KDTreeNode<T, O>> nodes = new ArrayList<>(points.size());
+		for (T id : points.keySet()) {
+			KDTreeNode<T, O> node = id == null ? null : this.map.get(id);
+			if (node == null) {
+				throw new GeoAssistException("No object found for provided ID");
+			}
+			nodes.add(node);
+		}
+
+		if (2 * nodes.size() < getSize()) {
+			for (Map.Entry<T, Point> entry : points.entrySet()) {
+				// Look the node up again, as relocating the previous objects moves objects between nodes
+				move(this.map.get(entry.getKey()), entry.getValue());
+			}
+			return;
+		}
+		for (KDTreeNode<T, O> node : nodes) {
+			node.getKdTreeObject().setPoint(copy(points.get(node.getKdTreeObject().getId())));
+			node.setKdTreeObject(node.getKdTreeObject());
+		}
+		balance();
+	}
+
+	private static Point copy(Point point) {
+		return new Point.Builder()
+				.latitude(point.getLatitude())
+				.longitude(point.getLongitude())
+				.build();
+	}
+
+	private void move(KDTreeNode<T, O> node, Point point) {
+		KDTreeObject<T, O> object = node.getKdTreeObject();
+		Point newPoint = copy(point);
+
+		// Find the lowest ancestor whose cell holds the new point, walking up from the node:
+		// the cell of a node is bounded by the splits of all of its ancestors
+		int depth = 0;
+		for (KDTreeNode<T, O> ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+			depth++;
+		}
+		KDTreeNode<T, O> cellNode = node;
+		int cellDepth = depth;
+		KDTreeNode<T, O> child = node;
+		int childDepth = depth;
+		for (KDTreeNode<T, O> ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+			boolean isLatitude = (childDepth - 1) % 2 == 0;
+			double coordinate = isLatitude ? newPoint.getLatitude() : newPoint.getLongitude();
+			if (ancestor.getLeft() == child ? coordinate > ancestor.value(isLatitude)
+				: coordinate < ancestor.value(isLatitude)) {
+				// The new point is on the other side of the split, so it is outside of the cell of the child
+				cellNode = ancestor;
+				cellDepth = childDepth - 1;
+			}
+			child = ancestor;
+			childDepth--;
+		}
+
+		if (cellNode == node && fitsSplit(node, newPoint, depth % 2 == 0)) {
+			object.setPoint(newPoint);
+			// Recompute the cached cosine of the latitude
+			node.setKdTreeObject(object);
+			return;
+		}
+
+		deleteNode(node);
+		object.setPoint(newPoint);
+		KDTreeNode<T, O> movedNode = new KDTreeNode<>(object, null);
+		if (object.getId() != null) {
+			this.map.put(object.getId(), movedNode);
+		}
+		if (this.root == null) {
+			this.root = movedNode;
+			return;
+		}
+		// The ancestors of the cell were not changed by the deletion, and count the node again
+		for (KDTreeNode<T, O> ancestor = cellNode.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+			ancestor.setSubtreeSize(ancestor.getSubtreeSize() + 1);
+		}
+		insertBelow(movedNode, cellNode, cellDepth % 2 == 0, cellDepth);
+	}
+
+	private boolean fitsSplit(KDTreeNode<T, O> node, Point point, boolean isLatitude) {
+		double coordinate = isLatitude ? point.getLatitude() : point.getLongitude();
+		if (coordinate == node.value(isLatitude)) {
+			return true;
+		}
+		// The split of the node must stay between the points of its left and right subtrees
+		return (node.getLeft() == null
+			|| findExtreme(node.getLeft(), isLatitude, !isLatitude, true).value(isLatitude) <= coordinate)
+			&& (node.getRight() == null
+			|| findExtreme(node.getRight(), isLatitude, !isLatitude, false).value(isLatitude) >= coordinate);
+	}
+
+	/**
+	 * <p>
+	 *     Deletes the object with the provided custom ID.
+	 * </p>
+	 *
+	 * <p>
+	 *     A node with children is not unlinked: its object is replaced by the object of its subtree
+	 *     with the minimum value along the dimension the node splits, whose node is deleted in turn,
+	 *     until a leaf is unlinked. This keeps the points of every left subtree at or below the split
+	 *     and the points of every right subtree at or above it. The deletion walks down a path of the tree
+	 *     and searches the subtrees for the minimum, which visits O(sqrt(N)) nodes at worst on a balanced tree.
+	 * </p>
 	 *
 	 * @param id ID of the custom object that is desired to be deleted.
 	 *
 	 * @return Returns a boolean flag, `true` if the object is successfully deleted
 	 * and `false` otherwise.
 	 * */
+	@Override
 	public boolean delete(T id) {
-		return Optional.ofNullable(this.map.get(id)).map(node -> {
-			deleteNode(node);
-			this.map.remove(id);
-			return true;
-		}).orElse(false);
+		KDTreeNode<T, O> node = id == null ? null : this.map.remove(id);
+		if (node == null) {
+			return false;
+		}
+		deleteNode(node);
+		this.size.decrementAndGet();
+
+		// Rebuild the whole tree once deletions shrank it below the balance factor of its largest size
+		if (this.balanceFactor > 0 && this.root != null
+			&& this.root.getSubtreeSize() < this.balanceFactor * this.maxSize) {
+			balance();
+		}
+		return true;
 	}
 
 	private void deleteNode(KDTreeNode<T, O> node) {
-		if (node.getLeft() == null && node.getRight() == null) {
-			if (node.getParent().getLeft() == node) {
-				node.getParent().setLeft(null);
-			}
-			else {
-				node.getParent().setRight(null);
-			}
+		// The dimension a node splits depends on its depth
+		boolean isLatitude = true;
+		for (KDTreeNode<T, O> ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+			isLatitude = !isLatitude;
 		}
-		else if (node.getLeft() == null) {
-			if (node.getParent().getLeft() == node) {
-				node.getParent().setLeft(node.getRight());
-			}
-			else {
-				node.getParent().setRight(node.getRight());
+
+		KDTreeNode<T, O> current = node;
+		while (current.getLeft() != null || current.getRight() != null) {
+			// Replace the object of the node by the minimum of its right subtree, which keeps the points
+			// of the right subtree at or above the split. Without a right subtree, the left subtree
+			// is moved to the right, as all of its points are at or above its minimum.
+			if (current.getRight() == null) {
+				current.setRight(current.getLeft());
+				current.setLeft(null);
 			}
-			node.getRight().setParent(node.getParent());
-		}
-		else if (node.getRight() == null) {
-			if (node.getParent().getLeft() == node) {
-				node.getParent().setLeft(node.getLeft());
+			KDTreeNode<T, O> minNode = findExtreme(current.getRight(), isLatitude, !isLatitude, false);
+			current.setKdTreeObject(minNode.getKdTreeObject());
+			T movedId = minNode.getKdTreeObject().getId();
+			if (movedId != null) {
+				this.map.put(movedId, current);
 			}
-			else {
-				node.getParent().setRight(node.getLeft());
+
+			// Delete the node of the minimum in turn, which splits the dimension of its own depth
+			isLatitude = !isLatitude;
+			for (KDTreeNode<T, O> ancestor = minNode.getParent(); ancestor != current;
+				ancestor = ancestor.getParent()) {
+				isLatitude = !isLatitude;
 			}
-			node.getLeft().setParent(node.getParent());
+			current = minNode;
+		}
+
+		// Unlink the leaf, which is no longer counted by its ancestors
+		KDTreeNode<T, O> parent = current.getParent();
+		if (parent == null) {
+			this.root = null;
+			return;
+		}
+		if (parent.getLeft() == current) {
+			parent.setLeft(null);
 		}
 		else {
-			KDTreeNode<T, O> minNode = node.getRight();
-			while (minNode.getLeft() != null) {
-				minNode = minNode.getLeft();
+			parent.setRight(null);
+		}
+		for (KDTreeNode<T, O> ancestor = parent; ancestor != null; ancestor = ancestor.getParent()) {
+			ancestor.setSubtreeSize(ancestor.getSubtreeSize() - 1);
+		}
+	}
+
+	/**
+	 * Finds the node of the provided subtree with the minimum or maximum value along the provided dimension.
+	 *
+	 * @param subtree the root of the subtree, not null.
+	 * @param isLatitude whether to compare the latitudes, or else the longitudes.
+	 * @param isSubtreeLatitude whether the root of the subtree splits the space along the latitude.
+	 * @param isMax whether to find the maximum, or else the minimum.
+	 * @return the node with the minimum or maximum value.
+	 */
+	private KDTreeNode<T, O> findExtreme(KDTreeNode<T, O> subtree, boolean isLatitude, boolean isSubtreeLatitude,
+		boolean isMax) {
+		KDTreeNode<T, O> extremeNode = subtree;
+		KDTreeStack stack = KDTreeStack.acquire();
+		try {
+			push(stack, subtree, isSubtreeLatitude, 0);
+			while (!stack.isEmpty()) {
+				KDTreeNode<T, O> node = stack.pop();
+				boolean isNodeLatitude = stack.isLatitude();
+				if (isMax ? node.value(isLatitude) > extremeNode.value(isLatitude)
+					: node.value(isLatitude) < extremeNode.value(isLatitude)) {
+					extremeNode = node;
+				}
+				// Only one subtree of a node splitting the same dimension can hold a more extreme value
+				if (isMax || isNodeLatitude != isLatitude) {
+					push(stack, node.getRight(), !isNodeLatitude, 0);
+				}
+				if (!isMax || isNodeLatitude != isLatitude) {
+					push(stack, node.getLeft(), !isNodeLatitude, 0);
+				}
 			}
-			node.setKdTreeObject(minNode.getKdTreeObject());
-			deleteNode(minNode);
+			return extremeNode;
+		}
+		finally {
+			stack.release();
 		}
 	}
 
@@ -474,7 +1304,7 @@ public class KDTree<T, O> implements Serializable {
 	 * <p>
 	 *     Returns whether the KDTree is balanced. A KDTree is considered balanced if
 	 *     the depth of any two leaf nodes differs by no more than 1. The method
-	 *     determines if the tree is balanced by recursively traversing the tree and
+	 *     determines if the tree is balanced by traversing the tree in post-order and
 	 *     checking the depths of each subtree.
 	 * </p>
 	 *
@@ -487,39 +1317,49 @@ public class KDTree<T, O> implements Serializable {
 	 * @return true if the tree is balanced, false otherwise.
 	 */
 	public boolean isBalanced() {
-		return isBalanced(this.root) != -1;
-	}
-
-	private int isBalanced(KDTreeNode<T, O> node) {
-		// If the current node is null, return 0.
-		if (node == null) {
-			return 0;
-		}
-
-		// Recursively call isBalanced on the left subtree, obtaining its depth.
-		int leftDepth = isBalanced(node.getLeft());
-
-		// If the left subtree is unbalanced (depth of -1), return -1 to indicate that the current subtree is also unbalanced.
-		if (leftDepth == -1) {
-			return -1;
+		// Depths of the subtrees visited so far, in post-order
+		Deque<Integer> depths = new ArrayDeque<>();
+		// Nodes left to visit, along with whether their subtrees were visited already
+		Deque<KDTreeNode<T, O>> nodes = new ArrayDeque<>();
+		Deque<Boolean> visited = new ArrayDeque<>();
+
+		if (this.root != null) {
+			nodes.push(this.root);
+			visited.push(false);
 		}
+		while (!nodes.isEmpty()) {
+			KDTreeNode<T, O> node = nodes.pop();
+			if (!visited.pop()) {
+				// Revisit the node once both of its subtrees are visited, the left one first.
+				nodes.push(node);
+				visited.push(true);
+				pushChild(nodes, visited, depths, node.getRight());
+				pushChild(nodes, visited, depths, node.getLeft());
+				continue;
+			}
 
-		// Recursively call isBalanced on the right subtree, obtaining its depth.
-		int rightDepth = isBalanced(node.getRight());
+			// Check if the current subtree is balanced by comparing the depths of the left and right subtrees.
+			int rightDepth = depths.pop();
+			int leftDepth = depths.pop();
+			if (Math.abs(leftDepth - rightDepth) > 1) {
+				return false;
+			}
 
-		// If the right subtree is unbalanced (depth of -1), return -1 to indicate that the current subtree is also unbalanced.
-		if (rightDepth == -1) {
-			return -1;
+			// If the current subtree is balanced, its depth is the depth of its deepest subtree plus one.
+			depths.push(Math.max(leftDepth, rightDepth) + 1);
 		}
+		return true;
+	}
 
-		// Check if the current subtree is balanced by comparing the depths of the left and right subtrees.
-		if (Math.abs(leftDepth - rightDepth) > 1) {
-			// If the current subtree is unbalanced, return -1 to indicate that the current subtree is unbalanced.
-			return -1;
+	private void pushChild(Deque<KDTreeNode<T, O>> nodes, Deque<Boolean> visited,
+		Deque<Integer> depths, KDTreeNode<T, O> child) {
+		// An empty subtree has a depth of 0 and nothing to visit
+		if (child == null) {
+			depths.push(0);
+			return;
 		}
-
-		// If the current subtree is balanced, return its depth.
-		return Math.max(leftDepth, rightDepth) + 1;
+		nodes.push(child);
+		visited.push(false);
 	}
 
 	/**
@@ -540,10 +1380,118 @@ public class KDTree<T, O> implements Serializable {
 	 *     This method has a time complexity of O(N log N),
 	 *     where N is the number of nodes in the tree.
 	 * </p>
+	 * <p>
+	 *     If the tree was created with a parallel build threshold,
+	 *     subtrees larger than the threshold are rebuilt concurrently.
+	 * </p>
 	 *
+	 * @see Builder#parallelBuildThreshold(int)
 	 */
 	public void balance() {
-		this.root = buildBalancedTree(getNodes(), null, true);
+		this.root = new KDTreeBalancer<>(nodesToRebuild(getNodes()), this.parallelBuildThreshold).build();
+		this.maxSize = this.root == null ? 0 : this.root.getSubtreeSize();
+	}
+
+	/**
+	 * <p>
+	 *     Makes the rebuilds of the tree link copies of its nodes, and only then link the rebuilt subtree
+	 *     in place of the current one, instead of relinking the nodes in place.
+	 *     This covers {@link #balance()}, and the rebuilds of the subtrees and of the whole tree
+	 *     triggered by the balance factor.
+	 * </p>
+	 *
+	 * <p>
+	 *     Relinking the nodes in place can briefly link them in cycles, which a search running
+	 *     concurrently without a lock would never leave, while the copies leave the current nodes untouched.
+	 * </p>
+	 *
+	 * @see ConcurrentKDTree
+	 */
+	void copyNodesOnRebuild() {
+		this.isCopyingNodesOnRebuild = true;
+	}
+
+	private List<KDTreeNode<T, O>> nodesToRebuild(List<KDTreeNode<T, O>> nodes) {
+		if (!this.isCopyingNodesOnRebuild) {
+			return nodes;
+		}
+		List<KDTreeNode<T, O>> copies = new ArrayList<>(nodes.size());
+		for (KDTreeNode<T, O> node : nodes) {
+			KDTreeNode<T, O> copy = new KDTreeNode<>(node.getKdTreeObject(), null);
+			T id = node.getKdTreeObject().getId();
+			if (id != null) {
+				this.map.put(id, copy);
+			}
+			copies.add(copy);
+		}
+		return copies;
+	}
+
+	/**
+	 * Returns the depth of the tree, i.e. the number of nodes on its longest path from the root to a leaf.
+	 *
+	 * @return the depth of the tree, 0 if it is empty.
+	 */
+	int getDepth() {
+		int depth = 0;
+		Deque<KDTreeNode<T, O>> nodes = new ArrayDeque<>();
+		if (this.root != null) {
+			nodes.add(this.root);
+		}
+		// Visit the tree level by level
+		while (!nodes.isEmpty()) {
+			depth++;
+			for (int i = nodes.size(); i > 0; i--) {
+				KDTreeNode<T, O> node = nodes.poll();
+				if (node.getLeft() != null) {
+					nodes.add(node.getLeft());
+				}
+				if (node.getRight() != null) {
+					nodes.add(node.getRight());
+				}
+			}
+		}
+		return depth;
+	}
+
+	/**
+	 * Builds a new balanced tree, with the same configuration and objects as this tree,
+	 * without modifying this tree.
+	 *
+	 * @return the new tree.
+	 */
+	KDTree<T, O> rebuild() {
+		return rebuild(getObjects());
+	}
+
+	/**
+	 * Builds a new balanced tree, with the same configuration as this tree, out of the provided objects.
+	 *
+	 * @param objects the objects of the new tree.
+	 * @return the new tree.
+	 */
+	KDTree<T, O> rebuild(Collection<KDTreeObject<T, O>> objects) {
+		KDTree<T, O> kdTree = new Builder<T, O>()
+				.parallelBuildThreshold(this.parallelBuildThreshold)
+				.distanceMetric(this.distanceMetric)
+				.balanceFactor(this.balanceFactor)
+				.objects(objects)
+				.build();
+		kdTree.isCopyingNodesOnRebuild = this.isCopyingNodesOnRebuild;
+		return kdTree;
+	}
+
+	List<KDTreeObject<T, O>> getObjects() {
+		List<KDTreeNode<T, O>> nodes = getNodes();
+		List<KDTreeObject<T, O>> objects = new ArrayList<>(nodes.size());
+		for (KDTreeNode<T, O> node : nodes) {
+			objects.add(node.getKdTreeObject());
+		}
+		return objects;
+	}
+
+	DistanceMetric getDistanceMetric() {
+		return this.distanceMetric;
 	}
 
 	private List<KDTreeNode<T, O>> getNodes() {
@@ -557,61 +1505,363 @@ public class KDTree<T, O> implements Serializable {
 	}
 
 	private void flattenTree(KDTreeNode<T, O> node, List<KDTreeNode<T, O>> nodes) {
-		if (node == null) {
-			return;
+		// Collect the nodes in-order, going down the left edge of every subtree first
+		Deque<KDTreeNode<T, O>> stack = new ArrayDeque<>();
+		KDTreeNode<T, O> current = node;
+		while (current != null || !stack.isEmpty()) {
+			while (current != null) {
+				stack.push(current);
+				current = current.getLeft();
+			}
+			current = stack.pop();
+			nodes.add(current);
+			current = current.getRight();
 		}
-		flattenTree(node.getLeft(), nodes);
-		nodes.add(node);
-		flattenTree(node.getRight(), nodes);
 	}
 
-	private KDTreeNode<T, O> buildBalancedTree(List<KDTreeNode<T, O>> nodes,
-		KDTreeNode<T, O> parent, boolean isLatitude) {
-		if (nodes.isEmpty()) {
-			return null;
+	/**
+	 * <p>
+	 *     Writes the tree to the provided stream in a compact binary format,
+	 *     which {@link #readFrom(InputStream, KDTreeSerializer, KDTreeSerializer)} loads back.
+	 * </p>
+	 *
+	 * <p>
+	 *     The nodes are written in pre-order, each with flags telling which of its children follow,
+	 *     so the tree is loaded back with exactly the same shape, e.g. balanced, without comparing any points.
+	 *     The configuration of the tree is not written.
+	 * </p>
+	 *
+	 * @param out the stream to write the tree to, which is flushed but not closed.
+	 * @param idSerializer the serializer of the IDs of the objects.
+	 * @param dataSerializer the serializer of the custom objects.
+	 * @throws IOException is thrown when the tree can not be written.
+	 */
+	public void writeTo(OutputStream out, KDTreeSerializer<T> idSerializer,
+		KDTreeSerializer<O> dataSerializer) throws IOException {
+		DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+		write(dataOut, idSerializer, dataSerializer);
+		dataOut.flush();
+	}
+
+	/**
+	 * Loads a tree written by {@link #writeTo(OutputStream, KDTreeSerializer, KDTreeSerializer)},
+	 * with the same shape as the tree that was written.
+	 *
+	 * @param in the stream to read the tree from, which is buffered, so it may be read past the tree,
+	 * and is not closed.
+	 * @param idSerializer the serializer of the IDs of the objects.
+	 * @param dataSerializer the serializer of the custom objects.
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @return the loaded tree, with the default configuration.
+	 * @throws IOException is thrown when the tree can not be read.
+	 * @throws GeoAssistException is thrown when the stream does not hold a tree, or a duplicate ID is read.
+	 */
+	public static <T, O> KDTree<T, O> readFrom(InputStream in, KDTreeSerializer<T> idSerializer,
+		KDTreeSerializer<O> dataSerializer) throws IOException {
+		KDTree<T, O> kdTree = new KDTree<>();
+		kdTree.read(new DataInputStream(new BufferedInputStream(in)), idSerializer, dataSerializer);
+		return kdTree;
+	}
+
+	private void write(DataOutput out, KDTreeSerializer<T> idSerializer,
+		KDTreeSerializer<O> dataSerializer) throws IOException {
+		out.writeInt(FORMAT_MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeBoolean(this.root != null);
+
+		// Write the nodes in pre-order, pushing the right child first for the left one to be written first
+		Deque<KDTreeNode<T, O>> stack = new ArrayDeque<>();
+		if (this.root != null) {
+			stack.push(this.root);
+		}
+		while (!stack.isEmpty()) {
+			KDTreeNode<T, O> node = stack.pop();
+			KDTreeObject<T, O> object = node.getKdTreeObject();
+			out.writeByte((node.getLeft() != null ? HAS_LEFT : 0)
+				| (node.getRight() != null ? HAS_RIGHT : 0)
+				| (object.getId() != null ? HAS_ID : 0)
+				| (object.getData() != null ? HAS_DATA : 0));
+			out.writeDouble(object.getPoint().getLatitude());
+			out.writeDouble(object.getPoint().getLongitude());
+			if (object.getId() != null) {
+				idSerializer.write(out, object.getId());
+			}
+			if (object.getData() != null) {
+				dataSerializer.write(out, object.getData());
+			}
+
+			if (node.getRight() != null) {
+				stack.push(node.getRight());
+			}
+			if (node.getLeft() != null) {
+				stack.push(node.getLeft());
+			}
+		}
+	}
+
+	private void read(DataInput in, KDTreeSerializer<T> idSerializer,
+		KDTreeSerializer<O> dataSerializer) throws IOException {
+		if (in.readInt() != FORMAT_MAGIC || in.readInt() != FORMAT_VERSION) {
+			throw new GeoAssistException("Unsupported KDTree format");
+		}
+
+		// The nodes in pre-order, i.e. every node before its subtrees
+		List<KDTreeNode<T, O>> nodes = new ArrayList<>();
+		// The parents still waiting for a child, along with whether it is their left child,
+		// in the order the children were written
+		Deque<KDTreeNode<T, O>> parents = new ArrayDeque<>();
+		Deque<Boolean> isLeftChild = new ArrayDeque<>();
+		boolean hasNode = in.readBoolean();
+		while (hasNode) {
+			KDTreeNode<T, O> parent = parents.poll();
+			boolean isLeft = parent != null && isLeftChild.poll();
+
+			int flags = in.readUnsignedByte();
+			double latitude = in.readDouble();
+			double longitude = in.readDouble();
+			KDTreeObject<T, O> object = new KDTreeObject.Builder<T, O>()
+					.id((flags & HAS_ID) != 0 ? idSerializer.read(in) : null)
+					.data((flags & HAS_DATA) != 0 ? dataSerializer.read(in) : null)
+					.latitude(latitude)
+					.longitude(longitude)
+					.build();
+			if (object.getId() != null && this.map.containsKey(object.getId())) {
+				throw new GeoAssistException("Duplicate object provided.");
+			}
+
+			KDTreeNode<T, O> node = new KDTreeNode<>(object, parent);
+			updateState(node);
+			nodes.add(node);
+			if (parent == null) {
+				this.root = node;
+			}
+			else if (isLeft) {
+				parent.setLeft(node);
+			}
+			else {
+				parent.setRight(node);
+			}
+
+			// The left child is written right after its parent, the right child after the left subtree
+			if ((flags & HAS_RIGHT) != 0) {
+				parents.push(node);
+				isLeftChild.push(false);
+			}
+			if ((flags & HAS_LEFT) != 0) {
+				parents.push(node);
+				isLeftChild.push(true);
+			}
+			hasNode = !parents.isEmpty();
+		}
+
+		// Count the subtree sizes bottom-up, every subtree being counted before its parent
+		for (int i = nodes.size() - 1; i >= 0; i--) {
+			KDTreeNode<T, O> node = nodes.get(i);
+			node.setSubtreeSize(1 + (node.getLeft() == null ? 0 : node.getLeft().getSubtreeSize())
+				+ (node.getRight() == null ? 0 : node.getRight().getSubtreeSize()));
+		}
+		this.maxSize = nodes.size();
+	}
+
+	/**
+	 * Replaces the tree by a {@link SerializationProxy} when serialized with Java serialization.
+	 *
+	 * @return the serialization proxy.
+	 */
+	private Object writeReplace() {
+		return new SerializationProxy<>(this);
+	}
+
+	private void readObject(ObjectInputStream in) throws InvalidObjectException {
+		throw new InvalidObjectException("KDTree must be deserialized through its serialization proxy");
+	}
+
+	/**
+	 * Collects the objects found by a group search, which it stops by returning false.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @author The Geeky Asian
+	 */
+	@FunctionalInterface
+	private interface GroupVisitor<T, O> {
+
+		boolean visit(int index, KDTreeObject<T, O> kdTreeObject);
+	}
+
+	/**
+	 * Serializes a KDTree, along with its configuration, in the binary format of
+	 * {@link KDTree#writeTo(OutputStream, KDTreeSerializer, KDTreeSerializer)},
+	 * writing the IDs and custom objects with Java serialization.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 *
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 *
+	 * @author The Geeky Asian
+	 */
+	private static final class SerializationProxy<T, O> implements Serializable {
+
+		private static final long serialVersionUID = -6530129465230412707L;
+
+		private final int parallelBuildThreshold;
+
+		private final DistanceMetric distanceMetric;
+
+		private final double balanceFactor;
+
+		private transient KDTree<T, O> kdTree;
+
+		private SerializationProxy(KDTree<T, O> kdTree) {
+			this.parallelBuildThreshold = kdTree.parallelBuildThreshold;
+			this.distanceMetric = kdTree.distanceMetric;
+			this.balanceFactor = kdTree.balanceFactor;
+			this.kdTree = kdTree;
+		}
+
+		private void writeObject(ObjectOutputStream out) throws IOException {
+			out.defaultWriteObject();
+			this.kdTree.write(out, SerializationProxy.serializer(), SerializationProxy.serializer());
+		}
+
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			in.defaultReadObject();
+			this.kdTree = new Builder<T, O>()
+					.parallelBuildThreshold(this.parallelBuildThreshold)
+					.distanceMetric(this.distanceMetric)
+					.balanceFactor(this.balanceFactor)
+					.build();
+			this.kdTree.read(in, SerializationProxy.serializer(), SerializationProxy.serializer());
+		}
+
+		private Object readResolve() {
+			return this.kdTree;
 		}
 
-		// Sort the nodes along the splitting dimension (latitude or longitude)
-		nodes.sort((o1, o2) -> {
-				Point o1Point = o1.getKdTreeObject().getPoint();
-				Point o2Point = o2.getKdTreeObject().getPoint();
-				if (isLatitude) {
-					return Double.compare(o1Point.getLatitude(),
-						o2Point.getLatitude());
+		private static <V> KDTreeSerializer<V> serializer() {
+			return new KDTreeSerializer<V>() {
+				@Override
+				public void write(DataOutput out, V value) throws IOException {
+					((ObjectOutput) out).writeObject(value);
+				}
+
+				@Override
+				@SuppressWarnings("unchecked")
+				public V read(DataInput in) throws IOException {
+					try {
+						return (V) ((ObjectInput) in).readObject();
+					}
+					catch (ClassNotFoundException ex) {
+						throw new InvalidClassException(ex.getMessage());
+					}
 				}
-				return Double.compare(o1Point.getLongitude(),
-					o2Point.getLongitude());
-			}
-		);
-
-		// Find the index of the median node in the list of nodes
-		int medianIndex = nodes.size() / 2;
-		KDTreeNode<T, O> medianNode = nodes.get(medianIndex);
-
-		medianNode.setParent(parent);
-		medianNode.setLeft(
-			buildBalancedTree(nodes.subList(0, medianIndex), medianNode, !isLatitude));
-		medianNode.setRight(
-			buildBalancedTree(nodes.subList(medianIndex + 1, nodes.size()), medianNode,
-				!isLatitude));
-		return medianNode;
-	}
-
-	private double getHaversineDistance(Point point1, Point point2) {
-		double lat1 = point1.getLatitude();
-		double lon1 = point1.getLongitude();
-		double lat2 = point2.getLatitude();
-		double lon2 = point2.getLongitude();
-
-		double R = 6371; // radius of Earth in kilometers
-		double dLat = Math.toRadians(lat2 - lat1);
-		double dLon = Math.toRadians(lon2 - lon1);
-		lat1 = Math.toRadians(lat1);
-		lat2 = Math.toRadians(lat2);
-
-		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-			Math.sin(dLon / 2) * Math.sin(dLon / 2) * Math.cos(lat1) * Math.cos(lat2);
-		double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-		return R * c;
+			};
+		}
+	}
+
+	/**
+	 * Builder to create a configured KDTree,
+	 * optionally bulk loaded with an initial set of objects.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 *
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 *
+	 * @author The Geeky Asian
+	 */
+	public static class Builder<T, O> {
+		private int parallelBuildThreshold;
+
+		private DistanceMetric distanceMetric = DistanceMetric.HAVERSINE;
+
+		private double balanceFactor;
+
+		private Collection<KDTreeObject<T, O>> objects;
+
+		/**
+		 * Enables the parallel construction of the tree, used by {@link KDTree#balance()}
+		 * and bulk loading. Subtrees with more nodes than the threshold are built
+		 * concurrently on the common ForkJoinPool, smaller ones are built sequentially.
+		 *
+		 * @param parallelBuildThreshold minimum number of nodes of a subtree to be built in parallel,
+		 * or 0 to always build the tree sequentially (default).
+		 * @return the builder.
+		 */
+		public Builder<T, O> parallelBuildThreshold(int parallelBuildThreshold) {
+			this.parallelBuildThreshold = parallelBuildThreshold;
+			return this;
+		}
+
+		/**
+		 * Sets the metric used to compute distances in the nearest neighbor searches.
+		 * {@link DistanceMetric#EQUIRECTANGULAR} is much cheaper to compute
+		 * than the default {@link DistanceMetric#HAVERSINE}, for short distances.
+		 *
+		 * @param distanceMetric the distance metric.
+		 * @return the builder.
+		 */
+		public Builder<T, O> distanceMetric(DistanceMetric distanceMetric) {
+			this.distanceMetric = distanceMetric;
+			return this;
+		}
+
+		/**
+		 * <p>
+		 *     Keeps the tree balanced as objects are inserted and deleted, by rebuilding the subtrees
+		 *     that grow unbalanced (scapegoat tree). A subtree is unbalanced once one of its two subtrees
+		 *     holds more than the balance factor of its nodes, and is only rebuilt when an insertion
+		 *     goes deeper than such a tree allows, so the depth of the tree stays O(log N)
+		 *     even for monotonic insertions, e.g. GPS traces. The whole tree is rebuilt once deletions
+		 *     shrink it below the balance factor of its largest size.
+		 * </p>
+		 *
+		 * <p>
+		 *     Lower factors keep the tree shallower, at the cost of more frequent rebuilds:
+		 *     0.7 is a good tradeoff. The rebuilds happen within the insertions and deletions,
+		 *     so the structure of the tree, and the order in which searches return objects, change with them.
+		 * </p>
+		 *
+		 * @param balanceFactor the balance factor, from 0.5 (excluded) to 1 (excluded),
+		 * or 0 to only balance the tree on {@link KDTree#balance()} (default).
+		 * @return the builder.
+		 */
+		public Builder<T, O> balanceFactor(double balanceFactor) {
+			this.balanceFactor = balanceFactor;
+			return this;
+		}
+
+		/**
+		 * Sets the objects the tree is bulk loaded with.
+		 *
+		 * @param objects KDTreeObjects to be loaded in the tree.
+		 * @return the builder.
+		 * @see KDTree#bulkLoad(Collection)
+		 */
+		public Builder<T, O> objects(Collection<KDTreeObject<T, O>> objects) {
+			this.objects = objects;
+			return this;
+		}
+
+		/**
+		 * Creates the KDTree.
+		 *
+		 * @return a new KDTree, balanced if objects were provided.
+		 *
+		 * @throws GeoAssistException is thrown when the parallel build threshold is negative,
+		 * the distance metric is null, the balance factor is out of range or a duplicate ID is provided.
+		 */
+		public KDTree<T, O> build() {
+			if (this.parallelBuildThreshold < 0) {
+				throw new GeoAssistException("parallelBuildThreshold can not be negative");
+			}
+			if (this.balanceFactor != 0 && !(this.balanceFactor > 0.5 && this.balanceFactor < 1)) {
+				throw new GeoAssistException("balanceFactor must be between 0.5 and 1, or 0");
+			}
+			if (this.distanceMetric == null) {
+				throw new GeoAssistException("distanceMetric can not be null");
+			}
+			return new KDTree<>(this);
+		}
 	}
 }
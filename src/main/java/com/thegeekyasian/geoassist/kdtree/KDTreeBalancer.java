@@ -0,0 +1,149 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>
+ *     Builds a balanced k-d tree out of a set of nodes in a single pass.
+ *     Instead of sorting the nodes along the splitting dimension at every level,
+ *     the median of each level is placed using an in-place selection
+ *     (nth_element style quickselect), bringing the build down to O(N log N).
+ * </p>
+ *
+ * <p>
+ *     The coordinates are copied into primitive arrays that are permuted along with the nodes,
+ *     so that the comparisons made during the selection do not have to
+ *     go through the node, object and point of every element.
+ * </p>
+ *
+ * <p>
+ *     Once the median of a range is in place, the two halves of the range are independent.
+ *     When a parallel threshold is provided, halves larger than the threshold are built
+ *     concurrently on the common {@link ForkJoinPool}, while smaller ones are built sequentially.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @param <O> the type of the custom object of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ * @see KDTreePartitioner
+ */
+final class KDTreeBalancer<T, O> extends KDTreePartitioner {
+
+	private final KDTreeNode<T, O>[] nodes;
+
+	private final int parallelThreshold;
+
+	KDTreeBalancer(Collection<KDTreeNode<T, O>> nodes) {
+		this(nodes, 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	KDTreeBalancer(Collection<KDTreeNode<T, O>> nodes, int parallelThreshold) {
+		super(new double[nodes.size()], new double[nodes.size()]);
+		this.parallelThreshold = parallelThreshold;
+		this.nodes = nodes.toArray(new KDTreeNode[0]);
+		for (int i = 0; i < this.nodes.length; i++) {
+			this.latitudes[i] = this.nodes[i].value(true);
+			this.longitudes[i] = this.nodes[i].value(false);
+		}
+	}
+
+	/**
+	 * Links the nodes into a balanced tree, starting with latitude as the splitting dimension.
+	 *
+	 * @return the root of the balanced tree, or null if there are no nodes.
+	 */
+	KDTreeNode<T, O> build() {
+		return build(null, true);
+	}
+
+	/**
+	 * Links the nodes into a balanced subtree of the provided parent.
+	 *
+	 * @param parent the parent of the subtree, or null to build a whole tree.
+	 * @param isLatitude whether the root of the subtree splits the space along the latitude.
+	 * @return the root of the balanced subtree, or null if there are no nodes.
+	 */
+	KDTreeNode<T, O> build(KDTreeNode<T, O> parent, boolean isLatitude) {
+		if (isParallel(0, this.nodes.length)) {
+			return ForkJoinPool.commonPool().invoke(new BuildTask(0, this.nodes.length, parent, isLatitude));
+		}
+		return build(0, this.nodes.length, parent, isLatitude);
+	}
+
+	private boolean isParallel(int from, int to) {
+		return this.parallelThreshold > 0 && to - from > this.parallelThreshold;
+	}
+
+	private KDTreeNode<T, O> build(int from, int to, KDTreeNode<T, O> parent, boolean isLatitude) {
+		if (from >= to) {
+			return null;
+		}
+
+		int medianIndex = placeMedian(from, to, isLatitude);
+		KDTreeNode<T, O> medianNode = this.nodes[medianIndex];
+
+		medianNode.setParent(parent);
+		medianNode.setSubtreeSize(to - from);
+		medianNode.setLeft(build(from, medianIndex, medianNode, !isLatitude));
+		medianNode.setRight(build(medianIndex + 1, to, medianNode, !isLatitude));
+		return medianNode;
+	}
+
+	@Override
+	void swapElements(int i, int j) {
+		KDTreeNode<T, O> node = this.nodes[i];
+		this.nodes[i] = this.nodes[j];
+		this.nodes[j] = node;
+	}
+
+	/**
+	 * Builds the subtree of a range, forking the left half
+	 * while the current thread builds the right half.
+	 *
+	 * @author The Geeky Asian
+	 */
+	private final class BuildTask extends RecursiveTask<KDTreeNode<T, O>> {
+
+		private static final long serialVersionUID = -2453175830216478925L;
+
+		private final int from;
+
+		private final int to;
+
+		private final KDTreeNode<T, O> parent;
+
+		private final boolean isLatitude;
+
+		private BuildTask(int from, int to, KDTreeNode<T, O> parent, boolean isLatitude) {
+			this.from = from;
+			this.to = to;
+			this.parent = parent;
+			this.isLatitude = isLatitude;
+		}
+
+		@Override
+		protected KDTreeNode<T, O> compute() {
+			if (!isParallel(this.from, this.to)) {
+				return build(this.from, this.to, this.parent, this.isLatitude);
+			}
+
+			int medianIndex = placeMedian(this.from, this.to, this.isLatitude);
+			KDTreeNode<T, O> medianNode = KDTreeBalancer.this.nodes[medianIndex];
+			medianNode.setParent(this.parent);
+			medianNode.setSubtreeSize(this.to - this.from);
+
+			// Both halves only touch their own part of the arrays, so they can be built concurrently
+			BuildTask left = new BuildTask(this.from, medianIndex, medianNode, !this.isLatitude);
+			left.fork();
+			medianNode.setRight(
+				new BuildTask(medianIndex + 1, this.to, medianNode, !this.isLatitude).compute());
+			medianNode.setLeft(left.join());
+			return medianNode;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+
+/**
+ * An open addressing hash table of the indexes of the IDs of a tree stored in arrays,
+ * which finds the index of an ID without boxing it or creating an entry per ID.
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ * @see ArrayKDTree
+ * @see BucketKDTree
+ */
+final class KDTreeIdTable<T> {
+
+	private final T[] ids;
+
+	// The indexes (plus one) of the IDs, zero being an empty slot
+	private final int[] slots;
+
+	/**
+	 * Creates the table of the provided IDs, skipping the null IDs.
+	 *
+	 * @param ids the IDs, by index, which must not be modified afterwards.
+	 * @throws GeoAssistException is thrown when an ID is duplicated.
+	 */
+	KDTreeIdTable(T[] ids) {
+		this.ids = ids;
+		// Keep the table at most half full, for the lookups to probe few slots
+		this.slots = new int[Integer.highestOneBit(Math.max(1, 2 * ids.length - 1)) << 1];
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] != null && indexOf(ids[i], i + 1) >= 0) {
+				throw new GeoAssistException("Duplicate object provided.");
+			}
+		}
+	}
+
+	/**
+	 * Finds the index of the provided ID.
+	 *
+	 * @param id the ID to look up, possibly null.
+	 * @return the index of the ID, or -1 if it is not found.
+	 */
+	int indexOf(T id) {
+		return id == null ? -1 : indexOf(id, 0);
+	}
+
+	/**
+	 * Finds the index of the provided ID, inserting the provided index if the ID is not found.
+	 *
+	 * @param id the ID to look up.
+	 * @param insertion the index (plus one) to insert, or 0 to only look the ID up.
+	 * @return the index of the ID, or -1 if it is not found.
+	 */
+	private int indexOf(T id, int insertion) {
+		int mask = this.slots.length - 1;
+		int hash = id.hashCode();
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (this.slots[slot] != 0) {
+			int index = this.slots[slot] - 1;
+			if (this.ids[index].equals(id)) {
+				return index;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if (insertion != 0) {
+			this.slots[slot] = insertion;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,124 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * A bounded max-heap of the indexes of the nearest neighbors found so far by a k nearest neighbors search
+ * of a tree stored in arrays, ordered by their reduced distance, so that no object is created
+ * for the candidates that are evicted later on.
+ *
+ * @author The Geeky Asian
+ * @see ImplicitKDTree
+ * @see BucketKDTree
+ */
+final class KDTreeNearestIndexes {
+
+	private final int[] indexes;
+
+	private final double[] reducedDistances;
+
+	private final DistanceQuery query;
+
+	private int size;
+
+	// The distance (in kilometers) a point must be within to be kept
+	private double bound;
+
+	KDTreeNearestIndexes(int capacity, DistanceQuery query) {
+		this.indexes = new int[capacity];
+		this.reducedDistances = new double[capacity];
+		this.query = query;
+		this.bound = query.getDistance();
+	}
+
+	/**
+	 * Returns the distance (in kilometers) a point must be within to be kept,
+	 * which shrinks once the heap is full.
+	 *
+	 * @return the distance.
+	 */
+	double getBound() {
+		return this.bound;
+	}
+
+	void offer(int index, double reducedDistance) {
+		if (reducedDistance > this.query.getReducedDistance()) {
+			return;
+		}
+		if (this.size < this.indexes.length) {
+			// Sift the new neighbor up from the bottom of the heap
+			int child = this.size++;
+			while (child > 0 && this.reducedDistances[(child - 1) >>> 1] < reducedDistance) {
+				move((child - 1) >>> 1, child);
+				child = (child - 1) >>> 1;
+			}
+			this.indexes[child] = index;
+			this.reducedDistances[child] = reducedDistance;
+		}
+		else if (reducedDistance < this.reducedDistances[0]) {
+			siftDown(index, reducedDistance);
+		}
+		else {
+			return;
+		}
+		if (this.size == this.indexes.length) {
+			this.bound = this.query.toDistance(this.reducedDistances[0]);
+		}
+	}
+
+	/**
+	 * Empties the heap into a list of nearest neighbors.
+	 *
+	 * @param objects creates the object at the provided index.
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @return the nearest neighbors, ordered from the nearest to the farthest.
+	 */
+	<T, O> List<KDTreeNearestNeighbor<T, O>> toNearestNeighbors(IntFunction<KDTreeObject<T, O>> objects) {
+		List<KDTreeNearestNeighbor<T, O>> result = new ArrayList<>(this.size);
+		while (this.size > 0) {
+			// The farthest of the remaining neighbors is at the head of the heap
+			KDTreeNearestNeighbor<T, O> nearestNeighbor = new KDTreeNearestNeighbor<>();
+			nearestNeighbor.setKdTreeObject(objects.apply(this.indexes[0]));
+			nearestNeighbor.setDistance(this.query.toDistance(this.reducedDistances[0]));
+			result.add(nearestNeighbor);
+			poll();
+		}
+		Collections.reverse(result);
+		return result;
+	}
+
+	private void poll() {
+		this.size--;
+		if (this.size > 0) {
+			siftDown(this.indexes[this.size], this.reducedDistances[this.size]);
+		}
+	}
+
+	private void siftDown(int index, double reducedDistance) {
+		// Replace the head of the heap, and sift it down below its larger children
+		int parent = 0;
+		int child = 1;
+		while (child < this.size) {
+			if (child + 1 < this.size && this.reducedDistances[child + 1] > this.reducedDistances[child]) {
+				child++;
+			}
+			if (this.reducedDistances[child] <= reducedDistance) {
+				break;
+			}
+			move(child, parent);
+			parent = child;
+			child = 2 * parent + 1;
+		}
+		this.indexes[parent] = index;
+		this.reducedDistances[parent] = reducedDistance;
+	}
+
+	private void move(int from, int to) {
+		this.indexes[to] = this.indexes[from];
+		this.reducedDistances[to] = this.reducedDistances[from];
+	}
+}
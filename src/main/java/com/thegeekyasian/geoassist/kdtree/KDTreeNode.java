@@ -14,12 +14,17 @@ public class KDTreeNode<T, O> {
 
 	private KDTreeObject<T, O> kdTreeObject;
 
+	private double cosLatitude;
+
 	private KDTreeNode<T, O> parent;
 
 	private KDTreeNode<T, O> left;
 
 	private KDTreeNode<T, O> right;
 
+	// The number of nodes of the subtree rooted at this node, including itself
+	private int subtreeSize = 1;
+
 	public KDTreeNode<T, O> getParent() {
 		return this.parent;
 	}
@@ -45,7 +50,7 @@ public class KDTreeNode<T, O> {
 	}
 
 	public KDTreeNode(KDTreeObject<T, O> kdTreeObject, KDTreeNode<T, O> parent) {
-		this.kdTreeObject = kdTreeObject;
+		setKdTreeObject(kdTreeObject);
 		this.parent = parent;
 		this.left = null;
 		this.right = null;
@@ -64,5 +69,19 @@ public class KDTreeNode<T, O> {
 
 	public void setKdTreeObject(KDTreeObject<T, O> kdTreeObject) {
 		this.kdTreeObject = kdTreeObject;
+		// Computed once here, as the distance metrics need it for every visited node
+		this.cosLatitude = kdTreeObject == null ? 0 : DistanceMetric.cosLatitude(kdTreeObject.getPoint());
+	}
+
+	public double getCosLatitude() {
+		return this.cosLatitude;
+	}
+
+	int getSubtreeSize() {
+		return this.subtreeSize;
+	}
+
+	void setSubtreeSize(int subtreeSize) {
+		this.subtreeSize = subtreeSize;
 	}
 }
@@ -0,0 +1,120 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+/**
+ * <p>
+ *     Places the median of a range of points along a splitting dimension at the middle of the range,
+ *     with the smaller values before it and the greater values after it, using an in-place selection
+ *     (nth_element style quickselect). Applied to a range and then to both of its halves, alternating
+ *     the dimensions, it lays the points out as a balanced k-d tree.
+ * </p>
+ *
+ * <p>
+ *     The coordinates are held in primitive arrays, and the elements they belong to are permuted
+ *     along with them by {@link #swapElements(int, int)}, so that the comparisons made during the
+ *     selection do not have to go through the elements.
+ * </p>
+ *
+ * @author The Geeky Asian
+ */
+abstract class KDTreePartitioner {
+
+	final double[] latitudes;
+
+	final double[] longitudes;
+
+	KDTreePartitioner(double[] latitudes, double[] longitudes) {
+		this.latitudes = latitudes;
+		this.longitudes = longitudes;
+	}
+
+	/**
+	 * Swaps the elements the coordinates at the provided indexes belong to.
+	 *
+	 * @param i the index of the first element.
+	 * @param j the index of the second element.
+	 */
+	abstract void swapElements(int i, int j);
+
+	/**
+	 * Lays the points of the provided range out as a balanced k-d tree, with the root of every subtree
+	 * at the middle of its range, its left subtree before it and its right subtree after it.
+	 *
+	 * @param from the first index of the range.
+	 * @param to the index after the last index of the range.
+	 * @param isLatitude whether the root of the range splits the space along the latitude.
+	 */
+	void layout(int from, int to, boolean isLatitude) {
+		// The depth of a balanced tree is logarithmic, so the recursion is shallow
+		if (to - from > 1) {
+			int medianIndex = placeMedian(from, to, isLatitude);
+			layout(from, medianIndex, !isLatitude);
+			layout(medianIndex + 1, to, !isLatitude);
+		}
+	}
+
+	int placeMedian(int from, int to, boolean isLatitude) {
+		// Place the median along the splitting dimension at the middle of the range,
+		// with the smaller values before it and the greater values after it
+		int medianIndex = (from + to) >>> 1;
+		select(from, to - 1, medianIndex, isLatitude ? this.latitudes : this.longitudes);
+		return medianIndex;
+	}
+
+	private void select(int left, int right, int k, double[] keys) {
+		while (right > left) {
+			// Use the median of the first, middle and last values as the pivot,
+			// which keeps sorted and reverse sorted input (e.g. GPS traces) linear
+			int middle = (left + right) >>> 1;
+			if (keys[middle] < keys[left]) {
+				swap(left, middle);
+			}
+			if (keys[right] < keys[left]) {
+				swap(left, right);
+			}
+			if (keys[right] < keys[middle]) {
+				swap(middle, right);
+			}
+			double pivot = keys[middle];
+
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (keys[i] < pivot) {
+					i++;
+				}
+				while (keys[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(i, j);
+					i++;
+					j--;
+				}
+			}
+
+			// Everything in [left, j] is <= pivot, everything in [i, right] is >= pivot
+			// and anything in between is equal to the pivot, i.e. already in place.
+			if (k <= j) {
+				right = j;
+			}
+			else if (k >= i) {
+				left = i;
+			}
+			else {
+				return;
+			}
+		}
+	}
+
+	private void swap(int i, int j) {
+		swapElements(i, j);
+
+		double latitude = this.latitudes[i];
+		this.latitudes[i] = this.latitudes[j];
+		this.latitudes[j] = latitude;
+
+		double longitude = this.longitudes[i];
+		this.longitudes[i] = this.longitudes[j];
+		this.longitudes[j] = longitude;
+	}
+}
@@ -0,0 +1,159 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ *     Orders and groups the queries of a batch search, e.g. the positions of all the riders of a dispatch tick.
+ * </p>
+ *
+ * <p>
+ *     The queries are sorted along a Z-order curve, by the Morton code interleaving the bits of their
+ *     latitude and longitude, so that consecutive queries are close to each other and walk mostly
+ *     the same paths of the tree while they are still in the CPU caches. The sorted queries are then
+ *     split into groups of up to {@link #GROUP_SIZE} queries, which are searched together,
+ *     and which can be searched concurrently on a {@link ForkJoinPool}.
+ * </p>
+ *
+ * @author The Geeky Asian
+ */
+final class KDTreeQueryBatch {
+
+	/**
+	 * The maximum number of queries of a group, which fit the bits of a long.
+	 */
+	static final int GROUP_SIZE = Long.SIZE;
+
+	private static final int MORTON_BITS = 16;
+
+	private KDTreeQueryBatch() {
+	}
+
+	/**
+	 * Sorts the provided coordinates by their Morton code, quantized over the extent of the batch.
+	 *
+	 * @param latitudes the latitudes of the queries.
+	 * @param longitudes the longitudes of the queries.
+	 * @return the indexes of the queries, in Morton order.
+	 */
+	static int[] mortonOrder(double[] latitudes, double[] longitudes) {
+		double minLatitude = Double.POSITIVE_INFINITY;
+		double maxLatitude = Double.NEGATIVE_INFINITY;
+		double minLongitude = Double.POSITIVE_INFINITY;
+		double maxLongitude = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < latitudes.length; i++) {
+			minLatitude = Math.min(minLatitude, latitudes[i]);
+			maxLatitude = Math.max(maxLatitude, latitudes[i]);
+			minLongitude = Math.min(minLongitude, longitudes[i]);
+			maxLongitude = Math.max(maxLongitude, longitudes[i]);
+		}
+
+		// The code fills the upper half of the key and the index the lower one,
+		// so that sorting the primitive keys sorts the indexes. The top bit of the code lands in the sign bit,
+		// which is flipped for the signed sort to order the codes as unsigned values.
+		long[] keys = new long[latitudes.length];
+		for (int i = 0; i < keys.length; i++) {
+			long code = interleave(quantize(latitudes[i], minLatitude, maxLatitude))
+				| interleave(quantize(longitudes[i], minLongitude, maxLongitude)) << 1;
+			keys[i] = (code << Integer.SIZE | i) ^ Long.MIN_VALUE;
+		}
+		Arrays.sort(keys);
+
+		int[] order = new int[keys.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = (int) keys[i];
+		}
+		return order;
+	}
+
+	private static int quantize(double value, double min, double max) {
+		if (!(max > min)) {
+			return 0;
+		}
+		return (int) ((value - min) / (max - min) * ((1 << MORTON_BITS) - 1));
+	}
+
+	private static long interleave(int value) {
+		// Spreads the 16 bits of the value over the even bits of an int
+		long bits = value & 0xFFFF;
+		bits = (bits | bits << 8) & 0x00FF_00FFL;
+		bits = (bits | bits << 4) & 0x0F0F_0F0FL;
+		bits = (bits | bits << 2) & 0x3333_3333L;
+		bits = (bits | bits << 1) & 0x5555_5555L;
+		return bits;
+	}
+
+	/**
+	 * Searches the provided number of queries in groups of up to {@link #GROUP_SIZE} consecutive queries,
+	 * on the calling thread, or concurrently on the provided pool.
+	 *
+	 * @param count the number of queries.
+	 * @param pool the pool to search the groups on, or null to search them on the calling thread.
+	 * @param search the search of a group.
+	 */
+	static void forEachGroup(int count, ForkJoinPool pool, GroupSearch search) {
+		if (pool == null || count <= GROUP_SIZE) {
+			for (int from = 0; from < count; from += GROUP_SIZE) {
+				search.search(from, Math.min(from + GROUP_SIZE, count));
+			}
+			return;
+		}
+		pool.invoke(new GroupTask(search, 0, (count + GROUP_SIZE - 1) / GROUP_SIZE, count));
+	}
+
+	/**
+	 * Searches a group of consecutive queries.
+	 *
+	 * @author The Geeky Asian
+	 */
+	@FunctionalInterface
+	interface GroupSearch {
+
+		/**
+		 * Searches the queries from the provided index, inclusive, to the provided index, exclusive.
+		 *
+		 * @param from the index of the first query of the group.
+		 * @param to the index after the last query of the group.
+		 */
+		void search(int from, int to);
+	}
+
+	/**
+	 * Splits a range of groups in halves until a single group is left, which is searched.
+	 *
+	 * @author The Geeky Asian
+	 */
+	private static final class GroupTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 3818270618563279164L;
+
+		private final GroupSearch search;
+
+		private final int fromGroup;
+
+		private final int toGroup;
+
+		private final int count;
+
+		private GroupTask(GroupSearch search, int fromGroup, int toGroup, int count) {
+			this.search = search;
+			this.fromGroup = fromGroup;
+			this.toGroup = toGroup;
+			this.count = count;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.toGroup - this.fromGroup == 1) {
+				this.search.search(this.fromGroup * GROUP_SIZE,
+					Math.min((this.fromGroup + 1) * GROUP_SIZE, this.count));
+				return;
+			}
+			int middle = (this.fromGroup + this.toGroup) >>> 1;
+			invokeAll(new GroupTask(this.search, this.fromGroup, middle, this.count),
+				new GroupTask(this.search, middle, this.toGroup, this.count));
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>
+ *     Collects the objects of a {@link KDTreeSpliterator} on a {@link ForkJoinPool}, for searches
+ *     returning very large results, e.g. a country-sized bounding box.
+ * </p>
+ *
+ * <p>
+ *     Each task splits off the largest subtrees left to its Spliterator into forked tasks,
+ *     as long as it has more than the threshold of objects left, then collects the rest in a buffer
+ *     of its own. The buffers of all the tasks are only copied once, into the result list.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @param <O> the type of the custom object of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ */
+final class KDTreeSearchTask<T, O> extends RecursiveTask<List<List<KDTreeObject<T, O>>>> {
+
+	private static final long serialVersionUID = -4169735541873962457L;
+
+	private static final int MIN_THRESHOLD = 1 << 12;
+
+	private final Spliterator<KDTreeObject<T, O>> spliterator;
+
+	private final long threshold;
+
+	private KDTreeSearchTask(Spliterator<KDTreeObject<T, O>> spliterator, long threshold) {
+		this.spliterator = spliterator;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Collects the objects of the provided Spliterator on the provided pool.
+	 *
+	 * @param spliterator the objects to collect.
+	 * @param pool the pool to collect the objects on.
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @return the objects, in no particular order.
+	 */
+	static <T, O> List<KDTreeObject<T, O>> collect(Spliterator<KDTreeObject<T, O>> spliterator, ForkJoinPool pool) {
+		// A few tasks per thread, for the threads to balance uneven subtrees
+		long threshold = Math.max(MIN_THRESHOLD, spliterator.estimateSize() / (4L * pool.getParallelism()));
+		List<List<KDTreeObject<T, O>>> buffers = pool.invoke(new KDTreeSearchTask<>(spliterator, threshold));
+
+		int size = 0;
+		for (List<KDTreeObject<T, O>> buffer : buffers) {
+			size += buffer.size();
+		}
+		List<KDTreeObject<T, O>> result = new ArrayList<>(size);
+		for (List<KDTreeObject<T, O>> buffer : buffers) {
+			result.addAll(buffer);
+		}
+		return result;
+	}
+
+	@Override
+	protected List<List<KDTreeObject<T, O>>> compute() {
+		List<KDTreeSearchTask<T, O>> forks = new ArrayList<>();
+		Spliterator<KDTreeObject<T, O>> split;
+		while (this.spliterator.estimateSize() > this.threshold
+			&& (split = this.spliterator.trySplit()) != null) {
+			KDTreeSearchTask<T, O> fork = new KDTreeSearchTask<>(split, this.threshold);
+			fork.fork();
+			forks.add(fork);
+		}
+
+		List<KDTreeObject<T, O>> buffer = new ArrayList<>();
+		this.spliterator.forEachRemaining(buffer::add);
+		List<List<KDTreeObject<T, O>>> buffers = new ArrayList<>();
+		buffers.add(buffer);
+		for (KDTreeSearchTask<T, O> fork : forks) {
+			buffers.addAll(fork.join());
+		}
+		return buffers;
+	}
+}
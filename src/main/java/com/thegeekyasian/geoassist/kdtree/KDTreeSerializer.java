@@ -0,0 +1,99 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * <p>
+ *     Writes and reads the identifiers or custom objects of the KDTreeObjects
+ *     in the binary format of {@link KDTree#writeTo} and {@link KDTree#readFrom}.
+ * </p>
+ *
+ * <p>
+ *     Null values are handled by the tree, so a serializer only ever sees non-null values.
+ * </p>
+ *
+ * @param <V> the type of the values written and read.
+ *
+ * @author The Geeky Asian
+ */
+public interface KDTreeSerializer<V> {
+
+	/**
+	 * Writes the provided value.
+	 *
+	 * @param out the output to write the value to.
+	 * @param value the value, never null.
+	 * @throws IOException is thrown when the value can not be written.
+	 */
+	void write(DataOutput out, V value) throws IOException;
+
+	/**
+	 * Reads a value written by {@link #write(DataOutput, Object)}.
+	 *
+	 * @param in the input to read the value from.
+	 * @return the value.
+	 * @throws IOException is thrown when the value can not be read.
+	 */
+	V read(DataInput in) throws IOException;
+
+	/**
+	 * Returns a serializer of Long values, e.g. for the IDs of database rows.
+	 *
+	 * @return the serializer.
+	 */
+	static KDTreeSerializer<Long> longs() {
+		return new KDTreeSerializer<Long>() {
+			@Override
+			public void write(DataOutput out, Long value) throws IOException {
+				out.writeLong(value);
+			}
+
+			@Override
+			public Long read(DataInput in) throws IOException {
+				return in.readLong();
+			}
+		};
+	}
+
+	/**
+	 * Returns a serializer of String values, of less than 64 KB each once encoded.
+	 *
+	 * @return the serializer.
+	 */
+	static KDTreeSerializer<String> strings() {
+		return new KDTreeSerializer<String>() {
+			@Override
+			public void write(DataOutput out, String value) throws IOException {
+				out.writeUTF(value);
+			}
+
+			@Override
+			public String read(DataInput in) throws IOException {
+				return in.readUTF();
+			}
+		};
+	}
+
+	/**
+	 * Returns a serializer that does not write anything, and reads every value as null,
+	 * e.g. for custom objects that are loaded from elsewhere.
+	 *
+	 * @param <V> the type of the values.
+	 * @return the serializer.
+	 */
+	static <V> KDTreeSerializer<V> none() {
+		return new KDTreeSerializer<V>() {
+			@Override
+			public void write(DataOutput out, V value) {
+				// Nothing to write
+			}
+
+			@Override
+			public V read(DataInput in) {
+				return null;
+			}
+		};
+	}
+}
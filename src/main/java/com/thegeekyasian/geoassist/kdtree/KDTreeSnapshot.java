@@ -0,0 +1,251 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * <p>
+ *     An immutable version of the objects of a {@link SnapshotKDTree}: a balanced KDTree,
+ *     which is never modified once the snapshot is published, along with the writes applied
+ *     to it since it was built. The writes are kept in a small delta: the objects inserted since,
+ *     and the tombstones of the objects of the tree that were deleted or replaced since.
+ * </p>
+ *
+ * <p>
+ *     Every write creates a new snapshot with a copy of the delta, so searches run against a consistent
+ *     version of the objects without any lock. The delta is scanned by every search,
+ *     so it is merged into a new tree once it grows too large.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @param <O> the type of the custom object of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ */
+final class KDTreeSnapshot<T, O> {
+
+	private final KDTree<T, O> kdTree;
+
+	private final Map<T, KDTreeObject<T, O>> delta;
+
+	private final Set<T> tombstones;
+
+	KDTreeSnapshot(KDTree<T, O> kdTree) {
+		this(kdTree, Collections.emptyMap(), Collections.emptySet());
+	}
+
+	private KDTreeSnapshot(KDTree<T, O> kdTree, Map<T, KDTreeObject<T, O>> delta, Set<T> tombstones) {
+		this.kdTree = kdTree;
+		this.delta = delta;
+		this.tombstones = tombstones;
+	}
+
+	KDTree<T, O> getKdTree() {
+		return this.kdTree;
+	}
+
+	int getDeltaSize() {
+		return this.delta.size() + this.tombstones.size();
+	}
+
+	int getSize() {
+		// Tombstones are only kept for objects of the tree
+		return this.kdTree.getSize() - this.tombstones.size() + this.delta.size();
+	}
+
+	KDTreeObject<T, O> getById(T id) {
+		KDTreeObject<T, O> object = this.delta.get(id);
+		if (object != null || this.tombstones.contains(id)) {
+			return object;
+		}
+		return this.kdTree.getById(id);
+	}
+
+	/**
+	 * Creates a new snapshot holding the provided object, which replaces the object with the same ID, if any.
+	 *
+	 * @param object the object to insert.
+	 * @return the new snapshot.
+	 */
+	KDTreeSnapshot<T, O> put(KDTreeObject<T, O> object) {
+		Map<T, KDTreeObject<T, O>> delta = new HashMap<>(this.delta);
+		delta.put(object.getId(), object);
+		return new KDTreeSnapshot<>(this.kdTree, Collections.unmodifiableMap(delta),
+			withTombstone(object.getId()));
+	}
+
+	/**
+	 * Creates a new snapshot without the object of the provided ID.
+	 *
+	 * @param id the ID of the object to delete.
+	 * @return the new snapshot.
+	 */
+	KDTreeSnapshot<T, O> remove(T id) {
+		Map<T, KDTreeObject<T, O>> delta = this.delta;
+		if (delta.containsKey(id)) {
+			delta = new HashMap<>(delta);
+			delta.remove(id);
+			delta = Collections.unmodifiableMap(delta);
+		}
+		return new KDTreeSnapshot<>(this.kdTree, delta, withTombstone(id));
+	}
+
+	private Set<T> withTombstone(T id) {
+		if (this.kdTree.getById(id) == null || this.tombstones.contains(id)) {
+			return this.tombstones;
+		}
+		Set<T> tombstones = new HashSet<>(this.tombstones);
+		tombstones.add(id);
+		return Collections.unmodifiableSet(tombstones);
+	}
+
+	/**
+	 * Builds a new balanced tree out of the objects of this snapshot, without modifying it.
+	 *
+	 * @return the new tree.
+	 */
+	KDTree<T, O> rebuild() {
+		List<KDTreeObject<T, O>> objects = new ArrayList<>(getSize());
+		for (KDTreeObject<T, O> object : this.kdTree.getObjects()) {
+			if (!this.tombstones.contains(object.getId())) {
+				objects.add(object);
+			}
+		}
+		objects.addAll(this.delta.values());
+		return this.kdTree.rebuild(objects);
+	}
+
+	/**
+	 * <p>
+	 *     Moves the writes applied since the provided snapshot onto the provided tree,
+	 *     which was rebuilt out of the provided snapshot. Only the objects that are in the delta
+	 *     of either snapshot can differ between them, so the delta of the new snapshot is
+	 *     no larger than the delta of the two snapshots.
+	 * </p>
+	 *
+	 * @param snapshot an earlier snapshot, with the same tree as this one.
+	 * @param kdTree the tree rebuilt out of the earlier snapshot.
+	 * @return a new snapshot with the same objects as this one, backed by the provided tree.
+	 */
+	KDTreeSnapshot<T, O> rebase(KDTreeSnapshot<T, O> snapshot, KDTree<T, O> kdTree) {
+		Set<T> ids = new HashSet<>(this.delta.keySet());
+		ids.addAll(this.tombstones);
+		ids.addAll(snapshot.delta.keySet());
+		ids.addAll(snapshot.tombstones);
+
+		Map<T, KDTreeObject<T, O>> delta = new HashMap<>();
+		Set<T> tombstones = new HashSet<>();
+		for (T id : ids) {
+			KDTreeObject<T, O> object = getById(id);
+			KDTreeObject<T, O> rebuiltObject = kdTree.getById(id);
+			if (object == rebuiltObject) {
+				continue;
+			}
+			if (object != null) {
+				delta.put(id, object);
+			}
+			if (rebuiltObject != null) {
+				tombstones.add(id);
+			}
+		}
+		return new KDTreeSnapshot<>(kdTree, Collections.unmodifiableMap(delta),
+			Collections.unmodifiableSet(tombstones));
+	}
+
+	boolean findNearestNeighbor(Point point, double distance, KDTreeVisitor<T, O> visitor) {
+		if (!this.kdTree.findNearestNeighbor(point, distance,
+			object -> this.tombstones.contains(object.getId()) || visitor.visit(object))) {
+			return false;
+		}
+		if (this.delta.isEmpty()) {
+			return true;
+		}
+
+		DistanceQuery query = new DistanceQuery(point, distance, this.kdTree.getDistanceMetric());
+		for (KDTreeObject<T, O> object : this.delta.values()) {
+			if (query.isWithinWindow(object.getPoint())
+				&& query.reducedDistanceTo(object.getPoint()) <= query.getReducedDistance()
+				&& !visitor.visit(object)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	List<KDTreeNearestNeighbor<T, O>> findKNearest(Point point, int k, double distance) {
+		List<KDTreeNearestNeighbor<T, O>> nearestNeighbors = this.kdTree.findKNearest(point, k, distance,
+			this.tombstones.isEmpty() ? null : object -> !this.tombstones.contains(object.getId()));
+		if (this.delta.isEmpty()) {
+			return nearestNeighbors;
+		}
+
+		// The delta is small, so its objects within the distance are merged with the neighbors found in the tree
+		DistanceQuery query = new DistanceQuery(point, distance, this.kdTree.getDistanceMetric());
+		for (KDTreeObject<T, O> object : this.delta.values()) {
+			if (!query.isWithinWindow(object.getPoint())) {
+				continue;
+			}
+			double reducedDistance = query.reducedDistanceTo(object.getPoint());
+			if (reducedDistance <= query.getReducedDistance()) {
+				KDTreeNearestNeighbor<T, O> nearestNeighbor = new KDTreeNearestNeighbor<>();
+				nearestNeighbor.setKdTreeObject(object);
+				nearestNeighbor.setDistance(query.toDistance(reducedDistance));
+				nearestNeighbors.add(nearestNeighbor);
+			}
+		}
+		nearestNeighbors.sort(Comparator.comparingDouble(KDTreeNearestNeighbor::getDistance));
+		return nearestNeighbors.size() > k ? new ArrayList<>(nearestNeighbors.subList(0, k)) : nearestNeighbors;
+	}
+
+	Stream<KDTreeObject<T, O>> streamNearestNeighbor(Point point, double distance) {
+		DistanceQuery query = new DistanceQuery(point, distance, this.kdTree.getDistanceMetric());
+		return withDelta(this.kdTree.streamNearestNeighbor(point, distance),
+			object -> query.isWithinWindow(object.getPoint())
+				&& query.reducedDistanceTo(object.getPoint()) <= query.getReducedDistance());
+	}
+
+	Stream<KDTreeObject<T, O>> streamInRange(BoundingBox boundingBox) {
+		return withDelta(this.kdTree.streamInRange(boundingBox),
+			object -> boundingBox.contains(object.getPoint().getLatitude(), object.getPoint().getLongitude()));
+	}
+
+	private Stream<KDTreeObject<T, O>> withDelta(Stream<KDTreeObject<T, O>> stream,
+		Predicate<KDTreeObject<T, O>> isWithinRegion) {
+		// The tree of a snapshot is never modified, so it can be searched lazily
+		if (!this.tombstones.isEmpty()) {
+			stream = stream.filter(object -> !this.tombstones.contains(object.getId()));
+		}
+		if (this.delta.isEmpty()) {
+			return stream;
+		}
+		return Stream.concat(stream, this.delta.values().stream().filter(isWithinRegion));
+	}
+
+	boolean findInRange(BoundingBox boundingBox, KDTreeVisitor<T, O> visitor) {
+		if (!this.kdTree.findInRange(boundingBox,
+			object -> this.tombstones.contains(object.getId()) || visitor.visit(object))) {
+			return false;
+		}
+
+		for (KDTreeObject<T, O> object : this.delta.values()) {
+			Point point = object.getPoint();
+			if (boundingBox.contains(point.getLatitude(), point.getLongitude())
+				&& !visitor.visit(object)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,301 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * <p>
+ *     A Spliterator over the objects of a KDTree within a region, i.e. a bounding box or a distance around a point.
+ * </p>
+ *
+ * <p>
+ *     The traversal keeps its own stack of the subtrees left to visit, and only descends into the subtrees
+ *     that the region reaches, like the searches of the KDTree. Splitting hands over the subtree at the bottom
+ *     of the stack, which is the largest one left as it was pushed closest to the root. Once a single subtree
+ *     is left, its root is visited first so that its children can be split. The size is estimated from
+ *     the sizes of the subtrees left to visit, so splits are balanced even on unbalanced trees.
+ * </p>
+ *
+ * <p>
+ *     The tree must not be modified while the Spliterator is traversed.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @param <O> the type of the custom object of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ */
+final class KDTreeSpliterator<T, O> implements Spliterator<KDTreeObject<T, O>> {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final Region<T, O> region;
+
+	private KDTreeNode<T, O>[] nodes;
+
+	private boolean[] latitudes = new boolean[INITIAL_CAPACITY];
+
+	private int from;
+
+	private int to;
+
+	private Deque<KDTreeObject<T, O>> pending;
+
+	@SuppressWarnings("unchecked")
+	private KDTreeSpliterator(Region<T, O> region) {
+		this.region = region;
+		this.nodes = new KDTreeNode[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Creates a Spliterator over the objects of the provided tree within the provided bounding box.
+	 *
+	 * @param root the root of the tree, or null if the tree is empty.
+	 * @param boundingBox the bounding box to search within.
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @return the Spliterator.
+	 */
+	static <T, O> KDTreeSpliterator<T, O> within(KDTreeNode<T, O> root, BoundingBox boundingBox) {
+		return within(root, new BoundingBox[] {boundingBox}, null);
+	}
+
+	/**
+	 * Creates a Spliterator over the objects of the provided tree within any of the provided bounding boxes,
+	 * which must not cross the antimeridian, and within the distance of the provided query if there is one,
+	 * e.g. for the parts of the window of a query crossing the antimeridian. The boxes are searched
+	 * in a single traversal, in the same order as the searches of the KDTree of several boxes.
+	 *
+	 * @param root the root of the tree, or null if the tree is empty.
+	 * @param boundingBoxes the bounding boxes to search within.
+	 * @param query the reference point and maximum distance, or null to search the whole bounding boxes.
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @return the Spliterator.
+	 */
+	static <T, O> KDTreeSpliterator<T, O> within(KDTreeNode<T, O> root, BoundingBox[] boundingBoxes,
+		DistanceQuery query) {
+		KDTreeSpliterator<T, O> spliterator = new KDTreeSpliterator<>(new Region<T, O>() {
+			@Override
+			public boolean contains(KDTreeNode<T, O> node) {
+				double latitude = node.value(true);
+				double longitude = node.value(false);
+				for (BoundingBox boundingBox : boundingBoxes) {
+					Point lowerPoint = boundingBox.getLowerPoint();
+					Point upperPoint = boundingBox.getUpperPoint();
+					if (latitude >= lowerPoint.getLatitude() && latitude <= upperPoint.getLatitude()
+						&& longitude >= lowerPoint.getLongitude() && longitude <= upperPoint.getLongitude()) {
+						return query == null || query.reducedDistanceTo(node) <= query.getReducedDistance();
+					}
+				}
+				return false;
+			}
+
+			@Override
+			public boolean reachesLeft(KDTreeNode<T, O> node, boolean isLatitude) {
+				for (BoundingBox boundingBox : boundingBoxes) {
+					Point lowerPoint = boundingBox.getLowerPoint();
+					if (node.value(isLatitude) >= (isLatitude ? lowerPoint.getLatitude() : lowerPoint.getLongitude())) {
+						return true;
+					}
+				}
+				return false;
+			}
+
+			@Override
+			public boolean reachesRight(KDTreeNode<T, O> node, boolean isLatitude) {
+				for (BoundingBox boundingBox : boundingBoxes) {
+					Point upperPoint = boundingBox.getUpperPoint();
+					if (node.value(isLatitude) <= (isLatitude ? upperPoint.getLatitude() : upperPoint.getLongitude())) {
+						return true;
+					}
+				}
+				return false;
+			}
+
+			@Override
+			public boolean isLeftFirst(KDTreeNode<T, O> node, boolean isLatitude) {
+				return true;
+			}
+		});
+		spliterator.push(root, true);
+		return spliterator;
+	}
+
+	/**
+	 * Creates a Spliterator over the objects of the provided tree within the distance of the provided query.
+	 *
+	 * @param root the root of the tree, or null if the tree is empty.
+	 * @param query the reference point and maximum distance.
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @return the Spliterator.
+	 */
+	static <T, O> KDTreeSpliterator<T, O> within(KDTreeNode<T, O> root, DistanceQuery query) {
+		KDTreeSpliterator<T, O> spliterator = new KDTreeSpliterator<>(new Region<T, O>() {
+			@Override
+			public boolean contains(KDTreeNode<T, O> node) {
+				return query.reducedDistanceTo(node) <= query.getReducedDistance();
+			}
+
+			@Override
+			public boolean reachesLeft(KDTreeNode<T, O> node, boolean isLatitude) {
+				double delta = query.coordinate(isLatitude) - node.value(isLatitude);
+				return delta < 0 || query.isWithinWindow(delta, isLatitude);
+			}
+
+			@Override
+			public boolean reachesRight(KDTreeNode<T, O> node, boolean isLatitude) {
+				double delta = query.coordinate(isLatitude) - node.value(isLatitude);
+				return delta >= 0 || query.isWithinWindow(delta, isLatitude);
+			}
+
+			@Override
+			public boolean isLeftFirst(KDTreeNode<T, O> node, boolean isLatitude) {
+				// The side of the split holding the point first
+				return query.coordinate(isLatitude) < node.value(isLatitude);
+			}
+		});
+		spliterator.push(root, true);
+		return spliterator;
+	}
+
+	private void push(KDTreeNode<T, O> node, boolean isLatitude) {
+		if (node == null) {
+			return;
+		}
+		if (this.to == this.nodes.length) {
+			if (this.from > 0) {
+				// Reclaim the room of the subtrees handed over by the splits
+				System.arraycopy(this.nodes, this.from, this.nodes, 0, this.to - this.from);
+				System.arraycopy(this.latitudes, this.from, this.latitudes, 0, this.to - this.from);
+				Arrays.fill(this.nodes, this.to - this.from, this.to, null);
+				this.to -= this.from;
+				this.from = 0;
+			}
+			else {
+				this.nodes = Arrays.copyOf(this.nodes, this.nodes.length * 2);
+				this.latitudes = Arrays.copyOf(this.latitudes, this.latitudes.length * 2);
+			}
+		}
+		this.nodes[this.to] = node;
+		this.latitudes[this.to] = isLatitude;
+		this.to++;
+	}
+
+	/**
+	 * Visits the node on top of the stack, pushing the children that the region reaches.
+	 *
+	 * @return the object of the node if it is within the region, null otherwise.
+	 */
+	private KDTreeObject<T, O> visit() {
+		KDTreeNode<T, O> node = this.nodes[--this.to];
+		boolean isLatitude = this.latitudes[this.to];
+		this.nodes[this.to] = null;
+
+		// Push the subtree to visit first last
+		boolean isLeftFirst = this.region.isLeftFirst(node, isLatitude);
+		if (!isLeftFirst && this.region.reachesLeft(node, isLatitude)) {
+			push(node.getLeft(), !isLatitude);
+		}
+		if (this.region.reachesRight(node, isLatitude)) {
+			push(node.getRight(), !isLatitude);
+		}
+		if (isLeftFirst && this.region.reachesLeft(node, isLatitude)) {
+			push(node.getLeft(), !isLatitude);
+		}
+		return this.region.contains(node) ? node.getKdTreeObject() : null;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super KDTreeObject<T, O>> action) {
+		if (this.pending != null && !this.pending.isEmpty()) {
+			action.accept(this.pending.poll());
+			return true;
+		}
+		while (this.to > this.from) {
+			KDTreeObject<T, O> object = visit();
+			if (object != null) {
+				action.accept(object);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super KDTreeObject<T, O>> action) {
+		while (this.pending != null && !this.pending.isEmpty()) {
+			action.accept(this.pending.poll());
+		}
+		while (this.to > this.from) {
+			KDTreeObject<T, O> object = visit();
+			if (object != null) {
+				action.accept(object);
+			}
+		}
+	}
+
+	@Override
+	public Spliterator<KDTreeObject<T, O>> trySplit() {
+		// Visit the root of a single subtree, keeping its object for later, to split its children
+		while (this.to - this.from == 1) {
+			KDTreeObject<T, O> object = visit();
+			if (object != null) {
+				if (this.pending == null) {
+					this.pending = new ArrayDeque<>();
+				}
+				this.pending.add(object);
+			}
+		}
+		if (this.to - this.from < 2) {
+			return null;
+		}
+
+		KDTreeSpliterator<T, O> split = new KDTreeSpliterator<>(this.region);
+		split.push(this.nodes[this.from], this.latitudes[this.from]);
+		this.nodes[this.from++] = null;
+		return split;
+	}
+
+	@Override
+	public long estimateSize() {
+		long size = this.pending == null ? 0 : this.pending.size();
+		for (int i = this.from; i < this.to; i++) {
+			size += this.nodes[i].getSubtreeSize();
+		}
+		return size;
+	}
+
+	@Override
+	public int characteristics() {
+		return NONNULL;
+	}
+
+	/**
+	 * The region searched by a Spliterator.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 *
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 *
+	 * @author The Geeky Asian
+	 */
+	private interface Region<T, O> {
+
+		boolean contains(KDTreeNode<T, O> node);
+
+		boolean reachesLeft(KDTreeNode<T, O> node, boolean isLatitude);
+
+		boolean reachesRight(KDTreeNode<T, O> node, boolean isLatitude);
+
+		boolean isLeftFirst(KDTreeNode<T, O> node, boolean isLatitude);
+	}
+}
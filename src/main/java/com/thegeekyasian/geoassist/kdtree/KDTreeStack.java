@@ -0,0 +1,96 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ *     An explicit stack of the nodes left to visit by a search of the KDTree, along with the dimension
+ *     they split and a lower bound of the distance to their subtree (for the nearest neighbor searches).
+ * </p>
+ *
+ * <p>
+ *     Searches loop over the stack instead of recursing, so that their depth is not limited
+ *     by the thread stack on degenerate trees. Each thread reuses its own stack, which only grows,
+ *     so that searches do not allocate anything once warmed up.
+ * </p>
+ *
+ * @author The Geeky Asian
+ */
+final class KDTreeStack {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private static final ThreadLocal<KDTreeStack> STACKS = ThreadLocal.withInitial(KDTreeStack::new);
+
+	private KDTreeNode<?, ?>[] nodes = new KDTreeNode<?, ?>[INITIAL_CAPACITY];
+
+	private boolean[] latitudes = new boolean[INITIAL_CAPACITY];
+
+	private double[] bounds = new double[INITIAL_CAPACITY];
+
+	private int size;
+
+	private boolean inUse;
+
+	/**
+	 * Returns the stack of the current thread, which must be released once the search is over.
+	 *
+	 * @return an empty stack.
+	 */
+	static KDTreeStack acquire() {
+		KDTreeStack stack = STACKS.get();
+		if (stack.inUse) {
+			// A visitor searching a tree from within a search gets a stack of its own
+			return new KDTreeStack();
+		}
+		stack.inUse = true;
+		return stack;
+	}
+
+	void release() {
+		// Drop the references to the nodes left by a search that stopped early
+		Arrays.fill(this.nodes, 0, this.size, null);
+		this.size = 0;
+		this.inUse = false;
+	}
+
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	void push(KDTreeNode<?, ?> node, boolean isLatitude, double bound) {
+		if (this.size == this.nodes.length) {
+			int capacity = this.size * 2;
+			this.nodes = Arrays.copyOf(this.nodes, capacity);
+			this.latitudes = Arrays.copyOf(this.latitudes, capacity);
+			this.bounds = Arrays.copyOf(this.bounds, capacity);
+		}
+		this.nodes[this.size] = node;
+		this.latitudes[this.size] = isLatitude;
+		this.bounds[this.size] = bound;
+		this.size++;
+	}
+
+	/**
+	 * Pops the node on top of the stack. Its dimension and bound
+	 * are then returned by {@link #isLatitude()} and {@link #bound()}.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 * @return the node on top of the stack.
+	 */
+	@SuppressWarnings("unchecked")
+	<T, O> KDTreeNode<T, O> pop() {
+		KDTreeNode<T, O> node = (KDTreeNode<T, O>) this.nodes[--this.size];
+		this.nodes[this.size] = null;
+		return node;
+	}
+
+	boolean isLatitude() {
+		return this.latitudes[this.size];
+	}
+
+	double bound() {
+		return this.bounds[this.size];
+	}
+}
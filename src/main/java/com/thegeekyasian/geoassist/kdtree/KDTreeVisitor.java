@@ -0,0 +1,31 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+/**
+ * <p>
+ *     A visitor of the KDTreeObjects matched by a search, which consumes them as they are found,
+ *     instead of collecting them in a new list. The same visitor can be reused across searches,
+ *     e.g. to fill a reusable buffer with {@code buffer::add} after clearing it,
+ *     so that a search does not allocate anything.
+ * </p>
+ *
+ * <p>
+ *     The visitor can also stop the search early, e.g. once it has found enough objects.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @param <O> the type of the custom object of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ */
+@FunctionalInterface
+public interface KDTreeVisitor<T, O> {
+
+	/**
+	 * Visits a KDTreeObject matched by the search.
+	 *
+	 * @param kdTreeObject the matched KDTreeObject.
+	 * @return true to continue the search, false to stop it.
+	 */
+	boolean visit(KDTreeObject<T, O> kdTreeObject);
+}
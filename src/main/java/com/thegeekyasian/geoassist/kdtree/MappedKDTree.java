@@ -0,0 +1,206 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+
+/**
+ * <p>
+ *     A read-only KD-Tree searched straight from an index file mapped in memory,
+ *     with the same search API as the {@link KDTree}.
+ * </p>
+ *
+ * <p>
+ *     The index file holds a balanced tree of the coordinates and IDs of the objects,
+ *     laid out like an {@link ArrayKDTree}, and is written once by {@link #write(Path, Collection)}.
+ *     Opening it maps it with {@link FileChannel#map}, without reading or deserializing anything:
+ *     the searches read the coordinates from the mapped pages, which the operating system loads on demand
+ *     and shares between all the processes mapping the same file. The tree does not use any heap
+ *     besides its buffers, and the KDTreeObjects passed to the searches are created from the file,
+ *     with the ID of the object and no custom object.
+ * </p>
+ *
+ * <p>
+ *     The file starts with a header of four integers: a magic number, the version of the format,
+ *     the number of objects and a reserved integer. It is followed by the latitudes,
+ *     the longitudes and the IDs of the objects, as little-endian doubles and longs, in tree order.
+ * </p>
+ *
+ * @author The Geeky Asian
+ */
+public final class MappedKDTree extends ImplicitKDTree<Long, Object> {
+
+	private static final int MAGIC = 0x4741_4B44; // "GAKD"
+
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+	private static final int MAX_SIZE = Integer.MAX_VALUE / Double.BYTES;
+
+	private final int size;
+
+	private final DoubleBuffer latitudes;
+
+	private final DoubleBuffer longitudes;
+
+	private final LongBuffer ids;
+
+	private MappedKDTree(FileChannel channel, DistanceMetric distanceMetric) throws IOException {
+		super(distanceMetric);
+		if (channel.size() < HEADER_SIZE) {
+			throw new GeoAssistException("Unsupported index file");
+		}
+		ByteBuffer header = map(channel, 0, HEADER_SIZE);
+		if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+			throw new GeoAssistException("Unsupported index file");
+		}
+		this.size = header.getInt();
+		long sectionSize = (long) this.size * Double.BYTES;
+		if (this.size < 0 || channel.size() != HEADER_SIZE + 3 * sectionSize) {
+			throw new GeoAssistException("Corrupted index file");
+		}
+
+		// Every section is mapped on its own, as a single mapping can not exceed 2 GB
+		this.latitudes = map(channel, HEADER_SIZE, sectionSize).asDoubleBuffer();
+		this.longitudes = map(channel, HEADER_SIZE + sectionSize, sectionSize).asDoubleBuffer();
+		this.ids = map(channel, HEADER_SIZE + 2 * sectionSize, sectionSize).asLongBuffer();
+	}
+
+	private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Opens the provided index file, with the haversine distance.
+	 *
+	 * @param path the index file, written by {@link #write(Path, Collection)}.
+	 * @return the tree mapping the index file.
+	 * @throws IOException is thrown when the file can not be read.
+	 * @throws GeoAssistException is thrown when the file is not a valid index file.
+	 */
+	public static MappedKDTree open(Path path) throws IOException {
+		return open(path, DistanceMetric.HAVERSINE);
+	}
+
+	/**
+	 * Opens the provided index file. The file stays mapped until the tree is garbage collected,
+	 * and must not be modified meanwhile.
+	 *
+	 * @param path the index file, written by {@link #write(Path, Collection)}.
+	 * @param distanceMetric the metric used to compute distances in the nearest neighbor searches.
+	 * @return the tree mapping the index file.
+	 * @throws IOException is thrown when the file can not be read.
+	 * @throws GeoAssistException is thrown when the distance metric is null,
+	 * or the file is not a valid index file.
+	 */
+	public static MappedKDTree open(Path path, DistanceMetric distanceMetric) throws IOException {
+		if (distanceMetric == null) {
+			throw new GeoAssistException("distanceMetric can not be null");
+		}
+		// The mappings remain valid once the channel is closed
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new MappedKDTree(channel, distanceMetric);
+		}
+	}
+
+	/**
+	 * Writes an index file holding a balanced tree of the coordinates and IDs of the provided objects,
+	 * replacing the file if it exists. The custom objects are not written.
+	 *
+	 * @param path the index file to write.
+	 * @param objects the objects of the tree.
+	 * @throws IOException is thrown when the file can not be written.
+	 * @throws GeoAssistException is thrown when an ID is null, or there are too many objects.
+	 */
+	public static void write(Path path, Collection<? extends KDTreeObject<Long, ?>> objects) throws IOException {
+		if (objects.size() > MAX_SIZE) {
+			throw new GeoAssistException("Too many objects provided.");
+		}
+		double[] latitudes = new double[objects.size()];
+		double[] longitudes = new double[objects.size()];
+		long[] ids = new long[objects.size()];
+		int index = 0;
+		for (KDTreeObject<Long, ?> object : objects) {
+			if (object.getId() == null) {
+				throw new GeoAssistException("id can not be null");
+			}
+			latitudes[index] = object.getPoint().getLatitude();
+			longitudes[index] = object.getPoint().getLongitude();
+			ids[index] = object.getId();
+			index++;
+		}
+
+		new KDTreePartitioner(latitudes, longitudes) {
+			@Override
+			void swapElements(int i, int j) {
+				long id = ids[i];
+				ids[i] = ids[j];
+				ids[j] = id;
+			}
+		}.layout(0, ids.length, true);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(ids.length).putInt(0);
+			for (double latitude : latitudes) {
+				flushIfFull(channel, buffer).putDouble(latitude);
+			}
+			for (double longitude : longitudes) {
+				flushIfFull(channel, buffer).putDouble(longitude);
+			}
+			for (long id : ids) {
+				flushIfFull(channel, buffer).putLong(id);
+			}
+			flush(channel, buffer);
+		}
+	}
+
+	private static ByteBuffer flushIfFull(FileChannel channel, ByteBuffer buffer) throws IOException {
+		if (buffer.remaining() < Long.BYTES) {
+			flush(channel, buffer);
+		}
+		return buffer;
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public int getSize() {
+		return this.size;
+	}
+
+	@Override
+	double latitude(int index) {
+		return this.latitudes.get(index);
+	}
+
+	@Override
+	double longitude(int index) {
+		return this.longitudes.get(index);
+	}
+
+	@Override
+	KDTreeObject<Long, Object> object(int index) {
+		return new KDTreeObject.Builder<Long, Object>()
+				.id(this.ids.get(index))
+				.latitude(this.latitudes.get(index))
+				.longitude(this.longitudes.get(index))
+				.build();
+	}
+}
@@ -0,0 +1,694 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * <p>
+ *     A thread-safe KDTree partitioned into independent shards, one per tile of
+ *     {@link Builder#tileSize(double)} degrees of latitude and longitude holding objects.
+ * </p>
+ *
+ * <p>
+ *     Every shard is a {@link ConcurrentKDTree} of its own, so writes to different tiles never contend,
+ *     and a shard is rebalanced without holding back the writers of the other ones. Shards are created
+ *     for the tiles objects are written to, and dropped once their tile is left empty. Objects are routed
+ *     to the shard of the tile of their point, and searches only fan out to the shards whose tiles
+ *     the bounding box, or the window of latitudes and longitudes that the distance spans around the point,
+ *     reaches. With a {@link Builder#pool(ForkJoinPool)}, searches reaching several shards search them
+ *     concurrently.
+ * </p>
+ *
+ * <p>
+ *     The writes of an ID are serialized, so that an object moving to another tile is never found in both
+ *     or in neither of their shards by the other writes of its ID.
+ * </p>
+ *
+ * <p>
+ *     A shard can be written on its own, and read back into another ShardedKDTree, e.g. on another node
+ *     serving the same tile, so that the planet can be spread over many processes.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @param <O> the type of the custom object of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ */
+public class ShardedKDTree<T, O> implements SpatialIndex<T, O> {
+
+	private final double tileSize;
+
+	private final int rows;
+
+	private final int columns;
+
+	private final DistanceMetric distanceMetric;
+
+	private final double balanceFactor;
+
+	private final ForkJoinPool pool;
+
+	private final ConcurrentMap<Long, Shard<T, O>> shards = new ConcurrentHashMap<>();
+
+	// The tile of every object, to find its shard by ID
+	private final ConcurrentMap<T, Long> tiles = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new, empty instance of ShardedKDTree, with tiles of 10 degrees.
+	 */
+	public ShardedKDTree() {
+		this(new Builder<>());
+	}
+
+	private ShardedKDTree(Builder<T, O> builder) {
+		this.tileSize = builder.tileSize;
+		this.rows = (int) Math.ceil(180 / this.tileSize);
+		this.columns = (int) Math.ceil(360 / this.tileSize);
+		this.distanceMetric = builder.distanceMetric;
+		this.balanceFactor = builder.balanceFactor;
+		this.pool = builder.pool;
+		if (builder.objects != null) {
+			// Bulk load every shard
+			Map<Long, List<KDTreeObject<T, O>>> tileObjects = new HashMap<>();
+			for (KDTreeObject<T, O> object : builder.objects) {
+				long tile = tile(object.getPoint());
+				if (object.getId() != null && this.tiles.putIfAbsent(object.getId(), tile) != null) {
+					throw new GeoAssistException("Duplicate object provided.");
+				}
+				tileObjects.computeIfAbsent(tile, key -> new ArrayList<>()).add(object);
+			}
+			tileObjects.forEach((tile, objects) -> this.shards.put(tile, newShard(objects)));
+		}
+	}
+
+	private Shard<T, O> newShard(Collection<KDTreeObject<T, O>> objects) {
+		return new Shard<>(new KDTree.Builder<T, O>()
+				.distanceMetric(this.distanceMetric)
+				.objects(objects)
+				.build());
+	}
+
+	private void written(Shard<T, O> shard, List<Shard<T, O>> rebuilds) {
+		// A shard is due to be rebuilt as a balanced copy, swapped in, once the writes since its last rebuild
+		// could have unbalanced it by the balance factor. It is rebuilt by the caller once the maps
+		// are no longer being computed, so that the writers of other IDs are not held back meanwhile.
+		int writes = shard.writes.incrementAndGet();
+		if (this.balanceFactor > 0 && writes > (1 - this.balanceFactor) * shard.rebuiltSize
+			&& shard.writes.compareAndSet(writes, 0)) {
+			rebuilds.add(shard);
+		}
+	}
+
+	private static <T, O> void rebuild(List<Shard<T, O>> rebuilds) {
+		for (Shard<T, O> shard : rebuilds) {
+			shard.balance();
+		}
+	}
+
+	private int row(double latitude) {
+		return Math.max(0, Math.min(this.rows - 1, (int) Math.floor((latitude + 90) / this.tileSize)));
+	}
+
+	private int column(double longitude) {
+		return Math.max(0, Math.min(this.columns - 1, (int) Math.floor((longitude + 180) / this.tileSize)));
+	}
+
+	private long tile(Point point) {
+		return (long) row(point.getLatitude()) * this.columns + column(point.getLongitude());
+	}
+
+	@Override
+	public void insert(KDTreeObject<T, O> kdTreeObject) {
+		T id = kdTreeObject.getId();
+		long tile = tile(kdTreeObject.getPoint());
+		List<Shard<T, O>> rebuilds = new ArrayList<>(1);
+		if (id == null) {
+			insert(tile, kdTreeObject, rebuilds);
+			rebuild(rebuilds);
+			return;
+		}
+		// The writes of an ID are serialized by computing its tile
+		this.tiles.compute(id, (key, currentTile) -> {
+			if (currentTile != null) {
+				throw new GeoAssistException("Duplicate object provided.");
+			}
+			insert(tile, kdTreeObject, rebuilds);
+			return tile;
+		});
+		rebuild(rebuilds);
+	}
+
+	private void insert(long tile, KDTreeObject<T, O> kdTreeObject, List<Shard<T, O>> rebuilds) {
+		// Inserted within the computation of the shard, so that it is not dropped meanwhile
+		Shard<T, O> shard = this.shards.compute(tile, (key, currentShard) -> {
+			Shard<T, O> tileShard = currentShard == null ? newShard(null) : currentShard;
+			tileShard.insert(kdTreeObject);
+			return tileShard;
+		});
+		written(shard, rebuilds);
+	}
+
+	private boolean delete(long tile, T id, List<Shard<T, O>> rebuilds) {
+		AtomicBoolean isDeleted = new AtomicBoolean();
+		Shard<T, O> shard = this.shards.computeIfPresent(tile, (key, currentShard) -> {
+			isDeleted.set(currentShard.delete(id));
+			// Drop the shard of a tile left empty
+			return currentShard.getSize() == 0 ? null : currentShard;
+		});
+		if (shard != null) {
+			written(shard, rebuilds);
+		}
+		return isDeleted.get();
+	}
+
+	private ConcurrentKDTree<T, O> shardOf(T id) {
+		Long tile = id == null ? null : this.tiles.get(id);
+		return tile == null ? null : this.shards.get(tile);
+	}
+
+	@Override
+	public KDTreeObject<T, O> getById(T id) {
+		ConcurrentKDTree<T, O> shard = shardOf(id);
+		return shard == null ? null : shard.getById(id);
+	}
+
+	@Override
+	public void update(T id, O data) {
+		Long tile = id == null ? null : this.tiles.computeIfPresent(id, (key, currentTile) -> {
+			this.shards.get(currentTile).update(id, data);
+			return currentTile;
+		});
+		if (tile == null) {
+			throw new GeoAssistException("No object found for provided ID");
+		}
+	}
+
+	/**
+	 * Moves the object with the provided ID to the provided point. An object moving to another tile
+	 * is deleted from the shard of its former tile and inserted in the shard of its new one,
+	 * while the other writes of its ID wait.
+	 *
+	 * @param id ID of the object that is desired to be moved.
+	 *
+	 * @param point the new location (latitude/longitude) coordinates of the object.
+	 *
+	 * @throws GeoAssistException is thrown an object with provided ID is not found.
+	 * @see KDTree#moveTo(Object, Point)
+	 */
+	public void moveTo(T id, Point point) {
+		if (id == null) {
+			throw new GeoAssistException("No object found for provided ID");
+		}
+		long newTile = tile(point);
+		List<Shard<T, O>> rebuilds = new ArrayList<>(2);
+		this.tiles.compute(id, (key, tile) -> {
+			if (tile == null) {
+				throw new GeoAssistException("No object found for provided ID");
+			}
+			Shard<T, O> shard = this.shards.get(tile);
+			if (newTile == tile) {
+				shard.moveTo(id, point);
+				written(shard, rebuilds);
+				return tile;
+			}
+			// The object itself is moved, as within a shard, so that the references to it stay current
+			KDTreeObject<T, O> kdTreeObject = shard.getById(id);
+			delete(tile, id, rebuilds);
+			kdTreeObject.setPoint(new Point.Builder()
+					.latitude(point.getLatitude())
+					.longitude(point.getLongitude())
+					.build());
+			insert(newTile, kdTreeObject, rebuilds);
+			return newTile;
+		});
+		rebuild(rebuilds);
+	}
+
+	@Override
+	public boolean delete(T id) {
+		if (id == null) {
+			return false;
+		}
+		AtomicBoolean isDeleted = new AtomicBoolean();
+		List<Shard<T, O>> rebuilds = new ArrayList<>(1);
+		this.tiles.computeIfPresent(id, (key, tile) -> {
+			isDeleted.set(delete(tile, id, rebuilds));
+			return null;
+		});
+		rebuild(rebuilds);
+		return isDeleted.get();
+	}
+
+	@Override
+	public int getSize() {
+		int size = 0;
+		for (ConcurrentKDTree<T, O> shard : this.shards.values()) {
+			size += shard.getSize();
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the number of shards, i.e. of tiles that hold objects.
+	 *
+	 * @return the number of shards.
+	 */
+	public int getShardCount() {
+		return this.shards.size();
+	}
+
+	/**
+	 * Returns the tiles of the shards.
+	 *
+	 * @return the bounding boxes of the tiles that hold a shard.
+	 */
+	public List<BoundingBox> getShardTiles() {
+		List<BoundingBox> tiles = new ArrayList<>();
+		for (long tile : this.shards.keySet()) {
+			double latitude = -90 + tile / this.columns * this.tileSize;
+			double longitude = -180 + tile % this.columns * this.tileSize;
+			tiles.add(new BoundingBox.Builder()
+					.lowerPoint(new Point.Builder()
+							.latitude(latitude)
+							.longitude(longitude)
+							.build())
+					.upperPoint(new Point.Builder()
+							.latitude(Math.min(90, latitude + this.tileSize))
+							.longitude(Math.min(180, longitude + this.tileSize))
+							.build())
+					.build());
+		}
+		return tiles;
+	}
+
+	// Finds the shards whose tiles are within the provided rows and columns
+	private List<ConcurrentKDTree<T, O>> shards(int fromRow, int toRow, int fromColumn, int toColumn) {
+		List<ConcurrentKDTree<T, O>> shards = new ArrayList<>();
+		// The columns wrap around the antimeridian when the first one follows the last one
+		int columnCount = fromColumn <= toColumn ? toColumn - fromColumn + 1 : this.columns - fromColumn + toColumn + 1;
+		if ((long) (toRow - fromRow + 1) * columnCount <= this.shards.size()) {
+			// Look the tiles up, as there are fewer of them than shards
+			for (int row = fromRow; row <= toRow; row++) {
+				for (int i = 0; i < columnCount; i++) {
+					Shard<T, O> shard = this.shards.get((long) row * this.columns + (fromColumn + i) % this.columns);
+					if (shard != null) {
+						shards.add(shard);
+					}
+				}
+			}
+			return shards;
+		}
+		for (Map.Entry<Long, Shard<T, O>> entry : this.shards.entrySet()) {
+			long row = entry.getKey() / this.columns;
+			long column = entry.getKey() % this.columns;
+			boolean isWithinColumns = fromColumn <= toColumn
+				? column >= fromColumn && column <= toColumn
+				: column >= fromColumn || column <= toColumn;
+			if (row >= fromRow && row <= toRow && isWithinColumns) {
+				shards.add(entry.getValue());
+			}
+		}
+		return shards;
+	}
+
+	private List<ConcurrentKDTree<T, O>> shards(BoundingBox boundingBox) {
+		int fromColumn = column(boundingBox.getLowerPoint().getLongitude());
+		int toColumn = column(boundingBox.getUpperPoint().getLongitude());
+		if (boundingBox.crossesAntimeridian() && fromColumn <= toColumn) {
+			// Both ends in the same column, so the bounding box reaches every column
+			fromColumn = 0;
+			toColumn = this.columns - 1;
+		}
+		return shards(row(boundingBox.getLowerPoint().getLatitude()), row(boundingBox.getUpperPoint().getLatitude()),
+			fromColumn, toColumn);
+	}
+
+	private List<ConcurrentKDTree<T, O>> shards(Point point, double distance) {
+		if (distance < 0) {
+			return new ArrayList<>();
+		}
+		// The window spans every longitude when the circle reaches a pole,
+		// and crosses the antimeridian along with the circle
+		return shards(new DistanceQuery(point, distance, this.distanceMetric).getWindow());
+	}
+
+	// Searches the provided shards, concurrently on the pool if there is one and more than a shard,
+	// and gathers their results
+	private List<KDTreeObject<T, O>> search(List<ConcurrentKDTree<T, O>> shards,
+		Function<ConcurrentKDTree<T, O>, List<KDTreeObject<T, O>>> search) {
+		if (shards.size() == 1) {
+			return search.apply(shards.get(0));
+		}
+		List<KDTreeObject<T, O>> result = new ArrayList<>();
+		if (this.pool == null) {
+			for (ConcurrentKDTree<T, O> shard : shards) {
+				result.addAll(search.apply(shard));
+			}
+			return result;
+		}
+		List<ForkJoinTask<List<KDTreeObject<T, O>>>> tasks = new ArrayList<>(shards.size());
+		for (ConcurrentKDTree<T, O> shard : shards) {
+			tasks.add(this.pool.submit(() -> search.apply(shard)));
+		}
+		for (ForkJoinTask<List<KDTreeObject<T, O>>> task : tasks) {
+			result.addAll(task.join());
+		}
+		return result;
+	}
+
+	@Override
+	public List<KDTreeObject<T, O>> findNearestNeighbor(Point point, double distance) {
+		return search(shards(point, distance), shard -> shard.findNearestNeighbor(point, distance));
+	}
+
+	@Override
+	public boolean findNearestNeighbor(Point point, double distance, KDTreeVisitor<T, O> visitor) {
+		for (ConcurrentKDTree<T, O> shard : shards(point, distance)) {
+			if (!shard.findNearestNeighbor(point, distance, visitor)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public KDTreeNearestNeighbor<T, O> findNearest(Point point, double distance) {
+		// Search the shard of the point first, and the other ones within the nearest distance found so far
+		KDTreeNearestNeighbor<T, O> nearestNeighbor = new KDTreeNearestNeighbor<>();
+		ConcurrentKDTree<T, O> ownShard = this.shards.get(tile(point));
+		if (ownShard != null && distance >= 0) {
+			nearestNeighbor = ownShard.findNearest(point, distance);
+		}
+		double nearestDistance = nearestNeighbor.getDistance() == null ? distance : nearestNeighbor.getDistance();
+		for (ConcurrentKDTree<T, O> shard : shards(point, nearestDistance)) {
+			if (shard == ownShard) {
+				continue;
+			}
+			KDTreeNearestNeighbor<T, O> shardNearestNeighbor = shard.findNearest(point, nearestDistance);
+			if (shardNearestNeighbor.getKdTreeObject() != null && (nearestNeighbor.getDistance() == null
+				|| shardNearestNeighbor.getDistance() < nearestNeighbor.getDistance())) {
+				nearestNeighbor = shardNearestNeighbor;
+				nearestDistance = shardNearestNeighbor.getDistance();
+			}
+		}
+		return nearestNeighbor;
+	}
+
+	@Override
+	public List<KDTreeObject<T, O>> findInRange(BoundingBox boundingBox) {
+		return search(shards(boundingBox), shard -> shard.findInRange(boundingBox));
+	}
+
+	@Override
+	public boolean findInRange(BoundingBox boundingBox, KDTreeVisitor<T, O> visitor) {
+		for (ConcurrentKDTree<T, O> shard : shards(boundingBox)) {
+			if (!shard.findInRange(boundingBox, visitor)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Rebalances every shard, one after the other, so that the writers of a shard are only held back
+	 * while that shard is rebuilt.
+	 *
+	 * @see ConcurrentKDTree#balance()
+	 */
+	public void balance() {
+		this.shards.values().forEach(ConcurrentKDTree::balance);
+	}
+
+	/**
+	 * Rebalances the shard of the tile of the provided point, if there is one.
+	 *
+	 * @param point a point of the tile of the shard.
+	 * @see ConcurrentKDTree#balance()
+	 */
+	public void balance(Point point) {
+		ConcurrentKDTree<T, O> shard = this.shards.get(tile(point));
+		if (shard != null) {
+			shard.balance();
+		}
+	}
+
+	/**
+	 * Writes the shard of the tile of the provided point to the provided stream,
+	 * in the compact binary format of the KDTree.
+	 *
+	 * @param point a point of the tile of the shard.
+	 * @param out the stream to write the shard to, which is flushed but not closed.
+	 * @param idSerializer the serializer of the IDs of the objects.
+	 * @param dataSerializer the serializer of the custom objects.
+	 * @throws IOException is thrown when the shard can not be written.
+	 * @throws GeoAssistException is thrown when the tile of the point holds no shard.
+	 * @see KDTree#writeTo(OutputStream, KDTreeSerializer, KDTreeSerializer)
+	 */
+	public void writeShard(Point point, OutputStream out, KDTreeSerializer<T> idSerializer,
+		KDTreeSerializer<O> dataSerializer) throws IOException {
+		ConcurrentKDTree<T, O> shard = this.shards.get(tile(point));
+		if (shard == null) {
+			throw new GeoAssistException("No shard found for provided point");
+		}
+		shard.writeTo(out, idSerializer, dataSerializer);
+	}
+
+	/**
+	 * Reads a shard written by {@link #writeShard(Point, OutputStream, KDTreeSerializer, KDTreeSerializer)},
+	 * possibly by another ShardedKDTree with the same tile size, and installs it as the shard of its tile,
+	 * replacing the current one, if any. The shard is rebuilt balanced, with the configuration of this tree.
+	 *
+	 * @param in the stream to read the shard from, which is buffered, so it may be read past the shard,
+	 * and is not closed.
+	 * @param idSerializer the serializer of the IDs of the objects.
+	 * @param dataSerializer the serializer of the custom objects.
+	 * @throws IOException is thrown when the shard can not be read.
+	 * @throws GeoAssistException is thrown when the objects of the shard are not all in the same tile,
+	 * or one of their IDs is held by another shard.
+	 * @see KDTree#readFrom(InputStream, KDTreeSerializer, KDTreeSerializer)
+	 */
+	public synchronized void readShard(InputStream in, KDTreeSerializer<T> idSerializer,
+		KDTreeSerializer<O> dataSerializer) throws IOException {
+		List<KDTreeObject<T, O>> objects = KDTree.readFrom(in, idSerializer, dataSerializer)
+			.findInRange(everywhere());
+		if (objects.isEmpty()) {
+			return;
+		}
+		long tile = tile(objects.get(0).getPoint());
+		for (KDTreeObject<T, O> object : objects) {
+			if (tile(object.getPoint()) != tile) {
+				throw new GeoAssistException("A shard must hold the objects of a single tile");
+			}
+		}
+
+		// Claim the IDs of the shard for its tile, each within the computation of its tile,
+		// as the other writes of the ID are, and release the claimed ones if an ID is held by another tile
+		Set<T> ids = new HashSet<>();
+		List<T> claimedIds = new ArrayList<>();
+		try {
+			for (KDTreeObject<T, O> object : objects) {
+				T id = object.getId();
+				if (id == null) {
+					continue;
+				}
+				ids.add(id);
+				this.tiles.compute(id, (key, currentTile) -> {
+					if (currentTile != null && currentTile != tile) {
+						throw new GeoAssistException("Duplicate object provided.");
+					}
+					if (currentTile == null) {
+						claimedIds.add(id);
+					}
+					return tile;
+				});
+			}
+		}
+		catch (GeoAssistException ex) {
+			for (T id : claimedIds) {
+				this.tiles.remove(id, tile);
+			}
+			throw ex;
+		}
+
+		Shard<T, O> previousShard = this.shards.put(tile, newShard(objects));
+		if (previousShard != null) {
+			// Only the IDs still in the tile are released, not the ones moved to another tile meanwhile
+			for (KDTreeObject<T, O> object : previousShard.findInRange(everywhere())) {
+				if (object.getId() != null && !ids.contains(object.getId())) {
+					this.tiles.remove(object.getId(), tile);
+				}
+			}
+		}
+	}
+
+	private static BoundingBox everywhere() {
+		return new BoundingBox.Builder()
+				.lowerPoint(new Point.Builder()
+						.latitude(-90)
+						.longitude(-180)
+						.build())
+				.upperPoint(new Point.Builder()
+						.latitude(90)
+						.longitude(180)
+						.build())
+				.build();
+	}
+
+	/**
+	 * A shard, which counts the writes since it was last rebuilt.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 *
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 *
+	 * @author The Geeky Asian
+	 */
+	private static final class Shard<T, O> extends ConcurrentKDTree<T, O> {
+
+		private final AtomicInteger writes = new AtomicInteger();
+
+		private volatile int rebuiltSize;
+
+		private Shard(KDTree<T, O> kdTree) {
+			super(kdTree);
+			this.rebuiltSize = kdTree.getSize();
+		}
+
+		@Override
+		public void balance() {
+			super.balance();
+			this.writes.set(0);
+			this.rebuiltSize = getSize();
+		}
+	}
+
+	/**
+	 * Builder to create a configured ShardedKDTree.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 *
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 *
+	 * @author The Geeky Asian
+	 */
+	public static class Builder<T, O> {
+		private double tileSize = 10;
+
+		private DistanceMetric distanceMetric = DistanceMetric.HAVERSINE;
+
+		private double balanceFactor;
+
+		private ForkJoinPool pool;
+
+		private Collection<KDTreeObject<T, O>> objects;
+
+		/**
+		 * Sets the size of the tiles, in degrees of latitude and longitude. Every tile holding objects
+		 * gets a shard: smaller tiles spread the writes over more shards, but searches reach more of them.
+		 *
+		 * @param tileSize the size of the tiles, in degrees.
+		 * @return the builder.
+		 */
+		public Builder<T, O> tileSize(double tileSize) {
+			this.tileSize = tileSize;
+			return this;
+		}
+
+		/**
+		 * Sets the metric used to compute distances in the nearest neighbor searches of every shard.
+		 *
+		 * @param distanceMetric the distance metric.
+		 * @return the builder.
+		 * @see KDTree.Builder#distanceMetric(DistanceMetric)
+		 */
+		public Builder<T, O> distanceMetric(DistanceMetric distanceMetric) {
+			this.distanceMetric = distanceMetric;
+			return this;
+		}
+
+		/**
+		 * <p>
+		 *     Sets the balance factor of the shards: a shard is rebuilt as a balanced copy, swapped in as with
+		 *     {@link ConcurrentKDTree#balance()}, once the writes since its last rebuild reach
+		 *     (1 - balanceFactor) of its size then. Rebuilding a whole shard costs O(S log S)
+		 *     for a shard of size S, which amortizes to O(log S) per write.
+		 * </p>
+		 *
+		 * <p>
+		 *     The shards are not rebuilt in place, by subtrees, as a KDTree with a balance factor is,
+		 *     so that their searches never wait on a rebuild.
+		 * </p>
+		 *
+		 * @param balanceFactor the balance factor, between 0.5 and 1, or 0 to disable it.
+		 * @return the builder.
+		 * @see KDTree.Builder#balanceFactor(double)
+		 */
+		public Builder<T, O> balanceFactor(double balanceFactor) {
+			this.balanceFactor = balanceFactor;
+			return this;
+		}
+
+		/**
+		 * Sets the pool on which the searches reaching several shards search them concurrently,
+		 * or null to search them one after the other on the calling thread (default).
+		 *
+		 * @param pool the pool to search the shards on.
+		 * @return the builder.
+		 */
+		public Builder<T, O> pool(ForkJoinPool pool) {
+			this.pool = pool;
+			return this;
+		}
+
+		/**
+		 * Sets the objects to be bulk loaded in the shards.
+		 *
+		 * @param objects KDTreeObjects to be loaded in the tree.
+		 * @return the builder.
+		 */
+		public Builder<T, O> objects(Collection<KDTreeObject<T, O>> objects) {
+			this.objects = objects;
+			return this;
+		}
+
+		/**
+		 * Creates the ShardedKDTree.
+		 *
+		 * @return a new ShardedKDTree, holding the provided objects, if any.
+		 *
+		 * @throws GeoAssistException is thrown when the tile size is not positive or larger than 180 degrees,
+		 * the distance metric is null, the balance factor is invalid or a duplicate ID is provided.
+		 */
+		public ShardedKDTree<T, O> build() {
+			if (!(this.tileSize > 0 && this.tileSize <= 180)) {
+				throw new GeoAssistException("tileSize must be greater than 0 and at most 180");
+			}
+			// Let the KDTree validate the configuration of the shards
+			new KDTree.Builder<T, O>()
+					.distanceMetric(this.distanceMetric)
+					.balanceFactor(this.balanceFactor)
+					.build();
+			return new ShardedKDTree<>(this);
+		}
+	}
+}
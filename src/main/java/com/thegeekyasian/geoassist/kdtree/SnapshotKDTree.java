@@ -0,0 +1,422 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * <p>
+ *     A thread-safe KDTree whose searches are never held back, not even while it is rebalanced.
+ * </p>
+ *
+ * <p>
+ *     Searches run against an immutable snapshot: a balanced KDTree, along with a small delta holding
+ *     the writes applied since the tree was built. Every write publishes a new snapshot
+ *     through an atomic reference, so a search sees either all or none of a write,
+ *     and keeps seeing the same objects until it completes.
+ * </p>
+ *
+ * <p>
+ *     As the delta is scanned by every search, it is merged into a new balanced tree
+ *     once it holds more than {@link Builder#maxDeltaSize(int)} writes, or when {@link #balance()} is called.
+ *     The new tree is built in the background, while searches keep running against the current snapshot
+ *     and writes keep being applied to it. Once built, the writes applied in the meantime are moved onto the
+ *     new tree and the new snapshot is swapped in, without ever blocking a search.
+ * </p>
+ *
+ * <p>
+ *     Writes are serialized, and copy the delta, so this tree suits read-heavy workloads.
+ *     Use a {@link ConcurrentKDTree} for write-heavy ones.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the KDTreeObjects.
+ *
+ * @param <O> the type of the custom object of the KDTreeObjects.
+ *
+ * @author The Geeky Asian
+ */
+public class SnapshotKDTree<T, O> implements SpatialIndex<T, O> {
+
+	private final AtomicReference<KDTreeSnapshot<T, O>> snapshot;
+
+	private final ReentrantLock writerLock = new ReentrantLock();
+
+	private final int maxDeltaSize;
+
+	private final Executor executor;
+
+	// The rebuild in progress, if any, guarded by the writer lock
+	private CompletableFuture<Void> rebuild;
+
+	/**
+	 * Creates a new, empty instance of SnapshotKDTree.
+	 */
+	public SnapshotKDTree() {
+		this(new Builder<>());
+	}
+
+	private SnapshotKDTree(Builder<T, O> builder) {
+		this.snapshot = new AtomicReference<>(new KDTreeSnapshot<>(builder.kdTree));
+		this.maxDeltaSize = builder.maxDeltaSize;
+		this.executor = builder.executor;
+	}
+
+	/**
+	 * Inserts the provided KDTreeObject on the tree.
+	 *
+	 * @param kdTreeObject KDTreeObject holds the custom object,
+	 * identifier along with the Point (latitude/longitude coordinates) of the object.
+	 *
+	 * @throws GeoAssistException is thrown when the ID is null or a duplicate ID is provided.
+	 * @see KDTree#insert(KDTreeObject)
+	 */
+	@Override
+	public void insert(KDTreeObject<T, O> kdTreeObject) {
+		if (kdTreeObject.getId() == null) {
+			throw new GeoAssistException("id can not be null");
+		}
+		this.writerLock.lock();
+		try {
+			KDTreeSnapshot<T, O> snapshot = this.snapshot.get();
+			if (snapshot.getById(kdTreeObject.getId()) != null) {
+				throw new GeoAssistException("Duplicate object provided.");
+			}
+			publish(snapshot.put(kdTreeObject));
+		}
+		finally {
+			this.writerLock.unlock();
+		}
+	}
+
+	/**
+	 * Deletes the object with the provided custom ID.
+	 *
+	 * @param id ID of the custom object that is desired to be deleted.
+	 *
+	 * @return Returns a boolean flag, `true` if the object is successfully deleted
+	 * and `false` otherwise.
+	 * @see KDTree#delete(Object)
+	 */
+	@Override
+	public boolean delete(T id) {
+		this.writerLock.lock();
+		try {
+			KDTreeSnapshot<T, O> snapshot = this.snapshot.get();
+			if (snapshot.getById(id) == null) {
+				return false;
+			}
+			publish(snapshot.remove(id));
+			return true;
+		}
+		finally {
+			this.writerLock.unlock();
+		}
+	}
+
+	/**
+	 * Updates the custom data by replacing it in the KDTreeObject with the provided data.
+	 * As the KDTreeObject is updated in place, the update is seen by the searches in progress.
+	 *
+	 * @param id ID of the custom object that is desired to be updated.
+	 *
+	 * @param data Custom data to be updated in the KDTreeObject of provided ID.
+	 *
+	 * @throws GeoAssistException is thrown an object with provided ID is not found.
+	 * @see KDTree#update(Object, Object)
+	 */
+	@Override
+	public void update(T id, O data) {
+		KDTreeObject<T, O> object = getById(id);
+		if (object == null) {
+			throw new GeoAssistException("No object found for provided ID");
+		}
+		object.setData(data);
+	}
+
+	/**
+	 * Find the KDTreeObject for the provided ID.
+	 *
+	 * @param id ID of the KDTreeObject that you are looking.
+	 *
+	 * @return The method returns the KDTreeObject for the provided ID.
+	 * If not found, the method returns `null` otherwise.
+	 * @see KDTree#getById(Object)
+	 */
+	@Override
+	public KDTreeObject<T, O> getById(T id) {
+		return this.snapshot.get().getById(id);
+	}
+
+	/**
+	 * Returns the size i.e. number of objects present in the tree at a provided moment.
+	 *
+	 * @return an integer value of size is returned.
+	 * @see KDTree#getSize()
+	 */
+	@Override
+	public int getSize() {
+		return this.snapshot.get().getSize();
+	}
+
+	/**
+	 * Finds the nearest neighbor to a given point
+	 * with the provided distance in the k-d tree.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return Returns the list of KDTreeObjects
+	 * that are nearby the provided point for the provided distance.
+	 * @see KDTree#findNearestNeighbor(Point, double)
+	 */
+	@Override
+	public List<KDTreeObject<T, O>> findNearestNeighbor(Point point, double distance) {
+		List<KDTreeObject<T, O>> closestPoints = new ArrayList<>();
+		findNearestNeighbor(point, distance, closestPoints::add);
+		return closestPoints;
+	}
+
+	/**
+	 * Finds the nearest neighbors to a given point with the provided distance in the k-d tree,
+	 * and passes them to the provided visitor as they are found.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @param visitor Visitor of the nearest neighbors, which can stop the search by returning false.
+	 *
+	 * @return true if all the nearest neighbors were visited, false if the visitor stopped the search.
+	 * @see KDTree#findNearestNeighbor(Point, double, KDTreeVisitor)
+	 */
+	@Override
+	public boolean findNearestNeighbor(Point point, double distance, KDTreeVisitor<T, O> visitor) {
+		return this.snapshot.get().findNearestNeighbor(point, distance, visitor);
+	}
+
+	/**
+	 * Finds a single nearest-most neighbor to a given point
+	 * with the provided distance in the k-d tree.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return the nearest neighbor to the given point within the specified distance.
+	 * @see KDTree#findNearest(Point, double)
+	 */
+	@Override
+	public KDTreeNearestNeighbor<T, O> findNearest(Point point, double distance) {
+		List<KDTreeNearestNeighbor<T, O>> nearestNeighbors = findKNearest(point, 1, distance);
+		return nearestNeighbors.isEmpty() ? new KDTreeNearestNeighbor<>() : nearestNeighbors.get(0);
+	}
+
+	/**
+	 * Finds the k nearest neighbors to a given point
+	 * within the provided distance in the k-d tree.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param k Maximum number of nearest neighbors to return.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return the k (or fewer) nearest neighbors within the distance,
+	 * along with their distance, ordered from the nearest to the farthest.
+	 *
+	 * @throws GeoAssistException is thrown when k is lower than 1.
+	 * @see KDTree#findKNearest(Point, int, double)
+	 */
+	public List<KDTreeNearestNeighbor<T, O>> findKNearest(Point point, int k, double distance) {
+		return this.snapshot.get().findKNearest(point, k, distance);
+	}
+
+	/**
+	 * Searches the k-d tree for all nodes whose
+	 * coordinates fall within the given bounding box.
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @return a list of KDTreeObject whose coordinates fall within the bounding box
+	 * @see KDTree#findInRange(BoundingBox)
+	 */
+	@Override
+	public List<KDTreeObject<T, O>> findInRange(BoundingBox boundingBox) {
+		List<KDTreeObject<T, O>> result = new ArrayList<>();
+		findInRange(boundingBox, result::add);
+		return result;
+	}
+
+	/**
+	 * Searches the k-d tree for all nodes whose coordinates fall within the given bounding box,
+	 * and passes their objects to the provided visitor as they are found.
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @param visitor visitor of the KDTreeObjects within the bounding box,
+	 * which can stop the search by returning false
+	 * @return true if all the objects within the bounding box were visited,
+	 * false if the visitor stopped the search
+	 * @see KDTree#findInRange(BoundingBox, KDTreeVisitor)
+	 */
+	@Override
+	public boolean findInRange(BoundingBox boundingBox, KDTreeVisitor<T, O> visitor) {
+		return this.snapshot.get().findInRange(boundingBox, visitor);
+	}
+
+	/**
+	 * Returns a lazy stream of the nearest neighbors to a given point with the provided distance in the k-d tree,
+	 * found as the stream is consumed. The stream keeps searching the snapshot it started with,
+	 * so it can be consumed at any pace, while the tree keeps being written to.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return a stream of the KDTreeObjects that are nearby the provided point for the provided distance.
+	 * @see KDTree#streamNearestNeighbor(Point, double)
+	 */
+	public Stream<KDTreeObject<T, O>> streamNearestNeighbor(Point point, double distance) {
+		return this.snapshot.get().streamNearestNeighbor(point, distance);
+	}
+
+	/**
+	 * Returns a lazy stream of the objects of the k-d tree whose coordinates fall within the given bounding box,
+	 * found as the stream is consumed. The stream keeps searching the snapshot it started with,
+	 * so it can be consumed at any pace, while the tree keeps being written to.
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @return a stream of the KDTreeObjects whose coordinates fall within the bounding box
+	 * @see KDTree#streamInRange(BoundingBox)
+	 */
+	public Stream<KDTreeObject<T, O>> streamInRange(BoundingBox boundingBox) {
+		return this.snapshot.get().streamInRange(boundingBox);
+	}
+
+	/**
+	 * Starts merging the writes applied so far into a new balanced tree, on the executor of the tree.
+	 * Searches and writes are not held back while the tree is rebuilt. If a rebuild is already in progress,
+	 * no other rebuild is started.
+	 *
+	 * @return a future completed once the new tree is swapped in.
+	 * @see Builder#executor(Executor)
+	 */
+	public CompletableFuture<Void> balance() {
+		this.writerLock.lock();
+		try {
+			if (this.rebuild == null || this.rebuild.isDone()) {
+				KDTreeSnapshot<T, O> snapshot = this.snapshot.get();
+				this.rebuild = CompletableFuture.supplyAsync(snapshot::rebuild, this.executor)
+					.thenAccept(kdTree -> swap(snapshot, kdTree));
+			}
+			return this.rebuild;
+		}
+		finally {
+			this.writerLock.unlock();
+		}
+	}
+
+	private void swap(KDTreeSnapshot<T, O> snapshot, KDTree<T, O> kdTree) {
+		this.writerLock.lock();
+		try {
+			this.snapshot.set(this.snapshot.get().rebase(snapshot, kdTree));
+		}
+		finally {
+			this.writerLock.unlock();
+		}
+	}
+
+	private void publish(KDTreeSnapshot<T, O> snapshot) {
+		this.snapshot.set(snapshot);
+		if (this.maxDeltaSize > 0 && snapshot.getDeltaSize() > this.maxDeltaSize) {
+			balance();
+		}
+	}
+
+	/**
+	 * Builder to create a configured SnapshotKDTree.
+	 *
+	 * @param <T> the type of the identifier of the KDTreeObjects.
+	 *
+	 * @param <O> the type of the custom object of the KDTreeObjects.
+	 *
+	 * @author The Geeky Asian
+	 */
+	public static class Builder<T, O> {
+		private KDTree<T, O> kdTree = new KDTree<>();
+
+		private int maxDeltaSize = 1024;
+
+		private Executor executor = ForkJoinPool.commonPool();
+
+		/**
+		 * Sets the initial tree, e.g. configured and bulk loaded with a {@link KDTree.Builder}.
+		 * The configuration of the tree is kept when it is rebuilt.
+		 * The provided tree must not be modified afterwards.
+		 *
+		 * @param kdTree the initial tree.
+		 * @return the builder.
+		 */
+		public Builder<T, O> kdTree(KDTree<T, O> kdTree) {
+			this.kdTree = kdTree;
+			return this;
+		}
+
+		/**
+		 * Sets the number of writes held in the delta that triggers a rebuild of the tree.
+		 *
+		 * @param maxDeltaSize maximum number of writes held in the delta,
+		 * or 0 to only rebuild the tree on {@link SnapshotKDTree#balance()}. Defaults to 1024.
+		 * @return the builder.
+		 */
+		public Builder<T, O> maxDeltaSize(int maxDeltaSize) {
+			this.maxDeltaSize = maxDeltaSize;
+			return this;
+		}
+
+		/**
+		 * Sets the executor the tree is rebuilt on.
+		 *
+		 * @param executor the executor, which defaults to the common ForkJoinPool.
+		 * @return the builder.
+		 */
+		public Builder<T, O> executor(Executor executor) {
+			this.executor = executor;
+			return this;
+		}
+
+		/**
+		 * Creates the SnapshotKDTree.
+		 *
+		 * @return a new SnapshotKDTree.
+		 *
+		 * @throws GeoAssistException is thrown when the tree or the executor is null,
+		 * or the maximum delta size is negative.
+		 */
+		public SnapshotKDTree<T, O> build() {
+			if (this.kdTree == null) {
+				throw new GeoAssistException("kdTree can not be null");
+			}
+			if (this.maxDeltaSize < 0) {
+				throw new GeoAssistException("maxDeltaSize can not be negative");
+			}
+			if (this.executor == null) {
+				throw new GeoAssistException("executor can not be null");
+			}
+			return new SnapshotKDTree<>(this);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.List;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * <p>
+ *     A spatial index of KDTreeObjects, searched by distance around a point or by bounding box.
+ * </p>
+ *
+ * <p>
+ *     The {@link KDTree}, its {@link ConcurrentKDTree} and {@link SnapshotKDTree} wrappers, the
+ *     {@link ShardedKDTree} and the {@code GridIndex} implement it, so that the backend of an index can be picked by configuration,
+ *     and every backend benchmarked against the same datasets.
+ * </p>
+ *
+ * @param <T>
+ *     describes the identifier of the K-d Tree Object,
+ *     that is being inserted in the index. For example ID or UUID of the Object.
+ *
+ * @param <O>
+ *     describes the object that is inserted in the index.
+ *     For example Vendor, Restaurant, Franchise, etc.
+ *
+ * @author The Geeky Asian
+ */
+public interface SpatialIndex<T, O> {
+
+	/**
+	 * Inserts the provided KDTreeObject in the index.
+	 *
+	 * @param kdTreeObject KDTreeObject holds the custom object,
+	 * identifier along with the Point (latitude/longitude coordinates) of the object.
+	 *
+	 * @throws GeoAssistException is thrown when a duplicate ID is provided.
+	 */
+	void insert(KDTreeObject<T, O> kdTreeObject);
+
+	/**
+	 * Find the KDTreeObject for the provided ID.
+	 *
+	 * @param id ID of the KDTreeObject that you are looking.
+	 *
+	 * @return The method returns the KDTreeObject for the provided ID.
+	 * If not found, the method returns `null` otherwise.
+	 */
+	KDTreeObject<T, O> getById(T id);
+
+	/**
+	 * Updates the custom data by replacing it in the KDTreeObject with the provided data.
+	 *
+	 * @param id ID of the custom object that is desired to be updated.
+	 *
+	 * @param data Custom data to be updated in the KDTreeObject of provided ID.
+	 *
+	 * @throws GeoAssistException is thrown an object with provided ID is not found.
+	 */
+	void update(T id, O data);
+
+	/**
+	 * Deletes the object with the provided ID from the index.
+	 *
+	 * @param id ID of the object that is desired to be deleted.
+	 *
+	 * @return true if the object was deleted, false if no object with the provided ID was found.
+	 */
+	boolean delete(T id);
+
+	/**
+	 * Returns the number of objects in the index.
+	 *
+	 * @return the number of objects.
+	 */
+	int getSize();
+
+	/**
+	 * Finds the nearest neighbors to a given point with the provided distance in the index.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @return Returns the list of KDTreeObjects
+	 * that are nearby the provided point for the provided distance.
+	 */
+	List<KDTreeObject<T, O>> findNearestNeighbor(Point point, double distance);
+
+	/**
+	 * Finds the nearest neighbors to a given point with the provided distance in the index,
+	 * and passes them to the provided visitor as they are found, instead of collecting them in a new list.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbors for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbors in.
+	 *
+	 * @param visitor Visitor of the nearest neighbors, which can stop the search by returning false.
+	 *
+	 * @return true if all the nearest neighbors were visited, false if the visitor stopped the search.
+	 */
+	boolean findNearestNeighbor(Point point, double distance, KDTreeVisitor<T, O> visitor);
+
+	/**
+	 * Finds a single nearest-most neighbor to a given point with the provided distance in the index.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest neighbor for.
+	 *
+	 * @param distance Maximum distance to find the nearest neighbor in.
+	 *
+	 * @return the nearest neighbor to the given point within the specified distance,
+	 * holding no object if there is none.
+	 */
+	KDTreeNearestNeighbor<T, O> findNearest(Point point, double distance);
+
+	/**
+	 * Searches the index for all objects whose coordinates fall within the given bounding box.
+	 * The bounding box crosses the antimeridian when its lower point is east of its upper point.
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @return a list of KDTreeObject whose coordinates fall within the bounding box
+	 */
+	List<KDTreeObject<T, O>> findInRange(BoundingBox boundingBox);
+
+	/**
+	 * Searches the index for all objects whose coordinates fall within the given bounding box,
+	 * and passes their objects to the provided visitor as they are found.
+	 * The bounding box crosses the antimeridian when its lower point is east of its upper point.
+	 *
+	 * @param boundingBox the bounding box that defines the range to search within
+	 * @param visitor visitor of the KDTreeObjects within the bounding box,
+	 * which can stop the search by returning false
+	 * @return true if all the objects within the bounding box were visited,
+	 * false if the visitor stopped the search
+	 */
+	boolean findInRange(BoundingBox boundingBox, KDTreeVisitor<T, O> visitor);
+}
@@ -5,6 +5,8 @@ import com.thegeekyasian.geoassist.core.GeoAssistException;
 /**
  * The BoundingBox class represents a rectangular region in 2D space.
  * It is defined by a lower-left and an upper-right point.
+ * A lower-left point east of the upper-right one, e.g. longitudes from 170 to -170,
+ * defines a region crossing the antimeridian.
  *
  * @author The Geeky Asian
  */
@@ -38,6 +40,60 @@ public class BoundingBox {
 		this.upperPoint = upperPoint;
 	}
 
+	/**
+	 * Checks whether the bounding box crosses the antimeridian, i.e. its lower-left point is east of its upper-right one.
+	 *
+	 * @return true if the bounding box crosses the antimeridian.
+	 */
+	public boolean crossesAntimeridian() {
+		return this.lowerPoint.getLongitude() > this.upperPoint.getLongitude();
+	}
+
+	/**
+	 * Checks whether the provided coordinates are within the bounding box, including its edges.
+	 *
+	 * @param latitude the latitude of the point.
+	 * @param longitude the longitude of the point.
+	 * @return true if the point is within the bounding box.
+	 */
+	public boolean contains(double latitude, double longitude) {
+		if (latitude < this.lowerPoint.getLatitude() || latitude > this.upperPoint.getLatitude()) {
+			return false;
+		}
+		if (crossesAntimeridian()) {
+			return longitude >= this.lowerPoint.getLongitude() || longitude <= this.upperPoint.getLongitude();
+		}
+		return longitude >= this.lowerPoint.getLongitude() && longitude <= this.upperPoint.getLongitude();
+	}
+
+	/**
+	 * Splits the bounding box at the antimeridian, into the parts east and west of it.
+	 *
+	 * @return the part up to the 180th meridian and the part from the -180th meridian
+	 * if the bounding box crosses the antimeridian, the bounding box itself otherwise.
+	 */
+	public BoundingBox[] splitAtAntimeridian() {
+		if (!crossesAntimeridian()) {
+			return new BoundingBox[] {this};
+		}
+		return new BoundingBox[] {
+			new Builder()
+				.lowerPoint(this.lowerPoint)
+				.upperPoint(new Point.Builder()
+					.latitude(this.upperPoint.getLatitude())
+					.longitude(180)
+					.build())
+				.build(),
+			new Builder()
+				.lowerPoint(new Point.Builder()
+					.latitude(this.lowerPoint.getLatitude())
+					.longitude(-180)
+					.build())
+				.upperPoint(this.upperPoint)
+				.build()
+		};
+	}
+
 	public static class Builder {
 		private Point lowerPoint;
 
@@ -0,0 +1,619 @@
+package com.thegeekyasian.geoassist.rtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.DistanceMetric;
+import com.thegeekyasian.geoassist.kdtree.DistanceQuery;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+
+/**
+ * <p>
+ *     An immutable R-Tree of rectangles, e.g. delivery zones, store catchments or geofences,
+ *     searched by the rectangles intersecting or containing a bounding box or a point,
+ *     or by the rectangle nearest to a point.
+ * </p>
+ *
+ * <p>
+ *     The tree is bulk loaded with Sort-Tile-Recursive (STR) packing: the rectangles are sorted by the longitude
+ *     of their centers into vertical slices, each slice is sorted by the latitude of their centers, and runs of
+ *     {@link Builder#nodeCapacity(int)} rectangles are grouped into the leaves. The leaves are packed the same way
+ *     into their parents, up to the root. Every node is full but the last one of its level, and the nodes of
+ *     a level barely overlap, so a search only descends into the few nodes whose rectangles it reaches.
+ * </p>
+ *
+ * <p>
+ *     A rectangle whose lower longitude exceeds its upper one crosses the antimeridian, e.g. a zone around Fiji
+ *     from 178 to -178 degrees. It is held as a single rectangle, compared on either side of the antimeridian,
+ *     and the nodes above it span every longitude.
+ * </p>
+ *
+ * <p>
+ *     The rectangles of the objects and of the nodes are stored in primitive arrays, the objects first
+ *     and then the nodes, level by level, with the children of every node next to each other.
+ *     The searches compare the rectangles straight from the arrays. The rectangles are copied when the tree is
+ *     built, so modifying the bounding box of an object has no effect on the tree. Only the custom objects
+ *     can be updated; build a new tree to add or remove rectangles.
+ * </p>
+ *
+ * @param <T>
+ *     describes the identifier of the R-Tree Object,
+ *     that is being loaded in the tree. For example ID or UUID of the Object.
+ *
+ * @param <O>
+ *     describes the object that is loaded in the tree.
+ *     For example Zone, Catchment, Geofence, etc.
+ *
+ * @author The Geeky Asian
+ */
+public final class RTree<T, O> {
+
+	private final int nodeCapacity;
+
+	private final DistanceMetric distanceMetric;
+
+	private final double[] minLatitudes;
+
+	private final double[] minLongitudes;
+
+	private final double[] maxLatitudes;
+
+	private final double[] maxLongitudes;
+
+	// The range of the children of every node, indexed from the first node
+	private final int[] firstChildren;
+
+	private final int[] lastChildren;
+
+	private final RTreeObject<T, O>[] objects;
+
+	private final Map<T, Integer> indexes = new HashMap<>();
+
+	private final int root;
+
+	private final int stackCapacity;
+
+	@SuppressWarnings("unchecked")
+	private RTree(Builder<T, O> builder) {
+		this.nodeCapacity = builder.nodeCapacity;
+		this.distanceMetric = builder.distanceMetric;
+		Collection<RTreeObject<T, O>> input = builder.objects == null
+			? Collections.emptyList() : builder.objects;
+		int size = input.size();
+
+		int nodes = 0;
+		int levels = 0;
+		for (int count = size; count > 0 && (levels == 0 || count > 1); levels++) {
+			count = (count + this.nodeCapacity - 1) / this.nodeCapacity;
+			nodes += count;
+		}
+		this.minLatitudes = new double[size + nodes];
+		this.minLongitudes = new double[size + nodes];
+		this.maxLatitudes = new double[size + nodes];
+		this.maxLongitudes = new double[size + nodes];
+		this.firstChildren = new int[nodes];
+		this.lastChildren = new int[nodes];
+		this.objects = new RTreeObject[size];
+		this.stackCapacity = levels * this.nodeCapacity + 1;
+
+		// Lay the objects out in STR order
+		RTreeObject<T, O>[] unordered = input.toArray(new RTreeObject[0]);
+		Level entries = new Level(size);
+		for (int i = 0; i < size; i++) {
+			BoundingBox boundingBox = unordered[i].getBoundingBox();
+			Point lowerPoint = boundingBox.getLowerPoint();
+			Point upperPoint = boundingBox.getUpperPoint();
+			if (lowerPoint.getLatitude() > upperPoint.getLatitude()) {
+				throw new GeoAssistException("lowerPoint of a boundingBox can not exceed its upperPoint in latitude");
+			}
+			entries.set(i, lowerPoint.getLatitude(), lowerPoint.getLongitude(),
+				upperPoint.getLatitude(), upperPoint.getLongitude(), 0, 0);
+		}
+		Integer[] order = entries.order(this.nodeCapacity);
+		for (int i = 0; i < size; i++) {
+			this.objects[i] = unordered[order[i]];
+			entries.copy(order[i], this, i);
+			T id = this.objects[i].getId();
+			if (id != null && this.indexes.put(id, i) != null) {
+				throw new GeoAssistException("Duplicate object provided.");
+			}
+		}
+
+		// Group runs of the ordered rectangles of every level into the nodes of the level above,
+		// and lay them out in STR order
+		int levelFrom = 0;
+		int levelTo = size;
+		int next = size;
+		while (levelTo > levelFrom && (next == size || levelTo - levelFrom > 1)) {
+			Level parents = new Level((levelTo - levelFrom + this.nodeCapacity - 1) / this.nodeCapacity);
+			for (int parent = 0; parent < parents.size; parent++) {
+				int from = levelFrom + parent * this.nodeCapacity;
+				int to = Math.min(from + this.nodeCapacity, levelTo);
+				double minLatitude = Double.POSITIVE_INFINITY;
+				double minLongitude = Double.POSITIVE_INFINITY;
+				double maxLatitude = Double.NEGATIVE_INFINITY;
+				double maxLongitude = Double.NEGATIVE_INFINITY;
+				for (int child = from; child < to; child++) {
+					minLatitude = Math.min(minLatitude, this.minLatitudes[child]);
+					maxLatitude = Math.max(maxLatitude, this.maxLatitudes[child]);
+					if (this.minLongitudes[child] > this.maxLongitudes[child]) {
+						// The node of a rectangle crossing the antimeridian spans every longitude
+						minLongitude = -180;
+						maxLongitude = 180;
+						continue;
+					}
+					minLongitude = Math.min(minLongitude, this.minLongitudes[child]);
+					maxLongitude = Math.max(maxLongitude, this.maxLongitudes[child]);
+				}
+				parents.set(parent, minLatitude, minLongitude, maxLatitude, maxLongitude, from, to);
+			}
+			order = parents.order(this.nodeCapacity);
+			for (int i = 0; i < parents.size; i++) {
+				parents.copy(order[i], this, next + i);
+			}
+			levelFrom = next;
+			levelTo = next + parents.size;
+			next = levelTo;
+		}
+		this.root = size == 0 ? -1 : next - 1;
+	}
+
+	/**
+	 * Creates a new RTree out of the provided objects.
+	 *
+	 * @param objects RTreeObjects to be loaded in the tree.
+	 * @param <T> the type of the identifier of the RTreeObjects.
+	 * @param <O> the type of the custom object of the RTreeObjects.
+	 * @return an RTree holding all the provided objects.
+	 *
+	 * @throws GeoAssistException is thrown when a duplicate ID is provided.
+	 */
+	public static <T, O> RTree<T, O> bulkLoad(Collection<RTreeObject<T, O>> objects) {
+		return new Builder<T, O>()
+				.objects(objects)
+				.build();
+	}
+
+	/**
+	 * Returns the number of objects in the tree.
+	 *
+	 * @return the number of objects.
+	 */
+	public int getSize() {
+		return this.objects.length;
+	}
+
+	/**
+	 * Find the RTreeObject for the provided ID.
+	 *
+	 * @param id ID of the RTreeObject that you are looking.
+	 *
+	 * @return The method returns the RTreeObject for the provided ID.
+	 * If not found, the method returns `null` otherwise.
+	 * */
+	public RTreeObject<T, O> getById(T id) {
+		Integer index = id == null ? null : this.indexes.get(id);
+		return index == null ? null : this.objects[index];
+	}
+
+	/**
+	 * Updates the custom data by replacing it in the RTreeObject with the provided data.
+	 *
+	 * @param id ID of the custom object that is desired to be updated.
+	 *
+	 * @param data Custom data to be updated in the RTreeObject of provided ID.
+	 *
+	 * @throws GeoAssistException is thrown an object with provided ID is not found.
+	 * */
+	public void update(T id, O data) {
+		RTreeObject<T, O> rTreeObject = getById(id);
+		if (rTreeObject == null) {
+			throw new GeoAssistException("No object found for provided ID");
+		}
+		rTreeObject.setData(data);
+	}
+
+	/**
+	 * Searches the tree for all objects whose rectangles intersect the given bounding box,
+	 * including the ones only touching its edges. The bounding box may cross the antimeridian.
+	 *
+	 * @param boundingBox the bounding box to search for.
+	 * @return a list of the RTreeObjects whose rectangles intersect the bounding box.
+	 */
+	public List<RTreeObject<T, O>> findIntersecting(BoundingBox boundingBox) {
+		List<RTreeObject<T, O>> result = new ArrayList<>();
+		findIntersecting(boundingBox, result::add);
+		return result;
+	}
+
+	/**
+	 * Searches the tree for all objects whose rectangles intersect the given bounding box,
+	 * and passes them to the provided visitor as they are found.
+	 *
+	 * @param boundingBox the bounding box to search for.
+	 * @param visitor visitor of the RTreeObjects, which can stop the search by returning false.
+	 * @return true if all the matching objects were visited, false if the visitor stopped the search.
+	 */
+	public boolean findIntersecting(BoundingBox boundingBox, RTreeVisitor<T, O> visitor) {
+		return search(boundingBox.getLowerPoint(), boundingBox.getUpperPoint(), false, visitor);
+	}
+
+	/**
+	 * Searches the tree for all objects whose rectangles contain the given bounding box,
+	 * e.g. the zones covering a whole area. The bounding box may cross the antimeridian.
+	 *
+	 * @param boundingBox the bounding box to search for.
+	 * @return a list of the RTreeObjects whose rectangles contain the bounding box.
+	 */
+	public List<RTreeObject<T, O>> findContaining(BoundingBox boundingBox) {
+		List<RTreeObject<T, O>> result = new ArrayList<>();
+		findContaining(boundingBox, result::add);
+		return result;
+	}
+
+	/**
+	 * Searches the tree for all objects whose rectangles contain the given bounding box,
+	 * and passes them to the provided visitor as they are found.
+	 *
+	 * @param boundingBox the bounding box to search for.
+	 * @param visitor visitor of the RTreeObjects, which can stop the search by returning false.
+	 * @return true if all the matching objects were visited, false if the visitor stopped the search.
+	 */
+	public boolean findContaining(BoundingBox boundingBox, RTreeVisitor<T, O> visitor) {
+		return search(boundingBox.getLowerPoint(), boundingBox.getUpperPoint(), true, visitor);
+	}
+
+	/**
+	 * Searches the tree for all objects whose rectangles contain the given point, including their edges,
+	 * e.g. the geofences a vehicle is in.
+	 *
+	 * @param point Location (latitude/longitude) coordinates of the point to search for.
+	 * @return a list of the RTreeObjects whose rectangles contain the point.
+	 */
+	public List<RTreeObject<T, O>> findContaining(Point point) {
+		List<RTreeObject<T, O>> result = new ArrayList<>();
+		findContaining(point, result::add);
+		return result;
+	}
+
+	/**
+	 * Searches the tree for all objects whose rectangles contain the given point,
+	 * and passes them to the provided visitor as they are found.
+	 *
+	 * @param point Location (latitude/longitude) coordinates of the point to search for.
+	 * @param visitor visitor of the RTreeObjects, which can stop the search by returning false.
+	 * @return true if all the matching objects were visited, false if the visitor stopped the search.
+	 */
+	public boolean findContaining(Point point, RTreeVisitor<T, O> visitor) {
+		// A point is contained exactly where it intersects
+		return search(point, point, false, visitor);
+	}
+
+	private boolean search(Point lowerPoint, Point upperPoint, boolean isContaining, RTreeVisitor<T, O> visitor) {
+		double minLatitude = lowerPoint.getLatitude();
+		double minLongitude = lowerPoint.getLongitude();
+		double maxLatitude = upperPoint.getLatitude();
+		double maxLongitude = upperPoint.getLongitude();
+		if (this.root < 0) {
+			return true;
+		}
+		int[] stack = new int[this.stackCapacity];
+		int top = 0;
+		stack[top++] = this.root;
+		while (top > 0) {
+			int index = stack[--top];
+			boolean isMatch = isContaining
+				? contains(index, minLatitude, minLongitude, maxLatitude, maxLongitude)
+				: intersects(index, minLatitude, minLongitude, maxLatitude, maxLongitude);
+			if (!isMatch) {
+				continue;
+			}
+			if (index < this.objects.length) {
+				if (!visitor.visit(this.objects[index])) {
+					return false;
+				}
+				continue;
+			}
+			// Push the children last to first, so that they are visited in their order
+			int node = index - this.objects.length;
+			for (int child = this.lastChildren[node] - 1; child >= this.firstChildren[node]; child--) {
+				stack[top++] = child;
+			}
+		}
+		return true;
+	}
+
+	private boolean intersects(int index, double minLatitude, double minLongitude,
+		double maxLatitude, double maxLongitude) {
+		if (this.minLatitudes[index] > maxLatitude || this.maxLatitudes[index] < minLatitude) {
+			return false;
+		}
+		if (this.minLongitudes[index] > this.maxLongitudes[index]) {
+			// A rectangle crossing the antimeridian is intersected on either side of it,
+			// and by every box crossing it as well
+			return minLongitude > maxLongitude
+				|| maxLongitude >= this.minLongitudes[index] || minLongitude <= this.maxLongitudes[index];
+		}
+		if (minLongitude > maxLongitude) {
+			// A box crossing the antimeridian is intersected on either side of it
+			return this.maxLongitudes[index] >= minLongitude || this.minLongitudes[index] <= maxLongitude;
+		}
+		return this.minLongitudes[index] <= maxLongitude && this.maxLongitudes[index] >= minLongitude;
+	}
+
+	private boolean contains(int index, double minLatitude, double minLongitude,
+		double maxLatitude, double maxLongitude) {
+		// A node can only hold rectangles containing the box if it contains the box itself
+		if (this.minLatitudes[index] > minLatitude || this.maxLatitudes[index] < maxLatitude) {
+			return false;
+		}
+		if (this.minLongitudes[index] > this.maxLongitudes[index]) {
+			// A rectangle crossing the antimeridian contains a box on either side of it,
+			// or a box crossing it within its edges
+			return minLongitude > maxLongitude
+				? this.minLongitudes[index] <= minLongitude && this.maxLongitudes[index] >= maxLongitude
+				: this.minLongitudes[index] <= minLongitude || this.maxLongitudes[index] >= maxLongitude;
+		}
+		if (minLongitude > maxLongitude) {
+			// Only the rectangles spanning every longitude contain a box crossing the antimeridian
+			return this.minLongitudes[index] <= -180 && this.maxLongitudes[index] >= 180;
+		}
+		return this.minLongitudes[index] <= minLongitude && this.maxLongitudes[index] >= maxLongitude;
+	}
+
+	/**
+	 * Finds the object whose rectangle is the nearest to the given point, within the provided distance.
+	 * The distance to a rectangle is the distance to its point closest in latitude and longitude,
+	 * i.e. 0 if the point is inside it.
+	 *
+	 * @param point Location (latitude/longitude) coordinates
+	 * of the reference point to find the nearest rectangle for.
+	 *
+	 * @param distance Maximum distance to find the nearest rectangle in.
+	 *
+	 * @return the nearest object to the given point within the specified distance,
+	 * holding no object if there is none.
+	 */
+	public RTreeNearestNeighbor<T, O> findNearest(Point point, double distance) {
+		RTreeNearestNeighbor<T, O> nearestNeighbor = new RTreeNearestNeighbor<>();
+		if (this.root < 0 || distance < 0) {
+			return nearestNeighbor;
+		}
+		DistanceQuery query = new DistanceQuery(point, distance, this.distanceMetric);
+		double reducedDistance = query.getReducedDistance();
+
+		// Only the nodes reaching the window of latitudes and longitudes of the nearest rectangle found so far,
+		// or of the maximum distance, can hold a nearer rectangle.
+		// The window spans every longitude when the circle reaches a pole, and crosses the antimeridian
+		// along with the circle.
+		double[] window = window(query);
+		int[] stack = new int[this.stackCapacity];
+		int top = 0;
+		stack[top++] = this.root;
+		while (top > 0) {
+			int index = stack[--top];
+			if (!intersects(index, window[0], window[2], window[1], window[3])) {
+				continue;
+			}
+			if (index >= this.objects.length) {
+				int node = index - this.objects.length;
+				for (int child = this.lastChildren[node] - 1; child >= this.firstChildren[node]; child--) {
+					stack[top++] = child;
+				}
+				continue;
+			}
+
+			// The closest point of the rectangle
+			double latitude = Math.max(this.minLatitudes[index], Math.min(this.maxLatitudes[index],
+				point.getLatitude()));
+			double longitude = closestLongitude(this.minLongitudes[index], this.maxLongitudes[index],
+				point.getLongitude());
+			double objectDistance = query.reducedDistanceTo(latitude, longitude);
+			if (objectDistance <= reducedDistance) {
+				reducedDistance = objectDistance;
+				nearestNeighbor.setRTreeObject(this.objects[index]);
+				window = window(new DistanceQuery(point, query.toDistance(reducedDistance), this.distanceMetric));
+			}
+		}
+
+		if (nearestNeighbor.getRTreeObject() != null) {
+			nearestNeighbor.setDistance(query.toDistance(reducedDistance));
+		}
+		return nearestNeighbor;
+	}
+
+	private static double closestLongitude(double minLongitude, double maxLongitude, double longitude) {
+		// A rectangle crossing the antimeridian holds the longitudes on either side of it
+		boolean isInside = minLongitude > maxLongitude
+			? longitude >= minLongitude || longitude <= maxLongitude
+			: longitude >= minLongitude && longitude <= maxLongitude;
+		if (isInside) {
+			return longitude;
+		}
+		// The closest edge, eastwards or westwards, which may be across the antimeridian
+		double eastwards = minLongitude - longitude;
+		if (eastwards < 0) {
+			eastwards += 360;
+		}
+		double westwards = longitude - maxLongitude;
+		if (westwards < 0) {
+			westwards += 360;
+		}
+		return eastwards <= westwards ? minLongitude : maxLongitude;
+	}
+
+	private static double[] window(DistanceQuery query) {
+		BoundingBox window = query.getWindow();
+		return new double[] {
+			window.getLowerPoint().getLatitude(),
+			window.getUpperPoint().getLatitude(),
+			window.getLowerPoint().getLongitude(),
+			window.getUpperPoint().getLongitude()
+		};
+	}
+
+	/**
+	 * The rectangles of a level of the tree, while it is built, before they are laid out in STR order.
+	 *
+	 * @author The Geeky Asian
+	 */
+	private static final class Level {
+
+		private final int size;
+
+		private final double[] minLatitudes;
+
+		private final double[] minLongitudes;
+
+		private final double[] maxLatitudes;
+
+		private final double[] maxLongitudes;
+
+		private final int[] firstChildren;
+
+		private final int[] lastChildren;
+
+		private Level(int size) {
+			this.size = size;
+			this.minLatitudes = new double[size];
+			this.minLongitudes = new double[size];
+			this.maxLatitudes = new double[size];
+			this.maxLongitudes = new double[size];
+			this.firstChildren = new int[size];
+			this.lastChildren = new int[size];
+		}
+
+		private void set(int index, double minLatitude, double minLongitude, double maxLatitude,
+			double maxLongitude, int firstChild, int lastChild) {
+			this.minLatitudes[index] = minLatitude;
+			this.minLongitudes[index] = minLongitude;
+			this.maxLatitudes[index] = maxLatitude;
+			this.maxLongitudes[index] = maxLongitude;
+			this.firstChildren[index] = firstChild;
+			this.lastChildren[index] = lastChild;
+		}
+
+		private void copy(int index, RTree<?, ?> tree, int treeIndex) {
+			tree.minLatitudes[treeIndex] = this.minLatitudes[index];
+			tree.minLongitudes[treeIndex] = this.minLongitudes[index];
+			tree.maxLatitudes[treeIndex] = this.maxLatitudes[index];
+			tree.maxLongitudes[treeIndex] = this.maxLongitudes[index];
+			int node = treeIndex - tree.objects.length;
+			if (node >= 0) {
+				tree.firstChildren[node] = this.firstChildren[index];
+				tree.lastChildren[node] = this.lastChildren[index];
+			}
+		}
+
+		/**
+		 * Sorts the rectangles in STR order: into vertical slices of whole nodes by the longitude
+		 * of their centers, and within every slice by the latitude of their centers.
+		 *
+		 * @param nodeCapacity the maximum number of children of a node.
+		 * @return the indexes of the rectangles, in STR order.
+		 */
+		private Integer[] order(int nodeCapacity) {
+			Integer[] order = new Integer[this.size];
+			for (int i = 0; i < this.size; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, Comparator.comparingDouble(this::longitudeCenter));
+
+			int nodes = (this.size + nodeCapacity - 1) / nodeCapacity;
+			int sliceSize = (int) Math.ceil(Math.sqrt(nodes)) * nodeCapacity;
+			for (int from = 0; from < this.size; from += sliceSize) {
+				Arrays.sort(order, from, Math.min(from + sliceSize, this.size),
+					Comparator.comparingDouble(i -> this.minLatitudes[i] + this.maxLatitudes[i]));
+			}
+			return order;
+		}
+
+		// Twice the longitude of the center of a rectangle, which is across the antimeridian
+		// for a rectangle crossing it
+		private double longitudeCenter(int index) {
+			double center = this.minLongitudes[index] + this.maxLongitudes[index];
+			if (this.minLongitudes[index] > this.maxLongitudes[index]) {
+				center += center > 0 ? -360 : 360;
+			}
+			return center;
+		}
+	}
+
+	/**
+	 * Builder to create a configured RTree.
+	 *
+	 * @param <T> the type of the identifier of the RTreeObjects.
+	 *
+	 * @param <O> the type of the custom object of the RTreeObjects.
+	 *
+	 * @author The Geeky Asian
+	 */
+	public static class Builder<T, O> {
+		private int nodeCapacity = 16;
+
+		private DistanceMetric distanceMetric = DistanceMetric.HAVERSINE;
+
+		private Collection<RTreeObject<T, O>> objects;
+
+		/**
+		 * Sets the maximum number of children of a node. Larger nodes make the tree shallower,
+		 * at the cost of more rectangles compared per node.
+		 *
+		 * @param nodeCapacity the maximum number of children of a node, at least 2.
+		 * @return the builder.
+		 */
+		public Builder<T, O> nodeCapacity(int nodeCapacity) {
+			this.nodeCapacity = nodeCapacity;
+			return this;
+		}
+
+		/**
+		 * Sets the metric used to compute distances in the nearest rectangle searches.
+		 *
+		 * @param distanceMetric the distance metric.
+		 * @return the builder.
+		 */
+		public Builder<T, O> distanceMetric(DistanceMetric distanceMetric) {
+			this.distanceMetric = distanceMetric;
+			return this;
+		}
+
+		/**
+		 * Sets the objects of the tree.
+		 *
+		 * @param objects RTreeObjects to be loaded in the tree.
+		 * @return the builder.
+		 */
+		public Builder<T, O> objects(Collection<RTreeObject<T, O>> objects) {
+			this.objects = objects;
+			return this;
+		}
+
+		/**
+		 * Creates the RTree.
+		 *
+		 * @return a new RTree, empty if no objects were provided.
+		 *
+		 * @throws GeoAssistException is thrown when the node capacity is lower than 2,
+		 * the distance metric is null, a duplicate ID is provided,
+		 * or the lower point of a bounding box exceeds its upper point in latitude.
+		 */
+		public RTree<T, O> build() {
+			if (this.nodeCapacity < 2) {
+				throw new GeoAssistException("nodeCapacity must be at least 2");
+			}
+			if (this.distanceMetric == null) {
+				throw new GeoAssistException("distanceMetric can not be null");
+			}
+			return new RTree<>(this);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.thegeekyasian.geoassist.rtree;
+
+/**
+ * A helper class used to represent the result of a nearest rectangle search in an RTree.
+ * Contains a reference to the closest RTreeObject found and the distance from the query point to its rectangle.
+ *
+ * @param <T> the type of the identifier of the RTreeObject
+ *
+ * @param <O> the type of the custom object of the RTreeObject
+ *
+ * @author The Geeky Asian
+ */
+public class RTreeNearestNeighbor<T, O> {
+
+	/**
+	 * The closest RTreeObject found in the RTree.
+	 */
+	private RTreeObject<T, O> rTreeObject;
+
+	/**
+	 The distance from the query point to the rectangle of the closest RTreeObject, 0 if it is inside.
+	 */
+	private Double distance;
+
+	/**
+	 Get the closest RTreeObject.
+	 @return the closest RTreeObject
+	 */
+	public RTreeObject<T, O> getRTreeObject() {
+		return this.rTreeObject;
+	}
+
+	/**
+	 Set the closest RTreeObject.
+	 @param rTreeObject the closest RTreeObject to set
+	 */
+	public void setRTreeObject(RTreeObject<T, O> rTreeObject) {
+		this.rTreeObject = rTreeObject;
+	}
+
+	/**
+	 Get the distance to the closest RTreeObject.
+	 @return the distance to the closest RTreeObject
+	 */
+	public Double getDistance() {
+		return this.distance;
+	}
+
+	/**
+	 Set the distance to the closest RTreeObject.
+	 @param distance the distance to the closest RTreeObject to set
+	 */
+	public void setDistance(Double distance) {
+		this.distance = distance;
+	}
+}
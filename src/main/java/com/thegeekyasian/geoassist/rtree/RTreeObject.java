@@ -0,0 +1,89 @@
+package com.thegeekyasian.geoassist.rtree;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+
+/**
+ * The RTreeObject class represents a rectangle that can be loaded into an R-Tree,
+ * e.g. a delivery zone, a store catchment or a geofence.
+ * Each object is associated with a bounding box and has
+ * an identifier of type T and a data object of type O.
+ *
+ * @param <T>
+ *     describes the identifier of the R-Tree Object,
+ *     that is being loaded in the tree. For example ID or UUID of the Object.
+ *
+ * @param <O>
+ *     describes the object that is loaded in the tree.
+ *     For example Zone, Catchment, Geofence, etc.
+ *
+ * @author The Geeky Asian
+ */
+public final class RTreeObject<T, O> {
+
+	private T id;
+
+	private O data;
+
+	private BoundingBox boundingBox;
+
+	private RTreeObject(Builder<T, O> builder) {
+		this.id = builder.id;
+		this.data = builder.data;
+		this.boundingBox = builder.boundingBox;
+	}
+
+	public T getId() {
+		return this.id;
+	}
+
+	public void setId(T id) {
+		this.id = id;
+	}
+
+	public O getData() {
+		return this.data;
+	}
+
+	public void setData(O data) {
+		this.data = data;
+	}
+
+	public BoundingBox getBoundingBox() {
+		return this.boundingBox;
+	}
+
+	public void setBoundingBox(BoundingBox boundingBox) {
+		this.boundingBox = boundingBox;
+	}
+
+	public static class Builder<T, O> {
+		private T id;
+
+		private O data;
+
+		private BoundingBox boundingBox;
+
+		public Builder<T, O> id(T id) {
+			this.id = id;
+			return this;
+		}
+
+		public Builder<T, O> data(O data) {
+			this.data = data;
+			return this;
+		}
+
+		public Builder<T, O> boundingBox(BoundingBox boundingBox) {
+			this.boundingBox = boundingBox;
+			return this;
+		}
+
+		public RTreeObject<T, O> build() {
+			if (this.boundingBox == null) {
+				throw new GeoAssistException("boundingBox can not be null");
+			}
+			return new RTreeObject<>(this);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.thegeekyasian.geoassist.rtree;
+
+/**
+ * <p>
+ *     A visitor of the RTreeObjects matched by a search, which consumes them as they are found,
+ *     instead of collecting them in a new list.
+ * </p>
+ *
+ * <p>
+ *     The visitor can also stop the search early, e.g. once it has found enough objects.
+ * </p>
+ *
+ * @param <T> the type of the identifier of the RTreeObjects.
+ *
+ * @param <O> the type of the custom object of the RTreeObjects.
+ *
+ * @author The Geeky Asian
+ */
+@FunctionalInterface
+public interface RTreeVisitor<T, O> {
+
+	/**
+	 * Visits an RTreeObject matched by the search.
+	 *
+	 * @param rTreeObject the matched RTreeObject.
+	 * @return true to continue the search, false to stop it.
+	 */
+	boolean visit(RTreeObject<T, O> rTreeObject);
+}
@@ -0,0 +1,168 @@
+package com.thegeekyasian.geoassist.grid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.KDTree;
+import com.thegeekyasian.geoassist.kdtree.KDTreeObject;
+import com.thegeekyasian.geoassist.kdtree.SpatialIndex;
+import com.thegeekyasian.geoassist.kdtree.SpatialIndexConformanceTest;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestGridIndex class is a test class for the GridIndex.
+ * It is used to test that the grid returns the same results as the KDTree.
+ *
+ * @author The Geeky Asian
+ */
+public class TestGridIndex extends SpatialIndexConformanceTest {
+
+	@Override
+	protected SpatialIndex<Long, Object> createIndex() {
+		return new GridIndex<>();
+	}
+
+	@Test
+	public void testSearches_matchKDTree() {
+		Random random = new Random(17);
+		List<KDTreeObject<Long, Object>> objects = new ArrayList<>();
+		for (long i = 0; i < 3000; i++) {
+			objects.add(object(i, 25 + random.nextDouble(), 55 + random.nextDouble()));
+		}
+		// Objects at the poles and the antimeridian, which are searched with unbounded windows
+		objects.add(object(-1L, 90, 0));
+		objects.add(object(-2L, -90, 180));
+		objects.add(object(-3L, 10, -180));
+		objects.add(object(-4L, 10, 179.9999));
+		KDTree<Long, Object> kdTree = new KDTree<>();
+		objects.forEach(kdTree::insert);
+		GridIndex<Long, Object> gridIndex = new GridIndex.Builder<Long, Object>()
+				.cellSize(0.05)
+				.objects(objects)
+				.build();
+
+		Assertions.assertEquals(3004, gridIndex.getSize());
+		assertSameSearches(kdTree, gridIndex, random);
+		for (Point point : new Point[] {point(89.99, 10), point(-89.99, -170), point(10, -179.99)}) {
+			Assertions.assertEquals(sortedIds(kdTree.findNearestNeighbor(point, 50)),
+					sortedIds(gridIndex.findNearestNeighbor(point, 50)));
+			Assertions.assertEquals(kdTree.findNearest(point, 5000).getDistance(),
+					gridIndex.findNearest(point, 5000).getDistance(), 1e-9);
+		}
+	}
+
+	@Test
+	public void testMoveTo_keepsSearchesCorrect() {
+		Random random = new Random(19);
+		KDTree<Long, Object> kdTree = new KDTree<>();
+		GridIndex<Long, Object> gridIndex = new GridIndex<>();
+		for (long i = 0; i < 2000; i++) {
+			double latitude = 25 + random.nextDouble();
+			double longitude = 55 + random.nextDouble();
+			kdTree.insert(object(i, latitude, longitude));
+			gridIndex.insert(object(i, latitude, longitude));
+		}
+
+		for (int i = 0; i < 5000; i++) {
+			long id = random.nextInt(2000);
+			KDTreeObject<Long, Object> object = gridIndex.getById(id);
+			// Mostly small moves, which usually stay within their cell, and a few jumps
+			double step = i % 10 == 0 ? 1 : 0.001;
+			Point point = point(object.getPoint().getLatitude() + (random.nextDouble() - 0.5) * step,
+					object.getPoint().getLongitude() + (random.nextDouble() - 0.5) * step);
+			kdTree.moveTo(id, point);
+			gridIndex.moveTo(id, point);
+			Assertions.assertEquals(point.getLatitude(), gridIndex.getById(id).getPoint().getLatitude());
+		}
+
+		Assertions.assertEquals(2000, gridIndex.getSize());
+		assertSameSearches(kdTree, gridIndex, random);
+	}
+
+	@Test
+	public void testDelete_removesObjectsFromSearches() {
+		KDTree<Long, Object> kdTree = new KDTree<>();
+		GridIndex<Long, Object> gridIndex = new GridIndex<>();
+		Random random = new Random(23);
+		for (long i = 0; i < 1000; i++) {
+			double latitude = 25 + random.nextDouble();
+			double longitude = 55 + random.nextDouble();
+			kdTree.insert(object(i, latitude, longitude));
+			gridIndex.insert(object(i, latitude, longitude));
+		}
+		for (long i = 0; i < 1000; i += 3) {
+			Assertions.assertTrue(gridIndex.delete(i));
+			kdTree.delete(i);
+		}
+
+		Assertions.assertFalse(gridIndex.delete(0L));
+		Assertions.assertNull(gridIndex.getById(0L));
+		Assertions.assertEquals(666, gridIndex.getSize());
+		assertSameSearches(kdTree, gridIndex, random);
+	}
+
+	@Test
+	public void testMoveTo_throwsNotFoundException() {
+		GridIndex<Long, Object> gridIndex = new GridIndex<>();
+		gridIndex.insert(object(1L, 25, 55));
+
+		Assertions.assertEquals("No object found for provided ID", Assertions.assertThrows(GeoAssistException.class,
+				() -> gridIndex.moveTo(2L, point(25, 55))).getMessage());
+		Assertions.assertEquals(25, gridIndex.getById(1L).getPoint().getLatitude());
+	}
+
+	@Test
+	public void testBuilder_throwsForInvalidConfiguration() {
+		Assertions.assertEquals("cellSize must be greater than 0 and at most 180",
+				Assertions.assertThrows(GeoAssistException.class,
+						() -> new GridIndex.Builder<Long, Object>().cellSize(0).build()).getMessage());
+		Assertions.assertEquals("distanceMetric can not be null",
+				Assertions.assertThrows(GeoAssistException.class,
+						() -> new GridIndex.Builder<Long, Object>().distanceMetric(null).build()).getMessage());
+	}
+
+	private static void assertSameSearches(SpatialIndex<Long, Object> expectedIndex,
+		SpatialIndex<Long, Object> index, Random random) {
+		for (int i = 0; i < 50; i++) {
+			Point point = point(25 + random.nextDouble(), 55 + random.nextDouble());
+			BoundingBox boundingBox = new BoundingBox.Builder()
+					.lowerPoint(point)
+					.upperPoint(point(point.getLatitude() + 0.2, point.getLongitude() + 0.2))
+					.build();
+			Assertions.assertEquals(sortedIds(expectedIndex.findInRange(boundingBox)),
+					sortedIds(index.findInRange(boundingBox)));
+			Assertions.assertEquals(sortedIds(expectedIndex.findNearestNeighbor(point, 5)),
+					sortedIds(index.findNearestNeighbor(point, 5)));
+			Assertions.assertEquals(expectedIndex.findNearest(point, 10).getDistance(),
+					index.findNearest(point, 10).getDistance(), 1e-9);
+		}
+	}
+
+	private static List<Long> sortedIds(List<KDTreeObject<Long, Object>> objects) {
+		return objects.stream()
+				.map(KDTreeObject::getId)
+				.sorted()
+				.collect(Collectors.toList());
+	}
+
+	private static KDTreeObject<Long, Object> object(long id, double latitude, double longitude) {
+		return new KDTreeObject.Builder<Long, Object>()
+				.id(id)
+				.latitude(latitude)
+				.longitude(longitude)
+				.build();
+	}
+
+	private static Point point(double latitude, double longitude) {
+		return new Point.Builder()
+				.latitude(latitude)
+				.longitude(longitude)
+				.build();
+	}
+}
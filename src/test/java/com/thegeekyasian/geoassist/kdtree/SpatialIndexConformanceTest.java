@@ -0,0 +1,225 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The SpatialIndexConformanceTest class is the test suite shared by every SpatialIndex.
+ * The test class of an implementation extends it to test that the implementation fulfills the contract
+ * of the interface, with its searches checked against a brute force scan of the objects.
+ *
+ * @author The Geeky Asian
+ */
+public abstract class SpatialIndexConformanceTest {
+
+	/**
+	 * Creates a new, empty index of the implementation under test, searched with the haversine distance.
+	 *
+	 * @return the index.
+	 */
+	protected abstract SpatialIndex<Long, Object> createIndex();
+
+	@Test
+	public void testConformance_insertUpdateAndDelete() {
+		SpatialIndex<Long, Object> index = createIndex();
+		for (long i = 0; i < 100; i++) {
+			index.insert(object(i, 25 + i * 0.001, 55 + i * 0.001));
+		}
+		index.update(7L, "data");
+
+		Assertions.assertEquals(100, index.getSize());
+		Assertions.assertEquals("data", index.getById(7L).getData());
+		Assertions.assertEquals(25.007, index.getById(7L).getPoint().getLatitude());
+		Assertions.assertNull(index.getById(100L));
+		Assertions.assertTrue(index.delete(7L));
+		Assertions.assertFalse(index.delete(7L));
+		Assertions.assertNull(index.getById(7L));
+		Assertions.assertEquals(99, index.getSize());
+	}
+
+	@Test
+	public void testConformance_throwsForDuplicateAndUnknownIds() {
+		SpatialIndex<Long, Object> index = createIndex();
+		index.insert(object(1L, 25, 55));
+
+		Assertions.assertEquals("Duplicate object provided.", Assertions.assertThrows(GeoAssistException.class,
+				() -> index.insert(object(1L, 26, 56))).getMessage());
+		Assertions.assertEquals("No object found for provided ID", Assertions.assertThrows(GeoAssistException.class,
+				() -> index.update(2L, "data")).getMessage());
+		Assertions.assertEquals(1, index.getSize());
+	}
+
+	@Test
+	public void testConformance_searchesMatchBruteForce() {
+		Random random = new Random(29);
+		SpatialIndex<Long, Object> index = createIndex();
+		List<KDTreeObject<Long, Object>> objects = new ArrayList<>();
+		for (long i = 0; i < 3000; i++) {
+			KDTreeObject<Long, Object> object = object(i, 25 + random.nextDouble(), 55 + random.nextDouble());
+			index.insert(object);
+			objects.add(object);
+		}
+		for (long i = 0; i < 3000; i += 3) {
+			index.delete(i);
+		}
+		objects.removeIf(object -> object.getId() % 3 == 0);
+
+		for (int i = 0; i < 50; i++) {
+			Point point = point(25 + random.nextDouble(), 55 + random.nextDouble());
+			double distance = i % 10 == 0 ? 0.1 : 5;
+			List<Long> expectedNeighbors = objects.stream()
+					.filter(object -> DistanceMetric.HAVERSINE.distance(point, object.getPoint()) <= distance)
+					.map(KDTreeObject::getId)
+					.sorted()
+					.collect(Collectors.toList());
+			Assertions.assertEquals(expectedNeighbors, sortedIds(index.findNearestNeighbor(point, distance)));
+
+			List<KDTreeObject<Long, Object>> visited = new ArrayList<>();
+			Assertions.assertTrue(index.findNearestNeighbor(point, distance, visited::add));
+			Assertions.assertEquals(expectedNeighbors, sortedIds(visited));
+
+			KDTreeNearestNeighbor<Long, Object> nearestNeighbor = index.findNearest(point, distance);
+			double expectedDistance = objects.stream()
+					.mapToDouble(object -> DistanceMetric.HAVERSINE.distance(point, object.getPoint()))
+					.filter(objectDistance -> objectDistance <= distance)
+					.min()
+					.orElse(-1);
+			if (expectedDistance < 0) {
+				Assertions.assertNull(nearestNeighbor.getKdTreeObject());
+			}
+			else {
+				Assertions.assertEquals(expectedDistance, nearestNeighbor.getDistance(), 1e-9);
+				Assertions.assertEquals(expectedDistance,
+						DistanceMetric.HAVERSINE.distance(point, nearestNeighbor.getKdTreeObject().getPoint()), 1e-9);
+			}
+
+			BoundingBox boundingBox = new BoundingBox.Builder()
+					.lowerPoint(point)
+					.upperPoint(point(point.getLatitude() + 0.2, point.getLongitude() + 0.1))
+					.build();
+			List<Long> expectedInRange = objects.stream()
+					.filter(object -> object.getPoint().getLatitude() >= point.getLatitude()
+							&& object.getPoint().getLatitude() <= point.getLatitude() + 0.2
+							&& object.getPoint().getLongitude() >= point.getLongitude()
+							&& object.getPoint().getLongitude() <= point.getLongitude() + 0.1)
+					.map(KDTreeObject::getId)
+					.sorted()
+					.collect(Collectors.toList());
+			Assertions.assertEquals(expectedInRange, sortedIds(index.findInRange(boundingBox)));
+		}
+	}
+
+	@Test
+	public void testConformance_searchesAcrossTheAntimeridianAndPoles() {
+		Random random = new Random(41);
+		SpatialIndex<Long, Object> index = createIndex();
+		List<KDTreeObject<Long, Object>> objects = new ArrayList<>();
+		for (long i = 0; i < 3000; i++) {
+			// Around Fiji, on both sides of the antimeridian, and around the North Pole
+			KDTreeObject<Long, Object> object = i % 2 == 0
+					? object(i, -20 + 5 * random.nextDouble(), wrap(175 + 10 * random.nextDouble()))
+					: object(i, 85 + 5 * random.nextDouble(), -180 + 360 * random.nextDouble());
+			index.insert(object);
+			objects.add(object);
+		}
+
+		for (int i = 0; i < 40; i++) {
+			Point point = i % 2 == 0
+					? point(-20 + 5 * random.nextDouble(), wrap(178 + 4 * random.nextDouble()))
+					: point(87 + 3 * random.nextDouble(), -180 + 360 * random.nextDouble());
+			double distance = 50 + 500 * random.nextDouble();
+			List<Long> expectedNeighbors = objects.stream()
+					.filter(object -> DistanceMetric.HAVERSINE.distance(point, object.getPoint()) <= distance)
+					.map(KDTreeObject::getId)
+					.sorted()
+					.collect(Collectors.toList());
+			Assertions.assertFalse(expectedNeighbors.isEmpty());
+			Assertions.assertEquals(expectedNeighbors, sortedIds(index.findNearestNeighbor(point, distance)));
+
+			List<KDTreeObject<Long, Object>> visited = new ArrayList<>();
+			Assertions.assertTrue(index.findNearestNeighbor(point, distance, visited::add));
+			Assertions.assertEquals(expectedNeighbors, sortedIds(visited));
+
+			double expectedDistance = objects.stream()
+					.mapToDouble(object -> DistanceMetric.HAVERSINE.distance(point, object.getPoint()))
+					.min()
+					.orElse(-1);
+			Assertions.assertEquals(expectedDistance, index.findNearest(point, distance).getDistance(), 1e-9);
+
+			// Bounding boxes from west of the antimeridian to east of it
+			BoundingBox boundingBox = new BoundingBox.Builder()
+					.lowerPoint(point(point.getLatitude() - 2, 177 + 2 * random.nextDouble()))
+					.upperPoint(point(Math.min(90, point.getLatitude() + 2), -179 + 2 * random.nextDouble()))
+					.build();
+			List<Long> expectedInRange = objects.stream()
+					.filter(object -> object.getPoint().getLatitude() >= boundingBox.getLowerPoint().getLatitude()
+							&& object.getPoint().getLatitude() <= boundingBox.getUpperPoint().getLatitude()
+							&& (object.getPoint().getLongitude() >= boundingBox.getLowerPoint().getLongitude()
+							|| object.getPoint().getLongitude() <= boundingBox.getUpperPoint().getLongitude()))
+					.map(KDTreeObject::getId)
+					.sorted()
+					.collect(Collectors.toList());
+			Assertions.assertFalse(expectedInRange.isEmpty());
+			Assertions.assertEquals(expectedInRange, sortedIds(index.findInRange(boundingBox)));
+
+			visited.clear();
+			Assertions.assertFalse(index.findInRange(boundingBox, object -> visited.add(object) && visited.size() < 3));
+			Assertions.assertEquals(3, visited.size());
+		}
+	}
+
+	@Test
+	public void testConformance_visitorsStopTheSearches() {
+		SpatialIndex<Long, Object> index = createIndex();
+		for (long i = 0; i < 100; i++) {
+			index.insert(object(i, 25 + i * 0.0001, 55 + i * 0.0001));
+		}
+		Point point = point(25, 55);
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(point)
+				.upperPoint(point(26, 56))
+				.build();
+
+		List<KDTreeObject<Long, Object>> visited = new ArrayList<>();
+		Assertions.assertFalse(index.findNearestNeighbor(point, 10, object -> visited.add(object) && visited.size() < 3));
+		Assertions.assertEquals(3, visited.size());
+
+		visited.clear();
+		Assertions.assertFalse(index.findInRange(boundingBox, object -> visited.add(object) && visited.size() < 3));
+		Assertions.assertEquals(3, visited.size());
+	}
+
+	private static List<Long> sortedIds(List<KDTreeObject<Long, Object>> objects) {
+		return objects.stream()
+				.map(KDTreeObject::getId)
+				.sorted()
+				.collect(Collectors.toList());
+	}
+
+	private static double wrap(double longitude) {
+		return longitude > 180 ? longitude - 360 : longitude;
+	}
+
+	private static KDTreeObject<Long, Object> object(long id, double latitude, double longitude) {
+		return new KDTreeObject.Builder<Long, Object>()
+				.id(id)
+				.latitude(latitude)
+				.longitude(longitude)
+				.build();
+	}
+
+	private static Point point(double latitude, double longitude) {
+		return new Point.Builder()
+				.latitude(latitude)
+				.longitude(longitude)
+				.build();
+	}
+}
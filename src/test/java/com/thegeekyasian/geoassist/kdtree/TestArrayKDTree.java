@@ -0,0 +1,169 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestArrayKDTree class is a test class for the array-backed ArrayKDTree.
+ * It is used to test that its searches return the same results as the KDTree.
+ *
+ * @author The Geeky Asian
+ */
+public class TestArrayKDTree {
+
+	@Test
+	public void testSearches_matchKDTree() {
+		Random random = new Random(7);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			// Round the coordinates, for many points to share a latitude or longitude
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(Math.round((25 + random.nextDouble()) * 100) / 100.0)
+					.longitude(Math.round((55 + random.nextDouble()) * 100) / 100.0)
+					.build());
+		}
+		KDTree<String, Object> kdTree = KDTree.bulkLoad(objects);
+		ArrayKDTree<String, Object> arrayKDTree = ArrayKDTree.bulkLoad(objects);
+		Assertions.assertEquals(5000, arrayKDTree.getSize());
+
+		for (int i = 0; i < 50; i++) {
+			Point point = new Point.Builder()
+					.latitude(25 + random.nextDouble())
+					.longitude(55 + random.nextDouble())
+					.build();
+			double distance = random.nextDouble() * 10;
+			BoundingBox boundingBox = new BoundingBox.Builder()
+					.lowerPoint(point)
+					.upperPoint(new Point.Builder()
+							.latitude(point.getLatitude() + 0.1)
+							.longitude(point.getLongitude() + 0.1)
+							.build())
+					.build();
+
+			Assertions.assertEquals(ids(kdTree.findNearestNeighbor(point, distance)),
+					ids(arrayKDTree.findNearestNeighbor(point, distance)));
+			Assertions.assertEquals(ids(kdTree.findInRange(boundingBox)),
+					ids(arrayKDTree.findInRange(boundingBox)));
+			Assertions.assertEquals(distances(kdTree.findKNearest(point, 10, distance)),
+					distances(arrayKDTree.findKNearest(point, 10, distance)));
+			Assertions.assertEquals(kdTree.findNearest(point, distance).getDistance(),
+					arrayKDTree.findNearest(point, distance).getDistance());
+		}
+	}
+
+	@Test
+	public void testSearchesAcrossTheAntimeridian_matchKDTree() {
+		Random random = new Random(11);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			// Around Fiji, on both sides of the antimeridian
+			double longitude = 176 + 8 * random.nextDouble();
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(-20 + 4 * random.nextDouble())
+					.longitude(longitude > 180 ? longitude - 360 : longitude)
+					.build());
+		}
+		KDTree<String, Object> kdTree = KDTree.bulkLoad(objects);
+		ArrayKDTree<String, Object> tree = ArrayKDTree.bulkLoad(objects);
+
+		for (int i = 0; i < 50; i++) {
+			double longitude = 178 + 4 * random.nextDouble();
+			Point point = new Point.Builder()
+					.latitude(-20 + 4 * random.nextDouble())
+					.longitude(longitude > 180 ? longitude - 360 : longitude)
+					.build();
+			double distance = 20 + random.nextDouble() * 200;
+			BoundingBox boundingBox = new BoundingBox.Builder()
+					.lowerPoint(new Point.Builder()
+							.latitude(point.getLatitude() - 0.5)
+							.longitude(179 + random.nextDouble())
+							.build())
+					.upperPoint(new Point.Builder()
+							.latitude(point.getLatitude() + 0.5)
+							.longitude(-180 + random.nextDouble())
+							.build())
+					.build();
+
+			Assertions.assertEquals(ids(kdTree.findNearestNeighbor(point, distance)),
+					ids(tree.findNearestNeighbor(point, distance)));
+			Assertions.assertEquals(ids(kdTree.findInRange(boundingBox)), ids(tree.findInRange(boundingBox)));
+		}
+	}
+
+	@Test
+	public void testGetByIdAndUpdate() {
+		ArrayKDTree<String, Object> arrayKDTree = new ArrayKDTree.Builder<String, Object>()
+				.objects(objects(
+						"25.1967512,55.2732038",
+						"25.1962077,55.2714443",
+						"25.1954312,55.2811432"))
+				.build();
+
+		arrayKDTree.update("2", "data");
+		KDTreeObject<String, Object> object = arrayKDTree.getById("2");
+		Assertions.assertEquals("data", object.getData());
+		Assertions.assertEquals(25.1962077, object.getPoint().getLatitude());
+		Assertions.assertEquals(55.2714443, object.getPoint().getLongitude());
+		Assertions.assertNull(arrayKDTree.getById("4"));
+		Assertions.assertNull(arrayKDTree.getById(null));
+
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> arrayKDTree.update("4", "data"));
+		Assertions.assertEquals("No object found for provided ID", geoAssistException.getMessage());
+	}
+
+	@Test
+	public void testEmptyTree() {
+		ArrayKDTree<String, Object> arrayKDTree = new ArrayKDTree.Builder<String, Object>().build();
+		Point point = new Point.Builder()
+				.latitude(25.2012544)
+				.longitude(55.2569389)
+				.build();
+
+		Assertions.assertEquals(0, arrayKDTree.getSize());
+		Assertions.assertNull(arrayKDTree.findNearest(point, 2).getKdTreeObject());
+		Assertions.assertTrue(arrayKDTree.findKNearest(point, 3, 2).isEmpty());
+		Assertions.assertTrue(arrayKDTree.findNearestNeighbor(point, 2).isEmpty());
+	}
+
+	@Test
+	public void testBuilder_throwsForDuplicateIds() {
+		List<KDTreeObject<String, Object>> objects = objects("25.1967512,55.2732038", "25.1962077,55.2714443");
+		objects.addAll(objects("25.1954312,55.2811432"));
+
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> ArrayKDTree.bulkLoad(objects));
+		Assertions.assertEquals("Duplicate object provided.", geoAssistException.getMessage());
+	}
+
+	private static List<KDTreeObject<String, Object>> objects(String... coordinates) {
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		TestKDTree.init(objects::add, coordinates);
+		return objects;
+	}
+
+	private static List<String> ids(List<KDTreeObject<String, Object>> objects) {
+		return objects.stream()
+				.map(KDTreeObject::getId)
+				.sorted(Comparator.comparing(Integer::valueOf))
+				.collect(Collectors.toList());
+	}
+
+	private static List<Double> distances(List<KDTreeNearestNeighbor<String, Object>> nearestNeighbors) {
+		return Arrays.asList(nearestNeighbors.stream()
+				.map(KDTreeNearestNeighbor::getDistance)
+				.toArray(Double[]::new));
+	}
+}
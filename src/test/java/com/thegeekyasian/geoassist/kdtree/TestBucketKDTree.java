@@ -0,0 +1,186 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestBucketKDTree class is a test class for the leaf-bucketed BucketKDTree.
+ * It is used to test that its searches return the same results as the KDTree, for any bucket size.
+ *
+ * @author The Geeky Asian
+ */
+public class TestBucketKDTree {
+
+	@Test
+	public void testSearches_matchKDTree() {
+		Random random = new Random(7);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			// Round the coordinates, for many points to share a latitude or longitude
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(Math.round((25 + random.nextDouble()) * 100) / 100.0)
+					.longitude(Math.round((55 + random.nextDouble()) * 100) / 100.0)
+					.build());
+		}
+		KDTree<String, Object> kdTree = KDTree.bulkLoad(objects);
+
+		for (int bucketSize : new int[] {1, 7, 16, 5000}) {
+			BucketKDTree<String, Object> bucketKDTree = new BucketKDTree.Builder<String, Object>()
+					.bucketSize(bucketSize)
+					.objects(objects)
+					.build();
+			Assertions.assertEquals(5000, bucketKDTree.getSize());
+			for (KDTreeObject<String, Object> object : objects) {
+				Assertions.assertEquals(object.getPoint().getLatitude(),
+						bucketKDTree.getById(object.getId()).getPoint().getLatitude());
+			}
+
+			for (int i = 0; i < 50; i++) {
+				Point point = new Point.Builder()
+						.latitude(25 + random.nextDouble())
+						.longitude(55 + random.nextDouble())
+						.build();
+				double distance = random.nextDouble() * 10;
+				BoundingBox boundingBox = new BoundingBox.Builder()
+						.lowerPoint(point)
+						.upperPoint(new Point.Builder()
+								.latitude(point.getLatitude() + 0.1)
+								.longitude(point.getLongitude() + 0.1)
+								.build())
+						.build();
+
+				Assertions.assertEquals(ids(kdTree.findNearestNeighbor(point, distance)),
+						ids(bucketKDTree.findNearestNeighbor(point, distance)));
+				Assertions.assertEquals(ids(kdTree.findInRange(boundingBox)),
+						ids(bucketKDTree.findInRange(boundingBox)));
+				Assertions.assertEquals(distances(kdTree.findKNearest(point, 10, distance)),
+						distances(bucketKDTree.findKNearest(point, 10, distance)));
+				Assertions.assertEquals(kdTree.findNearest(point, distance).getDistance(),
+						bucketKDTree.findNearest(point, distance).getDistance());
+			}
+		}
+	}
+
+	@Test
+	public void testFindInRange_visitorStopsSearch() {
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		TestKDTree.init(objects::add, new String[] {
+				"25.1967512,55.2732038",
+				"25.1962077,55.2714443",
+				"25.1954312,55.2811432",
+				"25.1903843,55.2798557",
+				"25.2002450,55.2734184"});
+		BucketKDTree<String, Object> bucketKDTree = new BucketKDTree.Builder<String, Object>()
+				.bucketSize(2)
+				.objects(objects)
+				.build();
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(new Point.Builder()
+						.latitude(25)
+						.longitude(55)
+						.build())
+				.upperPoint(new Point.Builder()
+						.latitude(26)
+						.longitude(56)
+						.build())
+				.build();
+
+		List<KDTreeObject<String, Object>> visited = new ArrayList<>();
+		boolean completed = bucketKDTree.findInRange(boundingBox, object -> visited.add(object) && visited.size() < 3);
+
+		Assertions.assertFalse(completed);
+		Assertions.assertEquals(3, visited.size());
+		Assertions.assertEquals(5, bucketKDTree.findInRange(boundingBox).size());
+	}
+
+	@Test
+	public void testSearchesAcrossTheAntimeridian_matchKDTree() {
+		Random random = new Random(11);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			// Around Fiji, on both sides of the antimeridian
+			double longitude = 176 + 8 * random.nextDouble();
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(-20 + 4 * random.nextDouble())
+					.longitude(longitude > 180 ? longitude - 360 : longitude)
+					.build());
+		}
+		KDTree<String, Object> kdTree = KDTree.bulkLoad(objects);
+		BucketKDTree<String, Object> tree = new BucketKDTree.Builder<String, Object>()
+				.bucketSize(7)
+				.objects(objects)
+				.build();
+
+		for (int i = 0; i < 50; i++) {
+			double longitude = 178 + 4 * random.nextDouble();
+			Point point = new Point.Builder()
+					.latitude(-20 + 4 * random.nextDouble())
+					.longitude(longitude > 180 ? longitude - 360 : longitude)
+					.build();
+			double distance = 20 + random.nextDouble() * 200;
+			BoundingBox boundingBox = new BoundingBox.Builder()
+					.lowerPoint(new Point.Builder()
+							.latitude(point.getLatitude() - 0.5)
+							.longitude(179 + random.nextDouble())
+							.build())
+					.upperPoint(new Point.Builder()
+							.latitude(point.getLatitude() + 0.5)
+							.longitude(-180 + random.nextDouble())
+							.build())
+					.build();
+
+			Assertions.assertEquals(ids(kdTree.findNearestNeighbor(point, distance)),
+					ids(tree.findNearestNeighbor(point, distance)));
+			Assertions.assertEquals(ids(kdTree.findInRange(boundingBox)), ids(tree.findInRange(boundingBox)));
+		}
+	}
+
+	@Test
+	public void testGetByIdAndUpdate() {
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		TestKDTree.init(objects::add, new String[] {"25.1967512,55.2732038", "25.1962077,55.2714443"});
+		BucketKDTree<String, Object> bucketKDTree = BucketKDTree.bulkLoad(objects);
+
+		bucketKDTree.update("2", "data");
+		Assertions.assertEquals("data", bucketKDTree.getById("2").getData());
+		Assertions.assertEquals(25.1962077, bucketKDTree.getById("2").getPoint().getLatitude());
+		Assertions.assertNull(bucketKDTree.getById("3"));
+
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> bucketKDTree.update("3", "data"));
+		Assertions.assertEquals("No object found for provided ID", geoAssistException.getMessage());
+	}
+
+	@Test
+	public void testBuilder_throwsForInvalidBucketSize() {
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> new BucketKDTree.Builder<String, Object>().bucketSize(0).build());
+
+		Assertions.assertEquals("bucketSize must be greater than 0", geoAssistException.getMessage());
+	}
+
+	private static List<String> ids(List<KDTreeObject<String, Object>> objects) {
+		return objects.stream()
+				.map(KDTreeObject::getId)
+				.sorted(Comparator.comparing(Integer::valueOf))
+				.collect(Collectors.toList());
+	}
+
+	private static List<Double> distances(List<KDTreeNearestNeighbor<String, Object>> nearestNeighbors) {
+		return Arrays.asList(nearestNeighbors.stream()
+				.map(KDTreeNearestNeighbor::getDistance)
+				.toArray(Double[]::new));
+	}
+}
@@ -0,0 +1,226 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestConcurrentKDTree class is a test class for the thread-safe ConcurrentKDTree.
+ * It is used to test searching the tree while it is being modified.
+ *
+ * @author The Geeky Asian
+ */
+public class TestConcurrentKDTree extends SpatialIndexConformanceTest {
+
+	private static final BoundingBox EVERYWHERE = new BoundingBox.Builder()
+			.lowerPoint(new Point.Builder()
+					.latitude(-90)
+					.longitude(-180)
+					.build())
+			.upperPoint(new Point.Builder()
+					.latitude(90)
+					.longitude(180)
+					.build())
+			.build();
+
+	@Override
+	protected SpatialIndex<Long, Object> createIndex() {
+		return new ConcurrentKDTree<>();
+	}
+
+	@Test
+	public void testOperations_delegateToTree() {
+		ConcurrentKDTree<String, Object> kdTree = new ConcurrentKDTree<>();
+		TestKDTree.init(kdTree::insert, new String[] {
+				"25.1967512,55.2732038",
+				"25.1962077,55.2714443",
+				"25.1954312,55.2811432",
+				"25.2012544,55.2569389"
+		});
+		Point point = new Point.Builder()
+				.latitude(25.2012544)
+				.longitude(55.2569389)
+				.build();
+
+		Assertions.assertEquals(4, kdTree.getSize());
+		Assertions.assertEquals("4", kdTree.findNearest(point, 2).getKdTreeObject().getId());
+		Assertions.assertEquals(3, kdTree.findNearestNeighbor(point, 2).size());
+		Assertions.assertEquals(2, kdTree.findKNearest(point, 2, 2).size());
+		Assertions.assertEquals(4, kdTree.findInRange(EVERYWHERE).size());
+
+		kdTree.update("1", "data");
+		Assertions.assertEquals("data", kdTree.getById("1").getData());
+
+		Assertions.assertTrue(kdTree.delete("2"));
+		Assertions.assertNull(kdTree.getById("2"));
+
+		kdTree.balance();
+		Assertions.assertTrue(kdTree.isBalanced());
+		Assertions.assertEquals(3, kdTree.findInRange(EVERYWHERE).size());
+	}
+
+	@Test
+	public void testConstructor_throwsForNullTree() {
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> new ConcurrentKDTree<String, Object>(null));
+
+		Assertions.assertEquals("kdTree can not be null", geoAssistException.getMessage());
+	}
+
+	@Test
+	public void testSearches_whileTreeIsModified() throws InterruptedException {
+
+		Random random = new Random(17);
+		List<KDTreeObject<String, Object>> initial = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			initial.add(newObject("initial-" + i, random));
+		}
+		ConcurrentKDTree<String, Object> kdTree = new ConcurrentKDTree<>(KDTree.bulkLoad(initial));
+		KDTreeObject<String, Object> landmark = initial.get(500);
+
+		AtomicBoolean writing = new AtomicBoolean(true);
+		List<Throwable> errors = new CopyOnWriteArrayList<>();
+		List<Thread> readers = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Thread reader = new Thread(() -> {
+				try {
+					while (writing.get()) {
+						List<KDTreeObject<String, Object>> objects = kdTree.findInRange(EVERYWHERE);
+						Assertions.assertTrue(objects.size() >= initial.size());
+						Assertions.assertEquals(objects.size(), new HashSet<>(objects).size());
+						Assertions.assertEquals(landmark,
+								kdTree.findNearest(landmark.getPoint(), 1).getKdTreeObject());
+					}
+				}
+				catch (Throwable ex) {
+					errors.add(ex);
+				}
+			});
+			readers.add(reader);
+			reader.start();
+		}
+
+		for (int i = 0; i < 20000; i++) {
+			kdTree.insert(newObject(String.valueOf(i), random));
+			if (i % 5000 == 0) {
+				kdTree.balance();
+			}
+		}
+		writing.set(false);
+		for (Thread reader : readers) {
+			reader.join();
+		}
+
+		Assertions.assertEquals(new ArrayList<Throwable>(), errors);
+		Assertions.assertEquals(21000, kdTree.getSize());
+		Assertions.assertEquals(21000, kdTree.findInRange(EVERYWHERE).size());
+	}
+
+	@Test
+	public void testRebuilds_leaveNodesOfRunningSearchesUntouched() {
+
+		Random random = new Random(23);
+		List<KDTreeObject<String, Object>> initial = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			initial.add(newObject("initial-" + i, random));
+		}
+
+		// Rebalance an unbalanced tree in the middle of a search, which must still walk the nodes it started with
+		KDTree<String, Object> kdTree = new KDTree<>();
+		initial.forEach(kdTree::insert);
+		new ConcurrentKDTree<>(kdTree);
+		List<KDTreeObject<String, Object>> visited = new ArrayList<>();
+		kdTree.findInRange(EVERYWHERE, object -> {
+			if (visited.size() == 100) {
+				kdTree.balance();
+			}
+			return visited.add(object);
+		});
+		Assertions.assertEquals(initial.size(), visited.size());
+		Assertions.assertEquals(new HashSet<>(initial), new HashSet<>(visited));
+
+		// The IDs now lead to the copies of the nodes
+		Assertions.assertTrue(kdTree.isBalanced());
+		Assertions.assertTrue(kdTree.delete("initial-0"));
+		Assertions.assertEquals(999, kdTree.findInRange(EVERYWHERE).size());
+	}
+
+	@Test
+	public void testSearches_whileTreeWithBalanceFactorIsModified() throws InterruptedException {
+
+		Random random = new Random(29);
+		List<KDTreeObject<String, Object>> initial = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			initial.add(newObject("initial-" + i, random));
+		}
+		ConcurrentKDTree<String, Object> kdTree = new ConcurrentKDTree<>(new KDTree.Builder<String, Object>()
+				.balanceFactor(0.7)
+				.objects(initial)
+				.build());
+
+		AtomicBoolean writing = new AtomicBoolean(true);
+		List<Throwable> errors = new CopyOnWriteArrayList<>();
+		List<Thread> readers = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Thread reader = new Thread(() -> {
+				try {
+					while (writing.get()) {
+						List<KDTreeObject<String, Object>> objects = kdTree.findInRange(EVERYWHERE);
+						Assertions.assertTrue(objects.size() >= initial.size());
+						Assertions.assertEquals(objects.size(), new HashSet<>(objects).size());
+					}
+				}
+				catch (Throwable ex) {
+					errors.add(ex);
+				}
+			});
+			readers.add(reader);
+			reader.start();
+		}
+
+		// Monotonic insertions rebuild scapegoats, deletions shrink the tree until it is rebuilt as a whole
+		// and moving most of the tree at once rebuilds it too
+		for (int i = 0; i < 5000; i++) {
+			kdTree.insert(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(-80 + i * 0.01)
+					.longitude(-170 + i * 0.01)
+					.build());
+		}
+		for (int i = 0; i < 4000; i++) {
+			kdTree.delete(String.valueOf(i));
+		}
+		Map<String, Point> points = new HashMap<>();
+		for (int i = 4000; i < 5000; i++) {
+			points.put(String.valueOf(i), newObject(String.valueOf(i), random).getPoint());
+		}
+		kdTree.moveAll(points);
+		writing.set(false);
+		for (Thread reader : readers) {
+			reader.join();
+		}
+
+		Assertions.assertEquals(new ArrayList<Throwable>(), errors);
+		Assertions.assertEquals(2000, kdTree.getSize());
+		Assertions.assertEquals(2000, kdTree.findInRange(EVERYWHERE).size());
+	}
+
+	private static KDTreeObject<String, Object> newObject(String id, Random random) {
+		return new KDTreeObject.Builder<String, Object>()
+				.id(id)
+				.latitude(-80 + random.nextDouble() * 160)
+				.longitude(-170 + random.nextDouble() * 340)
+				.build();
+	}
+}
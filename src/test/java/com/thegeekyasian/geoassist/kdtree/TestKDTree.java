@@ -1,7 +1,26 @@
 package com.thegeekyasian.geoassist.kdtree;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import com.thegeekyasian.geoassist.core.GeoAssistException;
 import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
@@ -17,10 +36,15 @@ import org.junit.jupiter.api.Test;
  *
  * @author The Geeky Asian
  */
-public class TestKDTree {
+public class TestKDTree extends SpatialIndexConformanceTest {
 
 	private KDTree<String, Object> kdTree;
 
+	@Override
+	protected SpatialIndex<Long, Object> createIndex() {
+		return new KDTree<>();
+	}
+
 	@Test
 	public void testInsertion() {
 		Assertions.assertEquals(this.kdTree.getSize(), 9);
@@ -32,6 +56,258 @@ public class TestKDTree {
 		Assertions.assertTrue(deleted);
 	}
 
+	@Test
+	public void testDeletion_ofEveryObject() {
+		// The first object inserted is the root, deleted first
+		for (int i = 1; i <= 9; i++) {
+			Assertions.assertTrue(this.kdTree.delete(String.valueOf(i)));
+			Assertions.assertEquals(9 - i, this.kdTree.getSize());
+			Assertions.assertNull(this.kdTree.getById(String.valueOf(i)));
+		}
+		Assertions.assertFalse(this.kdTree.delete("1"));
+		Assertions.assertFalse(this.kdTree.delete(null));
+		Assertions.assertTrue(this.kdTree.findNearestNeighbor(new Builder()
+				.latitude(25.1967512)
+				.longitude(55.2732038)
+				.build(), 100).isEmpty());
+	}
+
+	@Test
+	public void testDeletion_keepsSearchesCorrect() {
+		Random random = new Random(5);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			// Round the coordinates, for many points to share a latitude or longitude
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(Math.round((25 + random.nextDouble()) * 100) / 100.0)
+					.longitude(Math.round((55 + random.nextDouble()) * 100) / 100.0)
+					.build());
+		}
+		KDTree<String, Object> insertedTree = new KDTree<>();
+		objects.forEach(insertedTree::insert);
+		KDTree<String, Object> balancedTree = new KDTree.Builder<String, Object>()
+				.balanceFactor(0.7)
+				.objects(objects)
+				.build();
+
+		List<KDTreeObject<String, Object>> remaining = new ArrayList<>(objects);
+		Collections.shuffle(remaining, random);
+		List<KDTreeObject<String, Object>> deleted = new ArrayList<>(remaining.subList(0, 2000));
+		remaining.subList(0, 2000).clear();
+		for (KDTreeObject<String, Object> object : deleted) {
+			Assertions.assertTrue(insertedTree.delete(object.getId()));
+			Assertions.assertTrue(balancedTree.delete(object.getId()));
+		}
+		KDTree<String, Object> expectedTree = KDTree.bulkLoad(remaining);
+
+		for (KDTree<String, Object> tree : Arrays.asList(insertedTree, balancedTree)) {
+			Assertions.assertEquals(1000, tree.getSize());
+			for (KDTreeObject<String, Object> object : remaining) {
+				Assertions.assertSame(object, tree.getById(object.getId()));
+			}
+			for (int i = 0; i < 50; i++) {
+				Point point = new Point.Builder()
+						.latitude(25 + random.nextDouble())
+						.longitude(55 + random.nextDouble())
+						.build();
+				BoundingBox boundingBox = new BoundingBox.Builder()
+						.lowerPoint(point)
+						.upperPoint(new Point.Builder()
+								.latitude(point.getLatitude() + 0.2)
+								.longitude(point.getLongitude() + 0.2)
+								.build())
+						.build();
+				Assertions.assertEquals(
+						expectedTree.findInRange(boundingBox).stream().map(KDTreeObject::getId)
+								.sorted().collect(Collectors.toList()),
+						tree.findInRange(boundingBox).stream().map(KDTreeObject::getId)
+								.sorted().collect(Collectors.toList()));
+				Assertions.assertEquals(expectedTree.findNearestNeighbor(point, 5).size(),
+						tree.findNearestNeighbor(point, 5).size());
+				Assertions.assertEquals(expectedTree.findNearest(point, 10).getDistance(),
+						tree.findNearest(point, 10).getDistance());
+			}
+		}
+	}
+
+	@Test
+	public void testMoveTo_keepsSearchesCorrect() {
+		Random random = new Random(11);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(25 + random.nextDouble())
+					.longitude(55 + random.nextDouble())
+					.build());
+		}
+		// Every tree gets its own objects, as moving an object replaces its point
+		KDTree<String, Object> insertedTree = new KDTree<>();
+		copy(objects).forEach(insertedTree::insert);
+		KDTree<String, Object> balancedTree = new KDTree.Builder<String, Object>()
+				.balanceFactor(0.7)
+				.objects(copy(objects))
+				.build();
+
+		for (int i = 0; i < 5000; i++) {
+			KDTreeObject<String, Object> object = objects.get(random.nextInt(objects.size()));
+			// Mostly small moves, which usually stay within the cell of the node, and a few jumps
+			double step = i % 10 == 0 ? 1 : 0.001;
+			Point point = new Builder()
+					.latitude(object.getPoint().getLatitude() + (random.nextDouble() - 0.5) * step)
+					.longitude(object.getPoint().getLongitude() + (random.nextDouble() - 0.5) * step)
+					.build();
+			insertedTree.moveTo(object.getId(), point);
+			balancedTree.moveTo(object.getId(), point);
+			objects.set(Integer.parseInt(object.getId()), new KDTreeObject.Builder<String, Object>()
+					.id(object.getId())
+					.latitude(point.getLatitude())
+					.longitude(point.getLongitude())
+					.build());
+		}
+		KDTree<String, Object> expectedTree = KDTree.bulkLoad(objects);
+
+		for (KDTree<String, Object> tree : Arrays.asList(insertedTree, balancedTree)) {
+			Assertions.assertEquals(3000, tree.getSize());
+			for (KDTreeObject<String, Object> object : objects) {
+				Assertions.assertEquals(object.getPoint().getLatitude(),
+						tree.getById(object.getId()).getPoint().getLatitude());
+			}
+			assertSameSearches(expectedTree, tree, random);
+		}
+	}
+
+	@Test
+	public void testMoveAll_movesEveryObject() {
+		Random random = new Random(13);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(25 + random.nextDouble())
+					.longitude(55 + random.nextDouble())
+					.build());
+		}
+		KDTree<String, Object> tree = KDTree.bulkLoad(copy(objects));
+
+		// A few moves are relocated one by one, and a whole tick rebuilds the tree
+		for (int count : new int[] {10, 2000}) {
+			Map<String, Point> points = new HashMap<>();
+			for (int i = 0; i < count; i++) {
+				KDTreeObject<String, Object> object = objects.get(i);
+				Point point = new Builder()
+						.latitude(object.getPoint().getLatitude() + (random.nextDouble() - 0.5) * 0.01)
+						.longitude(object.getPoint().getLongitude() + (random.nextDouble() - 0.5) * 0.01)
+						.build();
+				points.put(object.getId(), point);
+				objects.set(i, new KDTreeObject.Builder<String, Object>()
+						.id(object.getId())
+						.latitude(point.getLatitude())
+						.longitude(point.getLongitude())
+						.build());
+			}
+			tree.moveAll(points);
+			Assertions.assertEquals(2000, tree.getSize());
+			assertSameSearches(KDTree.bulkLoad(objects), tree, random);
+		}
+	}
+
+	@Test
+	public void testMoveAll_relocatesObjectsOutOfTheirCells() {
+		Random random = new Random(41);
+		for (int run = 0; run < 500; run++) {
+			List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				objects.add(new KDTreeObject.Builder<String, Object>()
+						.id(String.valueOf(i))
+						.latitude(25 + random.nextDouble())
+						.longitude(55 + random.nextDouble())
+						.build());
+			}
+			KDTree<String, Object> tree = KDTree.bulkLoad(copy(objects));
+
+			// Moves anywhere in the tree, which relocate the nodes and move objects between the other nodes
+			Map<String, Point> points = new HashMap<>();
+			for (int i = 0; i < 6; i++) {
+				int index = random.nextInt(objects.size());
+				Point point = new Builder()
+						.latitude(25 + random.nextDouble())
+						.longitude(55 + random.nextDouble())
+						.build();
+				points.put(objects.get(index).getId(), point);
+				objects.set(index, new KDTreeObject.Builder<String, Object>()
+						.id(objects.get(index).getId())
+						.latitude(point.getLatitude())
+						.longitude(point.getLongitude())
+						.build());
+			}
+			tree.moveAll(points);
+
+			Assertions.assertEquals(20, tree.getSize());
+			for (KDTreeObject<String, Object> object : objects) {
+				Assertions.assertEquals(object.getPoint().getLatitude(),
+						tree.getById(object.getId()).getPoint().getLatitude());
+			}
+			assertSameSearches(KDTree.bulkLoad(objects), tree, random);
+		}
+	}
+
+	@Test
+	public void testMoveTo_throwsNotFoundException() {
+		Point point = new Builder()
+				.latitude(25.2012544)
+				.longitude(55.2569389)
+				.build();
+
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> this.kdTree.moveTo("100", point));
+		Assertions.assertEquals("No object found for provided ID", geoAssistException.getMessage());
+
+		// No object is moved when one of the IDs is not found
+		Map<String, Point> points = new HashMap<>();
+		points.put("1", point);
+		points.put("100", point);
+		Assertions.assertThrows(GeoAssistException.class, () -> this.kdTree.moveAll(points));
+		Assertions.assertEquals(25.1967512, this.kdTree.getById("1").getPoint().getLatitude());
+	}
+
+	private static List<KDTreeObject<String, Object>> copy(List<KDTreeObject<String, Object>> objects) {
+		return objects.stream()
+				.map(object -> new KDTreeObject.Builder<String, Object>()
+						.id(object.getId())
+						.latitude(object.getPoint().getLatitude())
+						.longitude(object.getPoint().getLongitude())
+						.build())
+				.collect(Collectors.toList());
+	}
+
+	private static void assertSameSearches(KDTree<String, Object> expectedTree, KDTree<String, Object> tree,
+		Random random) {
+		for (int i = 0; i < 50; i++) {
+			Point point = new Builder()
+					.latitude(25 + random.nextDouble())
+					.longitude(55 + random.nextDouble())
+					.build();
+			BoundingBox boundingBox = new BoundingBox.Builder()
+					.lowerPoint(point)
+					.upperPoint(new Builder()
+							.latitude(point.getLatitude() + 0.2)
+							.longitude(point.getLongitude() + 0.2)
+							.build())
+					.build();
+			Assertions.assertEquals(
+					expectedTree.findInRange(boundingBox).stream().map(KDTreeObject::getId)
+							.sorted().collect(Collectors.toList()),
+					tree.findInRange(boundingBox).stream().map(KDTreeObject::getId)
+							.sorted().collect(Collectors.toList()));
+			Assertions.assertEquals(expectedTree.findNearestNeighbor(point, 5).size(),
+					tree.findNearestNeighbor(point, 5).size());
+			Assertions.assertEquals(expectedTree.findNearest(point, 10).getDistance(),
+					tree.findNearest(point, 10).getDistance());
+		}
+	}
+
 	@Test
 	public void testGetByID() {
 		KDTreeObject<String, Object> kdTreeObject = this.kdTree.getById("4");
@@ -91,6 +367,38 @@ public class TestKDTree {
 		Assertions.assertEquals(0, nearestNeighbors.size());
 	}
 
+	@Test
+	public void testFindNearestNeighborsWithVisitor_visitsSameObjectsAsList() {
+		Point point = new Builder()
+				.latitude(25.2012544)
+				.longitude(55.2569389)
+				.build();
+		List<KDTreeObject<String, Object>> buffer = new ArrayList<>();
+		KDTreeVisitor<String, Object> visitor = buffer::add;
+
+		for (int i = 0; i < 2; i++) {
+			buffer.clear();
+			Assertions.assertTrue(this.kdTree.findNearestNeighbor(point, 2, visitor));
+			Assertions.assertEquals(this.kdTree.findNearestNeighbor(point, 2), buffer);
+		}
+	}
+
+	@Test
+	public void testFindNearestNeighborsWithVisitor_stopsWhenVisitorReturnsFalse() {
+		List<KDTreeObject<String, Object>> visited = new ArrayList<>();
+
+		boolean completed = this.kdTree.findNearestNeighbor(new Builder()
+				.latitude(25.2012544)
+				.longitude(55.2569389)
+				.build(), 2, kdTreeObject -> {
+					visited.add(kdTreeObject);
+					return visited.size() < 2;
+				});
+
+		Assertions.assertFalse(completed);
+		Assertions.assertEquals(2, visited.size());
+	}
+
 	@Test
 	public void testFindNearest() {
 		KDTreeNearestNeighbor<String, Object> nearestNeighbor = this.kdTree.findNearest(
@@ -132,6 +440,469 @@ public class TestKDTree {
 		Assertions.assertNull(nearestNeighbor.getKdTreeObject());
 	}
 
+	@Test
+	public void testFindKNearest_returnsNeighborsOrderedByDistance() {
+		List<KDTreeNearestNeighbor<String, Object>> nearestNeighbors = this.kdTree.findKNearest(
+			new Builder()
+				.latitude(25.2012544)
+				.longitude(55.2569389)
+				.build(), 3, 2);
+
+		Assertions.assertEquals(3, nearestNeighbors.size());
+		Assertions.assertEquals("7", nearestNeighbors.get(0).getKdTreeObject().getId());
+		Assertions.assertEquals(0.0, nearestNeighbors.get(0).getDistance());
+		Assertions.assertEquals("2", nearestNeighbors.get(1).getKdTreeObject().getId());
+		Assertions.assertEquals("5", nearestNeighbors.get(2).getKdTreeObject().getId());
+		Assertions.assertTrue(
+			nearestNeighbors.get(1).getDistance() <= nearestNeighbors.get(2).getDistance());
+	}
+
+	@Test
+	public void testFindKNearest_returnsOnlyNeighborsWithinDistance() {
+		List<KDTreeNearestNeighbor<String, Object>> nearestNeighbors = this.kdTree.findKNearest(
+			new Builder()
+				.latitude(25.2012544)
+				.longitude(55.2569389)
+				.build(), 10, 2);
+
+		Assertions.assertEquals(4, nearestNeighbors.size());
+		nearestNeighbors.forEach(neighbor -> Assertions.assertTrue(neighbor.getDistance() <= 2));
+	}
+
+	@Test
+	public void testFindKNearest_matchesBruteForce() {
+
+		Random random = new Random(11);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(-70 + random.nextDouble() * 140)
+					.longitude(-170 + random.nextDouble() * 340)
+					.build());
+		}
+		KDTree<String, Object> kdTree = KDTree.bulkLoad(objects);
+
+		for (int i = 0; i < 50; i++) {
+			Point point = new Builder()
+					.latitude(-70 + random.nextDouble() * 140)
+					.longitude(-170 + random.nextDouble() * 340)
+					.build();
+
+			List<KDTreeNearestNeighbor<String, Object>> nearestNeighbors =
+					kdTree.findKNearest(point, 10, 5000);
+
+			List<String> expected = objects.stream()
+					.filter(object -> haversine(object.getPoint(), point) <= 5000)
+					.sorted(Comparator.comparingDouble(object -> haversine(object.getPoint(), point)))
+					.limit(10)
+					.map(KDTreeObject::getId)
+					.collect(Collectors.toList());
+			Assertions.assertEquals(expected, nearestNeighbors.stream()
+					.map(neighbor -> neighbor.getKdTreeObject().getId())
+					.collect(Collectors.toList()));
+		}
+	}
+
+	@Test
+	public void testRadiusSearches_matchBruteForce() {
+
+		Random random = new Random(13);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(-90 + random.nextDouble() * 180)
+					.longitude(-180 + random.nextDouble() * 360)
+					.build());
+		}
+		KDTree<String, Object> kdTree = KDTree.bulkLoad(objects);
+
+		for (double distance : new double[] { 2, 50, 500, 5000 }) {
+			for (int i = 0; i < 50; i++) {
+				KDTreeObject<String, Object> object = objects.get(random.nextInt(objects.size()));
+				Point point = new Builder()
+						.latitude(object.getPoint().getLatitude())
+						.longitude(object.getPoint().getLongitude())
+						.build();
+
+				List<String> expected = objects.stream()
+						.filter(o -> haversine(o.getPoint(), point) <= distance)
+						.map(KDTreeObject::getId)
+						.sorted()
+						.collect(Collectors.toList());
+				Assertions.assertEquals(expected, kdTree.findNearestNeighbor(point, distance).stream()
+						.map(KDTreeObject::getId)
+						.sorted()
+						.collect(Collectors.toList()));
+
+				Point nearPoint = new Builder()
+						.latitude(Math.max(-90, point.getLatitude() - 0.3))
+						.longitude(Math.min(180, point.getLongitude() + 0.3))
+						.build();
+				double nearest = objects.stream()
+						.mapToDouble(o -> haversine(o.getPoint(), nearPoint))
+						.min()
+						.getAsDouble();
+				KDTreeNearestNeighbor<String, Object> nearestNeighbor =
+						kdTree.findNearest(nearPoint, distance);
+				if (nearest <= distance) {
+					Assertions.assertEquals(nearest, nearestNeighbor.getDistance(), 1e-9);
+				}
+				else {
+					Assertions.assertNull(nearestNeighbor.getKdTreeObject());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMortonOrder_followsTheZCurveAcrossTheWholeExtent() {
+		// The corners of the extent of the batch, the eastern ones last, given in reverse Z order
+		double[] latitudes = {26, 25, 26, 25};
+		double[] longitudes = {56, 56, 55, 55};
+
+		Assertions.assertArrayEquals(new int[] {3, 2, 1, 0}, KDTreeQueryBatch.mortonOrder(latitudes, longitudes));
+	}
+
+	@Test
+	public void testBatchSearches_matchSingleSearches() {
+		Random random = new Random(17);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			// Round the coordinates, for many points to share a latitude or longitude
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(Math.round((25 + random.nextDouble()) * 100) / 100.0)
+					.longitude(Math.round((55 + random.nextDouble()) * 100) / 100.0)
+					.build());
+		}
+		KDTree<String, Object> tree = KDTree.bulkLoad(objects);
+
+		// More queries than a single group, and not a multiple of its size
+		Point[] points = new Point[300];
+		BoundingBox[] boundingBoxes = new BoundingBox[points.length];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = new Builder()
+					.latitude(25 + random.nextDouble())
+					.longitude(55 + random.nextDouble())
+					.build();
+			boundingBoxes[i] = new BoundingBox.Builder()
+					.lowerPoint(points[i])
+					.upperPoint(new Builder()
+							.latitude(points[i].getLatitude() + random.nextDouble() * 0.2)
+							.longitude(points[i].getLongitude() + random.nextDouble() * 0.2)
+							.build())
+					.build();
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (ForkJoinPool batchPool : Arrays.asList(null, pool)) {
+				List<KDTreeNearestNeighbor<String, Object>> nearestNeighbors =
+						tree.findNearestBatch(points, 5, batchPool);
+				List<List<KDTreeObject<String, Object>>> ranges = tree.findInRangeBatch(boundingBoxes, batchPool);
+				Assertions.assertEquals(points.length, nearestNeighbors.size());
+				Assertions.assertEquals(boundingBoxes.length, ranges.size());
+				for (int i = 0; i < points.length; i++) {
+					Assertions.assertEquals(tree.findNearest(points[i], 5).getDistance(),
+							nearestNeighbors.get(i).getDistance());
+					Assertions.assertEquals(tree.findInRange(boundingBoxes[i]), ranges.get(i));
+				}
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		Assertions.assertTrue(tree.findNearestBatch(new Point[0], 5).isEmpty());
+		Assertions.assertTrue(new KDTree<String, Object>().findInRangeBatch(boundingBoxes).stream()
+				.allMatch(List::isEmpty));
+	}
+
+	@Test
+	public void testParallelSearches_matchSequentialSearches() {
+		Random random = new Random(19);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(Math.round((25 + random.nextDouble()) * 100) / 100.0)
+					.longitude(Math.round((55 + random.nextDouble()) * 100) / 100.0)
+					.build());
+		}
+		// A degenerate tree as well, built from monotonic insertions
+		KDTree<String, Object> degenerateTree = new KDTree<>();
+		objects.stream()
+				.sorted(Comparator.comparingDouble((KDTreeObject<String, Object> object) ->
+						object.getPoint().getLatitude()))
+				.limit(2000)
+				.forEach(degenerateTree::insert);
+
+		Point point = new Builder()
+				.latitude(25.5)
+				.longitude(55.5)
+				.build();
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(new Builder().latitude(25.1).longitude(55.2).build())
+				.upperPoint(new Builder().latitude(25.9).longitude(55.7).build())
+				.build();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (KDTree<String, Object> tree : Arrays.asList(KDTree.bulkLoad(objects), degenerateTree,
+					new KDTree<String, Object>())) {
+				List<String> expectedIds = sortedIds(tree.findInRange(boundingBox));
+				Assertions.assertEquals(expectedIds, sortedIds(tree.findInRangeParallel(boundingBox, pool)));
+				Assertions.assertEquals(expectedIds, sortedIds(
+						StreamSupport.stream(tree.spliterator(boundingBox), true).collect(Collectors.toList())));
+
+				List<String> expectedNeighborIds = sortedIds(tree.findNearestNeighbor(point, 30));
+				Assertions.assertEquals(expectedNeighborIds,
+						sortedIds(tree.findNearestNeighborParallel(point, 30, pool)));
+				Assertions.assertEquals(expectedNeighborIds, sortedIds(
+						StreamSupport.stream(tree.spliterator(point, 30), true).collect(Collectors.toList())));
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testAntimeridianSearches_streamsAndBatchesMatchSearches() {
+		Random random = new Random(43);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			// Around Fiji, on both sides of the antimeridian
+			double longitude = 176 + 8 * random.nextDouble();
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(-20 + 4 * random.nextDouble())
+					.longitude(longitude > 180 ? longitude - 360 : longitude)
+					.build());
+		}
+		KDTree<String, Object> tree = KDTree.bulkLoad(objects);
+
+		Point[] points = new Point[100];
+		BoundingBox[] boundingBoxes = new BoundingBox[points.length];
+		for (int i = 0; i < points.length; i++) {
+			double longitude = 178 + 4 * random.nextDouble();
+			points[i] = new Builder()
+					.latitude(-20 + 4 * random.nextDouble())
+					.longitude(longitude > 180 ? longitude - 360 : longitude)
+					.build();
+			// From west of the antimeridian to east of it
+			boundingBoxes[i] = new BoundingBox.Builder()
+					.lowerPoint(new Builder()
+							.latitude(points[i].getLatitude() - 0.5)
+							.longitude(179 + random.nextDouble())
+							.build())
+					.upperPoint(new Builder()
+							.latitude(points[i].getLatitude() + 0.5)
+							.longitude(-180 + random.nextDouble())
+							.build())
+					.build();
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			List<List<KDTreeObject<String, Object>>> ranges = tree.findInRangeBatch(boundingBoxes, pool);
+			for (int i = 0; i < points.length; i++) {
+				List<String> expectedIds = sortedIds(tree.findInRange(boundingBoxes[i]));
+				Assertions.assertFalse(expectedIds.isEmpty());
+				Assertions.assertEquals(expectedIds, sortedIds(ranges.get(i)));
+				Assertions.assertEquals(expectedIds,
+						sortedIds(tree.streamInRange(boundingBoxes[i]).collect(Collectors.toList())));
+				Assertions.assertEquals(expectedIds, sortedIds(tree.findInRangeParallel(boundingBoxes[i], pool)));
+
+				List<String> expectedNeighborIds = sortedIds(tree.findNearestNeighbor(points[i], 100));
+				Assertions.assertFalse(expectedNeighborIds.isEmpty());
+				Assertions.assertEquals(expectedNeighborIds,
+						sortedIds(tree.streamNearestNeighbor(points[i], 100).collect(Collectors.toList())));
+				Assertions.assertEquals(expectedNeighborIds,
+						sortedIds(tree.findNearestNeighborParallel(points[i], 100, pool)));
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testStreams_matchSearchesLazily() {
+		Random random = new Random(23);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(25 + random.nextDouble())
+					.longitude(55 + random.nextDouble())
+					.build());
+		}
+		KDTree<String, Object> tree = KDTree.bulkLoad(objects);
+		Point point = new Builder()
+				.latitude(25.5)
+				.longitude(55.5)
+				.build();
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(new Builder().latitude(25.2).longitude(55.2).build())
+				.upperPoint(new Builder().latitude(25.8).longitude(55.8).build())
+				.build();
+
+		// Same objects in the same order, and pages are prefixes of the results
+		List<KDTreeObject<String, Object>> inRange = tree.findInRange(boundingBox);
+		Assertions.assertEquals(inRange, tree.streamInRange(boundingBox).collect(Collectors.toList()));
+		Assertions.assertEquals(inRange.subList(20, 40),
+				tree.streamInRange(boundingBox).skip(20).limit(20).collect(Collectors.toList()));
+		List<KDTreeObject<String, Object>> nearestNeighbors = tree.findNearestNeighbor(point, 20);
+		Assertions.assertEquals(nearestNeighbors,
+				tree.streamNearestNeighbor(point, 20).collect(Collectors.toList()));
+
+		// The stream is searched on demand, so it sees the moves applied before it is consumed further
+		Iterator<KDTreeObject<String, Object>> iterator = tree.streamInRange(boundingBox).iterator();
+		Assertions.assertSame(inRange.get(0), iterator.next());
+		KDTreeObject<String, Object> last = inRange.get(inRange.size() - 1);
+		tree.update(last.getId(), "data");
+		KDTreeObject<String, Object> object = null;
+		while (iterator.hasNext()) {
+			object = iterator.next();
+		}
+		Assertions.assertEquals("data", object.getData());
+
+		Assertions.assertFalse(new KDTree<String, Object>().streamInRange(boundingBox).findAny().isPresent());
+	}
+
+	@Test
+	public void testStreamsAcrossTheAntimeridian_matchSearchesInOrder() {
+		Random random = new Random(29);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			// Around Fiji, on both sides of the antimeridian
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(-20 + 4 * random.nextDouble())
+					.longitude(random.nextBoolean() ? 178 + 2 * random.nextDouble() : -180 + 2 * random.nextDouble())
+					.build());
+		}
+		KDTree<String, Object> tree = KDTree.bulkLoad(objects);
+		Point point = new Builder()
+				.latitude(-18)
+				.longitude(179.9)
+				.build();
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(new Builder().latitude(-19).longitude(179).build())
+				.upperPoint(new Builder().latitude(-17).longitude(-179).build())
+				.build();
+
+		List<KDTreeObject<String, Object>> inRange = tree.findInRange(boundingBox);
+		Assertions.assertEquals(inRange, tree.streamInRange(boundingBox).collect(Collectors.toList()));
+		Assertions.assertEquals(inRange.subList(20, 40),
+				tree.streamInRange(boundingBox).skip(20).limit(20).collect(Collectors.toList()));
+		List<KDTreeObject<String, Object>> nearestNeighbors = tree.findNearestNeighbor(point, 50);
+		Assertions.assertEquals(nearestNeighbors,
+				tree.streamNearestNeighbor(point, 50).collect(Collectors.toList()));
+		Assertions.assertEquals(sortedIds(nearestNeighbors),
+				sortedIds(tree.findNearestNeighborParallel(point, 50, ForkJoinPool.commonPool())));
+	}
+
+	@Test
+	public void testSpliterator_splitsIntoDisjointParts() {
+		KDTree<String, Object> tree = KDTree.bulkLoad(copy(Arrays.asList(
+				new KDTreeObject.Builder<String, Object>().id("1").latitude(25.1).longitude(55.1).build(),
+				new KDTreeObject.Builder<String, Object>().id("2").latitude(25.2).longitude(55.2).build(),
+				new KDTreeObject.Builder<String, Object>().id("3").latitude(25.3).longitude(55.3).build(),
+				new KDTreeObject.Builder<String, Object>().id("4").latitude(25.4).longitude(55.4).build(),
+				new KDTreeObject.Builder<String, Object>().id("5").latitude(25.5).longitude(55.5).build())));
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(new Builder().latitude(25).longitude(55).build())
+				.upperPoint(new Builder().latitude(26).longitude(56).build())
+				.build();
+
+		Spliterator<KDTreeObject<String, Object>> spliterator = tree.spliterator(boundingBox);
+		Assertions.assertEquals(5, spliterator.estimateSize());
+		Spliterator<KDTreeObject<String, Object>> split = spliterator.trySplit();
+		Assertions.assertNotNull(split);
+		Assertions.assertEquals(5, spliterator.estimateSize() + split.estimateSize());
+
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		spliterator.forEachRemaining(objects::add);
+		split.forEachRemaining(objects::add);
+		Assertions.assertEquals(Arrays.asList("1", "2", "3", "4", "5"), sortedIds(objects));
+		Assertions.assertFalse(spliterator.tryAdvance(objects::add));
+	}
+
+	private static List<String> sortedIds(List<KDTreeObject<String, Object>> objects) {
+		return objects.stream()
+				.map(KDTreeObject::getId)
+				.sorted()
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void testFindKNearest_throwsForInvalidK() {
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> this.kdTree.findKNearest(new Builder().build(), 0, 2));
+
+		Assertions.assertEquals("k must be greater than 0", geoAssistException.getMessage());
+	}
+
+	@Test
+	public void testEquirectangularMetric_findsSameNeighborsAsHaversine() {
+		KDTree<String, Object> kdTree = new KDTree.Builder<String, Object>()
+				.distanceMetric(DistanceMetric.EQUIRECTANGULAR)
+				.build();
+		init(kdTree, new String[] {
+				"25.1967512,55.2732038",
+				"25.1962077,55.2714443",
+				"25.1954312,55.2811432",
+				"25.1903843,55.2798557",
+				"25.2002450,55.2734184",
+				"25.2028848,55.2783966",
+				"25.2012544,55.2569389",
+				"25.1644242,55.2450943",
+				"25.0763827,55.1616669"
+		});
+		Point point = new Builder()
+				.latitude(25.2028848)
+				.longitude(55.289930)
+				.build();
+
+		KDTreeNearestNeighbor<String, Object> nearestNeighbor = kdTree.findNearest(point, 2);
+
+		Assertions.assertEquals("6", nearestNeighbor.getKdTreeObject().getId());
+		Assertions.assertEquals(1.1603729958857059, nearestNeighbor.getDistance(), 1e-6);
+		Assertions.assertEquals(
+				this.kdTree.findNearestNeighbor(point, 2).stream().map(KDTreeObject::getId)
+						.sorted().collect(Collectors.toList()),
+				kdTree.findNearestNeighbor(point, 2).stream().map(KDTreeObject::getId)
+						.sorted().collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testDistanceMetric_distance() {
+		Point point1 = new Builder()
+				.latitude(51.5007)
+				.longitude(0.1246)
+				.build();
+		Point point2 = new Builder()
+				.latitude(40.6892)
+				.longitude(74.0445)
+				.build();
+
+		Assertions.assertEquals(haversine(point1, point2),
+				DistanceMetric.HAVERSINE.distance(point1, point2), 1e-9);
+		Assertions.assertEquals(0.0, DistanceMetric.EQUIRECTANGULAR.distance(point1, point1));
+		Assertions.assertEquals(DistanceMetric.HAVERSINE.distance(point1, point1), 0.0);
+	}
+
+	@Test
+	public void testBuilder_throwsForNullDistanceMetric() {
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> new KDTree.Builder<String, Object>().distanceMetric(null).build());
+
+		Assertions.assertEquals("distanceMetric can not be null", geoAssistException.getMessage());
+	}
+
 	@Test
 	public void testBalancing() {
 
@@ -168,6 +939,50 @@ public class TestKDTree {
 		Assertions.assertTrue(afterBalancing);
 	}
 
+	@Test
+	public void testDegenerateTree_isSearchedWithoutRecursion() throws InterruptedException {
+
+		// A trace monotonic in both dimensions builds a single chain of nodes
+		KDTree<String, Object> kdTree = new KDTree<>();
+		for (int i = 0; i < 10000; i++) {
+			kdTree.insert(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(24 + i * 0.0001)
+					.longitude(55 + i * 0.0001)
+					.build());
+		}
+		Point point = new Builder()
+				.latitude(24.5)
+				.longitude(55.5)
+				.build();
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(new Point.Builder()
+						.latitude(24)
+						.longitude(55)
+						.build())
+				.upperPoint(new Point.Builder()
+						.latitude(25)
+						.longitude(56)
+						.build())
+				.build();
+
+		// Run the searches on a thread with a stack far too small to recurse through the chain
+		List<Object> results = new ArrayList<>();
+		Thread thread = new Thread(null, () -> {
+			results.add(kdTree.isBalanced());
+			results.add(kdTree.findInRange(boundingBox).size());
+			results.add(kdTree.findNearestNeighbor(point, 1).size());
+			results.add(kdTree.findNearest(point, 1).getKdTreeObject().getId());
+			results.add(kdTree.findKNearest(point, 3, 1).size());
+			kdTree.balance();
+			results.add(kdTree.isBalanced());
+		}, "small-stack", 128 * 1024);
+		thread.start();
+		thread.join();
+
+		Assertions.assertEquals(Arrays.asList(false, 10000, 133, "5000", 3, true), results);
+	}
+
 	@Test
 	public void testBoundingBoxSearch_returnsAllObjectsWithinBounds() {
 
@@ -273,6 +1088,376 @@ public class TestKDTree {
 				objects);
 	}
 
+	@Test
+	public void testBoundingBoxSearchWithVisitor_stopsWhenVisitorReturnsFalse() {
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(new Point.Builder()
+						.latitude(25)
+						.longitude(55)
+						.build())
+				.upperPoint(new Point.Builder()
+						.latitude(25.5)
+						.longitude(55.5)
+						.build())
+				.build();
+
+		List<KDTreeObject<String, Object>> all = new ArrayList<>();
+		Assertions.assertTrue(this.kdTree.findInRange(boundingBox, all::add));
+		Assertions.assertEquals(this.kdTree.findInRange(boundingBox), all);
+		Assertions.assertEquals(9, all.size());
+
+		List<KDTreeObject<String, Object>> visited = new ArrayList<>();
+		boolean completed = this.kdTree.findInRange(boundingBox, kdTreeObject -> {
+			visited.add(kdTreeObject);
+			return visited.size() < 3;
+		});
+
+		Assertions.assertFalse(completed);
+		Assertions.assertEquals(all.subList(0, 3), visited);
+	}
+
+	@Test
+	public void testBulkLoad_returnsBalancedTreeWithAllObjects() {
+
+		Random random = new Random(42);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(24.8 + random.nextDouble() * 0.2)
+					.longitude(66.9 + random.nextDouble() * 0.2)
+					.build());
+		}
+
+		KDTree<String, Object> kdTree = KDTree.bulkLoad(objects);
+
+		Assertions.assertEquals(1000, kdTree.getSize());
+		Assertions.assertTrue(kdTree.isBalanced());
+		Assertions.assertEquals("500", kdTree.getById("500").getId());
+
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(new Point.Builder()
+						.latitude(24.85)
+						.longitude(66.95)
+						.build())
+				.upperPoint(new Point.Builder()
+						.latitude(24.95)
+						.longitude(67.05)
+						.build())
+				.build();
+
+		KDTree<String, Object> insertedTree = new KDTree<>();
+		objects.forEach(insertedTree::insert);
+
+		Assertions.assertFalse(insertedTree.findInRange(boundingBox).isEmpty());
+		Assertions.assertEquals(
+				insertedTree.findInRange(boundingBox).stream().map(KDTreeObject::getId)
+						.sorted().collect(Collectors.toList()),
+				kdTree.findInRange(boundingBox).stream().map(KDTreeObject::getId)
+						.sorted().collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testBulkLoad_throwsForDuplicateId() {
+		List<KDTreeObject<String, Object>> objects = Arrays.asList(
+				new KDTreeObject.Builder<String, Object>()
+						.id("1")
+						.latitude(25.1967512)
+						.longitude(55.2732038)
+						.build(),
+				new KDTreeObject.Builder<String, Object>()
+						.id("1")
+						.latitude(25.1962077)
+						.longitude(55.2714443)
+						.build());
+
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> KDTree.bulkLoad(objects));
+
+		Assertions.assertEquals("Duplicate object provided.", geoAssistException.getMessage());
+	}
+
+	@Test
+	public void testParallelBuild_producesSameTreeAsSequentialBuild() {
+
+		Random random = new Random(7);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(-60 + random.nextDouble() * 120)
+					.longitude(-170 + random.nextDouble() * 340)
+					.build());
+		}
+
+		KDTree<String, Object> parallelTree = new KDTree.Builder<String, Object>()
+				.parallelBuildThreshold(64)
+				.objects(objects)
+				.build();
+		KDTree<String, Object> sequentialTree = KDTree.bulkLoad(objects);
+
+		KDTree<String, Object> rebalancedTree = new KDTree.Builder<String, Object>()
+				.parallelBuildThreshold(64)
+				.build();
+		objects.forEach(rebalancedTree::insert);
+		rebalancedTree.balance();
+
+		Assertions.assertTrue(parallelTree.isBalanced());
+		Assertions.assertTrue(rebalancedTree.isBalanced());
+		Assertions.assertEquals(5000, parallelTree.getSize());
+
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(new Point.Builder()
+						.latitude(-10)
+						.longitude(-20)
+						.build())
+				.upperPoint(new Point.Builder()
+						.latitude(30)
+						.longitude(40)
+						.build())
+				.build();
+
+		List<KDTreeObject<String, Object>> expected = sequentialTree.findInRange(boundingBox);
+		Assertions.assertEquals(expected, parallelTree.findInRange(boundingBox));
+		Assertions.assertEquals(expected, rebalancedTree.findInRange(boundingBox));
+	}
+
+	@Test
+	public void testBalanceFactor_keepsMonotonicInsertionsShallow() {
+		KDTree<String, Object> kdTree = new KDTree.Builder<String, Object>()
+				.balanceFactor(0.7)
+				.build();
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			// A trace monotonic in both dimensions, which builds a single chain without rebuilds
+			KDTreeObject<String, Object> object = new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(24 + i * 0.00001)
+					.longitude(55 + i * 0.00001)
+					.build();
+			objects.add(object);
+			kdTree.insert(object);
+		}
+
+		Assertions.assertEquals(20000, kdTree.getSize());
+		Assertions.assertTrue(kdTree.getDepth() <= Math.log(20000) / -Math.log(0.7) + 1);
+
+		KDTree<String, Object> bulkLoadedTree = KDTree.bulkLoad(objects);
+		Point point = new Builder()
+				.latitude(24.1)
+				.longitude(55.1)
+				.build();
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(point)
+				.upperPoint(new Point.Builder()
+						.latitude(24.15)
+						.longitude(55.15)
+						.build())
+				.build();
+		Assertions.assertEquals(
+				bulkLoadedTree.findInRange(boundingBox).stream().map(KDTreeObject::getId)
+						.sorted().collect(Collectors.toList()),
+				kdTree.findInRange(boundingBox).stream().map(KDTreeObject::getId)
+						.sorted().collect(Collectors.toList()));
+		Assertions.assertEquals("10000", kdTree.findNearest(point, 1).getKdTreeObject().getId());
+		Assertions.assertEquals(3, kdTree.findKNearest(point, 3, 1).size());
+	}
+
+	@Test
+	public void testBalanceFactor_keepsRandomInsertionsSearchable() throws Exception {
+		Random random = new Random(3);
+		KDTree<String, Object> kdTree = new KDTree.Builder<String, Object>()
+				.balanceFactor(0.6)
+				.build();
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			// Round the coordinates, for many points to share a latitude or longitude
+			KDTreeObject<String, Object> object = new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.latitude(Math.round((25 + random.nextDouble()) * 100) / 100.0)
+					.longitude(Math.round((55 + random.nextDouble()) * 100) / 100.0)
+					.build();
+			objects.add(object);
+			kdTree.insert(object);
+		}
+		KDTree<String, Object> bulkLoadedTree = KDTree.bulkLoad(objects);
+
+		// The subtree sizes and the balance factor are restored along with the tree,
+		// so it keeps being balanced as more objects are inserted
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+			objectOut.writeObject(kdTree);
+		}
+		KDTree<String, Object> loadedTree;
+		try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			@SuppressWarnings("unchecked")
+			KDTree<String, Object> readTree = (KDTree<String, Object>) objectIn.readObject();
+			loadedTree = readTree;
+		}
+		for (int i = 0; i < 5000; i++) {
+			loadedTree.insert(new KDTreeObject.Builder<String, Object>()
+					.id("monotonic-" + i)
+					.latitude(27 + i * 0.0001)
+					.longitude(57 + i * 0.0001)
+					.build());
+		}
+		Assertions.assertTrue(loadedTree.getDepth() <= Math.log(10000) / -Math.log(0.6) + 1);
+
+		Assertions.assertTrue(kdTree.getDepth() <= Math.log(5000) / -Math.log(0.6) + 1);
+		for (KDTree<String, Object> tree : Arrays.asList(kdTree, loadedTree)) {
+			for (int i = 0; i < 20; i++) {
+				Point point = new Point.Builder()
+						.latitude(25 + random.nextDouble())
+						.longitude(55 + random.nextDouble())
+						.build();
+				BoundingBox boundingBox = new BoundingBox.Builder()
+						.lowerPoint(point)
+						.upperPoint(new Point.Builder()
+								.latitude(point.getLatitude() + 0.1)
+								.longitude(point.getLongitude() + 0.1)
+								.build())
+						.build();
+				Assertions.assertEquals(
+						bulkLoadedTree.findInRange(boundingBox).stream().map(KDTreeObject::getId)
+								.sorted().collect(Collectors.toList()),
+						tree.findInRange(boundingBox).stream().map(KDTreeObject::getId)
+								.sorted().collect(Collectors.toList()));
+				Assertions.assertEquals(bulkLoadedTree.findNearest(point, 5).getDistance(),
+						tree.findNearest(point, 5).getDistance());
+			}
+		}
+	}
+
+	@Test
+	public void testBuilder_throwsForInvalidBalanceFactor() {
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> new KDTree.Builder<String, Object>().balanceFactor(0.5).build());
+
+		Assertions.assertEquals("balanceFactor must be between 0.5 and 1, or 0",
+				geoAssistException.getMessage());
+	}
+
+	@Test
+	public void testBuilder_throwsForNegativeParallelBuildThreshold() {
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> new KDTree.Builder<String, Object>().parallelBuildThreshold(-1).build());
+
+		Assertions.assertEquals("parallelBuildThreshold can not be negative",
+				geoAssistException.getMessage());
+	}
+
+	@Test
+	public void testWriteToAndReadFrom_preserveShapeAndObjects() throws IOException {
+		Random random = new Random(11);
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			objects.add(new KDTreeObject.Builder<String, Object>()
+					.id(i % 10 == 0 ? null : String.valueOf(i))
+					.latitude(24.8 + random.nextDouble() * 0.2)
+					.longitude(66.9 + random.nextDouble() * 0.2)
+					.build());
+		}
+		KDTree<String, Object> kdTree = KDTree.bulkLoad(objects);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		kdTree.writeTo(out, KDTreeSerializer.strings(), KDTreeSerializer.none());
+		KDTree<String, Object> loadedTree = KDTree.readFrom(new ByteArrayInputStream(out.toByteArray()),
+				KDTreeSerializer.strings(), KDTreeSerializer.none());
+
+		Assertions.assertEquals(5000, loadedTree.getSize());
+		Assertions.assertTrue(loadedTree.isBalanced());
+		Assertions.assertEquals(25.0, Math.rint(loadedTree.getById("4999").getPoint().getLatitude()));
+
+		// The same shape visits the objects in the same order
+		BoundingBox boundingBox = new BoundingBox.Builder()
+				.lowerPoint(new Point.Builder()
+						.latitude(24.85)
+						.longitude(66.95)
+						.build())
+				.upperPoint(new Point.Builder()
+						.latitude(24.95)
+						.longitude(67.05)
+						.build())
+				.build();
+		Assertions.assertEquals(
+				kdTree.findInRange(boundingBox).stream().map(object -> object.getPoint().getLatitude())
+						.collect(Collectors.toList()),
+				loadedTree.findInRange(boundingBox).stream().map(object -> object.getPoint().getLatitude())
+						.collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testWriteToAndReadFrom_handleDegenerateTree() throws IOException {
+		KDTree<String, Object> kdTree = new KDTree<>();
+		for (int i = 0; i < 10000; i++) {
+			kdTree.insert(new KDTreeObject.Builder<String, Object>()
+					.id(String.valueOf(i))
+					.data(i)
+					.latitude(i / 1000.0)
+					.longitude(i / 1000.0)
+					.build());
+		}
+
+		KDTreeSerializer<Object> dataSerializer = new KDTreeSerializer<Object>() {
+			@Override
+			public void write(DataOutput out, Object value) throws IOException {
+				out.writeInt((Integer) value);
+			}
+
+			@Override
+			public Object read(DataInput in) throws IOException {
+				return in.readInt();
+			}
+		};
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		kdTree.writeTo(out, KDTreeSerializer.strings(), dataSerializer);
+		KDTree<String, Object> loadedTree = KDTree.readFrom(new ByteArrayInputStream(out.toByteArray()),
+				KDTreeSerializer.strings(), dataSerializer);
+
+		Assertions.assertEquals(10000, loadedTree.getSize());
+		Assertions.assertFalse(loadedTree.isBalanced());
+		Assertions.assertEquals(9999, loadedTree.getById("9999").getData());
+		Assertions.assertEquals(9.999, loadedTree.getById("9999").getPoint().getLatitude());
+	}
+
+	@Test
+	public void testReadFrom_throwsForUnsupportedFormat() {
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> KDTree.readFrom(new ByteArrayInputStream(new byte[16]),
+						KDTreeSerializer.strings(), KDTreeSerializer.none()));
+
+		Assertions.assertEquals("Unsupported KDTree format", geoAssistException.getMessage());
+	}
+
+	@Test
+	public void testJavaSerialization_preservesObjectsAndConfiguration() throws Exception {
+		KDTree<String, Object> kdTree = new KDTree.Builder<String, Object>()
+				.distanceMetric(DistanceMetric.EQUIRECTANGULAR)
+				.build();
+		init(kdTree, new String[] {"25.1967512,55.2732038", "25.1962077,55.2714443", "25.1954312,55.2811432"});
+		kdTree.update("2", "data");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+			objectOut.writeObject(kdTree);
+		}
+		KDTree<String, Object> loadedTree;
+		try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			@SuppressWarnings("unchecked")
+			KDTree<String, Object> readTree = (KDTree<String, Object>) objectIn.readObject();
+			loadedTree = readTree;
+		}
+
+		Assertions.assertEquals(3, loadedTree.getSize());
+		Assertions.assertEquals("data", loadedTree.getById("2").getData());
+		Assertions.assertEquals(DistanceMetric.EQUIRECTANGULAR, loadedTree.getDistanceMetric());
+		Point point = new Point.Builder()
+				.latitude(25.1962077)
+				.longitude(55.2714443)
+				.build();
+		Assertions.assertEquals("2", loadedTree.findNearest(point, 1).getKdTreeObject().getId());
+	}
+
 	private void assertBoundingBoxSearch(List<String> expectedIDs,
 			List<KDTreeObject<String, Object>> objects) {
 
@@ -285,6 +1470,16 @@ public class TestKDTree {
 		}
 	}
 
+	private static double haversine(Point point1, Point point2) {
+		double dLat = Math.toRadians(point2.getLatitude() - point1.getLatitude());
+		double dLon = Math.toRadians(point2.getLongitude() - point1.getLongitude());
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+				+ Math.sin(dLon / 2) * Math.sin(dLon / 2)
+				* Math.cos(Math.toRadians(point1.getLatitude()))
+				* Math.cos(Math.toRadians(point2.getLatitude()));
+		return 6371 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+	}
+
 	@Test
 	public void testSizeWhenIdIsNotProvided() {
 		KDTree<String, Object> kdTree = new KDTree<>();
@@ -327,6 +1522,10 @@ public class TestKDTree {
 	}
 
 	public static void init(KDTree<String, Object> kdTree, String[] coordinates) {
+		init(kdTree::insert, coordinates);
+	}
+
+	public static void init(Consumer<KDTreeObject<String, Object>> insert, String[] coordinates) {
 		for (int i = 0; i < coordinates.length; i++) {
 			String[] point = coordinates[i].split(",");
 
@@ -334,7 +1533,7 @@ public class TestKDTree {
 				throw new RuntimeException("Incorrect geo data provided.");
 			}
 
-			kdTree.insert(new KDTreeObject.Builder<String, Object>()
+			insert.accept(new KDTreeObject.Builder<String, Object>()
 					.id(String.valueOf(i + 1))
 					.latitude(Double.parseDouble(point[0].trim()))
 					.longitude(Double.parseDouble(point[1].trim()))
@@ -0,0 +1,105 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The TestMappedKDTree class is a test class for the MappedKDTree.
+ * It is used to test that an index file written and mapped again
+ * returns the same results as the KDTree.
+ *
+ * @author The Geeky Asian
+ */
+public class TestMappedKDTree {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testSearches_matchKDTree() throws IOException {
+		Random random = new Random(11);
+		List<KDTreeObject<Long, Object>> objects = new ArrayList<>();
+		for (long i = 0; i < 5000; i++) {
+			objects.add(new KDTreeObject.Builder<Long, Object>()
+					.id(i * 1_000_000_007L)
+					.latitude(25 + random.nextDouble())
+					.longitude(55 + random.nextDouble())
+					.build());
+		}
+		Path path = this.directory.resolve("index.kdt");
+		MappedKDTree.write(path, objects);
+		MappedKDTree mappedKDTree = MappedKDTree.open(path);
+		KDTree<Long, Object> kdTree = KDTree.bulkLoad(objects);
+
+		Assertions.assertEquals(5000, mappedKDTree.getSize());
+		Assertions.assertEquals(16 + 5000 * 24, Files.size(path));
+		for (int i = 0; i < 50; i++) {
+			Point point = new Point.Builder()
+					.latitude(25 + random.nextDouble())
+					.longitude(55 + random.nextDouble())
+					.build();
+			BoundingBox boundingBox = new BoundingBox.Builder()
+					.lowerPoint(point)
+					.upperPoint(new Point.Builder()
+							.latitude(point.getLatitude() + 0.1)
+							.longitude(point.getLongitude() + 0.1)
+							.build())
+					.build();
+
+			Assertions.assertEquals(ids(kdTree.findNearestNeighbor(point, 5)),
+					ids(mappedKDTree.findNearestNeighbor(point, 5)));
+			Assertions.assertEquals(ids(kdTree.findInRange(boundingBox)),
+					ids(mappedKDTree.findInRange(boundingBox)));
+			Assertions.assertEquals(kdTree.findNearest(point, 5).getKdTreeObject().getId(),
+					mappedKDTree.findNearest(point, 5).getKdTreeObject().getId());
+		}
+	}
+
+	@Test
+	public void testEmptyIndex() throws IOException {
+		Path path = this.directory.resolve("empty.kdt");
+		MappedKDTree.write(path, Collections.emptyList());
+		MappedKDTree mappedKDTree = MappedKDTree.open(path, DistanceMetric.EQUIRECTANGULAR);
+
+		Assertions.assertEquals(0, mappedKDTree.getSize());
+		Assertions.assertNull(mappedKDTree.findNearest(new Point.Builder().build(), 10).getKdTreeObject());
+	}
+
+	@Test
+	public void testOpen_throwsForInvalidFiles() throws IOException {
+		Path path = this.directory.resolve("invalid.kdt");
+		Files.write(path, new byte[] { 1, 2, 3 });
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> MappedKDTree.open(path));
+		Assertions.assertEquals("Unsupported index file", geoAssistException.getMessage());
+
+		MappedKDTree.write(path, Collections.singletonList(new KDTreeObject.Builder<Long, Object>()
+				.id(1L)
+				.build()));
+		Files.write(path, new byte[] { 0 }, StandardOpenOption.APPEND);
+		geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> MappedKDTree.open(path));
+		Assertions.assertEquals("Corrupted index file", geoAssistException.getMessage());
+	}
+
+	private static List<Long> ids(List<KDTreeObject<Long, Object>> objects) {
+		return objects.stream()
+				.map(KDTreeObject::getId)
+				.sorted()
+				.collect(Collectors.toList());
+	}
+}
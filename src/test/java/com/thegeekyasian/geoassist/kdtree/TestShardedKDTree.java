@@ -0,0 +1,286 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestShardedKDTree class is a test class for the ShardedKDTree.
+ * It is used to test that the searches fanned out to the shards return the same results as a single KDTree,
+ * and that a shard can be moved to another ShardedKDTree.
+ *
+ * @author The Geeky Asian
+ */
+public class TestShardedKDTree extends SpatialIndexConformanceTest {
+
+	@Override
+	protected SpatialIndex<Long, Object> createIndex() {
+		// Small tiles, so that the searches reach several shards, searched on a pool
+		return new ShardedKDTree.Builder<Long, Object>()
+				.tileSize(0.25)
+				.pool(ForkJoinPool.commonPool())
+				.build();
+	}
+
+	@Test
+	public void testSearches_matchKDTree() {
+		Random random = new Random(37);
+		List<KDTreeObject<Long, Object>> objects = new ArrayList<>();
+		for (long i = 0; i < 3000; i++) {
+			objects.add(object(i, 24 + 2 * random.nextDouble(), 54 + 2 * random.nextDouble()));
+		}
+		KDTree<Long, Object> kdTree = new KDTree<>();
+		objects.forEach(kdTree::insert);
+		ShardedKDTree<Long, Object> shardedKDTree = new ShardedKDTree.Builder<Long, Object>()
+				.tileSize(0.5)
+				.balanceFactor(0.7)
+				.objects(objects)
+				.build();
+
+		Assertions.assertEquals(16, shardedKDTree.getShardCount());
+		Assertions.assertEquals(16, shardedKDTree.getShardTiles().size());
+		Assertions.assertEquals(3000, shardedKDTree.getSize());
+		for (int i = 0; i < 50; i++) {
+			Point point = point(24 + 2 * random.nextDouble(), 54 + 2 * random.nextDouble());
+			BoundingBox boundingBox = new BoundingBox.Builder()
+					.lowerPoint(point)
+					.upperPoint(point(point.getLatitude() + 0.3, point.getLongitude() + 0.3))
+					.build();
+			Assertions.assertEquals(sortedIds(kdTree.findInRange(boundingBox)),
+					sortedIds(shardedKDTree.findInRange(boundingBox)));
+			Assertions.assertEquals(sortedIds(kdTree.findNearestNeighbor(point, 30)),
+					sortedIds(shardedKDTree.findNearestNeighbor(point, 30)));
+			Assertions.assertEquals(kdTree.findNearest(point, 50).getDistance(),
+					shardedKDTree.findNearest(point, 50).getDistance());
+		}
+	}
+
+	@Test
+	public void testMoveTo_movesObjectsAcrossShards() {
+		ShardedKDTree<Long, Object> shardedKDTree = new ShardedKDTree.Builder<Long, Object>()
+				.tileSize(1)
+				.build();
+		KDTreeObject<Long, Object> object = object(1L, 25.5, 55.5);
+		shardedKDTree.insert(object);
+		shardedKDTree.update(1L, "data");
+
+		shardedKDTree.moveTo(1L, point(25.6, 55.6));
+		shardedKDTree.moveTo(1L, point(30.5, 60.5));
+
+		// The object itself is moved, as within a shard
+		Assertions.assertSame(object, shardedKDTree.getById(1L));
+		Assertions.assertEquals(60.5, object.getPoint().getLongitude());
+
+		Assertions.assertEquals(1, shardedKDTree.getShardCount());
+		Assertions.assertEquals(1, shardedKDTree.getSize());
+		Assertions.assertEquals("data", shardedKDTree.getById(1L).getData());
+		Assertions.assertEquals(30.5, shardedKDTree.getById(1L).getPoint().getLatitude());
+		Assertions.assertEquals(1, shardedKDTree.findNearestNeighbor(point(30.5, 60.5), 1).size());
+		Assertions.assertTrue(shardedKDTree.findNearestNeighbor(point(25.6, 55.6), 1).isEmpty());
+		Assertions.assertEquals("No object found for provided ID", Assertions.assertThrows(GeoAssistException.class,
+				() -> shardedKDTree.moveTo(2L, point(25, 55))).getMessage());
+	}
+
+	@Test
+	public void testWrites_dropEmptyShardsAndRebuildUnbalancedOnes() {
+		ShardedKDTree<Long, Object> shardedKDTree = new ShardedKDTree.Builder<Long, Object>()
+				.tileSize(1)
+				.balanceFactor(0.7)
+				.build();
+		KDTree<Long, Object> kdTree = new KDTree<>();
+		// Sorted inserts, which unbalance a shard unless it is rebuilt
+		for (long i = 0; i < 500; i++) {
+			KDTreeObject<Long, Object> object = object(i, 25 + i * 0.001, 55 + i * 0.001);
+			shardedKDTree.insert(object);
+			kdTree.insert(object);
+		}
+		shardedKDTree.insert(object(500L, 30.5, 60.5));
+		Assertions.assertEquals(2, shardedKDTree.getShardCount());
+
+		for (int i = 0; i < 20; i++) {
+			Point point = point(25 + i * 0.025, 55 + i * 0.025);
+			Assertions.assertEquals(sortedIds(kdTree.findNearestNeighbor(point, 1)),
+					sortedIds(shardedKDTree.findNearestNeighbor(point, 1)));
+		}
+		shardedKDTree.delete(500L);
+		Assertions.assertEquals(1, shardedKDTree.getShardCount());
+		for (long i = 0; i < 500; i++) {
+			shardedKDTree.moveTo(i, point(40.5, 70.5));
+		}
+		Assertions.assertEquals(1, shardedKDTree.getShardCount());
+		Assertions.assertEquals(500, shardedKDTree.findNearestNeighbor(point(40.5, 70.5), 1).size());
+	}
+
+	@Test
+	public void testConcurrentWrites_leaveEveryObjectInASingleShard() throws InterruptedException {
+		ShardedKDTree<Long, Object> shardedKDTree = new ShardedKDTree.Builder<Long, Object>()
+				.tileSize(1)
+				.build();
+		for (long i = 0; i < 20; i++) {
+			shardedKDTree.insert(object(i, 25.5, 55.5));
+		}
+
+		// Writers move the same objects to different tiles, while the first half of them is deleted
+		List<Throwable> errors = new CopyOnWriteArrayList<>();
+		List<Thread> writers = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			int writer = i;
+			writers.add(new Thread(() -> {
+				Random random = new Random(writer);
+				try {
+					for (int j = 0; j < 5000; j++) {
+						long id = random.nextInt(20);
+						if (writer == 0 && j % 250 == 0 && id < 10) {
+							shardedKDTree.delete(id);
+							continue;
+						}
+						try {
+							shardedKDTree.moveTo(id, point(25.5 + writer, 55.5 + writer));
+						}
+						catch (GeoAssistException ex) {
+							// The object was deleted
+						}
+					}
+				}
+				catch (Throwable ex) {
+					errors.add(ex);
+				}
+			}));
+		}
+		writers.forEach(Thread::start);
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		Assertions.assertEquals(new ArrayList<Throwable>(), errors);
+		List<KDTreeObject<Long, Object>> objects = shardedKDTree.findInRange(new BoundingBox.Builder()
+				.lowerPoint(point(-90, -180))
+				.upperPoint(point(90, 180))
+				.build());
+		Assertions.assertEquals(shardedKDTree.getSize(), objects.size());
+		Assertions.assertEquals(objects.size(), sortedIds(objects).stream().distinct().count());
+		for (long id = 0; id < 20; id++) {
+			KDTreeObject<Long, Object> object = shardedKDTree.getById(id);
+			Assertions.assertEquals(object != null, sortedIds(objects).contains(id));
+			if (object != null) {
+				// The object is found in the shard of its tile
+				Assertions.assertEquals(1, shardedKDTree.findNearestNeighbor(object.getPoint(), 0).stream()
+						.filter(neighbor -> neighbor.getId().equals(object.getId()))
+						.count());
+			}
+		}
+		for (long id = 10; id < 20; id++) {
+			Assertions.assertNotNull(shardedKDTree.getById(id));
+		}
+	}
+
+	@Test
+	public void testWriteShardAndReadShard_moveShardToAnotherTree() throws IOException {
+		ShardedKDTree<Long, Object> shardedKDTree = new ShardedKDTree.Builder<Long, Object>()
+				.tileSize(1)
+				.build();
+		for (long i = 0; i < 100; i++) {
+			shardedKDTree.insert(object(i, 25 + i * 0.001, 55 + (i % 2) * 5));
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		shardedKDTree.writeShard(point(25.5, 55.5), out, KDTreeSerializer.longs(), KDTreeSerializer.none());
+
+		ShardedKDTree<Long, Object> otherTree = new ShardedKDTree.Builder<Long, Object>()
+				.tileSize(1)
+				.build();
+		otherTree.insert(object(0L, 25.9, 55.9));
+		otherTree.readShard(new ByteArrayInputStream(out.toByteArray()), KDTreeSerializer.longs(),
+				KDTreeSerializer.none());
+
+		// The shard replaced the one of its tile
+		Assertions.assertEquals(1, otherTree.getShardCount());
+		Assertions.assertEquals(50, otherTree.getSize());
+		Assertions.assertEquals(25, otherTree.getById(0L).getPoint().getLatitude());
+		Assertions.assertNull(otherTree.getById(1L));
+		Assertions.assertEquals("No shard found for provided point", Assertions.assertThrows(
+				GeoAssistException.class, () -> otherTree.writeShard(point(0, 0), new ByteArrayOutputStream(),
+						KDTreeSerializer.longs(), KDTreeSerializer.none())).getMessage());
+	}
+
+	@Test
+	public void testReadShard_throwsForObjectsOfSeveralTiles() throws IOException {
+		KDTree<Long, Object> kdTree = new KDTree<>();
+		kdTree.insert(object(1L, 25.5, 55.5));
+		kdTree.insert(object(2L, 35.5, 55.5));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		kdTree.writeTo(out, KDTreeSerializer.longs(), KDTreeSerializer.none());
+		ShardedKDTree<Long, Object> shardedKDTree = new ShardedKDTree<>();
+
+		Assertions.assertEquals("A shard must hold the objects of a single tile", Assertions.assertThrows(
+				GeoAssistException.class, () -> shardedKDTree.readShard(new ByteArrayInputStream(out.toByteArray()),
+						KDTreeSerializer.longs(), KDTreeSerializer.none())).getMessage());
+		Assertions.assertEquals(0, shardedKDTree.getSize());
+	}
+
+	@Test
+	public void testReadShard_throwsForIdsOfOtherTilesAndReleasesTheClaimedOnes() throws IOException {
+		KDTree<Long, Object> kdTree = new KDTree<>();
+		for (long i = 0; i < 10; i++) {
+			kdTree.insert(object(i, 25.5, 55.5));
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		kdTree.writeTo(out, KDTreeSerializer.longs(), KDTreeSerializer.none());
+		ShardedKDTree<Long, Object> shardedKDTree = new ShardedKDTree.Builder<Long, Object>()
+				.tileSize(1)
+				.build();
+		shardedKDTree.insert(object(9L, 30.5, 60.5));
+
+		Assertions.assertEquals("Duplicate object provided.", Assertions.assertThrows(
+				GeoAssistException.class, () -> shardedKDTree.readShard(new ByteArrayInputStream(out.toByteArray()),
+						KDTreeSerializer.longs(), KDTreeSerializer.none())).getMessage());
+		Assertions.assertEquals(1, shardedKDTree.getSize());
+		Assertions.assertEquals(30.5, shardedKDTree.getById(9L).getPoint().getLatitude());
+		// The IDs claimed before the duplicate was found can be inserted
+		shardedKDTree.insert(object(0L, 25.5, 55.5));
+		Assertions.assertEquals(2, shardedKDTree.getSize());
+	}
+
+	@Test
+	public void testBuilder_throwsForInvalidConfiguration() {
+		Assertions.assertEquals("tileSize must be greater than 0 and at most 180",
+				Assertions.assertThrows(GeoAssistException.class,
+						() -> new ShardedKDTree.Builder<Long, Object>().tileSize(-1).build()).getMessage());
+		Assertions.assertEquals("balanceFactor must be between 0.5 and 1, or 0",
+				Assertions.assertThrows(GeoAssistException.class,
+						() -> new ShardedKDTree.Builder<Long, Object>().balanceFactor(2).build()).getMessage());
+	}
+
+	private static List<Long> sortedIds(List<KDTreeObject<Long, Object>> objects) {
+		return objects.stream()
+				.map(KDTreeObject::getId)
+				.sorted()
+				.collect(Collectors.toList());
+	}
+
+	private static KDTreeObject<Long, Object> object(long id, double latitude, double longitude) {
+		return new KDTreeObject.Builder<Long, Object>()
+				.id(id)
+				.latitude(latitude)
+				.longitude(longitude)
+				.build();
+	}
+
+	private static Point point(double latitude, double longitude) {
+		return new Point.Builder()
+				.latitude(latitude)
+				.longitude(longitude)
+				.build();
+	}
+}
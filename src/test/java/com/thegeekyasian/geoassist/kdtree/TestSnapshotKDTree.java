@@ -0,0 +1,209 @@
+package com.thegeekyasian.geoassist.kdtree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestSnapshotKDTree class is a test class for the SnapshotKDTree.
+ * It is used to test that the searches see the writes held in the delta,
+ * and that the writes are kept when the tree is rebuilt.
+ *
+ * @author The Geeky Asian
+ */
+public class TestSnapshotKDTree extends SpatialIndexConformanceTest {
+
+	private static final Point POINT = new Point.Builder()
+			.latitude(25.2012544)
+			.longitude(55.2569389)
+			.build();
+
+	private static final BoundingBox BOUNDING_BOX = new BoundingBox.Builder()
+			.lowerPoint(new Point.Builder()
+					.latitude(25.19)
+					.longitude(55.25)
+					.build())
+			.upperPoint(new Point.Builder()
+					.latitude(25.21)
+					.longitude(55.29)
+					.build())
+			.build();
+
+	@Override
+	protected SpatialIndex<Long, Object> createIndex() {
+		return new SnapshotKDTree<>();
+	}
+
+	@Test
+	public void testSearches_seeTheDelta() {
+		SnapshotKDTree<String, Object> kdTree = new SnapshotKDTree.Builder<String, Object>()
+				.kdTree(KDTree.bulkLoad(objects(
+						"25.1967512,55.2732038",
+						"25.1962077,55.2714443",
+						"25.1954312,55.2811432")))
+				.maxDeltaSize(0)
+				.build();
+
+		kdTree.insert(object("4", 25.2012544, 55.2569389));
+		Assertions.assertTrue(kdTree.delete("1"));
+		Assertions.assertFalse(kdTree.delete("1"));
+		kdTree.update("2", "data");
+
+		Assertions.assertEquals(3, kdTree.getSize());
+		Assertions.assertNull(kdTree.getById("1"));
+		Assertions.assertEquals("data", kdTree.getById("2").getData());
+		Assertions.assertEquals("4", kdTree.findNearest(POINT, 2).getKdTreeObject().getId());
+		Assertions.assertEquals("[4, 2]", kdTree.findKNearest(POINT, 2, 2).stream()
+				.map(nearestNeighbor -> nearestNeighbor.getKdTreeObject().getId())
+				.collect(Collectors.toList())
+				.toString());
+		Assertions.assertEquals("[2, 4]", ids(kdTree.findNearestNeighbor(POINT, 2)));
+		Assertions.assertEquals("[2, 3, 4]", ids(kdTree.findInRange(BOUNDING_BOX)));
+		Assertions.assertEquals("[2, 4]", ids(kdTree.streamNearestNeighbor(POINT, 2).collect(Collectors.toList())));
+		Assertions.assertEquals("[2, 3, 4]", ids(kdTree.streamInRange(BOUNDING_BOX).collect(Collectors.toList())));
+
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> kdTree.insert(object("2", 0, 0)));
+		Assertions.assertEquals("Duplicate object provided.", geoAssistException.getMessage());
+	}
+
+	@Test
+	public void testStreams_keepSearchingTheirSnapshot() {
+		SnapshotKDTree<String, Object> kdTree = new SnapshotKDTree.Builder<String, Object>()
+				.kdTree(KDTree.bulkLoad(objects(
+						"25.1967512,55.2732038",
+						"25.1962077,55.2714443",
+						"25.1954312,55.2811432")))
+				.maxDeltaSize(0)
+				.build();
+
+		Stream<KDTreeObject<String, Object>> stream = kdTree.streamInRange(BOUNDING_BOX);
+		kdTree.insert(object("4", 25.2012544, 55.2569389));
+		Assertions.assertTrue(kdTree.delete("1"));
+
+		Assertions.assertEquals("[1, 2, 3]", ids(stream.collect(Collectors.toList())));
+		Assertions.assertEquals("[2, 3, 4]", ids(kdTree.streamInRange(BOUNDING_BOX).collect(Collectors.toList())));
+	}
+
+	@Test
+	public void testBalance_keepsTheWritesAppliedDuringTheRebuild() {
+		Queue<Runnable> tasks = new ArrayDeque<>();
+		SnapshotKDTree<String, Object> kdTree = new SnapshotKDTree.Builder<String, Object>()
+				.kdTree(KDTree.bulkLoad(objects(
+						"25.1967512,55.2732038",
+						"25.1962077,55.2714443",
+						"25.1954312,55.2811432")))
+				.maxDeltaSize(0)
+				.executor(tasks::add)
+				.build();
+		kdTree.insert(object("4", 25.2012544, 55.2569389));
+		kdTree.delete("1");
+
+		CompletableFuture<Void> rebuild = kdTree.balance();
+		Assertions.assertSame(rebuild, kdTree.balance());
+
+		// Writes applied after the rebuild started, replacing an object of the delta and of the tree
+		kdTree.delete("4");
+		kdTree.insert(object("4", 25.1954312, 55.2811432));
+		kdTree.delete("2");
+		kdTree.insert(object("2", 25.2012544, 55.2569389));
+		kdTree.insert(object("1", 25.1967512, 55.2732038));
+
+		tasks.remove().run();
+		Assertions.assertTrue(rebuild.isDone());
+		Assertions.assertEquals(4, kdTree.getSize());
+		Assertions.assertEquals("2", kdTree.findNearest(POINT, 2).getKdTreeObject().getId());
+		Assertions.assertEquals("[1, 2, 3, 4]", ids(kdTree.findInRange(BOUNDING_BOX)));
+
+		kdTree.balance();
+		tasks.remove().run();
+		Assertions.assertEquals("[1, 2, 3, 4]", ids(kdTree.findInRange(BOUNDING_BOX)));
+	}
+
+	@Test
+	public void testRandomWrites_matchKDTree() {
+		Random random = new Random(42);
+		SnapshotKDTree<String, Object> kdTree = new SnapshotKDTree.Builder<String, Object>()
+				.maxDeltaSize(16)
+				.executor(Runnable::run)
+				.build();
+		Map<String, KDTreeObject<String, Object>> expected = new HashMap<>();
+
+		for (int i = 0; i < 2000; i++) {
+			String id = String.valueOf(random.nextInt(200));
+			if (expected.containsKey(id)) {
+				Assertions.assertTrue(kdTree.delete(id));
+				expected.remove(id);
+			}
+			else {
+				KDTreeObject<String, Object> object =
+						object(id, 25.1 + random.nextDouble() * 0.2, 55.1 + random.nextDouble() * 0.2);
+				kdTree.insert(object);
+				expected.put(id, object);
+			}
+		}
+
+		KDTree<String, Object> expectedTree = KDTree.bulkLoad(new ArrayList<>(expected.values()));
+		Assertions.assertEquals(expected.size(), kdTree.getSize());
+		Assertions.assertEquals(ids(expectedTree.findInRange(BOUNDING_BOX)), ids(kdTree.findInRange(BOUNDING_BOX)));
+		Assertions.assertEquals(ids(expectedTree.findNearestNeighbor(POINT, 5)), ids(kdTree.findNearestNeighbor(POINT, 5)));
+		Assertions.assertEquals(
+				expectedTree.findKNearest(POINT, 10, 50).stream()
+						.map(KDTreeNearestNeighbor::getDistance)
+						.collect(Collectors.toList()),
+				kdTree.findKNearest(POINT, 10, 50).stream()
+						.map(KDTreeNearestNeighbor::getDistance)
+						.collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testBuilder_throwsForInvalidConfiguration() {
+		GeoAssistException geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> new SnapshotKDTree.Builder<String, Object>().maxDeltaSize(-1).build());
+		Assertions.assertEquals("maxDeltaSize can not be negative", geoAssistException.getMessage());
+
+		geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> new SnapshotKDTree.Builder<String, Object>().executor(null).build());
+		Assertions.assertEquals("executor can not be null", geoAssistException.getMessage());
+
+		geoAssistException = Assertions.assertThrows(GeoAssistException.class,
+				() -> new SnapshotKDTree<String, Object>().insert(object(null, 0, 0)));
+		Assertions.assertEquals("id can not be null", geoAssistException.getMessage());
+	}
+
+	private static List<KDTreeObject<String, Object>> objects(String... coordinates) {
+		List<KDTreeObject<String, Object>> objects = new ArrayList<>();
+		TestKDTree.init(objects::add, coordinates);
+		return objects;
+	}
+
+	private static KDTreeObject<String, Object> object(String id, double latitude, double longitude) {
+		return new KDTreeObject.Builder<String, Object>()
+				.id(id)
+				.latitude(latitude)
+				.longitude(longitude)
+				.build();
+	}
+
+	private static String ids(List<KDTreeObject<String, Object>> objects) {
+		return objects.stream()
+				.map(KDTreeObject::getId)
+				.sorted(Comparator.comparing(Integer::valueOf))
+				.collect(Collectors.toList())
+				.toString();
+	}
+}
@@ -0,0 +1,304 @@
+package com.thegeekyasian.geoassist.rtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.thegeekyasian.geoassist.core.GeoAssistException;
+import com.thegeekyasian.geoassist.kdtree.DistanceMetric;
+import com.thegeekyasian.geoassist.kdtree.geometry.BoundingBox;
+import com.thegeekyasian.geoassist.kdtree.geometry.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestRTree class is a test class for the RTree.
+ * It is used to test that the searches of the STR-packed tree return the same rectangles as a linear scan.
+ *
+ * @author The Geeky Asian
+ */
+public class TestRTree {
+
+	@Test
+	public void testSearches_matchLinearScan() {
+		Random random = new Random(31);
+		List<RTreeObject<Long, Object>> objects = new ArrayList<>();
+		for (long i = 0; i < 5000; i++) {
+			double latitude = 25 + random.nextDouble();
+			double longitude = 55 + random.nextDouble();
+			objects.add(object(i, box(latitude, longitude,
+					latitude + random.nextDouble() * 0.05, longitude + random.nextDouble() * 0.05)));
+		}
+
+		for (int nodeCapacity : new int[] {2, 5, 16}) {
+			RTree<Long, Object> rTree = new RTree.Builder<Long, Object>()
+					.nodeCapacity(nodeCapacity)
+					.objects(objects)
+					.build();
+			Assertions.assertEquals(5000, rTree.getSize());
+
+			for (int i = 0; i < 50; i++) {
+				double latitude = 25 + random.nextDouble();
+				double longitude = 55 + random.nextDouble();
+				BoundingBox query = box(latitude, longitude, latitude + 0.02, longitude + 0.01);
+				Point point = point(latitude, longitude);
+
+				Assertions.assertEquals(ids(objects, object -> intersects(object.getBoundingBox(), query)),
+						sortedIds(rTree.findIntersecting(query)));
+				Assertions.assertEquals(ids(objects, object -> contains(object.getBoundingBox(), query)),
+						sortedIds(rTree.findContaining(query)));
+				Assertions.assertEquals(ids(objects, object -> contains(object.getBoundingBox(), box(latitude,
+								longitude, latitude, longitude))),
+						sortedIds(rTree.findContaining(point)));
+
+				double distance = i % 10 == 0 ? 0.01 : 10;
+				double expectedDistance = objects.stream()
+						.mapToDouble(object -> distanceTo(point, object.getBoundingBox()))
+						.filter(objectDistance -> objectDistance <= distance)
+						.min()
+						.orElse(-1);
+				RTreeNearestNeighbor<Long, Object> nearestNeighbor = rTree.findNearest(point, distance);
+				if (expectedDistance < 0) {
+					Assertions.assertNull(nearestNeighbor.getRTreeObject());
+				}
+				else {
+					Assertions.assertEquals(expectedDistance, nearestNeighbor.getDistance(), 1e-9);
+					Assertions.assertEquals(expectedDistance,
+							distanceTo(point, nearestNeighbor.getRTreeObject().getBoundingBox()), 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testFindNearest_returnsZeroDistanceInsideRectangle() {
+		RTree<Long, Object> rTree = RTree.bulkLoad(Collections.singletonList(object(1L, box(25, 55, 26, 56))));
+
+		RTreeNearestNeighbor<Long, Object> nearestNeighbor = rTree.findNearest(point(25.5, 55.5), 1);
+
+		Assertions.assertEquals(1L, nearestNeighbor.getRTreeObject().getId());
+		Assertions.assertEquals(0, nearestNeighbor.getDistance());
+		Assertions.assertNull(rTree.findNearest(point(27, 55.5), 100).getRTreeObject());
+	}
+
+	@Test
+	public void testSearchesAcrossTheAntimeridian_matchLinearScan() {
+		Random random = new Random(37);
+		List<RTreeObject<Long, Object>> objects = new ArrayList<>();
+		for (long i = 0; i < 2000; i++) {
+			// Around Fiji, on both sides of the antimeridian
+			double latitude = -20 + 4 * random.nextDouble();
+			double longitude = random.nextBoolean() ? 176 + 3.9 * random.nextDouble() : -180 + 3.9 * random.nextDouble();
+			objects.add(object(i, box(latitude, longitude,
+					latitude + random.nextDouble() * 0.1, longitude + random.nextDouble() * 0.1)));
+		}
+		objects.add(object(2000L, box(-20, -180, -19, 180)));
+		RTree<Long, Object> rTree = RTree.bulkLoad(objects);
+
+		for (int i = 0; i < 50; i++) {
+			double latitude = -20 + 4 * random.nextDouble();
+			BoundingBox query = box(latitude, 179 + random.nextDouble(), latitude + 0.2, -180 + random.nextDouble());
+			Assertions.assertEquals(ids(objects, object -> intersects(object.getBoundingBox(), part(query, true))
+							|| intersects(object.getBoundingBox(), part(query, false))),
+					sortedIds(rTree.findIntersecting(query)));
+			Assertions.assertEquals(ids(objects, object -> contains(object.getBoundingBox(), part(query, true))
+							&& contains(object.getBoundingBox(), part(query, false))),
+					sortedIds(rTree.findContaining(query)));
+
+			// The nearest rectangle may be across the antimeridian
+			Point point = point(latitude, random.nextBoolean() ? 179.95 : -179.95);
+			double expectedDistance = objects.stream()
+					.mapToDouble(object -> {
+						BoundingBox box = object.getBoundingBox();
+						double closestLatitude = Math.max(box.getLowerPoint().getLatitude(),
+								Math.min(box.getUpperPoint().getLatitude(), point.getLatitude()));
+						return Math.min(distanceTo(point, box), Math.min(
+								DistanceMetric.HAVERSINE.distance(point,
+										point(closestLatitude, box.getLowerPoint().getLongitude())),
+								DistanceMetric.HAVERSINE.distance(point,
+										point(closestLatitude, box.getUpperPoint().getLongitude()))));
+					})
+					.min()
+					.orElse(-1);
+			Assertions.assertEquals(expectedDistance, rTree.findNearest(point, 500).getDistance(), 1e-9);
+		}
+	}
+
+	@Test
+	public void testRectanglesAcrossTheAntimeridian_matchLinearScan() {
+		Random random = new Random(41);
+		List<RTreeObject<Long, Object>> objects = new ArrayList<>();
+		for (long i = 0; i < 2000; i++) {
+			// Around Fiji, every fourth rectangle crossing the antimeridian
+			double latitude = -20 + 4 * random.nextDouble();
+			double longitude = i % 4 == 0 ? 179.9 + 0.1 * random.nextDouble()
+					: random.nextBoolean() ? 176 + 3.9 * random.nextDouble() : -180 + 3.9 * random.nextDouble();
+			double upperLongitude = longitude + random.nextDouble() * 0.1;
+			objects.add(object(i, box(latitude, longitude, latitude + random.nextDouble() * 0.1,
+					upperLongitude > 180 ? upperLongitude - 360 : upperLongitude)));
+		}
+
+		for (int nodeCapacity : new int[] {2, 16}) {
+			RTree<Long, Object> rTree = new RTree.Builder<Long, Object>()
+					.nodeCapacity(nodeCapacity)
+					.objects(objects)
+					.build();
+			Assertions.assertEquals(2000, rTree.getSize());
+
+			for (int i = 0; i < 50; i++) {
+				double latitude = -20 + 4 * random.nextDouble();
+				BoundingBox query = i % 2 == 0
+						? box(latitude, 179.9 + 0.1 * random.nextDouble(), latitude + 0.2, -180 + 0.1 * random.nextDouble())
+						: box(latitude, 179.9 + 0.05 * random.nextDouble(), latitude + 0.2, 179.95);
+				Assertions.assertEquals(ids(objects, object -> slices(object.getBoundingBox()).stream()
+								.anyMatch(slice -> slices(query).stream().anyMatch(part -> intersects(slice, part)))),
+						sortedIds(rTree.findIntersecting(query)));
+				Assertions.assertEquals(ids(objects, object -> slices(query).stream()
+								.allMatch(part -> slices(object.getBoundingBox()).stream()
+										.anyMatch(slice -> contains(slice, part)))),
+						sortedIds(rTree.findContaining(query)));
+
+				Point point = point(latitude, random.nextBoolean() ? 179.97 : -179.97);
+				Assertions.assertEquals(ids(objects, object -> slices(object.getBoundingBox()).stream()
+								.anyMatch(slice -> contains(slice, box(latitude, point.getLongitude(),
+										latitude, point.getLongitude())))),
+						sortedIds(rTree.findContaining(point)));
+				double expectedDistance = objects.stream()
+						.mapToDouble(object -> slices(object.getBoundingBox()).stream()
+								.mapToDouble(slice -> distanceTo(point, slice))
+								.min()
+								.getAsDouble())
+						.min()
+						.orElse(-1);
+				Assertions.assertEquals(expectedDistance, rTree.findNearest(point, 5).getDistance(), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void testVisitor_stopsTheSearch() {
+		List<RTreeObject<Long, Object>> objects = new ArrayList<>();
+		for (long i = 0; i < 100; i++) {
+			objects.add(object(i, box(25, 55, 26, 56)));
+		}
+		RTree<Long, Object> rTree = RTree.bulkLoad(objects);
+
+		List<RTreeObject<Long, Object>> visited = new ArrayList<>();
+		Assertions.assertFalse(rTree.findContaining(point(25.5, 55.5),
+				object -> visited.add(object) && visited.size() < 3));
+		Assertions.assertEquals(3, visited.size());
+	}
+
+	@Test
+	public void testGetByIdAndUpdate() {
+		RTree<Long, Object> rTree = RTree.bulkLoad(Collections.singletonList(object(1L, box(25, 55, 26, 56))));
+		rTree.update(1L, "zone");
+
+		Assertions.assertEquals("zone", rTree.getById(1L).getData());
+		Assertions.assertNull(rTree.getById(2L));
+		Assertions.assertEquals("No object found for provided ID", Assertions.assertThrows(GeoAssistException.class,
+				() -> rTree.update(2L, "zone")).getMessage());
+	}
+
+	@Test
+	public void testEmptyTree_findsNothing() {
+		RTree<Long, Object> rTree = new RTree.Builder<Long, Object>().build();
+
+		Assertions.assertEquals(0, rTree.getSize());
+		Assertions.assertTrue(rTree.findIntersecting(box(-90, -180, 90, 180)).isEmpty());
+		Assertions.assertNull(rTree.findNearest(point(25, 55), 100).getRTreeObject());
+	}
+
+	@Test
+	public void testBuilder_throwsForInvalidObjectsAndConfiguration() {
+		List<RTreeObject<Long, Object>> duplicates = new ArrayList<>();
+		duplicates.add(object(1L, box(25, 55, 26, 56)));
+		duplicates.add(object(1L, box(27, 55, 28, 56)));
+
+		Assertions.assertEquals("Duplicate object provided.", Assertions.assertThrows(GeoAssistException.class,
+				() -> RTree.bulkLoad(duplicates)).getMessage());
+		Assertions.assertEquals("lowerPoint of a boundingBox can not exceed its upperPoint in latitude",
+				Assertions.assertThrows(GeoAssistException.class, () -> RTree.bulkLoad(
+						Collections.singletonList(object(1L, box(26, 55, 25, 56))))).getMessage());
+		Assertions.assertEquals("nodeCapacity must be at least 2", Assertions.assertThrows(GeoAssistException.class,
+				() -> new RTree.Builder<Long, Object>().nodeCapacity(1).build()).getMessage());
+		Assertions.assertEquals("distanceMetric can not be null", Assertions.assertThrows(GeoAssistException.class,
+				() -> new RTree.Builder<Long, Object>().distanceMetric(null).build()).getMessage());
+		Assertions.assertEquals("boundingBox can not be null", Assertions.assertThrows(GeoAssistException.class,
+				() -> new RTreeObject.Builder<Long, Object>().id(1L).build()).getMessage());
+	}
+
+	private static BoundingBox part(BoundingBox boundingBox, boolean isWest) {
+		// The part of a bounding box crossing the antimeridian on one side of it
+		return isWest
+				? box(boundingBox.getLowerPoint().getLatitude(), boundingBox.getLowerPoint().getLongitude(),
+				boundingBox.getUpperPoint().getLatitude(), 180)
+				: box(boundingBox.getLowerPoint().getLatitude(), -180,
+				boundingBox.getUpperPoint().getLatitude(), boundingBox.getUpperPoint().getLongitude());
+	}
+
+	private static List<BoundingBox> slices(BoundingBox boundingBox) {
+		// A bounding box crossing the antimeridian as its parts on either side of it
+		return boundingBox.getLowerPoint().getLongitude() > boundingBox.getUpperPoint().getLongitude()
+				? Arrays.asList(part(boundingBox, true), part(boundingBox, false))
+				: Collections.singletonList(boundingBox);
+	}
+
+	private static boolean intersects(BoundingBox box, BoundingBox other) {
+		return box.getLowerPoint().getLatitude() <= other.getUpperPoint().getLatitude()
+				&& box.getUpperPoint().getLatitude() >= other.getLowerPoint().getLatitude()
+				&& box.getLowerPoint().getLongitude() <= other.getUpperPoint().getLongitude()
+				&& box.getUpperPoint().getLongitude() >= other.getLowerPoint().getLongitude();
+	}
+
+	private static boolean contains(BoundingBox box, BoundingBox other) {
+		return box.getLowerPoint().getLatitude() <= other.getLowerPoint().getLatitude()
+				&& box.getUpperPoint().getLatitude() >= other.getUpperPoint().getLatitude()
+				&& box.getLowerPoint().getLongitude() <= other.getLowerPoint().getLongitude()
+				&& box.getUpperPoint().getLongitude() >= other.getUpperPoint().getLongitude();
+	}
+
+	private static double distanceTo(Point point, BoundingBox box) {
+		return DistanceMetric.HAVERSINE.distance(point, point(
+				Math.max(box.getLowerPoint().getLatitude(),
+						Math.min(box.getUpperPoint().getLatitude(), point.getLatitude())),
+				Math.max(box.getLowerPoint().getLongitude(),
+						Math.min(box.getUpperPoint().getLongitude(), point.getLongitude()))));
+	}
+
+	private static List<Long> ids(List<RTreeObject<Long, Object>> objects, Predicate<RTreeObject<Long, Object>> filter) {
+		return sortedIds(objects.stream().filter(filter).collect(Collectors.toList()));
+	}
+
+	private static List<Long> sortedIds(List<RTreeObject<Long, Object>> objects) {
+		return objects.stream()
+				.map(RTreeObject::getId)
+				.sorted()
+				.collect(Collectors.toList());
+	}
+
+	private static RTreeObject<Long, Object> object(long id, BoundingBox boundingBox) {
+		return new RTreeObject.Builder<Long, Object>()
+				.id(id)
+				.boundingBox(boundingBox)
+				.build();
+	}
+
+	private static BoundingBox box(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+		return new BoundingBox.Builder()
+				.lowerPoint(point(minLatitude, minLongitude))
+				.upperPoint(point(maxLatitude, maxLongitude))
+				.build();
+	}
+
+	private static Point point(double latitude, double longitude) {
+		return new Point.Builder()
+				.latitude(latitude)
+				.longitude(longitude)
+				.build();
+	}
+}